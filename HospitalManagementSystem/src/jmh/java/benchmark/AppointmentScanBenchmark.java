@@ -0,0 +1,125 @@
+package benchmark;
+
+import enums.Status;
+import model.Appointment;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.AppointmentColumnStore;
+import utils.DateUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares scan-heavy appointment queries over the {@code List<Appointment>} object graph
+ * against the same queries over {@link AppointmentColumnStore}.
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar AppointmentScanBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms12g", "-Xmx12g"})
+public class AppointmentScanBenchmark {
+
+    @Param({"1000000", "5000000", "10000000"})
+    private int rows;
+
+    private List<Appointment> appointments;
+    private AppointmentColumnStore columnStore;
+    private String doctorId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        Status[] statuses = {Status.FREE, Status.PENDING, Status.CONFIRMED, Status.CANCELLED, Status.COMPLETED};
+        LocalDate firstDay = LocalDate.of(2024, 1, 1);
+
+        appointments = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Appointment appointment = new Appointment();
+            appointment.setAppointmentId(i + 1);
+            appointment.setDoctorId("D" + (1000 + random.nextInt(200)));
+            appointment.setPatientId("P" + (1000 + random.nextInt(100000)));
+            appointment.setAppointmentTime(DateUtils.joinDateAsString(
+                    firstDay.plusDays(random.nextInt(730)), LocalTime.of(8 + random.nextInt(9), 0)));
+            appointment.setAppointmentStatus(statuses[random.nextInt(statuses.length)]);
+            appointments.add(appointment);
+        }
+
+        columnStore = new AppointmentColumnStore(appointments);
+        doctorId = "D1042";
+    }
+
+    @Benchmark
+    public List<String> patientListOfDoctorObjects() {
+        // Each patient once, in order of first appointment, as the column store returns them
+        Set<String> patients = new LinkedHashSet<>();
+        for (Appointment appointment : appointments) {
+            if (appointment.getDoctorId().equals(doctorId)) {
+                patients.add(appointment.getPatientId());
+            }
+        }
+        return new ArrayList<>(patients);
+    }
+
+    @Benchmark
+    public List<String> patientListOfDoctorColumns() {
+        return columnStore.getPatientIdsOfDoctor(doctorId);
+    }
+
+    @Benchmark
+    public Map<Status, Integer> statusCountsObjects() {
+        Map<Status, Integer> counts = new EnumMap<>(Status.class);
+        for (Appointment appointment : appointments) {
+            counts.merge(appointment.getAppointmentStatus(), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    @Benchmark
+    public Map<Status, Integer> statusCountsColumns() {
+        return columnStore.countByStatus();
+    }
+
+    @Benchmark
+    public List<Appointment> bookedAppointmentsObjects() {
+        List<Appointment> booked = new ArrayList<>();
+        for (Appointment appointment : appointments) {
+            if (appointment.getAppointmentStatus() != Status.FREE) {
+                booked.add(appointment);
+            }
+        }
+        return booked;
+    }
+
+    @Benchmark
+    public List<Appointment> bookedAppointmentsColumns() {
+        int[] rowIndexes = columnStore.rowsExcludingStatus(Status.FREE);
+        List<Appointment> booked = new ArrayList<>(rowIndexes.length);
+        for (int row : rowIndexes) {
+            booked.add(appointments.get(row));
+        }
+        return booked;
+    }
+}
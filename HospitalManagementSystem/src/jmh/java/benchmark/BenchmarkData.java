@@ -0,0 +1,144 @@
+package benchmark;
+
+import constants.FilePath;
+import main.DataGenerator;
+import security.Encryptor;
+import storage.CsvStorageEngine;
+import storage.InMemoryStorageEngine;
+import storage.Table;
+import utils.HospitalClock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Datasets for the benchmarks, generated by {@link DataGenerator} with its default seed around today's date.
+ *
+ * <p>A dataset is generated once per size, format and day into {@code hms-benchmark-data} under the
+ * temporary directory (or the directory in {@value #DATA_DIR_PROPERTY}) and reused by later forks and
+ * runs. Repository benchmarks load it into an {@link InMemoryStorageEngine}, so the tables on disk are
+ * never changed. Sealing past appointments, which the benchmarks run once as the startup loader does, and
+ * loading dispensed records still write into the partition directory and archive file of {@link FilePath},
+ * which lie beside the tables (see {@link Table#resolveDataFile(String)}), in the working directory unless
+ * {@value Table#DATA_DIR_PROPERTY} is set; the benchmarks
+ * therefore refuse to start where those already exist, and remove them when they finish.</p>
+ */
+final class BenchmarkData {
+
+    /** System property naming the directory datasets are kept in. */
+    static final String DATA_DIR_PROPERTY = "hms.benchmark.data";
+
+    /** Password given to every account of a loaded dataset, so logging in does not ask for a new one. */
+    static final String PASSWORD = "benchmark1";
+
+    /** Stock given to every medication by {@link #raiseStock}. */
+    private static final String STOCK = String.valueOf(Integer.MAX_VALUE / 2);
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private BenchmarkData() { }
+
+    /**
+     * Returns the directory of a dataset, generating it first if needed.
+     *
+     * @param rows   the number of appointment rows.
+     * @param format the file format, "csv" or "xlsx".
+     * @return the directory holding the dataset's tables.
+     * @throws Exception if the dataset cannot be generated.
+     */
+    static Path dataset(int rows, String format) throws Exception {
+        LocalDate today = HospitalClock.today();
+        Path root = Paths.get(System.getProperty(DATA_DIR_PROPERTY,
+                Paths.get(System.getProperty("java.io.tmpdir"), "hms-benchmark-data").toString()));
+        Path directory = root.resolve(format + "-" + rows + "-" + DataGenerator.DEFAULT_SEED + "-" + today);
+        Path complete = directory.resolve("complete");
+        if (!Files.exists(complete)) {
+            new DataGenerator(DataGenerator.DEFAULT_SEED, rows, today)
+                    .generate(format, directory, Runtime.getRuntime().availableProcessors());
+            Files.createFile(complete);
+        }
+        return directory;
+    }
+
+    /**
+     * Loads the CSV tables of a dataset into memory, with every account's password set to {@link #PASSWORD}.
+     *
+     * @param rows the number of appointment rows.
+     * @return an engine holding the dataset.
+     * @throws Exception if the dataset cannot be generated or read.
+     */
+    static InMemoryStorageEngine load(int rows) throws Exception {
+        Path directory = dataset(rows, CsvStorageEngine.EXTENSION);
+        CsvStorageEngine csv = new CsvStorageEngine();
+        String password = Encryptor.encrypt(PASSWORD);
+
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        for (Table table : Table.values()) {
+            List<List<String>> tableRows = new ArrayList<>();
+            for (List<String> row : csv.readAll(directory.resolve(table.getFileName() + "." + CsvStorageEngine.EXTENSION))) {
+                tableRows.add(new ArrayList<>(row));
+            }
+            if (table == Table.ACCOUNTS) {
+                for (int i = 1; i < tableRows.size(); i++) {
+                    tableRows.get(i).set(1, password);
+                }
+            }
+            engine.write(table, tableRows);
+        }
+        return engine;
+    }
+
+    /**
+     * Raises the stock of every medication high enough that dispensing never runs out during a benchmark.
+     *
+     * @param engine the engine holding a loaded dataset.
+     * @throws IOException if the inventory cannot be rewritten.
+     */
+    static void raiseStock(InMemoryStorageEngine engine) throws IOException {
+        List<List<String>> medications = engine.readAll(Table.MEDICAL_INVENTORY);
+        for (int i = 1; i < medications.size(); i++) {
+            medications.get(i).set(1, STOCK);
+        }
+        engine.write(Table.MEDICAL_INVENTORY, medications);
+    }
+
+    /**
+     * Checks that no appointment partitions or medical record archive exist yet, so the ones the
+     * benchmark creates can be removed afterwards without touching other data.
+     *
+     * @throws IllegalStateException if either exists.
+     */
+    static void requireNoSealedData() {
+        for (String defaultPath : new String[] {FilePath.APPOINTMENT_PARTITIONS_DIR_PATH, FilePath.MEDICAL_RECORD_ARCHIVE_FILE_PATH}) {
+            String path = Table.resolveDataFile(defaultPath);
+            if (Files.exists(Paths.get(path))) {
+                throw new IllegalStateException(path + " already exists; move it away or run the benchmarks from another working directory");
+            }
+        }
+    }
+
+    /**
+     * Removes the appointment partitions and medical record archive created while sealing and loading a dataset.
+     *
+     * @throws IOException if they cannot be removed.
+     */
+    static void removeSealedData() throws IOException {
+        Files.deleteIfExists(Paths.get(Table.resolveDataFile(FilePath.MEDICAL_RECORD_ARCHIVE_FILE_PATH)));
+        Path partitions = Paths.get(Table.resolveDataFile(FilePath.APPOINTMENT_PARTITIONS_DIR_PATH));
+        if (Files.exists(partitions)) {
+            try (Stream<Path> files = Files.walk(partitions)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
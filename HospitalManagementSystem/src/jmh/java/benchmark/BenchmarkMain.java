@@ -0,0 +1,51 @@
+package benchmark;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}. Takes the same options as the JMH launcher, and unless
+ * {@code -rf} or {@code -rff} say otherwise writes the results as JSON to
+ * {@code jmh-result-<date>-<time>.json} in the working directory, so every run leaves a file that
+ * can be compared with earlier runs.
+ */
+public final class BenchmarkMain {
+
+    /** Format of the timestamp in the default result file name. */
+    private static final DateTimeFormatter RESULT_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    /**
+     * Private constructor to prevent instantiation of this entry point.
+     */
+    private BenchmarkMain() { }
+
+    /**
+     * Runs the benchmarks selected by the arguments.
+     *
+     * @param args the JMH command line options.
+     * @throws Exception if the benchmarks cannot be run.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>();
+        try {
+            CommandLineOptions commandLine = new CommandLineOptions(args);
+            if (!commandLine.getResultFormat().hasValue()) {
+                options.addAll(Arrays.asList("-rf", "json"));
+            }
+            if (!commandLine.getResult().hasValue()) {
+                options.addAll(Arrays.asList("-rff", "jmh-result-" + LocalDateTime.now().format(RESULT_TIMESTAMP) + ".json"));
+            }
+        } catch (CommandLineOptionException e) {
+            // Left to the JMH launcher to report
+        }
+        options.addAll(Arrays.asList(args));
+        Main.main(options.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import storage.CsvStorageEngine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures bulk import and export of an appointment-shaped CSV file through {@link CsvStorageEngine}.
+ * Scores are per file; divide {@code rows} by the score for rows per second.
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar CsvEngineBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CsvEngineBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    private final CsvStorageEngine engine = new CsvStorageEngine();
+    private List<List<String>> table;
+    private Path csvFile;
+    private Path outputFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        table = new ArrayList<>(rows + 1);
+        table.add(Arrays.asList("Appointment ID", "Doctor ID", "Patient ID", "Appointment Time", "Status"));
+        for (int i = 0; i < rows; i++) {
+            table.add(Arrays.asList(String.valueOf(i + 1), "D" + (1000 + random.nextInt(200)),
+                    "P" + (1000 + random.nextInt(100000)), "18-Nov-2024 2:00:00 PM", "COMPLETED"));
+        }
+
+        csvFile = Files.createTempFile("appointments", ".csv");
+        outputFile = Files.createTempFile("appointments-out", ".csv");
+        engine.write(csvFile, table);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(outputFile);
+    }
+
+    /** Parses every row without touching the fields, the cost of a pass that filters on few columns. */
+    @Benchmark
+    public void scanRows(Blackhole blackhole) throws IOException {
+        engine.read(csvFile, blackhole::consume);
+    }
+
+    /** Parses every row and decodes the key column, as a loader that indexes rows by ID does. */
+    @Benchmark
+    public void readKeyColumn(Blackhole blackhole) throws IOException {
+        engine.read(csvFile, row -> blackhole.consume(row.get(0)));
+    }
+
+    @Benchmark
+    public void writeRows() throws IOException {
+        engine.write(outputFile, table);
+    }
+}
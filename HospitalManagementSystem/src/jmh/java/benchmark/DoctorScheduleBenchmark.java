@@ -0,0 +1,122 @@
+package benchmark;
+
+import constants.FilePath;
+import enums.Status;
+import model.Appointment;
+import model.Doctor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.AppointmentRepository;
+import storage.InMemoryStorageEngine;
+import storage.StorageEngines;
+import storage.Table;
+import utils.DateUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AppointmentRepository#getDoctorSchedule} over a hot list of {@code rows} future
+ * appointments, against the same query written the way it was before the formatters were shared:
+ * a new {@link DateTimeFormatter} and a separate parse for the date and for the time of every row.
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar DoctorScheduleBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class DoctorScheduleBenchmark {
+
+    @Param({"1000000"})
+    private int rows;
+
+    private AppointmentRepository appointmentRepository;
+    private Doctor doctor;
+    private LocalDate dateChoice;
+    private boolean createdPartitionDirectory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        Status[] statuses = {Status.FREE, Status.PENDING, Status.CONFIRMED, Status.CANCELLED, Status.COMPLETED};
+        LocalDate firstDay = LocalDate.now().plusDays(1);
+
+        List<List<String>> table = new ArrayList<>(rows + 1);
+        table.add(Arrays.asList("Appointment ID", "Doctor ID", "Patient ID", "Appointment Time", "Status"));
+        for (int i = 0; i < rows; i++) {
+            table.add(Arrays.asList(String.valueOf(i + 1), "D" + (1000 + random.nextInt(200)),
+                    "P" + (1000 + random.nextInt(100000)),
+                    DateUtils.joinDateAsString(firstDay.plusDays(random.nextInt(365)), LocalTime.of(8 + random.nextInt(9), 30 * random.nextInt(2))),
+                    statuses[random.nextInt(statuses.length)].getDisplayValue()));
+        }
+
+        InMemoryStorageEngine engine = new InMemoryStorageEngine();
+        engine.write(Table.APPOINTMENTS, table);
+        StorageEngines.set(engine);
+
+        createdPartitionDirectory = !Files.exists(Paths.get(Table.resolveDataFile(FilePath.APPOINTMENT_PARTITIONS_DIR_PATH)));
+        appointmentRepository = new AppointmentRepository();
+        doctor = new Doctor();
+        doctor.setDoctorId("D1042");
+        dateChoice = firstDay;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Path partitions = Paths.get(Table.resolveDataFile(FilePath.APPOINTMENT_PARTITIONS_DIR_PATH));
+        if (createdPartitionDirectory) {
+            Files.deleteIfExists(partitions);
+        }
+    }
+
+    @Benchmark
+    public List<Appointment> doctorSchedule() {
+        return appointmentRepository.getDoctorSchedule(doctor, dateChoice);
+    }
+
+    @Benchmark
+    public List<Appointment> doctorSchedulePerRowFormatters() {
+        List<Appointment> doctorSchedule = new ArrayList<>();
+        for (Appointment appointment : appointmentRepository.getAppointmentList()) {
+            if (appointment.getDoctorId().equals(doctor.getDoctorId())) {
+                Status status = appointment.getAppointmentStatus();
+                if (status == Status.FREE || status == Status.PENDING || status == Status.CONFIRMED) {
+                    LocalDate appointmentDate = LocalDateTime.parse(appointment.getAppointmentTime(),
+                            DateTimeFormatter.ofPattern("dd-MMM-yyyy h:mm:ss a")).toLocalDate();
+                    LocalTime appointmentTime = LocalDateTime.parse(appointment.getAppointmentTime(),
+                            DateTimeFormatter.ofPattern("dd-MMM-yyyy h:mm:ss a")).toLocalTime();
+                    if ((appointmentDate.equals(dateChoice) && appointmentTime.isAfter(LocalTime.now()))
+                            || appointmentDate.isAfter(LocalDate.now())) {
+                        doctorSchedule.add(appointment);
+                    }
+                }
+            }
+        }
+        return doctorSchedule;
+    }
+}
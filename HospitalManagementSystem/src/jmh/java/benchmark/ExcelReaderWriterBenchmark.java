@@ -0,0 +1,88 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import services.ExcelReaderWriter;
+import storage.ExcelStorageEngine;
+import storage.Table;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link ExcelReaderWriter} on the appointments workbook of a generated dataset of {@code rows}
+ * appointments: parsing the workbook, serving it from the table snapshot, and writing it back whole
+ * and streamed.
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar ExcelReaderWriterBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ExcelReaderWriterBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int rows;
+
+    private String workbook;
+    private List<List<String>> data;
+    private Path outputDirectory;
+    private String output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        workbook = BenchmarkData.dataset(rows, ExcelStorageEngine.EXTENSION)
+                .resolve(Table.APPOINTMENTS.getFileName() + "." + ExcelStorageEngine.EXTENSION).toString();
+        data = ExcelReaderWriter.read(workbook);
+        outputDirectory = Files.createTempDirectory("hms-excel-benchmark");
+        output = outputDirectory.resolve(Table.APPOINTMENTS.getFileName() + "." + ExcelStorageEngine.EXTENSION).toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(outputDirectory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<List<String>> readWorkbook() throws IOException {
+        return ExcelReaderWriter.readExternal(workbook);
+    }
+
+    @Benchmark
+    public List<List<String>> readSnapshot() throws IOException {
+        return ExcelReaderWriter.read(workbook);
+    }
+
+    @Benchmark
+    public void write() throws IOException {
+        ExcelReaderWriter.write(data, output);
+    }
+
+    @Benchmark
+    public long writeStreaming() throws IOException {
+        return ExcelReaderWriter.writeStreaming(data, output);
+    }
+}
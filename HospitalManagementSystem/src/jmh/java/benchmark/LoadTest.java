@@ -0,0 +1,533 @@
+package benchmark;
+
+import enums.Role;
+import enums.Status;
+import main.DataGenerator;
+import model.Appointment;
+import model.MedicalRecord;
+import model.Medication;
+import services.AuthenticationService;
+import services.HospitalApi;
+import services.RepositoryContext;
+import storage.CsvStorageEngine;
+import storage.InMemoryStorageEngine;
+import storage.JournaledStorageEngine;
+import storage.StorageEngines;
+import storage.Table;
+import utils.DateUtils;
+import utils.HospitalClock;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Replays a shift of work against {@link HospitalApi} and {@link AuthenticationService} from many simulated
+ * users at once, and reports the throughput and the p50, p99 and p99.9 latency of each kind of operation.
+ *
+ * <p>The operations follow a day at the hospital: patients log in and book free slots, doctors approve the
+ * bookings and complete confirmed appointments with a new medical record, and pharmacists dispense the
+ * prescriptions. Each operation takes its work from a queue that the operation before it fills, seeded
+ * from the upcoming appointments and pending prescriptions of a generated dataset (see {@link BenchmarkData}),
+ * and includes the listing its menu shows first. An operation that finds its queue empty is counted as idle
+ * and not timed. Users pick their next operation at random by weight, or walk a script of operations, and
+ * only the operations that start after the warmup are reported.</p>
+ *
+ * <p>Start with {@code java -cp target/benchmarks.jar benchmark.LoadTest [options]} from an empty working
+ * directory:</p>
+ * <ul>
+ *   <li>{@code --rows N}: appointment rows of the dataset, default {@value #DEFAULT_ROWS}.</li>
+ *   <li>{@code --users N}: concurrent simulated users, default {@value #DEFAULT_USERS}.</li>
+ *   <li>{@code --duration S}: seconds measured, default {@value #DEFAULT_DURATION}.</li>
+ *   <li>{@code --warmup S}: seconds run before measuring, default {@value #DEFAULT_WARMUP}.</li>
+ *   <li>{@code --mix login=W,book=W,...}: weight of each operation, default {@value #DEFAULT_MIX}.</li>
+ *   <li>{@code --script FILE}: operations to replay instead, one per line, which each user walks
+ *       in a loop from its own starting line.</li>
+ *   <li>{@code --think MS}: mean pause of a user between operations, default none.</li>
+ *   <li>{@code --storage memory|csv}: keep the tables in memory, or in journaled CSV files in a
+ *       temporary directory; default memory.</li>
+ *   <li>{@code --seed S}: random seed, default the dataset's.</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final int DEFAULT_ROWS = 100000;
+    private static final int DEFAULT_USERS = 32;
+    private static final int DEFAULT_DURATION = 30;
+    private static final int DEFAULT_WARMUP = 5;
+    private static final String DEFAULT_MIX = "login=20,book=30,approve=20,complete=15,dispense=15";
+
+    /** Percentiles reported for every operation. */
+    private static final double[] PERCENTILES = {0.50, 0.99, 0.999};
+
+    /** The operations of a shift, in the order work flows through them. */
+    private enum Operation {
+        LOGIN, BOOK, APPROVE, COMPLETE, DISPENSE;
+
+        static Operation parse(String name) {
+            for (Operation operation : values()) {
+                if (operation.name().equalsIgnoreCase(name.trim())) {
+                    return operation;
+                }
+            }
+            throw new IllegalArgumentException("Unknown operation " + name + ", expected one of " + Arrays.toString(values()));
+        }
+    }
+
+    /** How an operation ended. */
+    private enum Outcome {
+        DONE, REJECTED, IDLE
+    }
+
+    private final int users;
+    private final long seed;
+    private final int[] weights;
+    private final List<Operation> script;
+    private final int thinkMillis;
+
+    private final HospitalApi api = new HospitalApi();
+    private final AuthenticationService authenticator = new AuthenticationService();
+    private final List<String> patientAccounts = new ArrayList<>();
+    private final List<String> patientIds = new ArrayList<>();
+    private final List<String> medicineNames = new ArrayList<>();
+    private final Queue<Appointment> freeSlots = new ConcurrentLinkedQueue<>();
+    private final Queue<Appointment> pendingAppointments = new ConcurrentLinkedQueue<>();
+    private final Queue<Appointment> confirmedAppointments = new ConcurrentLinkedQueue<>();
+    private final Queue<Integer> pendingRecords = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Prepares a load test on the tables installed in {@link StorageEngines}.
+     *
+     * @param users       the number of simulated users.
+     * @param seed        the random seed.
+     * @param weights     the weight of each operation, by ordinal, or {@code null} to replay a script.
+     * @param script      the operations to replay, or {@code null} to pick them by weight.
+     * @param thinkMillis the mean pause between operations, in milliseconds.
+     * @throws Exception if the repositories cannot be loaded.
+     */
+    private LoadTest(int users, long seed, int[] weights, List<Operation> script, int thinkMillis) throws Exception {
+        this.users = users;
+        this.seed = seed;
+        this.weights = weights;
+        this.script = script;
+        this.thinkMillis = thinkMillis;
+
+        for (List<String> account : StorageEngines.get().readAll(Table.ACCOUNTS)) {
+            if (account.get(2).equals(Role.PATIENT.getDisplayValue())) {
+                patientAccounts.add(account.get(0));
+            }
+        }
+        List<List<String>> patients = StorageEngines.get().readAll(Table.PATIENT_INFO);
+        for (int i = 1; i < patients.size(); i++) {
+            patientIds.add(patients.get(i).get(1));
+        }
+        for (Medication medication : api.listInventory()) {
+            medicineNames.add(medication.getMedicineName());
+        }
+
+        List<Appointment> free = new ArrayList<>();
+        List<Appointment> pending = new ArrayList<>();
+        List<Appointment> confirmed = new ArrayList<>();
+        long now = HospitalClock.currentEpochMinute();
+        for (Appointment appointment : RepositoryContext.get().getAppointmentRepository().getAppointmentList()) {
+            if (DateUtils.toEpochMinute(appointment.getAppointmentTime()) <= now) {
+                continue;
+            }
+            Status status = appointment.getAppointmentStatus();
+            if (status == Status.FREE || status == Status.CANCELLED) {
+                free.add(appointment);
+            } else if (status == Status.PENDING) {
+                pending.add(appointment);
+            } else if (status == Status.CONFIRMED) {
+                confirmed.add(appointment);
+            }
+        }
+        Random random = new Random(seed);
+        Collections.shuffle(free, random);
+        Collections.shuffle(pending, random);
+        Collections.shuffle(confirmed, random);
+        freeSlots.addAll(free);
+        pendingAppointments.addAll(pending);
+        confirmedAppointments.addAll(confirmed);
+        for (MedicalRecord record : api.listPendingOutcomes()) {
+            pendingRecords.add(record.getId());
+        }
+
+        System.out.printf("%d patients, %d free slots, %d pending and %d confirmed appointments, %d pending prescriptions%n",
+                patientIds.size(), freeSlots.size(), pendingAppointments.size(), confirmedAppointments.size(), pendingRecords.size());
+    }
+
+    /**
+     * Runs a load test from the command line options, see the class description.
+     *
+     * @param args the options.
+     * @throws Exception if an option is invalid, the dataset cannot be loaded or an operation fails.
+     */
+    public static void main(String[] args) throws Exception {
+        int rows = DEFAULT_ROWS;
+        int users = DEFAULT_USERS;
+        int duration = DEFAULT_DURATION;
+        int warmup = DEFAULT_WARMUP;
+        String mix = DEFAULT_MIX;
+        Path scriptFile = null;
+        int thinkMillis = 0;
+        String storage = "memory";
+        long seed = DataGenerator.DEFAULT_SEED;
+
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--rows":
+                    rows = Integer.parseInt(value.replace("_", ""));
+                    break;
+                case "--users":
+                    users = Integer.parseInt(value);
+                    break;
+                case "--duration":
+                    duration = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(value);
+                    break;
+                case "--mix":
+                    mix = value;
+                    break;
+                case "--script":
+                    scriptFile = Paths.get(value);
+                    break;
+                case "--think":
+                    thinkMillis = Integer.parseInt(value);
+                    break;
+                case "--storage":
+                    storage = value;
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+        if (!storage.equals("memory") && !storage.equals(CsvStorageEngine.EXTENSION)) {
+            throw new IllegalArgumentException("Unknown storage " + storage + ", expected memory or csv");
+        }
+        int[] weights = scriptFile == null ? parseMix(mix) : null;
+        List<Operation> script = scriptFile == null ? null : parseScript(scriptFile);
+
+        BenchmarkData.requireNoSealedData();
+        Path workDirectory = null;
+        try {
+            InMemoryStorageEngine tables = BenchmarkData.load(rows);
+            BenchmarkData.raiseStock(tables);
+            if (storage.equals("memory")) {
+                StorageEngines.set(tables);
+            } else {
+                workDirectory = Files.createTempDirectory("hms-load-test");
+                CsvStorageEngine csv = new CsvStorageEngine();
+                for (Table table : Table.values()) {
+                    csv.write(workDirectory.resolve(table.getFileName() + "." + CsvStorageEngine.EXTENSION), tables.readAll(table));
+                }
+                System.setProperty(Table.DATA_DIR_PROPERTY, workDirectory.toString());
+                StorageEngines.set(new JournaledStorageEngine(csv, workDirectory.resolve("Journal.log")));
+            }
+            RepositoryContext.get().getAppointmentRepository().sealPastMonths(); // As at startup
+
+            new LoadTest(users, seed, weights, script, thinkMillis).run(warmup, duration);
+        } finally {
+            BenchmarkData.removeSealedData();
+            if (workDirectory != null) {
+                try (Stream<Path> files = Files.walk(workDirectory)) {
+                    for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                        Files.delete(file);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses operation weights such as {@code login=20,book=30}. Operations left out are never picked.
+     */
+    private static int[] parseMix(String mix) {
+        int[] weights = new int[Operation.values().length];
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight in --mix, got " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight for " + parts[0]);
+            }
+            weights[Operation.parse(parts[0]).ordinal()] = weight;
+        }
+        if (Arrays.stream(weights).sum() == 0) {
+            throw new IllegalArgumentException("--mix gives no operation a weight");
+        }
+        return weights;
+    }
+
+    /**
+     * Reads a script of operations, one per line. Blank lines and text after {@code #} are ignored.
+     */
+    private static List<Operation> parseScript(Path scriptFile) throws IOException {
+        List<Operation> script = new ArrayList<>();
+        for (String line : Files.readAllLines(scriptFile, StandardCharsets.UTF_8)) {
+            int comment = line.indexOf('#');
+            String name = (comment >= 0 ? line.substring(0, comment) : line).trim();
+            if (!name.isEmpty()) {
+                script.add(Operation.parse(name));
+            }
+        }
+        if (script.isEmpty()) {
+            throw new IllegalArgumentException(scriptFile + " lists no operations");
+        }
+        return script;
+    }
+
+    /**
+     * Runs the simulated users for the warmup and the measured period, then prints the report.
+     *
+     * @param warmupSeconds   seconds run before measuring.
+     * @param durationSeconds seconds measured.
+     * @throws Exception if an operation failed.
+     */
+    private void run(int warmupSeconds, int durationSeconds) throws Exception {
+        long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureEnd = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        System.out.printf("Running %d users for %d s after a %d s warmup%n", users, durationSeconds, warmupSeconds);
+        Recorder[] recorders = new Recorder[users];
+        Thread[] threads = new Thread[users];
+        for (int user = 0; user < users; user++) {
+            Recorder recorder = new Recorder();
+            int userNumber = user;
+            recorders[user] = recorder;
+            threads[user] = new Thread(() -> {
+                try {
+                    simulate(userNumber, recorder, measureStart, measureEnd, failure);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "load-test-user-" + (user + 1));
+            threads[user].setDaemon(true);
+            threads[user].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        report(recorders, durationSeconds);
+    }
+
+    /**
+     * Performs one user's operations until the end of the measured period or the first failure of any user.
+     */
+    private void simulate(int user, Recorder recorder, long measureStart, long measureEnd,
+                          AtomicReference<Exception> failure) throws Exception {
+        SplittableRandom random = new SplittableRandom(seed * 31 + user);
+        int step = script == null ? 0 : user * script.size() / users;
+        int totalWeight = weights == null ? 0 : Arrays.stream(weights).sum();
+
+        while (failure.get() == null) {
+            long start = System.nanoTime();
+            if (start >= measureEnd) {
+                return;
+            }
+            Operation operation = script != null ? script.get(step++ % script.size()) : pick(random, totalWeight);
+            Outcome outcome = perform(operation, random);
+            long elapsed = System.nanoTime() - start;
+            if (start >= measureStart) {
+                recorder.record(operation, outcome, elapsed);
+            }
+            if (thinkMillis > 0) {
+                Thread.sleep(random.nextInt(2 * thinkMillis + 1));
+            }
+        }
+    }
+
+    private Operation pick(SplittableRandom random, int totalWeight) {
+        int roll = random.nextInt(totalWeight);
+        for (Operation operation : Operation.values()) {
+            roll -= weights[operation.ordinal()];
+            if (roll < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Weights changed while running");
+    }
+
+    /**
+     * Performs one operation, taking its work from its queue and handing the result to the next operation's queue.
+     */
+    private Outcome perform(Operation operation, SplittableRandom random) throws Exception {
+        switch (operation) {
+            case LOGIN: {
+                String hospitalId = patientAccounts.get(random.nextInt(patientAccounts.size()));
+                return authenticator.login(hospitalId, BenchmarkData.PASSWORD) != null ? Outcome.DONE : Outcome.REJECTED;
+            }
+            case BOOK: {
+                Appointment slot = freeSlots.poll();
+                if (slot == null) {
+                    return Outcome.IDLE;
+                }
+                LocalDateTime time = DateUtils.extractDateTime(slot.getAppointmentTime());
+                api.listAvailableSlots(slot.getDoctorId(), time.toLocalDate());
+                if (!api.bookAppointment(patientIds.get(random.nextInt(patientIds.size())), slot.getDoctorId(), time)) {
+                    return Outcome.REJECTED;
+                }
+                pendingAppointments.add(slot);
+                return Outcome.DONE;
+            }
+            case APPROVE: {
+                Appointment appointment = pendingAppointments.poll();
+                if (appointment == null) {
+                    return Outcome.IDLE;
+                }
+                api.getSchedule(appointment.getDoctorId(), DateUtils.extractDate(appointment.getAppointmentTime()));
+                if (!api.approveAppointment(appointment.getDoctorId(), appointment.getAppointmentId())) {
+                    return Outcome.REJECTED;
+                }
+                confirmedAppointments.add(appointment);
+                return Outcome.DONE;
+            }
+            case COMPLETE: {
+                Appointment appointment = confirmedAppointments.poll();
+                if (appointment == null) {
+                    return Outcome.IDLE;
+                }
+                MedicalRecord record = api.completeAppointment(appointment.getDoctorId(), appointment.getAppointmentId(),
+                        "Load test diagnosis", "Load test treatment",
+                        medicineNames.get(random.nextInt(medicineNames.size())), 1 + random.nextInt(3));
+                if (record == null) {
+                    return Outcome.REJECTED;
+                }
+                pendingRecords.add(record.getId());
+                return Outcome.DONE;
+            }
+            case DISPENSE: {
+                Integer recordId = pendingRecords.poll();
+                if (recordId == null) {
+                    return Outcome.IDLE;
+                }
+                api.listPendingOutcomes();
+                return api.dispense(recordId) ? Outcome.DONE : Outcome.REJECTED;
+            }
+            default:
+                throw new IllegalStateException("Unhandled operation " + operation);
+        }
+    }
+
+    /**
+     * Prints the outcomes, throughput and latency percentiles of each operation, then of all of them.
+     */
+    private static void report(Recorder[] recorders, int durationSeconds) {
+        System.out.printf("%n%-10s %10s %10s %10s %10s %10s %10s %10s %10s %10s%n", "Operation", "Timed", "Done",
+                "Rejected", "Idle", "Ops/s", "p50 ms", "p99 ms", "p99.9 ms", "Max ms");
+        List<long[]> all = new ArrayList<>();
+        long[] totals = new long[Outcome.values().length];
+        for (Operation operation : Operation.values()) {
+            long[] outcomes = new long[Outcome.values().length];
+            List<long[]> latencies = new ArrayList<>();
+            for (Recorder recorder : recorders) {
+                latencies.add(recorder.latencies(operation));
+                for (Outcome outcome : Outcome.values()) {
+                    outcomes[outcome.ordinal()] += recorder.outcomes[operation.ordinal()][outcome.ordinal()];
+                }
+            }
+            if (outcomes[Outcome.DONE.ordinal()] + outcomes[Outcome.REJECTED.ordinal()] + outcomes[Outcome.IDLE.ordinal()] == 0) {
+                continue;
+            }
+            all.addAll(latencies);
+            for (int i = 0; i < totals.length; i++) {
+                totals[i] += outcomes[i];
+            }
+            printRow(operation.name().toLowerCase(), outcomes, merge(latencies), durationSeconds);
+        }
+        printRow("all", totals, merge(all), durationSeconds);
+    }
+
+    private static void printRow(String name, long[] outcomes, long[] latencies, int durationSeconds) {
+        StringBuilder row = new StringBuilder(String.format("%-10s %10d %10d %10d %10d %10.1f", name, latencies.length,
+                outcomes[Outcome.DONE.ordinal()], outcomes[Outcome.REJECTED.ordinal()], outcomes[Outcome.IDLE.ordinal()],
+                (double) latencies.length / durationSeconds));
+        for (double percentile : PERCENTILES) {
+            row.append(String.format(" %10.3f", millis(percentile(latencies, percentile))));
+        }
+        row.append(String.format(" %10.3f", millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1])));
+        System.out.println(row);
+    }
+
+    /** Joins the latencies of several users into one sorted array. */
+    private static long[] merge(List<long[]> latencies) {
+        long[] merged = new long[latencies.stream().mapToInt(values -> values.length).sum()];
+        int position = 0;
+        for (long[] values : latencies) {
+            System.arraycopy(values, 0, merged, position, values.length);
+            position += values.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    /** Returns the nearest-rank percentile of sorted latencies. */
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length, rank) - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    /**
+     * The outcomes and latencies of one user's operations. Each user has its own, so recording never contends.
+     */
+    private static final class Recorder {
+
+        private final long[][] outcomes = new long[Operation.values().length][Outcome.values().length];
+        private final long[][] latencies = new long[Operation.values().length][256];
+        private final int[] sizes = new int[Operation.values().length];
+
+        void record(Operation operation, Outcome outcome, long nanos) {
+            int index = operation.ordinal();
+            outcomes[index][outcome.ordinal()]++;
+            if (outcome == Outcome.IDLE) {
+                return;
+            }
+            if (sizes[index] == latencies[index].length) {
+                latencies[index] = Arrays.copyOf(latencies[index], sizes[index] * 2);
+            }
+            latencies[index][sizes[index]++] = nanos;
+        }
+
+        long[] latencies(Operation operation) {
+            return Arrays.copyOf(latencies[operation.ordinal()], sizes[operation.ordinal()]);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.AccountRepository;
+import repository.AppointmentRepository;
+import repository.MedicalRecordRepository;
+import repository.MedicationRepository;
+import repository.PatientRepository;
+import repository.StaffRepository;
+import storage.StorageEngines;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long each repository takes to load from a generated dataset of {@code rows} appointments
+ * held in memory, so only building the repository is timed and not reading files.
+ *
+ * <p>Past months and dispensed records are sealed away once before measuring, as at the first startup
+ * on a new dataset, so every benchmark times the load of a later startup.</p>
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar RepositoryLoadBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RepositoryLoadBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private AppointmentRepository appointmentRepository;
+    private MedicalRecordRepository medicalRecordRepository;
+    private AccountRepository accountRepository;
+
+    /** Repository built by the last {@link #loadMedicalRecords()} invocation, closed after it. */
+    private MedicalRecordRepository loadedMedicalRecordRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkData.requireNoSealedData();
+        StorageEngines.set(BenchmarkData.load(rows));
+        appointmentRepository = new AppointmentRepository();
+        appointmentRepository.sealPastMonths();
+        medicalRecordRepository = new MedicalRecordRepository(appointmentRepository);
+        accountRepository = new AccountRepository();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeLoadedRepository() throws IOException {
+        if (loadedMedicalRecordRepository != null) {
+            loadedMedicalRecordRepository.close(); // Releases its archive file
+            loadedMedicalRecordRepository = null;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        closeLoadedRepository();
+        medicalRecordRepository.close();
+        BenchmarkData.removeSealedData();
+    }
+
+    @Benchmark
+    public AppointmentRepository loadAppointments() throws IOException {
+        return new AppointmentRepository();
+    }
+
+    @Benchmark
+    public MedicalRecordRepository loadMedicalRecords() throws IOException {
+        loadedMedicalRecordRepository = new MedicalRecordRepository(appointmentRepository);
+        return loadedMedicalRecordRepository;
+    }
+
+    @Benchmark
+    public PatientRepository loadPatients() throws IOException {
+        return new PatientRepository(medicalRecordRepository, appointmentRepository);
+    }
+
+    @Benchmark
+    public StaffRepository loadStaff() throws IOException {
+        return new StaffRepository(accountRepository);
+    }
+
+    @Benchmark
+    public MedicationRepository loadMedications() throws IOException {
+        return new MedicationRepository();
+    }
+}
@@ -0,0 +1,120 @@
+package benchmark;
+
+import model.Appointment;
+import model.Doctor;
+import model.MedicalRecord;
+import model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.AccountRepository;
+import repository.AppointmentRepository;
+import repository.MedicalRecordRepository;
+import repository.MedicationRepository;
+import storage.InMemoryStorageEngine;
+import storage.StorageEngines;
+import storage.Table;
+import utils.HospitalClock;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the queries behind the busiest menus on a generated dataset of {@code rows} appointments
+ * held in memory: a doctor's schedule and free slots, a patient's medical records, logging in and
+ * dispensing a medication.
+ *
+ * <p>Logging in uses the last account of the table, the worst case of its scan. Dispensing commits one
+ * unit from a stock raised high enough to never run out while measuring.</p>
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar RepositoryQueryBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RepositoryQueryBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int rows;
+
+    private AppointmentRepository appointmentRepository;
+    private MedicalRecordRepository medicalRecordRepository;
+    private MedicationRepository medicationRepository;
+    private AccountRepository accountRepository;
+    private Doctor doctor;
+    private LocalDate today;
+    private String patientId;
+    private String lastHospitalId;
+    private String medicationName;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        BenchmarkData.requireNoSealedData();
+        InMemoryStorageEngine engine = BenchmarkData.load(rows);
+        BenchmarkData.raiseStock(engine);
+        StorageEngines.set(engine);
+
+        appointmentRepository = new AppointmentRepository();
+        appointmentRepository.sealPastMonths();
+        medicalRecordRepository = new MedicalRecordRepository(appointmentRepository);
+        medicationRepository = new MedicationRepository();
+        accountRepository = new AccountRepository();
+
+        List<Appointment> appointments = appointmentRepository.getAppointmentList();
+        doctor = new Doctor();
+        doctor.setDoctorId(appointments.get(appointments.size() / 2).getDoctorId());
+        today = HospitalClock.today();
+        List<List<String>> patients = engine.readAll(Table.PATIENT_INFO);
+        patientId = patients.get(patients.size() / 2).get(1);
+        List<List<String>> accounts = engine.readAll(Table.ACCOUNTS);
+        lastHospitalId = accounts.get(accounts.size() - 1).get(0);
+        medicationName = medicationRepository.getMedicationList().get(0).getMedicineName();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        medicalRecordRepository.close();
+        BenchmarkData.removeSealedData();
+    }
+
+    @Benchmark
+    public List<Appointment> doctorSchedule() {
+        return appointmentRepository.getDoctorSchedule(doctor, today);
+    }
+
+    @Benchmark
+    public List<LocalTime> availableTimeSlots() {
+        return appointmentRepository.getAvailableTimeSlots(doctor.getDoctorId(), today.plusDays(1));
+    }
+
+    @Benchmark
+    public List<MedicalRecord> medicalRecordsByPatientId() throws IOException {
+        return medicalRecordRepository.getMedicalRecordsByPatientId(patientId);
+    }
+
+    @Benchmark
+    public User login() throws Exception {
+        return accountRepository.login(lastHospitalId, BenchmarkData.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean dispenseMedication() throws IOException {
+        return medicationRepository.dispenseMedication(medicationName, 1);
+    }
+}
@@ -0,0 +1,95 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.DateUtils;
+import utils.TimestampCodec;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares parsing and formatting {@code rows} appointment times with the shared {@link DateTimeFormatter}
+ * against the {@link TimestampCodec}. The times are distinct, so nothing is served from a cache.
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar TimestampCodecBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class TimestampCodecBenchmark {
+
+    private static final DateTimeFormatter FORMATTER = DateUtils.getLocalDateTimeFormatter();
+
+    @Param({"1000000"})
+    private int rows;
+
+    private String[] appointmentTimes;
+    private LocalDateTime[] dateTimes;
+    private long[] epochMinutes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 0, 0);
+        appointmentTimes = new String[rows];
+        dateTimes = new LocalDateTime[rows];
+        epochMinutes = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            dateTimes[i] = start.plusMinutes(random.nextInt(10 * 365 * 24 * 60));
+            appointmentTimes[i] = dateTimes[i].format(FORMATTER);
+            epochMinutes[i] = TimestampCodec.toEpochMinute(dateTimes[i]);
+        }
+    }
+
+    @Benchmark
+    public long parseWithFormatter() {
+        long sum = 0;
+        for (String appointmentTime : appointmentTimes) {
+            sum += TimestampCodec.toEpochMinute(LocalDateTime.parse(appointmentTime, FORMATTER));
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long parseWithCodec() {
+        long sum = 0;
+        for (String appointmentTime : appointmentTimes) {
+            sum += TimestampCodec.parse(appointmentTime);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long formatWithFormatter() {
+        long length = 0;
+        for (LocalDateTime dateTime : dateTimes) {
+            length += dateTime.format(FORMATTER).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long formatWithCodec() {
+        long length = 0;
+        for (long epochMinute : epochMinutes) {
+            length += TimestampCodec.format(epochMinute).length();
+        }
+        return length;
+    }
+}
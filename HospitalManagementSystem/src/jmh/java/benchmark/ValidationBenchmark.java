@@ -0,0 +1,108 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import utils.ValidationEngine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares checking the contact number and email of imported patient rows with {@code String.matches},
+ * as the console validators used to, against the {@link ValidationEngine}, on one thread and on a parallel stream.
+ * Scores are per batch of {@code rows} rows.
+ *
+ * <p>Run with {@code java -jar target/benchmarks.jar ValidationBenchmark}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ValidationBenchmark {
+
+    private static final ValidationEngine.Field[] COLUMNS = {
+        ValidationEngine.Field.HOSPITAL_ID, ValidationEngine.Field.PATIENT_ID, ValidationEngine.Field.TEXT,
+        ValidationEngine.Field.GENDER, ValidationEngine.Field.DATE, ValidationEngine.Field.BLOOD_TYPE,
+        ValidationEngine.Field.EMAIL, ValidationEngine.Field.CONTACT_NO
+    };
+
+    @Param({"1000000"})
+    private int rows;
+
+    private List<String>[] table;
+
+    @SuppressWarnings("unchecked")
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] bloodTypes = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+        table = new List[rows];
+        for (int i = 0; i < rows; i++) {
+            // Roughly one row in twenty has a bad contact number or email
+            String contactNo = String.valueOf(80000000 + random.nextInt(20000000));
+            String email = "patient" + i + "@example.com";
+            if (random.nextInt(20) == 0) {
+                contactNo = contactNo.substring(1);
+            } else if (random.nextInt(20) == 0) {
+                email = "patient" + i + "@example";
+            }
+            table[i] = Arrays.asList("patient" + i, "P" + (1000 + i), "Patient " + i,
+                    random.nextBoolean() ? "MALE" : "FEMALE", String.format("%02d-Mar-19%02d", 1 + random.nextInt(28), random.nextInt(100)),
+                    bloodTypes[random.nextInt(bloodTypes.length)], email, contactNo);
+        }
+    }
+
+    @Benchmark
+    public int stringMatches() {
+        int invalid = 0;
+        for (List<String> row : table) {
+            if (!row.get(7).matches("^\\d{8}$") || !row.get(6).matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$")) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public int engineContactAndEmail() {
+        int invalid = 0;
+        for (List<String> row : table) {
+            if (!ValidationEngine.isContactNo(row.get(7)) || !ValidationEngine.isEmail(row.get(6))) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public long engineWholeRow() {
+        long invalid = 0;
+        for (List<String> row : table) {
+            if (!ValidationEngine.validateRow(COLUMNS, row).isEmpty()) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+
+    @Benchmark
+    public long engineWholeRowParallel() {
+        return Arrays.stream(table).parallel()
+                .filter(row -> !ValidationEngine.validateRow(COLUMNS, row).isEmpty())
+                .count();
+    }
+}
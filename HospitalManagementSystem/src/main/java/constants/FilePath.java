@@ -37,4 +37,16 @@ public final class FilePath {
 	/** Path to the Medical Inventory Excel file. */
 	public static final String MEDICAL_INVENTORY_FILE_PATH = "C:\\NTU\\Y2S1\\SC2002\\HospitalManagementSystem_Final\\HospitalManagementSystem\\src\\main\\resources\\Medicine_List.xlsx";
 
+	/** Path to the memory-mapped archive of sealed (dispensed) medical records. */
+	public static final String MEDICAL_RECORD_ARCHIVE_FILE_PATH = "C:\\NTU\\Y2S1\\SC2002\\HospitalManagementSystem_Final\\HospitalManagementSystem\\src\\main\\resources\\Medical_Records_Archive.bin";
+
+	/** Path to the directory holding sealed monthly appointment partitions. */
+	public static final String APPOINTMENT_PARTITIONS_DIR_PATH = "C:\\NTU\\Y2S1\\SC2002\\HospitalManagementSystem_Final\\HospitalManagementSystem\\src\\main\\resources\\Appointment_Partitions";
+
+	/** Path to the binary snapshot of all tables, used for fast startup. */
+	public static final String SNAPSHOT_FILE_PATH = "C:\\NTU\\Y2S1\\SC2002\\HospitalManagementSystem_Final\\HospitalManagementSystem\\src\\main\\resources\\HMS_Snapshot.bin";
+
+	/** Path to the write-ahead journal of committed but not yet checkpointed table changes. */
+	public static final String JOURNAL_FILE_PATH = "C:\\NTU\\Y2S1\\SC2002\\HospitalManagementSystem_Final\\HospitalManagementSystem\\src\\main\\resources\\HMS_Journal.bin";
+
 }
\ No newline at end of file
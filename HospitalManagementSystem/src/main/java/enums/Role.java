@@ -42,4 +42,23 @@ public enum Role { // fixed options for roles which are patient, doctor, pharmac
     public String getDisplayValue() {
         return displayValue;
     }
+
+    /**
+     * Returns the role matching the given display value, ignoring case.
+     *
+     * @param displayValue the display value read from storage or user input.
+     * @return the matching role.
+     * @throws IllegalArgumentException if no role has the given display value.
+     */
+    public static Role fromDisplayValue(String displayValue) {
+        for (Role role : VALUES) {
+            if (role.displayValue.equalsIgnoreCase(displayValue)) {
+                return role;
+            }
+        }
+        throw new IllegalArgumentException("Unknown role: " + displayValue);
+    }
+
+    // Cached copy of values() so parsing does not clone the array on every call.
+    private static final Role[] VALUES = values();
 }
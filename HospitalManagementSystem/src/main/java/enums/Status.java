@@ -47,4 +47,24 @@ public enum Status {
     public String getDisplayValue() {
         return displayValue;
     }
+
+    /**
+     * Returns the status matching the given display value, ignoring case like {@link Role#fromDisplayValue}.
+     * Used when parsing stored rows so that comparisons afterwards are on enum constants.
+     *
+     * @param displayValue the display value read from storage.
+     * @return the matching status.
+     * @throws IllegalArgumentException if no status has the given display value.
+     */
+    public static Status fromDisplayValue(String displayValue) {
+        for (Status status : VALUES) {
+            if (status.displayValue.equalsIgnoreCase(displayValue)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown status: " + displayValue);
+    }
+
+    // Cached copy of values() so parsing does not clone the array on every call.
+    private static final Status[] VALUES = values();
 }
\ No newline at end of file
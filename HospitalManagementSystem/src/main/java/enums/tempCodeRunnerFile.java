@@ -1 +0,0 @@
-enums
\ No newline at end of file
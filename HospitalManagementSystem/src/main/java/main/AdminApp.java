@@ -1,6 +1,7 @@
 package main;
 
 import services.AdminService;
+import services.PatientImportService;
 import utils.Validator;
 
 import java.util.Scanner;
@@ -17,6 +18,7 @@ import java.util.Scanner;
 public class AdminApp {
     private final Scanner scanner;
     private final AdminService adminService = new AdminService();
+    private final PatientImportService patientImportService = new PatientImportService();
 
     /**
      * Constructor for AdminApp, which initializes the scanner and displays the admin menu.
@@ -44,7 +46,8 @@ public class AdminApp {
             System.out.println("2. View All Scheduled Appointments");
             System.out.println("3. View and Manage Medication Inventory");
             System.out.println("4. Approve Replenishment Requests");
-            System.out.println("5. Logout");
+            System.out.println("5. Import Patients From File");
+            System.out.println("6. Logout");
             System.out.print("Enter your choice: ");
 
             int choice = Validator.validateIntegerInput(scanner);
@@ -63,6 +66,9 @@ public class AdminApp {
                     adminService.approveReplenishRequest(scanner);
                     break;
                 case 5:
+                    patientImportService.displayImportPatientsInput(scanner);
+                    break;
+                case 6:
                     loggedOut = true;
                     System.out.println("Logging out...");
                     break;
@@ -88,7 +94,8 @@ public class AdminApp {
             System.out.println("2. Add Staff");
             System.out.println("3. Update Staff");
             System.out.println("4. Remove Staff");
-            System.out.println("5. Back to Admin Menu");
+            System.out.println("5. Onboard Staff From File");
+            System.out.println("6. Back to Admin Menu");
             System.out.print("Enter your choice: ");
             staffChoice = Validator.validateIntegerInput(scanner);
 
@@ -106,12 +113,15 @@ public class AdminApp {
                     adminService.displayRemoveStaffInput(scanner);
                     break;
                 case 5:
+                    adminService.displayOnboardStaffInput(scanner);
+                    break;
+                case 6:
                     System.out.println("Returning to admin menu...");
                     break;
                 default:
                     System.out.println("Invalid choice! Please try again.");
             }
-        } while (staffChoice != 5);
+        } while (staffChoice != 6);
     }
 
     /**
@@ -1,10 +1,16 @@
 package main;
 
+import java.util.Arrays;
 import java.util.Scanner;
 
 import enums.Role;
 import model.User;
 import services.AuthenticationService;
+import services.RepositoryContext;
+import services.StartupLoader;
+import services.TableSnapshot;
+import storage.StorageEngines;
+import utils.SessionConsole;
 import utils.Validator;
 
 /**
@@ -19,19 +25,45 @@ import utils.Validator;
 
 public class App {
 
-    /** Scanner for reading user input. */
-    static Scanner scanner = new Scanner(System.in);
+    /** Scanner for reading user input, which lets the table change monitor use the repositories while it waits. */
+    static Scanner scanner = new Scanner(new TerminalInputStream(System.in, System.out));
 
     /** Service for handling user authentication. */
     static AuthenticationService authenticator = new AuthenticationService();
 
     /**
      * Main method that serves as the entry point for the application.
+     * With {@code --server [port]}, the system serves many terminals through the {@link SessionServer} instead.
+     * Like a server session, the console holds the repositories while its menus run and releases them
+     * only while it waits for input, so the table change monitor never swaps them under a running menu.
      *
      * @param args the command-line arguments.
      * @throws Exception if an error occurs during execution.
      */
     public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--server")) {
+            SessionServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        StartupLoader.load();
+        RepositoryContext.watchForExternalChanges();
+        SessionConsole.attach(scanner, System.out); // Prompts outside the menus, such as a new password, read this scanner too
+        RepositoryContext.lock();
+        try {
+            runMenu();
+        } finally {
+            RepositoryContext.unlock();
+            SessionConsole.detach();
+        }
+    }
+
+    /**
+     * Shows the login menu until the system is shut down.
+     *
+     * @throws Exception if an error occurs in a session.
+     */
+    private static void runMenu() throws Exception {
         boolean systemOn = true;
 
         while (systemOn) {
@@ -46,6 +78,8 @@ public class App {
                     break;
                 case 2:
                     System.out.println("System Shutting Down....");
+                    StorageEngines.get().checkpoint();
+                    TableSnapshot.checkpoint();
                     systemOn = false;
                     break;
                 default:
@@ -62,7 +96,6 @@ public class App {
      * @throws Exception if an error occurs during the login process or module initialization.
      */
     private static void enterLoginDetails() throws Exception {
-        scanner = new Scanner(System.in);
         System.out.print("Hospital ID: ");
         String hospitalId = scanner.nextLine();  // Wait for user input
         System.out.print("Password: ");
@@ -74,25 +107,41 @@ public class App {
         }
 
         if (userLoggedIn != null) {
-            if (userLoggedIn.getRole().equals(Role.ADMINISTRATOR.getDisplayValue())) {
-                // Start Admin
-                new AdminApp(scanner);
-            }
+            startSession(userLoggedIn, scanner);
 
-            if (userLoggedIn.getRole().equals(Role.PATIENT.getDisplayValue())) {
-                // Start Patient
-                new PatientApp(userLoggedIn.getHospitalId(), scanner);
-            }
+            // Session ended, write journaled changes into the tables and persist the table snapshot for the next startup
+            StorageEngines.get().checkpoint();
+            TableSnapshot.checkpoint();
+            RepositoryContext.invalidate();
+        }
+    }
 
-            if (userLoggedIn.getRole().equals(Role.DOCTOR.getDisplayValue())) {
-                // Start Doctor
-                new DoctorApp(userLoggedIn.getHospitalId(), scanner);
-            }
+    /**
+     * Launches the application module of a logged-in user's role and returns when the user logs out.
+     *
+     * @param userLoggedIn the logged-in user.
+     * @param scanner      the Scanner object for the user's input.
+     * @throws Exception if an error occurs in the module.
+     */
+    static void startSession(User userLoggedIn, Scanner scanner) throws Exception {
+        if (userLoggedIn.getRole() == Role.ADMINISTRATOR) {
+            // Start Admin
+            new AdminApp(scanner);
+        }
 
-            if (userLoggedIn.getRole().equals(Role.PHARMACIST.getDisplayValue())) {
-                // Start Pharmacist
-                new PharmacistApp(scanner);
-            }
+        if (userLoggedIn.getRole() == Role.PATIENT) {
+            // Start Patient
+            new PatientApp(userLoggedIn.getHospitalId(), scanner);
+        }
+
+        if (userLoggedIn.getRole() == Role.DOCTOR) {
+            // Start Doctor
+            new DoctorApp(userLoggedIn.getHospitalId(), scanner);
+        }
+
+        if (userLoggedIn.getRole() == Role.PHARMACIST) {
+            // Start Pharmacist
+            new PharmacistApp(scanner);
         }
     }
 }
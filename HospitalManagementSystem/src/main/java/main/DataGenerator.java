@@ -0,0 +1,550 @@
+/**
+ * The DataGenerator class writes a complete, consistent set of synthetic tables (Accounts, Staff_Info,
+ * Patient_Info, Appointments, Medical_Records and Medicine_List) at a chosen scale, so the system can be
+ * run and measured locally with production-sized data.
+ *
+ * <p>The scale is the number of appointment rows; the other tables follow from it. Each doctor has nine
+ * hourly slots a day, mostly in the past, and every completed appointment has a medical record, dispensed
+ * unless it is from the last few days. One patient is generated per 20 appointments and one doctor per
+ * {@value #SLOTS_PER_DOCTOR} slots. Every account has the default password.</p>
+ *
+ * <p>Each row is computed from the seed, its table and its row number alone, so the same seed, scale and
+ * date always give the same files, however the work is split. The six tables are written at the same time,
+ * and the rows of each table are built in chunks on a pool of worker threads and streamed to the file in
+ * order, so memory stays bounded at any scale. CSV suits every scale; an Excel sheet holds at most
+ * {@link ExcelReaderWriter#MAX_ROWS} rows, which rules out the largest scales.</p>
+ *
+ * <p>Start with {@code java -cp ... main.DataGenerator [options]}:</p>
+ * <ul>
+ *   <li>{@code --rows N}: appointment rows, default {@value #DEFAULT_ROWS}.</li>
+ *   <li>{@code --seed S}: random seed, default {@value #DEFAULT_SEED}.</li>
+ *   <li>{@code --format csv|xlsx}: file format, default csv.</li>
+ *   <li>{@code --out DIR}: directory for the tables, default the locations the system reads
+ *       (see {@link Table#DATA_DIR_PROPERTY}).</li>
+ *   <li>{@code --date YYYY-MM-DD}: the day the data is generated around, default today.</li>
+ *   <li>{@code --threads N}: worker threads, default the number of processors.</li>
+ * </ul>
+ * <p>Run the system on the tables with {@code -Dhms.storage=csv -Dhms.data.dir=DIR}; the journal, the medical
+ * record archive and the appointment partitions are then kept in DIR with the tables, so no data set picks up
+ * another's.</p>
+ */
+package main;
+
+import enums.Gender;
+import enums.Role;
+import enums.Status;
+import security.Encryptor;
+import services.ExcelReaderWriter;
+import storage.CsvStorageEngine;
+import storage.ExcelStorageEngine;
+import storage.Table;
+import storage.TableFiles;
+import utils.DateUtils;
+import utils.HospitalClock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.IntFunction;
+
+public class DataGenerator {
+
+    /** Appointment rows generated when no scale is given. */
+    public static final int DEFAULT_ROWS = 100000;
+
+    /** Seed used when none is given. */
+    public static final long DEFAULT_SEED = 42;
+
+    /** Appointment slots per doctor, which sets the number of doctors. */
+    public static final int SLOTS_PER_DOCTOR = 4500;
+
+    /** Appointments per patient, which sets the number of patients. */
+    private static final int APPOINTMENTS_PER_PATIENT = 20;
+
+    /** Hourly slots per day, from 8 AM to 4 PM. */
+    private static final int SLOTS_PER_DAY = 9;
+
+    /** Medical records of appointments at least this many days old are already dispensed. */
+    private static final int DISPENSED_AFTER_DAYS = 3;
+
+    /** Rows built by one worker task. */
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final String[] MEDICATIONS = {
+        "Paracetamol", "Ibuprofen", "Amoxicillin", "Cetirizine", "Loratadine", "Omeprazole", "Metformin",
+        "Amlodipine", "Atorvastatin", "Salbutamol", "Prednisolone", "Azithromycin", "Doxycycline", "Losartan",
+        "Simvastatin", "Aspirin", "Dextromethorphan", "Guaifenesin", "Ranitidine", "Diclofenac"
+    };
+
+    private static final String[] DIAGNOSES = {
+        "Fever", "Common Cold", "Influenza", "Migraine", "Hypertension", "Type 2 Diabetes", "Asthma",
+        "Gastritis", "Allergic Rhinitis", "Bronchitis", "Sprained Ankle", "Back Pain", "Eczema", "Sinusitis"
+    };
+
+    private static final String[] TREATMENTS = {
+        "More Rest Needed", "Increase Fluid Intake", "Follow-up in Two Weeks", "Dietary Changes",
+        "Physiotherapy", "Monitor Blood Pressure Daily", "Avoid Known Allergens", "Light Exercise"
+    };
+
+    private static final String[] FIRST_NAMES = {
+        "Alice", "Bob", "Charlie", "Diana", "Ethan", "Fiona", "George", "Hannah", "Ivan", "Julia", "Kevin",
+        "Lily", "Marcus", "Nora", "Oscar", "Priya", "Quentin", "Rachel", "Samuel", "Tina", "Uma", "Victor",
+        "Wei Ling", "Xavier", "Yusuf", "Zoe"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Brown", "Smith", "Tan", "Lim", "Lee", "Ng", "Wong", "Kumar", "Garcia", "Chen", "Johnson", "Rahman",
+        "Williams", "Goh", "Ong", "Martin", "Nair", "Teo", "Davis", "Koh"
+    };
+
+    private static final String[] BLOOD_TYPES = {"A+", "A-", "B+", "B-", "AB+", "AB-", "O+", "O-"};
+
+    private static final Gender[] GENDERS = Gender.values();
+
+    private final long seed;
+    private final int appointmentCount;
+    private final int patientCount;
+    private final int doctorCount;
+    private final int pharmacistCount;
+    private final int adminCount;
+    private final LocalDate today;
+    private final LocalDate firstDay;
+    private final long firstSlotMinute;
+    private final String defaultPassword;
+
+    /**
+     * Creates a generator.
+     *
+     * @param seed             the random seed.
+     * @param appointmentCount the number of appointment rows.
+     * @param today            the day the data is generated around.
+     * @throws Exception if the default password cannot be encrypted.
+     */
+    public DataGenerator(long seed, int appointmentCount, LocalDate today) throws Exception {
+        if (appointmentCount <= 0) {
+            throw new IllegalArgumentException("Number of rows must be at least 1");
+        }
+        this.seed = seed;
+        this.appointmentCount = appointmentCount;
+        this.patientCount = Math.max(10, appointmentCount / APPOINTMENTS_PER_PATIENT);
+        this.doctorCount = (appointmentCount + SLOTS_PER_DOCTOR - 1) / SLOTS_PER_DOCTOR;
+        this.pharmacistCount = Math.max(1, doctorCount / 10);
+        this.adminCount = Math.max(1, doctorCount / 50);
+        this.today = today;
+
+        // Four fifths of each doctor's slots lie before today
+        int slotsPerDoctor = (appointmentCount + doctorCount - 1) / doctorCount;
+        this.firstDay = today.minusDays(slotsPerDoctor * 4L / 5 / SLOTS_PER_DAY);
+        this.firstSlotMinute = DateUtils.toEpochMinute(firstDay.atTime(8, 0));
+        this.defaultPassword = Encryptor.encrypt("password"); // Default Password: "password"
+    }
+
+    /**
+     * Generates the tables from the command line options, see the class description.
+     *
+     * @param args the options.
+     * @throws Exception if an option is invalid or a table cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        int rows = DEFAULT_ROWS;
+        long seed = DEFAULT_SEED;
+        String format = CsvStorageEngine.EXTENSION;
+        Path directory = null;
+        LocalDate today = HospitalClock.today();
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            String value = args[++i];
+            switch (args[i - 1]) {
+                case "--rows":
+                    rows = Integer.parseInt(value.replace("_", ""));
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(value);
+                    break;
+                case "--format":
+                    format = value;
+                    break;
+                case "--out":
+                    directory = Paths.get(value);
+                    break;
+                case "--date":
+                    today = LocalDate.parse(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i - 1]);
+            }
+        }
+
+        new DataGenerator(seed, rows, today).generate(format, directory, threads);
+    }
+
+    /**
+     * Writes all tables, each on its own thread, with their rows built on a pool of worker threads.
+     *
+     * @param format    the file format, "csv" or "xlsx".
+     * @param directory the directory to write the tables to, or {@code null} for the locations the system reads.
+     * @param threads   the number of worker threads.
+     * @return the number of rows written to each table, headers included.
+     * @throws IOException if a table cannot be written.
+     */
+    public Map<Table, Long> generate(String format, Path directory, int threads) throws IOException {
+        if (!format.equals(CsvStorageEngine.EXTENSION) && !format.equals(ExcelStorageEngine.EXTENSION)) {
+            throw new IllegalArgumentException("Unknown format " + format + ", expected csv or xlsx");
+        }
+        if (format.equals(ExcelStorageEngine.EXTENSION) && rowCount(Table.APPOINTMENTS) + 1 > ExcelReaderWriter.MAX_ROWS) {
+            throw new IllegalArgumentException(appointmentCount + " appointments do not fit in an Excel sheet, use --format csv");
+        }
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+
+        System.out.printf("Generating %d appointments, %d patients, %d doctors, %d pharmacists and %d administrators (seed %d)%n",
+                appointmentCount, patientCount, doctorCount, pharmacistCount, adminCount, seed);
+        long start = System.nanoTime();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads), daemonThreads("data-generator"));
+        ExecutorService writers = Executors.newFixedThreadPool(Table.values().length, daemonThreads("table-writer"));
+        try {
+            Map<Table, Future<Long>> written = new EnumMap<>(Table.class);
+            for (Table table : Table.values()) {
+                Path file = directory != null
+                        ? directory.resolve(table.getFileName() + "." + format)
+                        : Paths.get(table.getFilePath(format));
+                Iterable<List<String>> rows = new ChunkedRows(header(table), rowCount(table), rowBuilder(table), workers, 2 * threads);
+                written.put(table, writers.submit(() -> write(rows, file, format, start)));
+            }
+
+            Map<Table, Long> rowCounts = new EnumMap<>(Table.class);
+            for (Map.Entry<Table, Future<Long>> table : written.entrySet()) {
+                rowCounts.put(table.getKey(), table.getValue().get());
+            }
+            System.out.printf("Generated in %d ms on %d threads%n", (System.nanoTime() - start) / 1_000_000, threads);
+            return rowCounts;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while generating the tables", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Unable to generate the tables", e.getCause());
+        } finally {
+            writers.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Streams the rows of one table to its file, replacing the file atomically.
+     */
+    private static long write(Iterable<List<String>> rows, Path file, String format, long start) throws IOException {
+        long rowCount;
+        if (format.equals(ExcelStorageEngine.EXTENSION)) {
+            rowCount = ExcelReaderWriter.writeStreaming(rows, file.toString());
+        } else {
+            Path temp = TableFiles.tempFile(file);
+            new CsvStorageEngine().write(temp, rows);
+            TableFiles.replace(temp, file);
+            rowCount = ((ChunkedRows) rows).getRowsProduced();
+        }
+        System.out.printf("%-40s %10d rows %7d ms%n", file.getFileName(), rowCount, (System.nanoTime() - start) / 1_000_000);
+        return rowCount;
+    }
+
+    // ----- Table layout -----
+
+    private static List<String> header(Table table) {
+        switch (table) {
+            case ACCOUNTS:
+                return Arrays.asList("Hospital ID", "Password (Masked)", "Role");
+            case STAFF_INFO:
+                return Arrays.asList("Hospital ID", "Gender", "Age", "Doctor ID");
+            case PATIENT_INFO:
+                return Arrays.asList("Hospital ID", "Patient ID", "Patient Name", "Gender", "Date of Birth", "Blood Type", "Email", "Contact No.");
+            case MEDICAL_RECORDS:
+                return Arrays.asList("Patient ID", "Diagnosis", "Treatment", "Prescription", "Prescription Amount", "Status", "ID", "Appointment ID");
+            case APPOINTMENTS:
+                return Arrays.asList("Appointment ID", "Doctor ID", "Patient ID", "Appointment Time", "Status");
+            case MEDICAL_INVENTORY:
+                return Arrays.asList("Medicine Name", "Current Stock", "Low Stock Level Alert", "Replenish Amount");
+            default:
+                throw new IllegalArgumentException("Unknown table " + table);
+        }
+    }
+
+    /**
+     * Returns the number of rows a table is built from, excluding its header. Medical records are built
+     * from the appointments, and only completed appointments give a row.
+     */
+    private int rowCount(Table table) {
+        switch (table) {
+            case ACCOUNTS:
+                return staffCount() + patientCount;
+            case STAFF_INFO:
+                return staffCount();
+            case PATIENT_INFO:
+                return patientCount;
+            case MEDICAL_RECORDS:
+            case APPOINTMENTS:
+                return appointmentCount;
+            case MEDICAL_INVENTORY:
+                return MEDICATIONS.length;
+            default:
+                throw new IllegalArgumentException("Unknown table " + table);
+        }
+    }
+
+    private IntFunction<List<String>> rowBuilder(Table table) {
+        switch (table) {
+            case ACCOUNTS:
+                return this::accountRow;
+            case STAFF_INFO:
+                return this::staffRow;
+            case PATIENT_INFO:
+                return this::patientRow;
+            case MEDICAL_RECORDS:
+                return this::medicalRecordRow;
+            case APPOINTMENTS:
+                return this::appointmentRow;
+            case MEDICAL_INVENTORY:
+                return this::medicineRow;
+            default:
+                throw new IllegalArgumentException("Unknown table " + table);
+        }
+    }
+
+    // ----- Rows, each a function of the seed, its table and its number -----
+
+    private int staffCount() {
+        return adminCount + doctorCount + pharmacistCount;
+    }
+
+    /** Staff are numbered administrators first, then doctors, then pharmacists. */
+    private String staffHospitalId(int staff) {
+        if (staff < adminCount) {
+            return numbered("admin", staff + 1);
+        }
+        if (staff < adminCount + doctorCount) {
+            return numbered("doctor", staff - adminCount + 1);
+        }
+        return numbered("pharmacist", staff - adminCount - doctorCount + 1);
+    }
+
+    private List<String> staffRow(int staff) {
+        SplittableRandom random = random(Table.STAFF_INFO, staff);
+        String gender = GENDERS[random.nextInt(GENDERS.length)].name();
+        String age = String.valueOf(25 + random.nextInt(40));
+        if (staff >= adminCount && staff < adminCount + doctorCount) {
+            return Arrays.asList(staffHospitalId(staff), gender, age, doctorId(staff - adminCount));
+        }
+        return Arrays.asList(staffHospitalId(staff), gender, age);
+    }
+
+    private List<String> accountRow(int account) {
+        if (account >= staffCount()) {
+            return Arrays.asList(numbered("patient", account - staffCount() + 1), defaultPassword, Role.PATIENT.getDisplayValue());
+        }
+        Role role = account < adminCount ? Role.ADMINISTRATOR
+                : account < adminCount + doctorCount ? Role.DOCTOR : Role.PHARMACIST;
+        return Arrays.asList(staffHospitalId(account), defaultPassword, role.getDisplayValue());
+    }
+
+    private List<String> patientRow(int patient) {
+        SplittableRandom random = random(Table.PATIENT_INFO, patient);
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        LocalDate dateOfBirth = today.minusDays(365L + random.nextInt(90 * 365));
+        String email = (firstName + "." + lastName).replace(" ", "").toLowerCase() + (patient + 1) + "@example.com";
+        int contactNo = (8 + random.nextInt(2)) * 10_000_000 + random.nextInt(10_000_000);
+        return Arrays.asList(numbered("patient", patient + 1), patientId(patient), firstName + " " + lastName,
+                GENDERS[random.nextInt(GENDERS.length)].name(), DateUtils.formatDate(dateOfBirth),
+                BLOOD_TYPES[random.nextInt(BLOOD_TYPES.length)], email, String.valueOf(contactNo));
+    }
+
+    /**
+     * Appointments take the doctors' slots in turn, so no doctor is booked twice at the same time and
+     * the appointment IDs follow the slot times.
+     */
+    private List<String> appointmentRow(int appointment) {
+        int slot = appointment / doctorCount;
+        int day = slot / SLOTS_PER_DAY;
+        long minute = firstSlotMinute + (long) day * 24 * 60 + (slot % SLOTS_PER_DAY) * 60L;
+        boolean past = firstDay.plusDays(day).isBefore(today);
+
+        SplittableRandom random = random(Table.APPOINTMENTS, appointment);
+        int roll = random.nextInt(100);
+        Status status;
+        if (past) {
+            status = roll < 70 ? Status.COMPLETED : roll < 85 ? Status.CANCELLED : Status.FREE;
+        } else {
+            status = roll < 40 ? Status.FREE : roll < 60 ? Status.PENDING : roll < 90 ? Status.CONFIRMED : Status.CANCELLED;
+        }
+        String patientId = status == Status.FREE || status == Status.CANCELLED
+                ? Status.FREE.getDisplayValue()
+                : patientId(random.nextInt(patientCount));
+
+        return Arrays.asList(String.valueOf(appointment + 1), doctorId(appointment % doctorCount), patientId,
+                DateUtils.formatEpochMinute(minute), status.getDisplayValue());
+    }
+
+    /**
+     * Builds the medical record of a completed appointment, or {@code null} for any other appointment.
+     * The record takes the appointment's ID.
+     */
+    private List<String> medicalRecordRow(int appointment) {
+        List<String> appointmentRow = appointmentRow(appointment);
+        if (!appointmentRow.get(4).equals(Status.COMPLETED.getDisplayValue())) {
+            return null;
+        }
+
+        SplittableRandom random = random(Table.MEDICAL_RECORDS, appointment);
+        boolean dispensed = DateUtils.extractDate(appointmentRow.get(3)).isBefore(today.minusDays(DISPENSED_AFTER_DAYS));
+        return Arrays.asList(appointmentRow.get(2), DIAGNOSES[random.nextInt(DIAGNOSES.length)],
+                TREATMENTS[random.nextInt(TREATMENTS.length)], MEDICATIONS[random.nextInt(MEDICATIONS.length)],
+                String.valueOf(1 + random.nextInt(10)),
+                (dispensed ? Status.DISPENSED : Status.PENDING).getDisplayValue(),
+                appointmentRow.get(0), appointmentRow.get(0));
+    }
+
+    private List<String> medicineRow(int medicine) {
+        SplittableRandom random = random(Table.MEDICAL_INVENTORY, medicine);
+        int lowStockLevel = 10 * (1 + random.nextInt(5));
+        int currentStock = lowStockLevel * (1 + random.nextInt(20));
+        return Arrays.asList(MEDICATIONS[medicine], String.valueOf(currentStock), String.valueOf(lowStockLevel), "0");
+    }
+
+    private SplittableRandom random(Table table, int row) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + (long) table.ordinal() * 0xC2B2AE3D27D4EB4FL + row);
+    }
+
+    private static String doctorId(int doctor) {
+        return "D" + (1001 + doctor);
+    }
+
+    private static String patientId(int patient) {
+        return "P" + (1001 + patient);
+    }
+
+    /** Numbers a hospital ID the way the system's own accounts are, e.g. "doctor01". */
+    private static String numbered(String prefix, int number) {
+        return number < 10 ? prefix + "0" + number : prefix + number;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * The rows of a table, built chunk by chunk on the worker threads a few chunks ahead of the writer
+     * and handed out in row order. Rows the builder returns {@code null} for are left out.
+     */
+    private static final class ChunkedRows implements Iterable<List<String>> {
+
+        private final List<String> header;
+        private final int rowCount;
+        private final IntFunction<List<String>> rowBuilder;
+        private final ExecutorService workers;
+        private final int lookahead;
+        private long rowsProduced;
+
+        ChunkedRows(List<String> header, int rowCount, IntFunction<List<String>> rowBuilder,
+                    ExecutorService workers, int lookahead) {
+            this.header = header;
+            this.rowCount = rowCount;
+            this.rowBuilder = rowBuilder;
+            this.workers = workers;
+            this.lookahead = Math.max(2, lookahead);
+        }
+
+        long getRowsProduced() {
+            return rowsProduced;
+        }
+
+        @Override
+        public Iterator<List<String>> iterator() {
+            return new Iterator<List<String>>() {
+                private final Deque<Future<List<List<String>>>> pending = new ArrayDeque<>();
+                private Iterator<List<String>> chunk = Collections.singletonList(header).iterator();
+                private int nextChunkStart = 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (!chunk.hasNext()) {
+                        submitChunks();
+                        if (pending.isEmpty()) {
+                            return false;
+                        }
+                        chunk = await(pending.poll()).iterator();
+                    }
+                    return true;
+                }
+
+                @Override
+                public List<String> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    rowsProduced++;
+                    return chunk.next();
+                }
+
+                private void submitChunks() {
+                    while (pending.size() < lookahead && nextChunkStart < rowCount) {
+                        int start = nextChunkStart;
+                        int end = Math.min(rowCount, start + CHUNK_SIZE);
+                        pending.add(workers.submit(() -> {
+                            List<List<String>> rows = new ArrayList<>(end - start);
+                            for (int row = start; row < end; row++) {
+                                List<String> built = rowBuilder.apply(row);
+                                if (built != null) {
+                                    rows.add(built);
+                                }
+                            }
+                            return rows;
+                        }));
+                        nextChunkStart = end;
+                    }
+                }
+            };
+        }
+
+        private static List<List<String>> await(Future<List<List<String>>> chunk) {
+            try {
+                return chunk.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while building rows", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Unable to build rows", e.getCause());
+            }
+        }
+    }
+}
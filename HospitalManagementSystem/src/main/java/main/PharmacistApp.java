@@ -47,7 +47,8 @@ public class PharmacistApp {
             System.out.println("1 View Completed Appointments");
             System.out.println("2 View Medicine Inventory");
             System.out.println("3 Submit Medicine Replenish Request"); // display all medication that are low on stock and key the amount of medication to replenish
-            System.out.println("4 Logout");
+            System.out.println("4 Dispense All Pending Prescriptions");
+            System.out.println("5 Logout");
 
             int choice = Validator.validateIntegerInput(scanner);
 
@@ -62,6 +63,9 @@ public class PharmacistApp {
                     pharmacistService.submitReplenishRequest(scanner);
                     break;
                 case 4:
+                    pharmacistService.dispenseAllPending(scanner);
+                    break;
+                case 5:
                     loggedOut = true;
                     System.out.println("Logging out...");
                     break;
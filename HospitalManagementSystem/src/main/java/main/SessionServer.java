@@ -0,0 +1,226 @@
+/**
+ * The SessionServer class runs the Hospital Management System for many terminals at once. It listens on
+ * a local TCP port, and every terminal that connects (for example with {@code telnet localhost 5050} or
+ * {@code nc localhost 5050}) gets the same login menu as {@link App}, with its own admin, doctor,
+ * patient or pharmacist session.
+ *
+ * <p>Each session runs on its own virtual thread when the JVM supports them (Java 21 and later), and on
+ * a small-stack platform thread otherwise. All sessions share one {@link RepositoryContext}: a session
+ * holds the context's lock while its menus run and releases it whenever it waits for its terminal, so
+ * hundreds of mostly idle terminals only need a few kilobytes of buffers each.</p>
+ *
+ * <p>Output to a terminal is buffered and sent when the session waits for input. A terminal that stops
+ * reading is disconnected once a write to it has been blocked for {@value #WRITE_TIMEOUT_MILLIS} ms, so it
+ * cannot keep the repositories from the other sessions; see {@link TerminalOutputStream}.</p>
+ *
+ * <p>Start with {@code java -cp ... main.SessionServer [port]}, or set {@value #PORT_PROPERTY}.
+ * Journaled changes are written to the tables as each user logs out and when the server stops.</p>
+ */
+package main;
+
+import model.User;
+import services.AuthenticationService;
+import services.RepositoryContext;
+import services.StartupLoader;
+import services.TableSnapshot;
+import storage.StorageEngines;
+import utils.SessionConsole;
+import utils.Validator;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SessionServer {
+
+    /** System property holding the port to listen on. */
+    public static final String PORT_PROPERTY = "hms.port";
+
+    /** Port listened on when none is given. */
+    public static final int DEFAULT_PORT = 5050;
+
+    /** Size of each terminal's output buffer. */
+    private static final int OUTPUT_BUFFER_SIZE = 2048;
+
+    /** Longest a write to a terminal may block before the terminal is disconnected. */
+    static final long WRITE_TIMEOUT_MILLIS = 10_000;
+
+    /** Stack size of session threads when virtual threads are not available. */
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+    /** Service for handling user authentication, shared by the sessions. */
+    private static final AuthenticationService authenticator = new AuthenticationService();
+
+    /** Number of sessions connected. */
+    private static final AtomicInteger activeSessions = new AtomicInteger();
+
+    /** Number given to the next session. */
+    private static final AtomicInteger nextSessionNumber = new AtomicInteger(1);
+
+    /**
+     * Private constructor to prevent instantiation of this entry point.
+     */
+    private SessionServer() { }
+
+    /**
+     * Loads the tables and serves terminals until the process is stopped.
+     *
+     * @param args optionally, the port to listen on.
+     * @throws Exception if the tables cannot be loaded or the port cannot be opened.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger(PORT_PROPERTY, DEFAULT_PORT);
+
+        StartupLoader.load();
+        RepositoryContext.get();
+        RepositoryContext.watchForExternalChanges();
+        SessionConsole.install();
+        Runtime.getRuntime().addShutdownHook(new Thread(SessionServer::checkpoint, "session-server-shutdown"));
+
+        ExecutorService sessions = newSessionExecutor();
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("Hospital Management System listening on " + serverSocket.getLocalSocketAddress());
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                sessions.execute(() -> serve(socket));
+            }
+        } finally {
+            sessions.shutdown();
+        }
+    }
+
+    /**
+     * Runs one terminal's sessions until it disconnects or chooses to.
+     *
+     * @param socket the terminal's connection.
+     */
+    static void serve(Socket socket) {
+        int sessionNumber = nextSessionNumber.getAndIncrement();
+        System.out.println("Session " + sessionNumber + " connected from " + socket.getRemoteSocketAddress()
+                + " (" + activeSessions.incrementAndGet() + " active)");
+        try (Socket terminal = socket) {
+            terminal.setTcpNoDelay(true);
+            // Not autoflushed: the buffer is sent when the session waits for input, after it releases the repositories
+            PrintStream out = new PrintStream(new BufferedOutputStream(new TerminalOutputStream(terminal, WRITE_TIMEOUT_MILLIS),
+                    OUTPUT_BUFFER_SIZE), false, StandardCharsets.UTF_8.name());
+            Scanner scanner = new Scanner(new TerminalInputStream(terminal.getInputStream(), out), StandardCharsets.UTF_8.name());
+            SessionConsole.attach(scanner, out);
+            RepositoryContext.lock();
+            try {
+                runMenu(scanner);
+            } finally {
+                RepositoryContext.unlock();
+                SessionConsole.detach();
+                out.flush();
+            }
+        } catch (NoSuchElementException | IllegalStateException e) {
+            // The terminal disconnected while a menu was waiting for input
+        } catch (Exception e) {
+            System.out.println("Session " + sessionNumber + " failed: " + e);
+        } finally {
+            System.out.println("Session " + sessionNumber + " disconnected (" + activeSessions.decrementAndGet() + " active)");
+        }
+    }
+
+    /**
+     * Shows the login menu of a terminal until it chooses to disconnect.
+     *
+     * @param scanner the Scanner object for the terminal's input.
+     * @throws Exception if an error occurs in a session.
+     */
+    private static void runMenu(Scanner scanner) throws Exception {
+        boolean connected = true;
+
+        while (connected) {
+            System.out.println("\nWelcome to Hospital Management System!");
+            System.out.println("[1] Login");
+            System.out.println("[2] Disconnect");
+            int choice = Validator.validateIntegerInput(scanner);
+
+            switch (choice) {
+                case 1:
+                    enterLoginDetails(scanner);
+                    break;
+                case 2:
+                    System.out.println("Goodbye");
+                    connected = false;
+                    break;
+                default:
+                    System.out.println("Invalid choice");
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Prompts the terminal for login details and runs the logged-in user's session.
+     * Unlike {@link App}, the shared repositories are kept when the user logs out, as other sessions use them.
+     *
+     * @param scanner the Scanner object for the terminal's input.
+     * @throws Exception if an error occurs during the login process or the session.
+     */
+    private static void enterLoginDetails(Scanner scanner) throws Exception {
+        System.out.print("Hospital ID: ");
+        String hospitalId = scanner.nextLine();
+        System.out.print("Password: ");
+        String password = scanner.nextLine();
+
+        User userLoggedIn = authenticator.login(hospitalId, password);
+        if (userLoggedIn == null) {
+            System.out.println("Invalid ID or Password \n");
+            return;
+        }
+
+        App.startSession(userLoggedIn, scanner);
+
+        // Session ended, write journaled changes into the tables
+        StorageEngines.get().checkpoint();
+    }
+
+    /**
+     * Writes journaled changes into the tables and persists the table snapshot, once the session using
+     * the repositories reaches a prompt.
+     */
+    private static void checkpoint() {
+        RepositoryContext.lock();
+        try {
+            StorageEngines.get().checkpoint();
+            TableSnapshot.checkpoint();
+        } catch (IOException e) {
+            System.out.println("Unable to write the tables: " + e.getMessage());
+        } finally {
+            RepositoryContext.unlock();
+        }
+    }
+
+    /**
+     * Creates the executor that runs the sessions: one virtual thread per session on Java 21 and later,
+     * looked up reflectively as the system is built for Java 8, or else one small-stack platform thread per session.
+     *
+     * @return the session executor.
+     */
+    private static ExecutorService newSessionExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("Sessions run on virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Sessions run on platform threads, virtual threads need Java 21");
+            AtomicInteger threadNumber = new AtomicInteger(1);
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(null, runnable, "session-" + threadNumber.getAndIncrement(), PLATFORM_STACK_SIZE);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * The TerminalInputStream class is the input of a terminal, either a {@link SessionServer} connection or
+ * the process console of {@link App}. Before blocking on its source it lets other sessions and the table
+ * change monitor use the repositories, then flushes the prompt to the terminal, and it takes the repositories
+ * back once input has arrived.
+ */
+package main;
+
+import services.RepositoryContext;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+
+final class TerminalInputStream extends FilterInputStream {
+
+    private final PrintStream out;
+
+    /**
+     * Creates the input of a terminal.
+     *
+     * @param in  the terminal's input.
+     * @param out the terminal's output, flushed before every wait.
+     */
+    TerminalInputStream(InputStream in, PrintStream out) {
+        super(in);
+        this.out = out;
+    }
+
+    @Override
+    public int read() throws IOException {
+        RepositoryContext.unlock();
+        out.flush(); // Outside the lock, so a slow terminal only holds up its own session
+        try {
+            return super.read();
+        } finally {
+            RepositoryContext.lock();
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        RepositoryContext.unlock();
+        out.flush();
+        try {
+            return super.read(b, off, len);
+        } finally {
+            RepositoryContext.lock();
+        }
+    }
+}
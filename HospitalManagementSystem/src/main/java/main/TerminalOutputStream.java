@@ -0,0 +1,83 @@
+/**
+ * The TerminalOutputStream class is the output of a {@link SessionServer} connection. Every write to the
+ * socket must finish within a deadline; a terminal that stops reading fills its socket buffer and would
+ * otherwise block its session forever, possibly while the session holds the repositories. When a write
+ * misses the deadline the connection is closed, which fails the write and ends the session at its next prompt.
+ */
+package main;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+final class TerminalOutputStream extends FilterOutputStream {
+
+    /** Closes the connections of stalled terminals, shared by every session. */
+    private static final ScheduledThreadPoolExecutor watchdog = newWatchdog();
+
+    private final Socket socket;
+    private final long timeoutMillis;
+
+    /**
+     * Creates the output of a terminal.
+     *
+     * @param socket        the terminal's connection.
+     * @param timeoutMillis how long a single write may take before the connection is closed.
+     * @throws IOException if the connection's output cannot be opened.
+     */
+    TerminalOutputStream(Socket socket, long timeoutMillis) throws IOException {
+        super(socket.getOutputStream());
+        this.socket = socket;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ScheduledFuture<?> disconnect = watchdog.schedule(this::disconnect, timeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            out.write(b, off, len);
+        } finally {
+            disconnect.cancel(false);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ScheduledFuture<?> disconnect = watchdog.schedule(this::disconnect, timeoutMillis, TimeUnit.MILLISECONDS);
+        try {
+            out.flush();
+        } finally {
+            disconnect.cancel(false);
+        }
+    }
+
+    /**
+     * Closes the connection of a terminal that has not taken its output in time.
+     */
+    private void disconnect() {
+        System.out.println("Disconnecting " + socket.getRemoteSocketAddress() + ", the terminal stopped reading");
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor newWatchdog() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "terminal-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true); // Most writes finish at once; drop their deadlines with them
+        return executor;
+    }
+}
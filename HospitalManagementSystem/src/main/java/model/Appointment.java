@@ -1,5 +1,8 @@
 package model;
 
+import enums.Status;
+import utils.IdentifierPool;
+
 /**
  * The Appointment class represents an appointment in the hospital management system.
  * It contains details about the appointment such as the appointment ID, patient ID,
@@ -27,7 +30,7 @@ public class Appointment {
     private String appointmentTime;
 
     /** Current status of the appointment. */
-    private String appointmentStatus;
+    private Status appointmentStatus;
 
     /**
      * Gets the unique identifier for the appointment.
@@ -62,7 +65,7 @@ public class Appointment {
      * @param patientId the patient ID to set.
      */
     public void setPatientId(String patientId) {
-        this.patientId = patientId;
+        this.patientId = IdentifierPool.intern(patientId);
     }
 
     /**
@@ -80,7 +83,7 @@ public class Appointment {
      * @param doctorId the doctor ID to set.
      */
     public void setDoctorId(String doctorId) {
-        this.doctorId = doctorId;
+        this.doctorId = IdentifierPool.intern(doctorId);
     }
 
     /**
@@ -106,7 +109,7 @@ public class Appointment {
      *
      * @return the appointment status.
      */
-    public String getAppointmentStatus() {
+    public Status getAppointmentStatus() {
         return appointmentStatus;
     }
 
@@ -115,7 +118,7 @@ public class Appointment {
      *
      * @param appointmentStatus the appointment status to set.
      */
-    public void setAppointmentStatus(String appointmentStatus) {
+    public void setAppointmentStatus(Status appointmentStatus) {
         this.appointmentStatus = appointmentStatus;
     }
 }
@@ -10,6 +10,8 @@
  */
 package model;
 
+import utils.IdentifierPool;
+
 public class Doctor extends Staff {
 
     /** Unique identifier for the doctor. */
@@ -30,6 +32,6 @@ public class Doctor extends Staff {
      * @param doctorId the doctor ID to set.
      */
     public void setDoctorId(String doctorId) {
-        this.doctorId = doctorId;
+        this.doctorId = IdentifierPool.intern(doctorId);
     }
 }
@@ -10,6 +10,9 @@
  */
 package model;
 
+import enums.Status;
+import utils.IdentifierPool;
+
 public class MedicalRecord {
 
     /** Unique identifier for the patient associated with the medical record. */
@@ -28,7 +31,7 @@ public class MedicalRecord {
     private int prescriptionAmount;
 
     /** Status of the medical record. */
-    private String status;
+    private Status status;
 
     /** Unique identifier for the medical record. */
     private int id;
@@ -51,7 +54,7 @@ public class MedicalRecord {
      * @param patientId the patient ID to set.
      */
     public void setPatientId(String patientId) {
-        this.patientId = patientId;
+        this.patientId = IdentifierPool.intern(patientId);
     }
 
     /**
@@ -113,7 +116,7 @@ public class MedicalRecord {
      *
      * @return the status.
      */
-    public String getStatus() {
+    public Status getStatus() {
         return status;
     }
 
@@ -122,7 +125,7 @@ public class MedicalRecord {
      *
      * @param status the status to set.
      */
-    public void setStatus(String status) {
+    public void setStatus(Status status) {
         this.status = status;
     }
 
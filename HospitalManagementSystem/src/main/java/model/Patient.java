@@ -11,8 +11,11 @@
  */
 package model;
 
+import utils.IdentifierPool;
+
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class Patient extends Staff {
 
@@ -34,9 +37,12 @@ public class Patient extends Staff {
     /** Contact number of the patient. */
     private String contactNo;
 
-    /** List of medical records associated with the patient. */
+    /** List of medical records associated with the patient, resolved on first access when a loader is set. */
     private List<MedicalRecord> medicalRecords;
 
+    /** Loads the patient's medical records when they are first needed. */
+    private Supplier<List<MedicalRecord>> medicalRecordLoader;
+
     /**
      * Gets the unique identifier for the patient.
      *
@@ -52,7 +58,7 @@ public class Patient extends Staff {
      * @param patientId the patient ID to set.
      */
     public void setPatientId(String patientId) {
-        this.patientId = patientId;
+        this.patientId = IdentifierPool.intern(patientId);
     }
 
     /**
@@ -147,10 +153,14 @@ public class Patient extends Staff {
 
     /**
      * Gets the list of medical records associated with the patient.
+     * If a loader is set, the records are loaded on the first call and cached afterwards.
      *
      * @return the list of medical records.
      */
     public List<MedicalRecord> getMedicalRecords() {
+        if (medicalRecords == null && medicalRecordLoader != null) {
+            medicalRecords = medicalRecordLoader.get();
+        }
         return medicalRecords;
     }
 
@@ -162,4 +172,24 @@ public class Patient extends Staff {
     public void setMedicalRecords(List<MedicalRecord> medicalRecords) {
         this.medicalRecords = medicalRecords;
     }
+
+    /**
+     * Sets the loader used to resolve the patient's medical records on first access.
+     *
+     * @param medicalRecordLoader the loader returning the patient's medical records.
+     */
+    public void setMedicalRecordLoader(Supplier<List<MedicalRecord>> medicalRecordLoader) {
+        this.medicalRecordLoader = medicalRecordLoader;
+        this.medicalRecords = null;
+    }
+
+    /**
+     * Drops the cached medical records so that the next access loads them again.
+     * Has no effect if the records were set directly.
+     */
+    public void invalidateMedicalRecords() {
+        if (medicalRecordLoader != null) {
+            medicalRecords = null;
+        }
+    }
 }
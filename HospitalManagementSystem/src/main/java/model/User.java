@@ -11,6 +11,8 @@
  */
 package model;
 
+import enums.Role;
+
 public class User {
 
     /** The hospital ID used for login. */
@@ -26,7 +28,7 @@ public class User {
     private int age;
 
     /** The role of the user (e.g., Administrator, Doctor, Patient, Pharmacist). */
-    private String role;
+    private Role role;
 
     /**
      * Gets the gender of the user.
@@ -105,7 +107,7 @@ public class User {
      *
      * @return the user's role.
      */
-    public String getRole() {
+    public Role getRole() {
         return role;
     }
 
@@ -114,7 +116,7 @@ public class User {
      *
      * @param role the user's role to set.
      */
-    public void setRole(String role) {
+    public void setRole(Role role) {
         this.role = role;
     }
 }
@@ -1,15 +1,19 @@
 package repository;
 
-import constants.FilePath;
+import enums.Role;
 import model.Staff;
 import model.User;
 import security.Encryptor;
-import services.ExcelReaderWriter;
+import storage.StorageEngines;
+import storage.Table;
+import storage.UnitOfWork;
+import utils.SessionConsole;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Set;
 
 /**
  * The AccountRepository class manages the storage and retrieval of user account data
@@ -25,7 +29,7 @@ import java.util.Scanner;
  *   <li>Password change functionality with validation.</li>
  * </ul>
  *
- * <p>This repository uses the {@link ExcelReaderWriter} service for reading and writing
+ * <p>This repository uses the configured {@link storage.StorageEngine} for reading and writing
  * account data from/to the Excel file and {@link Encryptor} for encrypting passwords.</p>
  *
  * @author CHARMAINE LIEW
@@ -35,8 +39,8 @@ import java.util.Scanner;
 
 public class AccountRepository {
 
-    /** Path to the Excel file storing account data. */
-    private final String accountFilePath = FilePath.ACCOUNT_FILE_PATH;
+    /** Table storing account data. */
+    private final Table accountTable = Table.ACCOUNTS;
 
     /**
      * Authenticates a user by verifying their hospital ID and password.
@@ -47,14 +51,14 @@ public class AccountRepository {
      * @throws Exception if an error occurs during password encryption or file reading.
      */
     public User login(String hospitalId, String password) throws Exception {
-        List<List<String>> accounts = ExcelReaderWriter.read(accountFilePath);
+        List<List<String>> accounts = StorageEngines.get().readAll(accountTable);
 
         for (int i = 1; i < accounts.size(); i++) {
             if (accounts.get(i).get(0).equals(hospitalId)) {
                 if (Encryptor.encrypt(password).equals(accounts.get(i).get(1))) {
                     User userInfo = new User();
                     userInfo.setHospitalId(accounts.get(i).get(0));
-                    userInfo.setRole(accounts.get(i).get(2));
+                    userInfo.setRole(Role.fromDisplayValue(accounts.get(i).get(2)));
 
                     if (password.equals("password")) {
                         boolean changedSuccessfully = false;
@@ -79,12 +83,43 @@ public class AccountRepository {
         List<String> loginDetailsLine = new ArrayList<>();
         loginDetailsLine.add(loginDetails.getHospitalId());
         loginDetailsLine.add(Encryptor.encrypt("password")); // Default Password: "password"
-        loginDetailsLine.add(loginDetails.getRole().toUpperCase());
+        loginDetailsLine.add(loginDetails.getRole().getDisplayValue());
 
-        List<List<String>> accountsFile = ExcelReaderWriter.read(accountFilePath);
-        accountsFile.add(loginDetailsLine);
+        StorageEngines.get().upsert(accountTable, 0, loginDetailsLine);
+    }
+
+    /**
+     * Stages new user accounts in a unit of work, all with the default password. The password is
+     * encrypted once for the whole batch.
+     *
+     * @param newAccounts the users to create accounts for.
+     * @param work        the unit of work to stage the accounts in.
+     * @throws Exception if an error occurs during password encryption.
+     */
+    public void saveNewAccounts(List<? extends User> newAccounts, UnitOfWork work) throws Exception {
+        String defaultPassword = Encryptor.encrypt("password"); // Default Password: "password"
+        for (User loginDetails : newAccounts) {
+            List<String> loginDetailsLine = new ArrayList<>();
+            loginDetailsLine.add(loginDetails.getHospitalId());
+            loginDetailsLine.add(defaultPassword);
+            loginDetailsLine.add(loginDetails.getRole().getDisplayValue());
+            work.upsert(accountTable, 0, loginDetailsLine);
+        }
+    }
 
-        ExcelReaderWriter.write(accountsFile, FilePath.ACCOUNT_FILE_PATH);
+    /**
+     * Retrieves the hospital IDs of every account, whatever its role.
+     *
+     * @return the hospital IDs in use.
+     * @throws IOException if an error occurs during file reading.
+     */
+    public Set<String> getAllHospitalIds() throws IOException {
+        List<List<String>> accounts = StorageEngines.get().readAll(accountTable);
+        Set<String> hospitalIds = new HashSet<>();
+        for (int i = 1; i < accounts.size(); i++) {
+            hospitalIds.add(accounts.get(i).get(0));
+        }
+        return hospitalIds;
     }
 
     /**
@@ -94,14 +129,7 @@ public class AccountRepository {
      * @throws IOException if an error occurs during file reading or writing.
      */
     public void deleteAccount(String hospitalId) throws IOException {
-        List<List<String>> accountsFile = ExcelReaderWriter.read(accountFilePath);
-        for (int i = 1; i < accountsFile.size(); i++) {
-            if (accountsFile.get(i).get(0).equals(hospitalId)) {
-                accountsFile.remove(i);
-                break;
-            }
-        }
-        ExcelReaderWriter.write(accountsFile, FilePath.ACCOUNT_FILE_PATH);
+        StorageEngines.get().delete(accountTable, 0, hospitalId);
     }
 
     /**
@@ -112,11 +140,11 @@ public class AccountRepository {
      * @throws IOException if an error occurs during file reading.
      */
     public List<Staff> loadStaffRoles(List<Staff> staffList) throws IOException {
-        List<List<String>> accountDetails = ExcelReaderWriter.read(accountFilePath);
+        List<List<String>> accountDetails = StorageEngines.get().readAll(accountTable);
         for (Staff staff : staffList) {
             for (int i = 1; i < accountDetails.size(); i++) {
                 if (accountDetails.get(i).get(0).equals(staff.getHospitalId())) {
-                    staff.setRole(accountDetails.get(i).get(2));
+                    staff.setRole(Role.fromDisplayValue(accountDetails.get(i).get(2)));
                 }
             }
         }
@@ -132,8 +160,7 @@ public class AccountRepository {
      */
     private boolean changePassword(String hospitalId) throws Exception {
         System.out.println("Enter your new password:");
-        Scanner scanner = new Scanner(System.in);
-        String newPassword = scanner.nextLine();
+        String newPassword = SessionConsole.scanner().nextLine();
         if (newPassword.isEmpty() || newPassword.equals("password")) {
             System.out.println("Invalid password.");
             return false;
@@ -152,12 +179,12 @@ public class AccountRepository {
      */
     private boolean savePassword(String newPassword, String hospitalId) throws Exception {
         String encryptedPassword = Encryptor.encrypt(newPassword);
-        List<List<String>> accounts = ExcelReaderWriter.read(FilePath.ACCOUNT_FILE_PATH);
+        List<List<String>> accounts = StorageEngines.get().readAll(accountTable);
 
         for (int i = 1; i < accounts.size(); i++) {
             if (accounts.get(i).get(0).equals(hospitalId)) {
                 accounts.get(i).set(1, encryptedPassword);
-                ExcelReaderWriter.write(accounts, FilePath.ACCOUNT_FILE_PATH);
+                StorageEngines.get().upsert(accountTable, 0, accounts.get(i));
                 break;
             }
         }
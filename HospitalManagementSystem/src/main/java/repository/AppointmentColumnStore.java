@@ -0,0 +1,211 @@
+package repository;
+
+import enums.Status;
+import model.Appointment;
+import utils.DateUtils;
+import utils.TimestampCodec;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of the appointment table used for scan-heavy queries.
+ * Each appointment occupies one row index across a set of primitive arrays:
+ * appointment IDs, dictionary-coded doctor and patient IDs, appointment time in
+ * epoch minutes (UTC) and the status ordinal. Row {@code i} corresponds to
+ * element {@code i} of the list the store was built from.
+ *
+ * <p>The store is a read-only snapshot; {@link AppointmentRepository} rebuilds it
+ * after the appointment list changes.</p>
+ */
+public class AppointmentColumnStore {
+
+    /** Marker stored for appointment times that could not be parsed. */
+    public static final long UNKNOWN_TIME = Long.MIN_VALUE;
+
+    private static final Status[] STATUSES = Status.values();
+
+    private final int size;
+    private final int[] appointmentIds;
+    private final int[] doctorCodes;
+    private final int[] patientCodes;
+    private final long[] appointmentMinutes;
+    private final byte[] statuses;
+
+    private final Dictionary doctorDictionary = new Dictionary();
+    private final Dictionary patientDictionary = new Dictionary();
+
+    /**
+     * Builds a column store from the given appointments.
+     *
+     * @param appointments the appointments to copy into columns.
+     */
+    public AppointmentColumnStore(List<Appointment> appointments) {
+        size = appointments.size();
+        appointmentIds = new int[size];
+        doctorCodes = new int[size];
+        patientCodes = new int[size];
+        appointmentMinutes = new long[size];
+        statuses = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            Appointment appointment = appointments.get(i);
+            appointmentIds[i] = appointment.getAppointmentId();
+            doctorCodes[i] = doctorDictionary.encode(appointment.getDoctorId());
+            patientCodes[i] = patientDictionary.encode(appointment.getPatientId());
+            appointmentMinutes[i] = toEpochMinute(appointment.getAppointmentTime());
+            statuses[i] = (byte) appointment.getAppointmentStatus().ordinal();
+        }
+    }
+
+    /**
+     * Returns the number of rows in the store.
+     *
+     * @return the row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the appointment ID stored at a row.
+     *
+     * @param row the row index.
+     * @return the appointment ID.
+     */
+    public int getAppointmentId(int row) {
+        return appointmentIds[row];
+    }
+
+    /**
+     * Returns the appointment time stored at a row.
+     *
+     * @param row the row index.
+     * @return minutes since the epoch in UTC, or {@link #UNKNOWN_TIME}.
+     */
+    public long getAppointmentMinute(int row) {
+        return appointmentMinutes[row];
+    }
+
+    /**
+     * Returns the status stored at a row.
+     *
+     * @param row the row index.
+     * @return the appointment status.
+     */
+    public Status getStatus(int row) {
+        return STATUSES[statuses[row]];
+    }
+
+    /**
+     * Returns the distinct patient IDs that appear in appointments of a doctor,
+     * in order of first appearance.
+     *
+     * @param doctorId the ID of the doctor.
+     * @return a list of patient IDs.
+     */
+    public List<String> getPatientIdsOfDoctor(String doctorId) {
+        List<String> patients = new ArrayList<>();
+        int doctorCode = doctorDictionary.codeOf(doctorId);
+        if (doctorCode < 0) {
+            return patients;
+        }
+
+        boolean[] seen = new boolean[patientDictionary.size()];
+        for (int i = 0; i < size; i++) {
+            if (doctorCodes[i] == doctorCode && !seen[patientCodes[i]]) {
+                seen[patientCodes[i]] = true;
+                patients.add(patientDictionary.decode(patientCodes[i]));
+            }
+        }
+        return patients;
+    }
+
+    /**
+     * Counts the rows in each status.
+     *
+     * @return the number of appointments per status, in declaration order of {@link Status}.
+     */
+    public Map<Status, Integer> countByStatus() {
+        int[] counts = new int[STATUSES.length];
+        for (int i = 0; i < size; i++) {
+            counts[statuses[i]]++;
+        }
+
+        Map<Status, Integer> statusCounts = new EnumMap<>(Status.class);
+        for (Status status : STATUSES) {
+            statusCounts.put(status, counts[status.ordinal()]);
+        }
+        return statusCounts;
+    }
+
+    /**
+     * Returns the row indexes whose status differs from the given status.
+     *
+     * @param status the status to exclude.
+     * @return the matching row indexes in ascending order.
+     */
+    public int[] rowsExcludingStatus(Status status) {
+        byte excluded = (byte) status.ordinal();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] != excluded) {
+                count++;
+            }
+        }
+
+        int[] rows = new int[count];
+        int next = 0;
+        for (int i = 0; i < size && next < count; i++) {
+            if (statuses[i] != excluded) {
+                rows[next++] = i;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Converts an appointment time string into minutes since the epoch.
+     *
+     * @param appointmentTime the appointment time in the format "dd-MMM-yyyy h:mm:ss a".
+     * @return minutes since the epoch in UTC, or {@link #UNKNOWN_TIME} if parsing fails.
+     */
+    private static long toEpochMinute(String appointmentTime) {
+        long epochMinute = DateUtils.toEpochMinute(appointmentTime);
+        return epochMinute == TimestampCodec.MALFORMED ? UNKNOWN_TIME : epochMinute;
+    }
+
+    /**
+     * Maps identifier strings to dense integer codes and back.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int codeOf(String value) {
+            Integer code = codes.get(value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package repository;
+
+import enums.Status;
+import model.Appointment;
+import utils.DateUtils;
+import utils.IdentifierPool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cold storage for appointments of past months. Each calendar month is sealed into its own
+ * compressed partition file, so {@link AppointmentRepository} only has to load and rewrite the
+ * current month and the future schedule.
+ *
+ * <p>Only the small header of every partition is read at startup: the appointment IDs, the
+ * status counts and the distinct doctor/patient pairs. The appointment rows of a partition are
+ * decompressed on demand, for history lookups such as resolving the appointment of an old
+ * medical record, and the most recently used partitions are cached.</p>
+ *
+ * <p>File layout of {@code yyyy-MM.hmsp.gz} (gzip of big-endian data):</p>
+ * <pre>
+ * int magic, int version, int year, int month
+ * int idCount, int[idCount] appointmentIds (ascending)
+ * int statusCount, per status: UTF status, int count
+ * int pairCount, per pair: UTF doctorId, UTF patientId
+ * per appointment (idCount rows): int appointmentId, UTF doctorId, UTF patientId, UTF appointmentTime, UTF status
+ * </pre>
+ */
+public class AppointmentPartitionStore {
+
+    /** Identifies a partition file ("HMSP"). */
+    private static final int MAGIC = 0x484D5350;
+
+    /** Format version of the partition files. */
+    private static final int VERSION = 1;
+
+    private static final String FILE_SUFFIX = ".hmsp.gz";
+
+    /** Number of decompressed partitions kept in memory. */
+    private static final int CACHED_PARTITIONS = 2;
+
+    private final Path directory;
+    private final TreeMap<YearMonth, PartitionHeader> headers = new TreeMap<>();
+    private int maxAppointmentId = 0;
+
+    // Least recently used partitions are evicted once the cache is full.
+    private final Map<YearMonth, List<Appointment>> cache =
+            new LinkedHashMap<YearMonth, List<Appointment>>(CACHED_PARTITIONS + 1, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<YearMonth, List<Appointment>> eldest) {
+                    return size() > CACHED_PARTITIONS;
+                }
+            };
+
+    /**
+     * Opens the partition directory, creating it if necessary, and reads every partition header.
+     *
+     * @param directoryPath the directory holding the partition files.
+     * @throws IOException if the directory or a partition header cannot be read.
+     */
+    public AppointmentPartitionStore(String directoryPath) throws IOException {
+        this.directory = Paths.get(directoryPath);
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                YearMonth month;
+                try {
+                    month = YearMonth.parse(fileName.substring(0, fileName.length() - FILE_SUFFIX.length()));
+                } catch (DateTimeParseException e) {
+                    continue; // Not a partition file
+                }
+
+                try (DataInputStream in = open(file)) {
+                    PartitionHeader header = readHeader(in, file);
+                    headers.put(month, header);
+                    if (header.appointmentIds.length > 0) {
+                        maxAppointmentId = Math.max(maxAppointmentId, header.appointmentIds[header.appointmentIds.length - 1]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the months that have a sealed partition.
+     *
+     * @return the archived months, oldest first.
+     */
+    public synchronized List<YearMonth> getMonths() {
+        return new ArrayList<>(headers.keySet());
+    }
+
+    /**
+     * Returns the highest archived appointment ID.
+     *
+     * @return the highest appointment ID, or 0 if nothing is archived.
+     */
+    public synchronized int getMaxAppointmentId() {
+        return maxAppointmentId;
+    }
+
+    /**
+     * Checks whether an appointment is archived.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @return {@code true} if a partition holds the appointment.
+     */
+    public synchronized boolean contains(int appointmentId) {
+        return monthOf(appointmentId) != null;
+    }
+
+    /**
+     * Retrieves an archived appointment by its ID, loading its partition if necessary.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @return the appointment, or null if it is not archived.
+     * @throws IOException if the partition cannot be read.
+     */
+    public synchronized Appointment findById(int appointmentId) throws IOException {
+        YearMonth month = monthOf(appointmentId);
+        if (month == null) {
+            return null;
+        }
+
+        for (Appointment appointment : getAppointments(month)) {
+            if (appointment.getAppointmentId() == appointmentId) {
+                return appointment;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Retrieves all appointments of an archived month.
+     *
+     * @param month the month to load.
+     * @return the appointments of the month in ID order, or an empty list if the month is not archived.
+     * @throws IOException if the partition cannot be read.
+     */
+    public synchronized List<Appointment> getAppointments(YearMonth month) throws IOException {
+        if (!headers.containsKey(month)) {
+            return new ArrayList<>();
+        }
+
+        List<Appointment> appointments = cache.get(month);
+        if (appointments == null) {
+            appointments = readPartition(month);
+            cache.put(month, appointments);
+        }
+        return appointments;
+    }
+
+    /**
+     * Returns the distinct patient IDs that appear in archived appointments of a doctor,
+     * oldest month first. Only partition headers are used.
+     *
+     * @param doctorId the ID of the doctor.
+     * @return a list of patient IDs.
+     */
+    public synchronized List<String> getPatientIdsOfDoctor(String doctorId) {
+        Set<String> patientIds = new LinkedHashSet<>();
+        for (PartitionHeader header : headers.values()) {
+            for (int i = 0; i < header.pairDoctorIds.length; i++) {
+                if (header.pairDoctorIds[i].equals(doctorId)) {
+                    patientIds.add(header.pairPatientIds[i]);
+                }
+            }
+        }
+        return new ArrayList<>(patientIds);
+    }
+
+    /**
+     * Counts the archived appointments in each status. Only partition headers are used.
+     *
+     * @return the number of archived appointments per status.
+     */
+    public synchronized Map<Status, Integer> countByStatus() {
+        Map<Status, Integer> statusCounts = new EnumMap<>(Status.class);
+        for (PartitionHeader header : headers.values()) {
+            for (Map.Entry<Status, Integer> statusCount : header.statusCounts.entrySet()) {
+                statusCounts.merge(statusCount.getKey(), statusCount.getValue(), Integer::sum);
+            }
+        }
+        return statusCounts;
+    }
+
+    /**
+     * Seals appointments into their monthly partitions. A month that already has a partition is
+     * rewritten with the new appointments merged in; appointments that are already archived are skipped.
+     * Every partition is fully written to disk before this method returns, so the caller can then
+     * drop the appointments from the hot file.
+     *
+     * @param appointments the appointments to seal; their appointment times must be parseable.
+     * @throws IOException if a partition cannot be written.
+     */
+    public synchronized void seal(List<Appointment> appointments) throws IOException {
+        Map<YearMonth, List<Appointment>> appointmentsByMonth = new TreeMap<>();
+        for (Appointment appointment : appointments) {
+            if (contains(appointment.getAppointmentId())) {
+                continue;
+            }
+            YearMonth month = YearMonth.from(DateUtils.extractDate(appointment.getAppointmentTime()));
+            appointmentsByMonth.computeIfAbsent(month, m -> new ArrayList<>()).add(appointment);
+        }
+
+        for (Map.Entry<YearMonth, List<Appointment>> partition : appointmentsByMonth.entrySet()) {
+            List<Appointment> merged = new ArrayList<>(getAppointments(partition.getKey()));
+            merged.addAll(partition.getValue());
+            merged.sort(Comparator.comparingInt(Appointment::getAppointmentId));
+            writePartition(partition.getKey(), merged);
+        }
+    }
+
+    /**
+     * Finds the month whose partition holds an appointment.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @return the month, or null if the appointment is not archived.
+     */
+    private YearMonth monthOf(int appointmentId) {
+        for (Map.Entry<YearMonth, PartitionHeader> header : headers.entrySet()) {
+            if (Arrays.binarySearch(header.getValue().appointmentIds, appointmentId) >= 0) {
+                return header.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes a partition to a temporary file and moves it over the previous version.
+     *
+     * @param month        the month of the partition.
+     * @param appointments the appointments of the month in ID order.
+     * @throws IOException if the partition cannot be written.
+     */
+    private void writePartition(YearMonth month, List<Appointment> appointments) throws IOException {
+        int[] appointmentIds = new int[appointments.size()];
+        Map<Status, Integer> statusCounts = new EnumMap<>(Status.class);
+        Map<String, Set<String>> pairs = new LinkedHashMap<>();
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment appointment = appointments.get(i);
+            appointmentIds[i] = appointment.getAppointmentId();
+            statusCounts.merge(appointment.getAppointmentStatus(), 1, Integer::sum);
+            pairs.computeIfAbsent(appointment.getDoctorId(), d -> new LinkedHashSet<>()).add(appointment.getPatientId());
+        }
+
+        Path target = directory.resolve(month + FILE_SUFFIX);
+        Path temp = directory.resolve(month + FILE_SUFFIX + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(new BufferedOutputStream(fileOut));
+            DataOutputStream out = new DataOutputStream(gzipOut);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(month.getYear());
+            out.writeInt(month.getMonthValue());
+
+            out.writeInt(appointmentIds.length);
+            for (int appointmentId : appointmentIds) {
+                out.writeInt(appointmentId);
+            }
+
+            out.writeInt(statusCounts.size());
+            for (Map.Entry<Status, Integer> statusCount : statusCounts.entrySet()) {
+                out.writeUTF(statusCount.getKey().getDisplayValue());
+                out.writeInt(statusCount.getValue());
+            }
+
+            int pairCount = 0;
+            for (Set<String> patientIds : pairs.values()) {
+                pairCount += patientIds.size();
+            }
+            out.writeInt(pairCount);
+            for (Map.Entry<String, Set<String>> doctorPatients : pairs.entrySet()) {
+                for (String patientId : doctorPatients.getValue()) {
+                    out.writeUTF(doctorPatients.getKey());
+                    out.writeUTF(patientId);
+                }
+            }
+
+            for (Appointment appointment : appointments) {
+                out.writeInt(appointment.getAppointmentId());
+                out.writeUTF(appointment.getDoctorId());
+                out.writeUTF(appointment.getPatientId());
+                out.writeUTF(appointment.getAppointmentTime());
+                out.writeUTF(appointment.getAppointmentStatus().getDisplayValue());
+            }
+
+            gzipOut.finish(); // Writes the gzip trailer before syncing
+            gzipOut.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        try (DataInputStream in = open(target)) {
+            headers.put(month, readHeader(in, target));
+        }
+        cache.put(month, appointments);
+        if (appointmentIds.length > 0) {
+            maxAppointmentId = Math.max(maxAppointmentId, appointmentIds[appointmentIds.length - 1]);
+        }
+    }
+
+    /**
+     * Decompresses all appointments of a partition.
+     *
+     * @param month the month of the partition.
+     * @return the appointments in ID order.
+     * @throws IOException if the partition cannot be read.
+     */
+    private List<Appointment> readPartition(YearMonth month) throws IOException {
+        Path file = directory.resolve(month + FILE_SUFFIX);
+        try (DataInputStream in = open(file)) {
+            PartitionHeader header = readHeader(in, file);
+            List<Appointment> appointments = new ArrayList<>(header.appointmentIds.length);
+            for (int i = 0; i < header.appointmentIds.length; i++) {
+                Appointment appointment = new Appointment();
+                appointment.setAppointmentId(in.readInt());
+                appointment.setDoctorId(in.readUTF());
+                appointment.setPatientId(in.readUTF());
+                appointment.setAppointmentTime(in.readUTF());
+                appointment.setAppointmentStatus(Status.fromDisplayValue(in.readUTF()));
+                appointments.add(appointment);
+            }
+            return appointments;
+        }
+    }
+
+    /**
+     * Reads the header of a partition. Only the header is decompressed.
+     *
+     * @param in   the stream positioned at the start of the partition.
+     * @param file the partition file, used in error messages.
+     * @return the partition header.
+     * @throws IOException if the file is not a partition or cannot be read.
+     */
+    private static PartitionHeader readHeader(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not an appointment partition: " + file);
+        }
+        in.readInt(); // year
+        in.readInt(); // month
+
+        PartitionHeader header = new PartitionHeader();
+        header.appointmentIds = new int[in.readInt()];
+        for (int i = 0; i < header.appointmentIds.length; i++) {
+            header.appointmentIds[i] = in.readInt();
+        }
+
+        int statusCount = in.readInt();
+        for (int i = 0; i < statusCount; i++) {
+            header.statusCounts.put(Status.fromDisplayValue(in.readUTF()), in.readInt());
+        }
+
+        int pairCount = in.readInt();
+        header.pairDoctorIds = new String[pairCount];
+        header.pairPatientIds = new String[pairCount];
+        for (int i = 0; i < pairCount; i++) {
+            header.pairDoctorIds[i] = IdentifierPool.intern(in.readUTF());
+            header.pairPatientIds[i] = IdentifierPool.intern(in.readUTF());
+        }
+        return header;
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        return new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))));
+    }
+
+    /**
+     * The part of a partition that is kept in memory.
+     */
+    private static final class PartitionHeader {
+        private int[] appointmentIds;
+        private final Map<Status, Integer> statusCounts = new EnumMap<>(Status.class);
+        private String[] pairDoctorIds;
+        private String[] pairPatientIds;
+    }
+}
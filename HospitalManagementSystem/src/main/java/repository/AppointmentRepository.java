@@ -5,15 +5,27 @@ import enums.Status;
 import model.Appointment;
 import model.Doctor;
 import model.Patient;
-import services.ExcelReaderWriter;
+import storage.StorageEngines;
+import storage.Table;
+import storage.TableDelta;
+import storage.TableRow;
 import utils.DateUtils;
+import utils.HospitalClock;
+import utils.TimestampCodec;
 
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Repository class for managing appointments in the hospital system.
@@ -21,6 +33,12 @@ import java.util.Objects;
  * stored in an Excel file. It supports scheduling, updating, and retrieving
  * appointment details for doctors and patients.
  *
+ * <p>Only the hot window is kept in the Excel file and in memory: the current month, the future
+ * schedule and any past appointment that is still pending or confirmed. Finished appointments of
+ * earlier months are sealed into monthly partitions of the {@link AppointmentPartitionStore} by
+ * {@link #sealPastMonths()}, which the startup loader runs once as a maintenance step, and are read
+ * back only for history lookups. Loading the repository never writes.</p>
+ *
  * @since 2024-11-15
  * @version 1.0
  * @author LI LIYI
@@ -28,51 +46,131 @@ import java.util.Objects;
 
 public class AppointmentRepository {
 
-    private final String appointmentsFilePath = FilePath.APPOINTMENTS_FILE_PATH;
+    private final Table appointmentsTable = Table.APPOINTMENTS;
     private List<String> appointmentsFileHeader = new ArrayList<>();
     private List<Appointment> appointmentList = new ArrayList<>();
 
+    // Columnar copy of appointmentList for scans, rebuilt lazily after every save.
+    private AppointmentColumnStore columnStore;
+
+    // Sealed monthly partitions of past appointments.
+    private final AppointmentPartitionStore partitionStore;
+
+    // Highest appointment ID in the hot list or the partitions, used to assign new IDs.
+    private int lastAppointmentId = 0;
+
+    // Whether the Excel file still holds rows that are already sealed, left by an interrupted sealing.
+    private boolean hasSealedRows = false;
+
     /**
-     * Initializes the repository by loading all appointments from the Excel file.
+     * Initializes the repository by loading the hot appointments from the Excel file.
+     * Rows left behind by a sealing that was interrupted before the Excel file was rewritten
+     * are skipped, as their partitions already hold them.
      *
-     * @throws IOException if an error occurs while reading the Excel file.
+     * @throws IOException if an error occurs while reading the Excel file or the partitions.
      */
     public AppointmentRepository() throws IOException {
-        this.appointmentList = loadAppointments();
+        this(StorageEngines.get().readRows(Table.APPOINTMENTS));
+    }
+
+    /**
+     * Initializes the repository from rows of the appointments table that were already read, header first.
+     *
+     * @param appointmentFile the rows of the appointments table.
+     * @throws IOException if an error occurs while reading the partitions.
+     */
+    public AppointmentRepository(List<TableRow> appointmentFile) throws IOException {
+        this.partitionStore = new AppointmentPartitionStore(Table.resolveDataFile(FilePath.APPOINTMENT_PARTITIONS_DIR_PATH));
+        this.appointmentList = loadAppointments(appointmentFile);
+
+        lastAppointmentId = partitionStore.getMaxAppointmentId();
+        for (Appointment appointment : appointmentList) {
+            lastAppointmentId = Math.max(lastAppointmentId, appointment.getAppointmentId());
+        }
+    }
+
+    /**
+     * Moves finished appointments of months before the current one into the partition store
+     * and rewrites the Excel file without them. Nothing is written when no appointment is due.
+     *
+     * @return the number of appointments sealed.
+     * @throws IOException if an error occurs while writing the partitions or the Excel file.
+     */
+    public int sealPastMonths() throws IOException {
+        List<Appointment> hotAppointments = new ArrayList<>();
+        List<Appointment> pastAppointments = new ArrayList<>();
+
+        YearMonth currentMonth = HospitalClock.currentMonth();
+        for (Appointment appointment : appointmentList) {
+            if (isSealable(appointment, currentMonth)) {
+                pastAppointments.add(appointment);
+            } else {
+                hotAppointments.add(appointment);
+            }
+        }
+
+        if (pastAppointments.isEmpty()) {
+            if (hasSealedRows) {
+                saveAppointments();
+            }
+            return 0;
+        }
+
+        // Partitions are on disk before the rows leave the Excel file, so a crash in between only leaves duplicates
+        partitionStore.seal(pastAppointments);
+        appointmentList = hotAppointments;
+        saveAppointments();
+        return pastAppointments.size();
+    }
+
+    /**
+     * Checks whether an appointment belongs in a sealed partition.
+     * Appointments that still need action from a doctor (pending or confirmed) stay hot regardless of their date.
+     *
+     * @param appointment the appointment to check.
+     * @param currentMonth the current month.
+     * @return {@code true} if the appointment is finished and dated before the current month.
+     */
+    private boolean isSealable(Appointment appointment, YearMonth currentMonth) {
+        Status status = appointment.getAppointmentStatus();
+        if (status == Status.PENDING || status == Status.CONFIRMED) {
+            return false;
+        }
+
+        LocalDate appointmentDate = DateUtils.extractDate(appointment.getAppointmentTime());
+        return appointmentDate != null && YearMonth.from(appointmentDate).isBefore(currentMonth);
     }
 
     /**
-     * Loads all appointments from the Excel file.
+     * Loads all appointments from the rows of the Excel file.
      *
+     * @param appointmentFile the rows of the Excel file, header first.
      * @return a list of appointments.
-     * @throws IOException if an error occurs while reading the Excel file.
      */
-    private List<Appointment> loadAppointments() throws IOException {
+    private List<Appointment> loadAppointments(List<TableRow> appointmentFile) {
         List<Appointment> appointmentList = new ArrayList<>();
-        List<List<String>> appointmentFile = ExcelReaderWriter.read(appointmentsFilePath);
 
         for (int i = 0; i < appointmentFile.size(); i++) {
             if (i == 0) {
-                appointmentsFileHeader = appointmentFile.get(i);
+                appointmentsFileHeader = appointmentFile.get(i).toList();
                 continue;
             }
 
-            Appointment appointment = new Appointment();
-            appointment.setAppointmentId((int) Float.parseFloat(appointmentFile.get(i).get(0)));
-            appointment.setDoctorId(appointmentFile.get(i).get(1));
-            appointment.setPatientId(appointmentFile.get(i).get(2));
-            appointment.setAppointmentTime(appointmentFile.get(i).get(3));
-            appointment.setAppointmentStatus(appointmentFile.get(i).get(4));
-            appointmentList.add(appointment);
+            Appointment appointment = toAppointment(appointmentFile.get(i));
+            if (partitionStore.contains(appointment.getAppointmentId())) {
+                hasSealedRows = true;
+            } else {
+                appointmentList.add(appointment);
+            }
         }
 
         return appointmentList;
     }
 
     /**
-     * Retrieves all appointments from the repository.
+     * Retrieves the hot appointments from the repository.
      *
-     * @return a list of all appointments.
+     * @return a list of the appointments that are not sealed in a partition.
      */
     public List<Appointment> getAppointmentList() {
         return appointmentList;
@@ -88,33 +186,164 @@ public class AppointmentRepository {
         appointmentFile.add(appointmentsFileHeader);
 
         for (Appointment appointment : appointmentList) {
-            List<String> appointmentRow = new ArrayList<>();
-            appointmentRow.add(String.valueOf(appointment.getAppointmentId()));
-            appointmentRow.add(appointment.getDoctorId());
-            appointmentRow.add(appointment.getPatientId());
-            appointmentRow.add(appointment.getAppointmentTime());
-            appointmentRow.add(appointment.getAppointmentStatus());
-            appointmentFile.add(appointmentRow);
+            appointmentFile.add(toRow(appointment));
         }
 
-        ExcelReaderWriter.write(appointmentFile, appointmentsFilePath);
+        StorageEngines.get().write(appointmentsTable, appointmentFile);
+        columnStore = null;
+        hasSealedRows = false;
     }
 
     /**
-     * Retrieves a list of patients associated with a specific doctor.
+     * Creates an appointment from a row of the Excel file.
      *
-     * @param doctorId the ID of the doctor.
-     * @return a list of patient IDs.
+     * @param row the row.
+     * @return the appointment.
      */
-    public List<String> getPatientListOfDoctor(String doctorId) {
-        List<String> patients = new ArrayList<>();
+    private Appointment toAppointment(TableRow row) {
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentId(row.getInt(0));
+        appointment.setDoctorId(row.getString(1));
+        appointment.setPatientId(row.getString(2));
+        appointment.setAppointmentTime(row.getString(3));
+        appointment.setAppointmentStatus(Status.fromDisplayValue(row.getString(4)));
+        return appointment;
+    }
+
+    /**
+     * Formats an appointment as a row of the Excel file.
+     *
+     * @param appointment the appointment.
+     * @return the row.
+     */
+    private List<String> toRow(Appointment appointment) {
+        List<String> appointmentRow = new ArrayList<>();
+        appointmentRow.add(String.valueOf(appointment.getAppointmentId()));
+        appointmentRow.add(appointment.getDoctorId());
+        appointmentRow.add(appointment.getPatientId());
+        appointmentRow.add(appointment.getAppointmentTime());
+        appointmentRow.add(appointment.getAppointmentStatus().getDisplayValue());
+        return appointmentRow;
+    }
+
+    /**
+     * Applies an edit of the Excel file made outside the system, matching appointments by ID.
+     * Rows of appointments that are already sealed in a partition are ignored. Changed appointments
+     * are replaced, new ones appended and missing ones removed; nothing is written back.
+     *
+     * @param rows the rows of the Excel file, header first.
+     * @return the applied difference.
+     */
+    public TableDelta applyExternalChanges(List<TableRow> rows) {
+        Map<String, List<String>> current = new LinkedHashMap<>();
         for (Appointment appointment : appointmentList) {
-            if (appointment.getDoctorId().equals(doctorId)) {
-                patients.add(appointment.getPatientId());
+            current.put(String.valueOf(appointment.getAppointmentId()), toRow(appointment));
+        }
+
+        List<TableRow> hotRows = new ArrayList<>();
+        for (int i = 1; i < rows.size(); i++) {
+            if (!partitionStore.contains(rows.get(i).getInt(0))) {
+                hotRows.add(rows.get(i));
+            }
+        }
+        appointmentsFileHeader = rows.get(0).toList();
+        TableDelta delta = TableDelta.between(current, hotRows, 0);
+
+        Map<Integer, Appointment> updates = new HashMap<>();
+        for (TableRow row : delta.getChangedRows()) {
+            Appointment appointment = toAppointment(row);
+            updates.put(appointment.getAppointmentId(), appointment);
+        }
+        Set<Integer> removed = new HashSet<>();
+        for (String key : delta.getRemovedKeys()) {
+            removed.add(Integer.parseInt(key));
+        }
+
+        List<Appointment> updatedList = new ArrayList<>();
+        for (Appointment appointment : appointmentList) {
+            if (!removed.contains(appointment.getAppointmentId())) {
+                updatedList.add(updates.getOrDefault(appointment.getAppointmentId(), appointment));
             }
         }
+        for (TableRow row : delta.getAddedRows()) {
+            Appointment appointment = toAppointment(row);
+            lastAppointmentId = Math.max(lastAppointmentId, appointment.getAppointmentId());
+            updatedList.add(appointment);
+        }
+        appointmentList = updatedList;
+        columnStore = null;
+        return delta;
+    }
+
+    /**
+     * Returns the columnar view of the appointment list, building it if the list changed since the last call.
+     *
+     * @return the column store for the current appointments.
+     */
+    public AppointmentColumnStore getColumnStore() {
+        if (columnStore == null || columnStore.size() != appointmentList.size()) {
+            columnStore = new AppointmentColumnStore(appointmentList);
+        }
+        return columnStore;
+    }
 
-        return patients;
+    /**
+     * Counts the appointments in each status, including sealed ones.
+     *
+     * @return the number of appointments per status.
+     */
+    public Map<Status, Integer> getStatusCounts() {
+        Map<Status, Integer> statusCounts = getColumnStore().countByStatus();
+        for (Map.Entry<Status, Integer> archivedCount : partitionStore.countByStatus().entrySet()) {
+            statusCounts.merge(archivedCount.getKey(), archivedCount.getValue(), Integer::sum);
+        }
+        return statusCounts;
+    }
+
+    /**
+     * Returns the months whose appointments are sealed in partitions.
+     *
+     * @return the archived months, oldest first.
+     */
+    public List<YearMonth> getArchivedMonths() {
+        return partitionStore.getMonths();
+    }
+
+    /**
+     * Retrieves the sealed appointments of a past month, loading its partition on demand.
+     *
+     * @param month the month to retrieve.
+     * @return the appointments of the month in ID order.
+     * @throws IOException if an error occurs while reading the partition.
+     */
+    public List<Appointment> getArchivedAppointments(YearMonth month) throws IOException {
+        return partitionStore.getAppointments(month);
+    }
+
+    /**
+     * Retrieves all hot appointments whose status differs from the given status.
+     *
+     * @param status the status to exclude.
+     * @return a list of appointments in file order.
+     */
+    public List<Appointment> getAppointmentsExcludingStatus(Status status) {
+        List<Appointment> appointments = new ArrayList<>();
+        for (int row : getColumnStore().rowsExcludingStatus(status)) {
+            appointments.add(appointmentList.get(row));
+        }
+        return appointments;
+    }
+
+    /**
+     * Retrieves a list of patients associated with a specific doctor.
+     *
+     * @param doctorId the ID of the doctor.
+     * @return a list of distinct patient IDs, in order of first appointment.
+     */
+    public List<String> getPatientListOfDoctor(String doctorId) {
+        Set<String> patientIds = new LinkedHashSet<>(partitionStore.getPatientIdsOfDoctor(doctorId));
+        patientIds.addAll(getColumnStore().getPatientIdsOfDoctor(doctorId));
+        return new ArrayList<>(patientIds);
     }
 
     /**
@@ -126,21 +355,23 @@ public class AppointmentRepository {
      */
     public List<Appointment> getDoctorSchedule(Doctor doctor, LocalDate dateChoice) {
         List<Appointment> doctorSchedule = new ArrayList<>();
+        long now = HospitalClock.currentEpochMinute();
+        long tomorrowStart = (Math.floorDiv(now, TimestampCodec.MINUTES_PER_DAY) + 1) * TimestampCodec.MINUTES_PER_DAY;
+        long minuteOfDayNow = Math.floorMod(now, TimestampCodec.MINUTES_PER_DAY);
+        long chosenDayStart = dateChoice.toEpochDay() * TimestampCodec.MINUTES_PER_DAY;
 
         for (Appointment appointment : appointmentList) {
             if (appointment.getDoctorId().equals(doctor.getDoctorId())) {
-                if (appointment.getAppointmentStatus().equals(Status.FREE.getDisplayValue()) ||
-                    appointment.getAppointmentStatus().equals(Status.PENDING.getDisplayValue()) ||
-                    appointment.getAppointmentStatus().equals(Status.CONFIRMED.getDisplayValue())) {
+                Status status = appointment.getAppointmentStatus();
+                if (status == Status.FREE || status == Status.PENDING || status == Status.CONFIRMED) {
 
-                    LocalDate appointmentDate = DateUtils.extractDate(appointment.getAppointmentTime());
-                    LocalTime appointmentTime = DateUtils.extractTime(appointment.getAppointmentTime());
+                    long appointmentMinute = DateUtils.toEpochMinute(appointment.getAppointmentTime());
 
-                    assert appointmentDate != null;
-                    assert appointmentTime != null;
+                    assert appointmentMinute != TimestampCodec.MALFORMED;
 
-                    if ((appointmentDate.equals(dateChoice) && appointmentTime.isAfter(LocalTime.now())) || 
-                        appointmentDate.isAfter(LocalDate.now())) {
+                    long minuteOfChosenDay = appointmentMinute - chosenDayStart;
+                    if ((minuteOfChosenDay >= 0 && minuteOfChosenDay < TimestampCodec.MINUTES_PER_DAY && minuteOfChosenDay > minuteOfDayNow) ||
+                        appointmentMinute >= tomorrowStart) {
                         doctorSchedule.add(appointment);
                     }
                 }
@@ -158,10 +389,11 @@ public class AppointmentRepository {
      */
     public List<Appointment> getUpcomingAppointmentsForPatient(Patient patient) {
         List<Appointment> upcomingAppointments = new ArrayList<>();
+        long now = HospitalClock.currentEpochMinute();
 
         for (Appointment appointment : appointmentList) {
             if (appointment.getPatientId().equals(patient.getPatientId())) {
-                if (DateUtils.isUpcoming(appointment.getAppointmentTime())) {
+                if (DateUtils.toEpochMinute(appointment.getAppointmentTime()) > now) {
                     upcomingAppointments.add(appointment);
                 }
             }
@@ -179,13 +411,15 @@ public class AppointmentRepository {
      */
     public List<LocalTime> getAvailableTimeSlots(String doctorId, LocalDate date) {
         List<LocalTime> availableTimeSlots = new ArrayList<>();
+        long dayStart = date.toEpochDay() * TimestampCodec.MINUTES_PER_DAY;
 
         for (Appointment appointment : appointmentList) {
             if (appointment.getDoctorId().equals(doctorId)) {
-                if (Objects.equals(DateUtils.extractDate(appointment.getAppointmentTime()), date)) {
-                    if (appointment.getAppointmentStatus().equals(Status.FREE.getDisplayValue()) ||
-                            appointment.getAppointmentStatus().equals(Status.CANCELLED.getDisplayValue())) {
-                        availableTimeSlots.add(DateUtils.extractTime(appointment.getAppointmentTime()));
+                long minuteOfDay = DateUtils.toEpochMinute(appointment.getAppointmentTime()) - dayStart;
+                if (minuteOfDay >= 0 && minuteOfDay < TimestampCodec.MINUTES_PER_DAY) {
+                    if (appointment.getAppointmentStatus() == Status.FREE ||
+                            appointment.getAppointmentStatus() == Status.CANCELLED) {
+                        availableTimeSlots.add(LocalTime.ofSecondOfDay(minuteOfDay * 60));
                     }
                 }
             }
@@ -204,11 +438,11 @@ public class AppointmentRepository {
      * @throws IOException if an error occurs while saving the updated appointment data.
      */
     public void bookAppointment(String patientId, String doctorId, LocalDate date, LocalTime time) throws IOException {
+        long slotMinute = DateUtils.toEpochMinute(LocalDateTime.of(date, time));
         for (Appointment appointment : appointmentList) {
             if (appointment.getDoctorId().equals(doctorId)) {
-                if (Objects.equals(DateUtils.extractDate(appointment.getAppointmentTime()), date) &&
-                        Objects.equals(DateUtils.extractTime(appointment.getAppointmentTime()), time)) {
-                    appointment.setAppointmentStatus(Status.PENDING.getDisplayValue());
+                if (DateUtils.toEpochMinute(appointment.getAppointmentTime()) == slotMinute) {
+                    appointment.setAppointmentStatus(Status.PENDING);
                     appointment.setPatientId(patientId);
                     break;
                 }
@@ -227,7 +461,7 @@ public class AppointmentRepository {
     public void freeAppointmentSlot(Appointment appointmentToFree) throws IOException {
         for (Appointment appointment : appointmentList) {
             if (appointment.getAppointmentId() == appointmentToFree.getAppointmentId()) {
-                appointment.setAppointmentStatus(Status.FREE.getDisplayValue());
+                appointment.setAppointmentStatus(Status.FREE);
                 appointment.setPatientId(Status.FREE.getDisplayValue());
                 break;
             }
@@ -244,7 +478,7 @@ public class AppointmentRepository {
     public void cancelAppointmentSlot(Appointment appointmentToCancel) throws IOException {
         for (Appointment appointment : appointmentList) {
             if (appointment.getAppointmentId() == appointmentToCancel.getAppointmentId()) {
-                appointment.setAppointmentStatus(Status.CANCELLED.getDisplayValue());
+                appointment.setAppointmentStatus(Status.CANCELLED);
                 appointment.setPatientId(Status.FREE.getDisplayValue());
                 break;
             }
@@ -259,7 +493,7 @@ public class AppointmentRepository {
      * @throws IOException if an error occurs while saving the updated appointment data.
      */
     public void addTimeSlotToSchedule(Appointment appointment) throws IOException {
-        appointment.setAppointmentId((appointmentList.get(appointmentList.size() - 1).getAppointmentId() + 1)); // Auto-generated ID
+        appointment.setAppointmentId(++lastAppointmentId); // Auto-generated ID
         appointmentList.add(appointment);
         saveAppointments();
     }
@@ -290,7 +524,7 @@ public class AppointmentRepository {
     public void approveAppointment(Appointment appointmentToApprove) throws IOException {
         for (Appointment appointment : appointmentList) {
             if (appointment.getAppointmentId() == appointmentToApprove.getAppointmentId()) {
-                appointment.setAppointmentStatus(Status.CONFIRMED.getDisplayValue());
+                appointment.setAppointmentStatus(Status.CONFIRMED);
                 break;
             }
         }
@@ -308,7 +542,7 @@ public class AppointmentRepository {
         for (Appointment appointment : appointmentList) {
             if (appointment.getAppointmentId() == appointmentToDecline.getAppointmentId()) {
                 appointment.setPatientId(Status.FREE.getDisplayValue());
-                appointment.setAppointmentStatus(Status.FREE.getDisplayValue());
+                appointment.setAppointmentStatus(Status.FREE);
                 break;
             }
         }
@@ -325,10 +559,13 @@ public class AppointmentRepository {
     public List<Appointment> getUpcomingAppointments(String doctorId) {
         List<Appointment> upcomingAppointments = new ArrayList<>();
 
+        long todayStart = Math.floorDiv(HospitalClock.currentEpochMinute(), TimestampCodec.MINUTES_PER_DAY) * TimestampCodec.MINUTES_PER_DAY;
+
         for (Appointment appointment : appointmentList) {
             if (appointment.getDoctorId().equals(doctorId)) {
-                if (Objects.equals(DateUtils.extractDate(appointment.getAppointmentTime()), LocalDate.now())) {
-                    if (appointment.getAppointmentStatus().equals(Status.CONFIRMED.getDisplayValue())) {
+                long minuteOfToday = DateUtils.toEpochMinute(appointment.getAppointmentTime()) - todayStart;
+                if (minuteOfToday >= 0 && minuteOfToday < TimestampCodec.MINUTES_PER_DAY) {
+                    if (appointment.getAppointmentStatus() == Status.CONFIRMED) {
                         upcomingAppointments.add(appointment);
                     }
                 }
@@ -347,7 +584,7 @@ public class AppointmentRepository {
     public void completeAppointment(Appointment appointmentToComplete) throws IOException {
         for (Appointment appointment : appointmentList) {
             if (appointment.getAppointmentId() == appointmentToComplete.getAppointmentId()) {
-                appointment.setAppointmentStatus(Status.COMPLETED.getDisplayValue());
+                appointment.setAppointmentStatus(Status.COMPLETED);
                 break;
             }
         }
@@ -356,7 +593,7 @@ public class AppointmentRepository {
     }
 
     /**
-     * Retrieves an appointment by its unique ID.
+     * Retrieves an appointment by its unique ID. Sealed appointments are read from their partition.
      *
      * @param appointmentId the ID of the appointment.
      * @return the appointment with the specified ID, or null if not found.
@@ -369,7 +606,7 @@ public class AppointmentRepository {
             }
         }
 
-        return null;
+        return partitionStore.findById(appointmentId);
     }
 
 }
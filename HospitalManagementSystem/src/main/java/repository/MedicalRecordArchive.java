@@ -0,0 +1,501 @@
+/**
+ * The MedicalRecordArchive class stores sealed medical records outside the Java heap.
+ * Once a record is DISPENSED it never changes again, so {@link MedicalRecordRepository} moves it
+ * into this append-only file and keeps only the active (PENDING) records as objects.
+ *
+ * <p>The archive file is memory-mapped in read-only segments of at most {@value #MAX_SEGMENT_SIZE} bytes,
+ * each ending at a record boundary, so archives larger than a single mapping can hold are supported.
+ * Records appended while the archive is open are mapped as new segments; the segments already mapped are
+ * never replaced. Only an offset index by record ID, patient ID and appointment ID is kept on the heap;
+ * records are decoded from the mapped segments when they are requested.</p>
+ *
+ * <p>File layout (all integers big-endian):</p>
+ * <pre>
+ * int magic, int version
+ * per record: int length, int id, int appointmentId (-1 if none), int prescriptionAmount,
+ *             str patientId, str diagnoses, str treatment, str prescription
+ * str: int byteLength (-1 for null), UTF-8 bytes
+ * </pre>
+ */
+package repository;
+
+import enums.Status;
+import model.Appointment;
+import model.MedicalRecord;
+import utils.IdentifierPool;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+public class MedicalRecordArchive implements Closeable {
+
+    /** Identifies an archive file ("HMSA"). */
+    private static final int MAGIC = 0x484D5341;
+
+    /** Format version of the archive file. */
+    private static final int VERSION = 1;
+
+    /** Size of the magic number and version at the start of the file. */
+    private static final int HEADER_LENGTH = 8;
+
+    /** Largest segment mapped at once, unless a single record is larger. */
+    static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    /** Size of the buffer the file is scanned through when the archive is opened. */
+    private static final int SCAN_BUFFER_SIZE = 1 << 20;
+
+    /** Channel used for appending records. */
+    private final FileChannel channel;
+
+    /** Resolves the appointment ID stored in a record to its appointment. */
+    private final IntFunction<Appointment> appointmentLookup;
+
+    /** Largest segment this archive maps at once. */
+    private final long maxSegmentSize;
+
+    /** Read-only mappings of the complete records, in file order. */
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    /** File offset of the first byte of each segment. */
+    private long[] segmentStarts = new long[4];
+
+    /** Offset of the end of the last complete record. */
+    private long end;
+
+    private final Map<Integer, Long> offsetsById = new HashMap<>();
+    private final Map<Integer, Long> offsetsByAppointmentId = new HashMap<>();
+    private final Map<String, OffsetList> offsetsByPatientId = new HashMap<>();
+    private int maxRecordId = 0;
+
+    /**
+     * Opens the archive file, creating it if necessary, and builds the offset index.
+     *
+     * @param archiveFilePath   the path of the archive file.
+     * @param appointmentLookup resolves appointment IDs to appointments when records are decoded.
+     * @throws IOException if the archive file cannot be opened or read.
+     */
+    public MedicalRecordArchive(String archiveFilePath, IntFunction<Appointment> appointmentLookup) throws IOException {
+        this(archiveFilePath, appointmentLookup, MAX_SEGMENT_SIZE);
+    }
+
+    /**
+     * Opens the archive file with a given segment size, so that tests can map many small segments.
+     *
+     * @param archiveFilePath   the path of the archive file.
+     * @param appointmentLookup resolves appointment IDs to appointments when records are decoded.
+     * @param maxSegmentSize    the largest segment mapped at once.
+     * @throws IOException if the archive file cannot be opened or read.
+     */
+    MedicalRecordArchive(String archiveFilePath, IntFunction<Appointment> appointmentLookup, long maxSegmentSize) throws IOException {
+        this.appointmentLookup = appointmentLookup;
+        this.maxSegmentSize = maxSegmentSize;
+        this.channel = FileChannel.open(Paths.get(archiveFilePath),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            if (channel.size() < HEADER_LENGTH) {
+                header.putInt(MAGIC).putInt(VERSION).flip();
+                channel.write(header, 0);
+                channel.truncate(HEADER_LENGTH);
+            } else {
+                while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                    // Read until the header is complete
+                }
+                if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    throw new IOException("Not a medical record archive: " + archiveFilePath);
+                }
+            }
+            buildIndex();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks whether a record is already archived.
+     *
+     * @param recordId the ID of the medical record.
+     * @return {@code true} if the archive holds the record.
+     */
+    public synchronized boolean contains(int recordId) {
+        return offsetsById.containsKey(recordId);
+    }
+
+    /**
+     * Returns the number of archived records.
+     *
+     * @return the record count.
+     */
+    public synchronized int size() {
+        return offsetsById.size();
+    }
+
+    /**
+     * Returns the highest archived record ID.
+     *
+     * @return the highest record ID, or 0 if the archive is empty.
+     */
+    public synchronized int getMaxRecordId() {
+        return maxRecordId;
+    }
+
+    /**
+     * Decodes an archived record by its ID.
+     *
+     * @param recordId the ID of the medical record.
+     * @return the record, or null if it is not archived.
+     */
+    public synchronized MedicalRecord findById(int recordId) {
+        Long offset = offsetsById.get(recordId);
+        return offset == null ? null : decode(offset);
+    }
+
+    /**
+     * Decodes the archived record created for an appointment.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @return the record, or null if no archived record refers to the appointment.
+     */
+    public synchronized MedicalRecord findByAppointmentId(int appointmentId) {
+        Long offset = offsetsByAppointmentId.get(appointmentId);
+        return offset == null ? null : decode(offset);
+    }
+
+    /**
+     * Decodes all archived records of a patient.
+     *
+     * @param patientId the ID of the patient.
+     * @return the patient's archived records in archive order.
+     */
+    public synchronized List<MedicalRecord> findByPatientId(String patientId) {
+        List<MedicalRecord> records = new ArrayList<>();
+        OffsetList offsets = offsetsByPatientId.get(patientId);
+        if (offsets != null) {
+            for (int i = 0; i < offsets.size; i++) {
+                records.add(decode(offsets.values[i]));
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Appends sealed records to the archive and maps the appended region. Records that are already
+     * archived are skipped.
+     *
+     * @param records the DISPENSED records to archive.
+     * @throws IOException if the archive file cannot be written.
+     */
+    public synchronized void appendAll(List<MedicalRecord> records) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        List<MedicalRecord> appended = new ArrayList<>();
+        List<Long> appendedOffsets = new ArrayList<>();
+        for (MedicalRecord record : records) {
+            if (offsetsById.containsKey(record.getId())) {
+                continue;
+            }
+            byte[] encoded = encode(record);
+            appended.add(record);
+            appendedOffsets.add(end + buffer.size());
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+        out.flush();
+        if (buffer.size() == 0) {
+            return;
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        long position = end;
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+        channel.force(false);
+
+        // The records are indexed from the objects, so only the new region is mapped, to decode them later
+        SegmentPlan plan = new SegmentPlan(end);
+        for (int i = 0; i < appended.size(); i++) {
+            long offset = appendedOffsets.get(i);
+            long next = i + 1 < appended.size() ? appendedOffsets.get(i + 1) : position;
+            plan.add(offset, next);
+            MedicalRecord record = appended.get(i);
+            int appointmentId = record.getPastAppointment() == null ? -1 : record.getPastAppointment().getAppointmentId();
+            index(offset, record.getId(), appointmentId, IdentifierPool.intern(record.getPatientId()));
+        }
+        map(plan, position);
+        end = position;
+    }
+
+    /**
+     * Appends a single sealed record to the archive.
+     *
+     * @param record the DISPENSED record to archive.
+     * @throws IOException if the archive file cannot be written.
+     */
+    public void append(MedicalRecord record) throws IOException {
+        List<MedicalRecord> records = new ArrayList<>();
+        records.add(record);
+        appendAll(records);
+    }
+
+    /**
+     * Closes the archive file. The archive cannot be used afterwards; its mappings are released
+     * when they are garbage collected.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        segments.clear();
+        channel.close();
+    }
+
+    /**
+     * Scans the whole file through a buffer and indexes every complete record, then maps the records.
+     * A torn record left at the end of the file by an interrupted append is cut off before anything is
+     * mapped, as some platforms cannot truncate a mapped file.
+     *
+     * @throws IOException if the file cannot be read or truncated.
+     */
+    private void buildIndex() throws IOException {
+        ScanBuffer scan = new ScanBuffer(channel);
+        SegmentPlan plan = new SegmentPlan(HEADER_LENGTH);
+        long fileSize = channel.size();
+        long offset = HEADER_LENGTH;
+        while (true) {
+            int at = scan.load(offset, 4);
+            if (at < 0) {
+                break;
+            }
+            int length = scan.buffer.getInt(at);
+            if (length <= 0 || offset + 4 + length > fileSize || (at = scan.load(offset, 4 + length)) < 0) {
+                break;
+            }
+
+            ByteBuffer buffer = scan.buffer;
+            index(offset, buffer.getInt(at + 4), buffer.getInt(at + 8), IdentifierPool.intern(readString(buffer, at + 16)));
+            plan.add(offset, offset + 4 + length);
+            offset += 4 + length;
+        }
+        end = offset;
+
+        if (end < fileSize) {
+            channel.truncate(end);
+        }
+        map(plan, end);
+    }
+
+    /**
+     * Adds a record to the offset index.
+     */
+    private void index(long offset, int recordId, int appointmentId, String patientId) {
+        offsetsById.put(recordId, offset);
+        if (appointmentId >= 0) {
+            offsetsByAppointmentId.put(appointmentId, offset);
+        }
+        OffsetList patientOffsets = offsetsByPatientId.get(patientId);
+        if (patientOffsets == null) {
+            patientOffsets = new OffsetList();
+            offsetsByPatientId.put(patientId, patientOffsets);
+        }
+        patientOffsets.add(offset);
+        maxRecordId = Math.max(maxRecordId, recordId);
+    }
+
+    /**
+     * Maps the segments of a plan.
+     *
+     * @param plan the segment starts.
+     * @param stop the offset of the end of the last segment.
+     * @throws IOException if a segment cannot be mapped.
+     */
+    private void map(SegmentPlan plan, long stop) throws IOException {
+        for (int i = 0; i < plan.starts.size; i++) {
+            long start = plan.starts.values[i];
+            long segmentEnd = i + 1 < plan.starts.size ? plan.starts.values[i + 1] : stop;
+            if (segmentEnd <= start) {
+                continue;
+            }
+            if (segments.size() == segmentStarts.length) {
+                segmentStarts = Arrays.copyOf(segmentStarts, segments.size() * 2);
+            }
+            segmentStarts[segments.size()] = start;
+            segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, segmentEnd - start));
+        }
+    }
+
+    /**
+     * Decodes the record starting at an offset.
+     *
+     * @param offset the offset of the record's length field.
+     * @return the decoded record.
+     */
+    private MedicalRecord decode(long offset) {
+        int segment = Arrays.binarySearch(segmentStarts, 0, segments.size(), offset);
+        if (segment < 0) {
+            segment = -segment - 2;
+        }
+        MappedByteBuffer mapped = segments.get(segment);
+        int at = (int) (offset - segmentStarts[segment]);
+
+        MedicalRecord record = new MedicalRecord();
+        record.setId(mapped.getInt(at + 4));
+        int appointmentId = mapped.getInt(at + 8);
+        record.setPrescriptionAmount(mapped.getInt(at + 12));
+        record.setStatus(Status.DISPENSED);
+
+        int position = at + 16;
+        record.setPatientId(readString(mapped, position));
+        position += stringLength(mapped, position);
+        record.setDiagnoses(readString(mapped, position));
+        position += stringLength(mapped, position);
+        record.setTreatment(readString(mapped, position));
+        position += stringLength(mapped, position);
+        record.setPrescription(readString(mapped, position));
+
+        if (appointmentId >= 0) {
+            record.setPastAppointment(appointmentLookup.apply(appointmentId));
+        }
+        return record;
+    }
+
+    /**
+     * Encodes a record body (everything after the length field).
+     *
+     * @param record the record to encode.
+     * @return the encoded bytes.
+     * @throws IOException never, as the record is written to memory.
+     */
+    private static byte[] encode(MedicalRecord record) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(record.getId());
+        out.writeInt(record.getPastAppointment() == null ? -1 : record.getPastAppointment().getAppointmentId());
+        out.writeInt(record.getPrescriptionAmount());
+        writeString(out, record.getPatientId());
+        writeString(out, record.getDiagnoses());
+        writeString(out, record.getTreatment());
+        writeString(out, record.getPrescription());
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer, int position) {
+        int length = buffer.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer view = buffer.duplicate();
+        view.position(position + 4);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int stringLength(ByteBuffer buffer, int position) {
+        return 4 + Math.max(0, buffer.getInt(position));
+    }
+
+    /**
+     * Splits a run of records into segments of at most the archive's segment size, each starting at a record.
+     */
+    private final class SegmentPlan {
+        private final OffsetList starts = new OffsetList();
+
+        SegmentPlan(long start) {
+            starts.add(start);
+        }
+
+        /**
+         * Adds the next record of the run, starting a new segment if the current one cannot hold it.
+         *
+         * @param offset    the offset of the record.
+         * @param recordEnd the offset just after the record.
+         */
+        void add(long offset, long recordEnd) {
+            long segmentStart = starts.values[starts.size - 1];
+            if (offset > segmentStart && recordEnd - segmentStart > maxSegmentSize) {
+                starts.add(offset);
+            }
+        }
+    }
+
+    /**
+     * A window over the archive file, refilled with plain reads as the file is scanned.
+     */
+    private static final class ScanBuffer {
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        private long start = 0;
+
+        ScanBuffer(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        /**
+         * Makes a range of the file readable in the buffer.
+         *
+         * @param offset the file offset of the range.
+         * @param length the length of the range.
+         * @return the index of the range in the buffer, or -1 if the file ends before the range does.
+         * @throws IOException if the file cannot be read.
+         */
+        int load(long offset, int length) throws IOException {
+            if (offset >= start && offset + length <= start + buffer.limit()) {
+                return (int) (offset - start);
+            }
+            if (length > buffer.capacity()) {
+                buffer = ByteBuffer.allocate(length);
+            }
+            buffer.clear();
+            start = offset;
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) >= 0) {
+                // Read until the buffer is full or the file ends
+            }
+            buffer.flip();
+            return length <= buffer.limit() ? 0 : -1;
+        }
+    }
+
+    /**
+     * Growable list of file offsets.
+     */
+    private static final class OffsetList {
+        private long[] values = new long[2];
+        private int size = 0;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -10,6 +10,9 @@
  * </ul>
  * 
  * <p>This repository also integrates with the {@link AppointmentRepository} to associate appointments with medical records.</p>
+ *
+ * <p>Only active records are kept in memory. Dispensed records are sealed into the
+ * {@link MedicalRecordArchive} and decoded from it when they are requested.</p>
  * 
  * @author NICHOLAS CHANG CHIA KUAN
  * @version 1.0
@@ -21,25 +24,43 @@ import constants.FilePath;
 import enums.Status;
 import model.Appointment;
 import model.MedicalRecord;
-import services.ExcelReaderWriter;
+import storage.StorageEngines;
+import storage.Table;
+import storage.TableDelta;
+import storage.TableRow;
+import storage.UnitOfWork;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class MedicalRecordRepository {
+public class MedicalRecordRepository implements Closeable {
 
-    /** Path to the Excel file containing medical records. */
-    private final String medicalRecordFilePath = FilePath.MEDICAL_RECORDS_FILE_PATH;
+    /** Table containing medical records. */
+    private final Table medicalRecordTable = Table.MEDICAL_RECORDS;
 
-    /** Header row from the Excel file. */
-    private List<String> medicalRecordFileHeader = new ArrayList<>();
-
-    /** List storing all medical records loaded from the file. */
+    /** List storing the active (not yet dispensed) medical records loaded from the file. */
     private List<MedicalRecord> medicalRecordList = new ArrayList<>();
 
+    /** Active medical records grouped by patient ID, so one patient's records are found without a scan. */
+    private Map<String, List<MedicalRecord>> activeRecordsByPatientId = new HashMap<>();
+
     /** Repository for managing appointments. */
-    private final AppointmentRepository appointmentRepository = new AppointmentRepository();
+    private final AppointmentRepository appointmentRepository;
+
+    /** Off-heap store of sealed (dispensed) medical records. */
+    private final MedicalRecordArchive archive;
+
+    /** Highest record ID seen in the file or the archive, used to assign new IDs. */
+    private int lastRecordId = 0;
 
     /**
      * Constructor for MedicalRecordRepository. Loads medical records from the file.
@@ -47,67 +68,195 @@ public class MedicalRecordRepository {
      * @throws IOException if an error occurs during file reading.
      */
     public MedicalRecordRepository() throws IOException {
-        this.medicalRecordList = loadMedicalRecords();
+        this(new AppointmentRepository());
     }
 
     /**
-     * Loads medical records from the file into memory.
+     * Constructor for MedicalRecordRepository that resolves past appointments through an existing
+     * {@link AppointmentRepository}. Loads medical records from the file.
      *
-     * @return a list of medical records.
+     * @param appointmentRepository the repository used to link records to their appointments.
      * @throws IOException if an error occurs during file reading.
      */
-    private List<MedicalRecord> loadMedicalRecords() throws IOException {
+    public MedicalRecordRepository(AppointmentRepository appointmentRepository) throws IOException {
+        this(appointmentRepository, StorageEngines.get().readRows(Table.MEDICAL_RECORDS));
+    }
+
+    /**
+     * Constructor for MedicalRecordRepository that loads medical records from rows of the file that
+     * were already read, header first.
+     *
+     * @param appointmentRepository the repository used to link records to their appointments.
+     * @param medicalRecordFile     the rows of the medical records table.
+     * @throws IOException if an error occurs while opening or filling the archive.
+     */
+    public MedicalRecordRepository(AppointmentRepository appointmentRepository, List<TableRow> medicalRecordFile) throws IOException {
+        this.appointmentRepository = appointmentRepository;
+        this.archive = new MedicalRecordArchive(Table.resolveDataFile(FilePath.MEDICAL_RECORD_ARCHIVE_FILE_PATH), this::findAppointment);
+        this.medicalRecordList = loadMedicalRecords(medicalRecordFile);
+        indexByPatient();
+    }
+
+    /**
+     * Rebuilds the patient index of the active medical records.
+     */
+    private void indexByPatient() {
+        activeRecordsByPatientId = new HashMap<>();
+        for (MedicalRecord medicalRecord : medicalRecordList) {
+            activeRecordsByPatientId.computeIfAbsent(medicalRecord.getPatientId(), id -> new ArrayList<>()).add(medicalRecord);
+        }
+    }
+
+    /**
+     * Resolves an appointment ID stored in a medical record.
+     *
+     * @param appointmentId the ID of the appointment.
+     * @return the appointment, or null if it does not exist.
+     */
+    private Appointment findAppointment(int appointmentId) {
+        try {
+            return appointmentRepository.getAppointmentById(appointmentId);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads medical records from the file into memory.
+     * Dispensed records are moved into the archive instead of being kept in the returned list.
+     *
+     * @param medicalRecordFile the rows of the file, header first.
+     * @return a list of active medical records.
+     * @throws IOException if an error occurs during archiving.
+     */
+    private List<MedicalRecord> loadMedicalRecords(List<TableRow> medicalRecordFile) throws IOException {
         List<MedicalRecord> medicalRecordList = new ArrayList<>();
-        List<List<String>> medicalRecordFile = ExcelReaderWriter.read(medicalRecordFilePath);
+        List<MedicalRecord> recordsToSeal = new ArrayList<>();
+        lastRecordId = archive.getMaxRecordId();
+
+        for (int i = 1; i < medicalRecordFile.size(); i++) {
+            TableRow row = medicalRecordFile.get(i);
+            int recordId = row.getInt(6);
+            lastRecordId = Math.max(lastRecordId, recordId);
 
-        for (int i = 0; i < medicalRecordFile.size(); i++) {
-            if (i == 0) {
-                medicalRecordFileHeader = medicalRecordFile.get(i);
-                continue;
+            if (Status.fromDisplayValue(row.getString(5)) == Status.DISPENSED && archive.contains(recordId)) {
+                continue; // Already sealed, no need to resolve or keep it
             }
+            MedicalRecord medicalRecord = toMedicalRecord(row);
 
-            MedicalRecord medicalRecord = new MedicalRecord();
-            medicalRecord.setPatientId(medicalRecordFile.get(i).get(0));
-            medicalRecord.setDiagnoses(medicalRecordFile.get(i).get(1));
-            medicalRecord.setTreatment(medicalRecordFile.get(i).get(2));
-            medicalRecord.setPrescription(medicalRecordFile.get(i).get(3));
-            medicalRecord.setPrescriptionAmount((int) Float.parseFloat(medicalRecordFile.get(i).get(4)));
-            medicalRecord.setStatus(medicalRecordFile.get(i).get(5));
-            medicalRecord.setId((int) Float.parseFloat(medicalRecordFile.get(i).get(6)));
-            if (medicalRecordFile.get(i).size() > 7) {
-                medicalRecord.setPastAppointment(appointmentRepository.getAppointmentById((int) Float.parseFloat(medicalRecordFile.get(i).get(7))));
+            if (medicalRecord.getStatus() == Status.DISPENSED) {
+                recordsToSeal.add(medicalRecord);
+            } else {
+                medicalRecordList.add(medicalRecord);
             }
-            medicalRecordList.add(medicalRecord);
         }
 
+        archive.appendAll(recordsToSeal);
         return medicalRecordList;
     }
 
     /**
-     * Saves the current state of the medical records to the file.
+     * Creates a medical record from a row of the file, resolving its past appointment if the row has one.
      *
-     * @throws IOException if an error occurs during file writing.
+     * @param row the row.
+     * @return the medical record.
+     * @throws IOException if the appointment cannot be read.
      */
-    private void saveMedicalRecords() throws IOException {
-        List<List<String>> medicalRecordFile = new ArrayList<>();
+    private MedicalRecord toMedicalRecord(TableRow row) throws IOException {
+        MedicalRecord medicalRecord = new MedicalRecord();
+        medicalRecord.setPatientId(row.getString(0));
+        medicalRecord.setDiagnoses(row.getString(1));
+        medicalRecord.setTreatment(row.getString(2));
+        medicalRecord.setPrescription(row.getString(3));
+        medicalRecord.setPrescriptionAmount(row.getInt(4));
+        medicalRecord.setStatus(Status.fromDisplayValue(row.getString(5)));
+        medicalRecord.setId(row.getInt(6));
+        if (row.size() > 7) {
+            medicalRecord.setPastAppointment(appointmentRepository.getAppointmentById(row.getInt(7)));
+        }
+        return medicalRecord;
+    }
+
+    /**
+     * Formats a medical record as a row of the file.
+     *
+     * @param medicalRecord the medical record.
+     * @return the row.
+     */
+    private List<String> toRow(MedicalRecord medicalRecord) {
+        List<String> medicalRecordRow = new ArrayList<>();
+        medicalRecordRow.add(medicalRecord.getPatientId());
+        medicalRecordRow.add(medicalRecord.getDiagnoses());
+        medicalRecordRow.add(medicalRecord.getTreatment());
+        medicalRecordRow.add(medicalRecord.getPrescription());
+        medicalRecordRow.add(String.valueOf(medicalRecord.getPrescriptionAmount()));
+        medicalRecordRow.add(medicalRecord.getStatus().getDisplayValue());
+        medicalRecordRow.add(String.valueOf(medicalRecord.getId()));
+        if (medicalRecord.getPastAppointment() != null) {
+            medicalRecordRow.add(String.valueOf(medicalRecord.getPastAppointment().getAppointmentId()));
+        }
+        return medicalRecordRow;
+    }
 
-        medicalRecordFile.add(medicalRecordFileHeader);
+    /**
+     * Applies an edit of the medical records file made outside the system, matching records by ID.
+     * Only active records are compared: rows of records already sealed in the archive are history and
+     * are left as archived. Records that the edit marks as dispensed are sealed; other changed records
+     * are replaced, new ones appended and missing ones removed. Nothing is written back.
+     *
+     * @param rows the rows of the medical records file, header first.
+     * @return the applied difference.
+     * @throws IOException if an appointment cannot be read or a record cannot be sealed.
+     */
+    public TableDelta applyExternalChanges(List<TableRow> rows) throws IOException {
+        Map<String, List<String>> current = new LinkedHashMap<>();
         for (MedicalRecord medicalRecord : medicalRecordList) {
-            List<String> medicalRecordRow = new ArrayList<>();
-            medicalRecordRow.add(medicalRecord.getPatientId());
-            medicalRecordRow.add(medicalRecord.getDiagnoses());
-            medicalRecordRow.add(medicalRecord.getTreatment());
-            medicalRecordRow.add(medicalRecord.getPrescription());
-            medicalRecordRow.add(String.valueOf(medicalRecord.getPrescriptionAmount()));
-            medicalRecordRow.add(medicalRecord.getStatus());
-            medicalRecordRow.add(String.valueOf(medicalRecord.getId()));
-            if (medicalRecord.getPastAppointment() != null) {
-                medicalRecordRow.add(String.valueOf(medicalRecord.getPastAppointment().getAppointmentId()));
+            current.put(String.valueOf(medicalRecord.getId()), toRow(medicalRecord));
+        }
+
+        List<TableRow> activeRows = new ArrayList<>();
+        for (int i = 1; i < rows.size(); i++) {
+            if (!archive.contains(rows.get(i).getInt(6))) {
+                activeRows.add(rows.get(i));
             }
-            medicalRecordFile.add(medicalRecordRow);
+        }
+        TableDelta delta = TableDelta.between(current, activeRows, 6);
+
+        Map<Integer, MedicalRecord> updates = new HashMap<>();
+        List<MedicalRecord> addedRecords = new ArrayList<>();
+        List<MedicalRecord> recordsToSeal = new ArrayList<>();
+        for (TableRow row : delta.getChangedRows()) {
+            MedicalRecord medicalRecord = toMedicalRecord(row);
+            updates.put(medicalRecord.getId(), medicalRecord);
+        }
+        for (TableRow row : delta.getAddedRows()) {
+            addedRecords.add(toMedicalRecord(row));
+        }
+        Set<Integer> removed = new HashSet<>();
+        for (String key : delta.getRemovedKeys()) {
+            removed.add(Integer.parseInt(key));
         }
 
-        ExcelReaderWriter.write(medicalRecordFile, medicalRecordFilePath);
+        List<MedicalRecord> updatedList = new ArrayList<>();
+        for (MedicalRecord medicalRecord : medicalRecordList) {
+            if (!removed.contains(medicalRecord.getId())) {
+                updatedList.add(updates.getOrDefault(medicalRecord.getId(), medicalRecord));
+            }
+        }
+        updatedList.addAll(addedRecords);
+
+        medicalRecordList = new ArrayList<>();
+        for (MedicalRecord medicalRecord : updatedList) {
+            lastRecordId = Math.max(lastRecordId, medicalRecord.getId());
+            if (medicalRecord.getStatus() == Status.DISPENSED) {
+                recordsToSeal.add(medicalRecord);
+            } else {
+                medicalRecordList.add(medicalRecord);
+            }
+        }
+        archive.appendAll(recordsToSeal);
+        indexByPatient();
+        return delta;
     }
 
     /**
@@ -118,15 +267,10 @@ public class MedicalRecordRepository {
      * @throws IOException if an error occurs during data retrieval.
      */
     public List<MedicalRecord> getMedicalRecordsByPatientId(String patientId) throws IOException {
-        medicalRecordList = loadMedicalRecords();
-        List<MedicalRecord> patientMedicalRecords = new ArrayList<>();
-
-        for (MedicalRecord medicalRecord : medicalRecordList) {
-            if (medicalRecord.getPatientId().equals(patientId)) {
-                patientMedicalRecords.add(medicalRecord);
-            }
-        }
+        List<MedicalRecord> patientMedicalRecords = archive.findByPatientId(patientId);
+        patientMedicalRecords.addAll(activeRecordsByPatientId.getOrDefault(patientId, new ArrayList<>()));
 
+        patientMedicalRecords.sort(Comparator.comparingInt(MedicalRecord::getId));
         return patientMedicalRecords;
     }
 
@@ -139,7 +283,7 @@ public class MedicalRecordRepository {
         List<MedicalRecord> appointmentOutcomes = new ArrayList<>();
 
         for (MedicalRecord medicalRecord : medicalRecordList) {
-            if (medicalRecord.getStatus().equals(Status.PENDING.getDisplayValue())) {
+            if (medicalRecord.getStatus() == Status.PENDING) {
                 appointmentOutcomes.add(medicalRecord);
             }
         }
@@ -148,32 +292,101 @@ public class MedicalRecordRepository {
     }
 
     /**
-     * Updates the status of a medical record to "DISPENSED" and saves the changes.
+     * Updates the status of a medical record to "DISPENSED", seals it into the archive and saves the changes.
      *
      * @param mr the medical record to update.
      * @throws IOException if an error occurs during file writing.
      */
     public void dispenseMedication(MedicalRecord mr) throws IOException {
+        UnitOfWork work = new UnitOfWork();
+        dispenseMedication(mr, work);
+        work.commit();
+    }
+
+    /**
+     * Stages the dispensing of a medical record in a unit of work. When the unit of work is committed,
+     * the record's row is marked "DISPENSED" and the record is sealed into the archive.
+     *
+     * @param mr   the medical record to update.
+     * @param work the unit of work to stage the change in.
+     */
+    public void dispenseMedication(MedicalRecord mr, UnitOfWork work) {
         for (MedicalRecord medicalRecord : medicalRecordList) {
             if (medicalRecord.getId() == mr.getId()) {
-                medicalRecord.setStatus(Status.DISPENSED.getDisplayValue());
+                List<String> medicalRecordRow = toRow(medicalRecord);
+                medicalRecordRow.set(5, Status.DISPENSED.getDisplayValue());
+                work.upsert(medicalRecordTable, 6, medicalRecordRow);
+
+                // Sealed only after the row is stored, so a failed commit leaves the record active
+                work.afterCommit(() -> {
+                    medicalRecord.setStatus(Status.DISPENSED);
+                    archive.append(medicalRecord);
+                    medicalRecordList.remove(medicalRecord);
+                    activeRecordsByPatientId.get(medicalRecord.getPatientId()).remove(medicalRecord);
+                });
                 break;
             }
         }
+    }
+
+    /**
+     * Stages the dispensing of several medical records in a unit of work with one pass over the active
+     * records. When the unit of work is committed, their rows are marked "DISPENSED" and the records are
+     * sealed into the archive together.
+     *
+     * @param records the medical records to update; records that are no longer active are ignored.
+     * @param work    the unit of work to stage the changes in.
+     */
+    public void dispenseMedications(Collection<MedicalRecord> records, UnitOfWork work) {
+        Set<Integer> recordIds = new HashSet<>();
+        for (MedicalRecord mr : records) {
+            recordIds.add(mr.getId());
+        }
+
+        List<MedicalRecord> dispensedRecords = new ArrayList<>();
+        for (MedicalRecord medicalRecord : medicalRecordList) {
+            if (recordIds.contains(medicalRecord.getId())) {
+                List<String> medicalRecordRow = toRow(medicalRecord);
+                medicalRecordRow.set(5, Status.DISPENSED.getDisplayValue());
+                work.upsert(medicalRecordTable, 6, medicalRecordRow);
+                dispensedRecords.add(medicalRecord);
+            }
+        }
+        if (dispensedRecords.isEmpty()) {
+            return;
+        }
 
-        saveMedicalRecords();
+        work.afterCommit(() -> {
+            for (MedicalRecord medicalRecord : dispensedRecords) {
+                medicalRecord.setStatus(Status.DISPENSED);
+            }
+            archive.appendAll(dispensedRecords);
+            medicalRecordList.removeIf(medicalRecord -> recordIds.contains(medicalRecord.getId()));
+            for (MedicalRecord medicalRecord : dispensedRecords) {
+                activeRecordsByPatientId.get(medicalRecord.getPatientId()).remove(medicalRecord);
+            }
+        });
     }
 
     /**
      * Inserts a new medical record into the repository and assigns it a unique ID.
+     * Only the new record's row is stored; the archived history is not read back.
      *
      * @param newMedicalRecord the new medical record to add.
      * @throws IOException if an error occurs during file writing.
      */
     public void insertNewMedicalRecord(MedicalRecord newMedicalRecord) throws IOException {
-        newMedicalRecord.setId((medicalRecordList.get(medicalRecordList.size() - 1).getId() + 1)); // Auto ID
-        medicalRecordList.add(newMedicalRecord);
-        saveMedicalRecords();
+        int recordId = lastRecordId + 1; // Auto ID
+        newMedicalRecord.setId(recordId);
+
+        UnitOfWork work = new UnitOfWork();
+        work.upsert(medicalRecordTable, 6, toRow(newMedicalRecord));
+        work.afterCommit(() -> {
+            lastRecordId = Math.max(lastRecordId, recordId);
+            medicalRecordList.add(newMedicalRecord);
+            activeRecordsByPatientId.computeIfAbsent(newMedicalRecord.getPatientId(), id -> new ArrayList<>()).add(newMedicalRecord);
+        });
+        work.commit();
     }
 
     /**
@@ -190,6 +403,16 @@ public class MedicalRecordRepository {
             }
         }
 
-        return null;
+        return archive.findByAppointmentId(appointmentId);
+    }
+
+    /**
+     * Closes the archive of dispensed records. Called when the repositories of a session are dropped.
+     *
+     * @throws IOException if the archive cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        archive.close();
     }
 }
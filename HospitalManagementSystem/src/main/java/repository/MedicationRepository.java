@@ -18,18 +18,26 @@
  */
 package repository;
 
-import constants.FilePath;
 import model.Medication;
-import services.ExcelReaderWriter;
+import storage.StorageEngines;
+import storage.Table;
+import storage.TableDelta;
+import storage.TableRow;
+import storage.UnitOfWork;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class MedicationRepository {
 
-    /** Path to the Excel file containing the medication inventory. */
-    private final String medicationFilePath = FilePath.MEDICAL_INVENTORY_FILE_PATH;
+    /** Table containing the medication inventory. */
+    private final Table medicationTable = Table.MEDICAL_INVENTORY;
 
     /** Header row from the Excel file. */
     private List<String> medicationFileHeader = new ArrayList<>();
@@ -43,30 +51,35 @@ public class MedicationRepository {
      * @throws IOException if an error occurs during file reading.
      */
     public MedicationRepository() throws IOException {
-        this.medicationList = loadMedications();
+        this(StorageEngines.get().readRows(Table.MEDICAL_INVENTORY));
     }
 
     /**
-     * Loads medications from the inventory file into memory.
+     * Constructor for MedicationRepository that loads medications from rows of the inventory file
+     * that were already read, header first.
      *
+     * @param medicationFile the rows of the inventory file.
+     */
+    public MedicationRepository(List<TableRow> medicationFile) {
+        this.medicationList = loadMedications(medicationFile);
+    }
+
+    /**
+     * Loads medications from the rows of the inventory file into memory.
+     *
+     * @param medicationFile the rows of the inventory file, header first.
      * @return a list of medications.
-     * @throws IOException if an error occurs during file reading.
      */
-    private List<Medication> loadMedications() throws IOException {
+    private List<Medication> loadMedications(List<TableRow> medicationFile) {
         List<Medication> medicationList = new ArrayList<>();
-        List<List<String>> medicationFile = ExcelReaderWriter.read(medicationFilePath);
 
         for (int i = 0; i < medicationFile.size(); i++) {
             if (i == 0) {
-                medicationFileHeader = medicationFile.get(i);
+                medicationFileHeader = medicationFile.get(i).toList();
                 continue;
             }
 
-            Medication medication = new Medication();
-            medication.setMedicineName(medicationFile.get(i).get(0));
-            medication.setCurrentStock((int) Float.parseFloat(medicationFile.get(i).get(1)));
-            medication.setLowStockLevel((int) Float.parseFloat(medicationFile.get(i).get(2)));
-            medication.setReplenishAmount((int) Float.parseFloat(medicationFile.get(i).get(3)));
+            Medication medication = toMedication(medicationFile.get(i));
             medicationList.add(medication);
         }
 
@@ -83,15 +96,76 @@ public class MedicationRepository {
 
         medicationFile.add(medicationFileHeader);
         for (Medication medication : medicationList) {
-            List<String> medicationRow = new ArrayList<>();
-            medicationRow.add(medication.getMedicineName());
-            medicationRow.add(String.valueOf(medication.getCurrentStock()));
-            medicationRow.add(String.valueOf(medication.getLowStockLevel()));
-            medicationRow.add(String.valueOf(medication.getReplenishAmount()));
-            medicationFile.add(medicationRow);
+            medicationFile.add(toRow(medication));
+        }
+
+        StorageEngines.get().write(medicationTable, medicationFile);
+    }
+
+    /**
+     * Creates a medication from a row of the inventory file.
+     *
+     * @param row the row.
+     * @return the medication.
+     */
+    private Medication toMedication(TableRow row) {
+        Medication medication = new Medication();
+        medication.setMedicineName(row.getString(0));
+        medication.setCurrentStock(row.getInt(1));
+        medication.setLowStockLevel(row.getInt(2));
+        medication.setReplenishAmount(row.getInt(3));
+        return medication;
+    }
+
+    /**
+     * Formats a medication as a row of the inventory file.
+     *
+     * @param medication the medication.
+     * @return the row.
+     */
+    private List<String> toRow(Medication medication) {
+        List<String> medicationRow = new ArrayList<>();
+        medicationRow.add(medication.getMedicineName());
+        medicationRow.add(String.valueOf(medication.getCurrentStock()));
+        medicationRow.add(String.valueOf(medication.getLowStockLevel()));
+        medicationRow.add(String.valueOf(medication.getReplenishAmount()));
+        return medicationRow;
+    }
+
+    /**
+     * Applies an edit of the inventory file made outside the system, matching medications by name.
+     * Changed medications are replaced, new ones appended and missing ones removed; nothing is written back.
+     *
+     * @param rows the rows of the inventory file, header first.
+     * @return the applied difference.
+     */
+    public TableDelta applyExternalChanges(List<TableRow> rows) {
+        Map<String, List<String>> current = new LinkedHashMap<>();
+        for (Medication medication : medicationList) {
+            current.put(medication.getMedicineName(), toRow(medication));
+        }
+
+        medicationFileHeader = rows.get(0).toList();
+        TableDelta delta = TableDelta.between(current, rows.subList(1, rows.size()), 0);
+
+        Map<String, Medication> updates = new HashMap<>();
+        for (TableRow row : delta.getChangedRows()) {
+            Medication medication = toMedication(row);
+            updates.put(medication.getMedicineName(), medication);
         }
+        Set<String> removed = new HashSet<>(delta.getRemovedKeys());
 
-        ExcelReaderWriter.write(medicationFile, medicationFilePath);
+        List<Medication> updatedList = new ArrayList<>();
+        for (Medication medication : medicationList) {
+            if (!removed.contains(medication.getMedicineName())) {
+                updatedList.add(updates.getOrDefault(medication.getMedicineName(), medication));
+            }
+        }
+        for (TableRow row : delta.getAddedRows()) {
+            updatedList.add(toMedication(row));
+        }
+        medicationList = updatedList;
+        return delta;
     }
 
     /**
@@ -189,17 +263,84 @@ public class MedicationRepository {
      * @throws IOException if an error occurs during file writing.
      */
     public boolean dispenseMedication(String medicationName, int amountToDispense) throws IOException {
+        UnitOfWork work = new UnitOfWork();
+        if (!dispenseMedication(medicationName, amountToDispense, work)) {
+            return false;
+        }
+        work.commit();
+        return true;
+    }
+
+    /**
+     * Stages the dispensing of a medication in a unit of work. The stock level only changes, in memory
+     * and in the inventory file, when the unit of work is committed.
+     *
+     * @param medicationName   the name of the medication to dispense.
+     * @param amountToDispense the amount to dispense.
+     * @param work             the unit of work to stage the change in.
+     * @return {@code true} if the medication can be dispensed, {@code false} if it is not in the inventory
+     *         or there is not enough stock.
+     */
+    public boolean dispenseMedication(String medicationName, int amountToDispense, UnitOfWork work) {
         for (Medication medication : medicationList) {
             if (medication.getMedicineName().equals(medicationName)) {
                 if (medication.getCurrentStock() < amountToDispense) {
                     return false;
                 }
 
-                medication.setCurrentStock(medication.getCurrentStock() - amountToDispense);
-                break;
+                int remainingStock = medication.getCurrentStock() - amountToDispense;
+                List<String> medicationRow = toRow(medication);
+                medicationRow.set(1, String.valueOf(remainingStock));
+                work.upsert(medicationTable, 0, medicationRow);
+                work.afterCommit(() -> medication.setCurrentStock(remainingStock));
+                return true;
             }
         }
-        saveMedications();
+        return false;
+    }
+
+    /**
+     * Retrieves the current stock level of every medication, so that several prescriptions can be
+     * reserved against it before anything is dispensed.
+     *
+     * @return the stock levels keyed by medication name, in inventory order.
+     */
+    public Map<String, Integer> getStockLevels() {
+        Map<String, Integer> stockLevels = new LinkedHashMap<>();
+        for (Medication medication : medicationList) {
+            stockLevels.put(medication.getMedicineName(), medication.getCurrentStock());
+        }
+        return stockLevels;
+    }
+
+    /**
+     * Stages the dispensing of several medications in a unit of work, with one row change per medication
+     * however many prescriptions it fills. Nothing is staged unless every medication has enough stock.
+     *
+     * @param amountsToDispense the total amount to dispense, keyed by medication name.
+     * @param work              the unit of work to stage the changes in.
+     * @return {@code true} if the medications can be dispensed, {@code false} if one is missing or short of stock.
+     */
+    public boolean dispenseMedications(Map<String, Integer> amountsToDispense, UnitOfWork work) {
+        Map<String, Medication> medicationsByName = new HashMap<>();
+        for (Medication medication : medicationList) {
+            medicationsByName.put(medication.getMedicineName(), medication);
+        }
+        for (Map.Entry<String, Integer> amount : amountsToDispense.entrySet()) {
+            Medication medication = medicationsByName.get(amount.getKey());
+            if (medication == null || medication.getCurrentStock() < amount.getValue()) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<String, Integer> amount : amountsToDispense.entrySet()) {
+            Medication medication = medicationsByName.get(amount.getKey());
+            int remainingStock = medication.getCurrentStock() - amount.getValue();
+            List<String> medicationRow = toRow(medication);
+            medicationRow.set(1, String.valueOf(remainingStock));
+            work.upsert(medicationTable, 0, medicationRow);
+            work.afterCommit(() -> medication.setCurrentStock(remainingStock));
+        }
         return true;
     }
 }
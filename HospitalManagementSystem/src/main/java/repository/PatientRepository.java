@@ -1,23 +1,30 @@
 package repository;
 
-import constants.FilePath;
 import model.Doctor;
 import model.Patient;
-import services.ExcelReaderWriter;
+import storage.StorageEngines;
+import storage.Table;
+import storage.TableDelta;
+import storage.TableRow;
+import storage.UnitOfWork;
 import utils.DateUtils;
 
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The {@code PatientRepository} class manages the operations related to storing, updating, retrieving, and saving patient records.
  * It loads and saves patient data from an Excel file and provides functionality for retrieving patient details, 
  * updating patient information, and retrieving patients under a specific doctor.
  * <p>
- * This class relies on {@link ExcelReaderWriter} for reading and writing patient data from/to an Excel file.
+ * This class relies on the configured {@link storage.StorageEngine} for reading and writing patient data from/to an Excel file.
  * It also uses {@link MedicalRecordRepository} to manage medical records and {@link AppointmentRepository} to retrieve 
  * the list of patients under a specific doctor.
  * </p>
@@ -30,15 +37,15 @@ import java.util.List;
  * @see Doctor
  * @see MedicalRecordRepository
  * @see AppointmentRepository
- * @see ExcelReaderWriter
+ * @see storage.StorageEngine
  */
 public class PatientRepository {
 
-    private final String patientInfoFilePath = FilePath.PATIENT_INFO_FILE_PATH;
+    private final Table patientInfoTable = Table.PATIENT_INFO;
     private List<String> patientInfoHeader = new ArrayList<>();
 
-    private final MedicalRecordRepository medicalRecordRepository = new MedicalRecordRepository();
-    private final AppointmentRepository appointmentRepository = new AppointmentRepository();
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final AppointmentRepository appointmentRepository;
 
     private List<Patient> patientList = new ArrayList<>();
 
@@ -48,47 +55,55 @@ public class PatientRepository {
      * @throws IOException If an error occurs while reading the patient data from the file.
      */
     public PatientRepository() throws IOException {
-        patientList = loadPatientList();
+        this(new MedicalRecordRepository(), new AppointmentRepository());
+    }
+
+    /**
+     * Constructs a new {@code PatientRepository} object that shares existing medical record and appointment repositories.
+     *
+     * @param medicalRecordRepository The repository used to load each patient's medical records.
+     * @param appointmentRepository   The repository used to find the patients of a doctor.
+     * @throws IOException If an error occurs while reading the patient data from the file.
+     */
+    public PatientRepository(MedicalRecordRepository medicalRecordRepository, AppointmentRepository appointmentRepository) throws IOException {
+        this(medicalRecordRepository, appointmentRepository, StorageEngines.get().readRows(Table.PATIENT_INFO));
+    }
+
+    /**
+     * Constructs a new {@code PatientRepository} object from rows of the patient file that were already read, header first.
+     *
+     * @param medicalRecordRepository The repository used to load each patient's medical records.
+     * @param appointmentRepository   The repository used to find the patients of a doctor.
+     * @param patientInfoFile         The rows of the patient file.
+     */
+    public PatientRepository(MedicalRecordRepository medicalRecordRepository, AppointmentRepository appointmentRepository,
+                             List<TableRow> patientInfoFile) {
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.appointmentRepository = appointmentRepository;
+        patientList = loadPatientList(patientInfoFile);
     }
 
     /**
      * Loads patient data from the Excel file and returns a list of {@link Patient} objects.
      * This method parses patient information such as hospital ID, patient ID, name, gender, date of birth, blood type,
-     * email, and contact number. It also loads the medical records for each patient using the {@link MedicalRecordRepository}.
+     * email, and contact number. Medical records are not read here; each patient resolves them lazily from the {@link MedicalRecordRepository}.
      *
      * @return A list of {@link Patient} objects containing the patient data from the Excel file.
      * @throws IOException If an error occurs while reading the patient data from the file.
      */
     public List<Patient> loadPatientList() throws IOException {
-        List<List<String>> patientInfoFile = ExcelReaderWriter.read(patientInfoFilePath);
+        return loadPatientList(StorageEngines.get().readRows(patientInfoTable));
+    }
+
+    private List<Patient> loadPatientList(List<TableRow> patientInfoFile) {
         List<Patient> patientList = new ArrayList<>();
 
         for (int i = 0; i < patientInfoFile.size(); i++) {
             if (i == 0) {
-                patientInfoHeader = patientInfoFile.get(i);
+                patientInfoHeader = patientInfoFile.get(i).toList();
                 continue;
             }
-            Patient patientInfo = new Patient();
-            patientInfo.setHospitalId(patientInfoFile.get(i).get(0));
-            patientInfo.setPatientId(patientInfoFile.get(i).get(1));
-            patientInfo.setPatientName(patientInfoFile.get(i).get(2));
-            patientInfo.setGender(patientInfoFile.get(i).get(3));
-
-            // Define a DateTimeFormatter for the "dd/MM/yyyy" format
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("d-MMM-yyyy");
-
-            // Parse the date string to LocalDate
-            LocalDate dateOfBirth = LocalDate.parse(patientInfoFile.get(i).get(4), DateUtils.getDateFormatter());
-            patientInfo.setDateOfBirth(dateOfBirth);
-            patientInfo.setBloodType(patientInfoFile.get(i).get(5));
-            patientInfo.setEmail(patientInfoFile.get(i).get(6));
-            patientInfo.setContactNo(patientInfoFile.get(i).get(7));
-
-            // Load medical records for the patient using the medicalRecordRepository
-            patientInfo.setMedicalRecords(medicalRecordRepository.getMedicalRecordsByPatientId(patientInfo.getPatientId()));
-
-            // Add the patient to the list
-            patientList.add(patientInfo);
+            patientList.add(toPatient(patientInfoFile.get(i)));
         }
         return patientList;
     }
@@ -105,19 +120,142 @@ public class PatientRepository {
 
         patientFile.add(patientInfoHeader);
         for (Patient patient : patientList) {
-            List<String> patientRow = new ArrayList<>();
-            patientRow.add(patient.getHospitalId());
-            patientRow.add(patient.getPatientId());
-            patientRow.add(patient.getPatientName());
-            patientRow.add(patient.getGender());
-            patientRow.add(patient.getDateOfBirth().format(DateUtils.getDateFormatter()));
-            patientRow.add(patient.getBloodType());
-            patientRow.add(patient.getEmail());
-            patientRow.add(patient.getContactNo());
-            patientFile.add(patientRow);
+            patientFile.add(toRow(patient));
+        }
+
+        StorageEngines.get().write(patientInfoTable, patientFile);
+    }
+
+    /**
+     * Creates a patient from a row of the patient file. The patient's medical records are resolved
+     * from the {@link MedicalRecordRepository} when they are first viewed.
+     *
+     * @param row the row.
+     * @return the patient.
+     */
+    private Patient toPatient(TableRow row) {
+        Patient patientInfo = new Patient();
+        patientInfo.setHospitalId(row.getString(0));
+        patientInfo.setPatientId(row.getString(1));
+        patientInfo.setPatientName(row.getString(2));
+        patientInfo.setGender(row.getString(3));
+        patientInfo.setDateOfBirth(row.getDate(4));
+        patientInfo.setBloodType(row.getString(5));
+        patientInfo.setEmail(row.getString(6));
+        patientInfo.setContactNo(row.getString(7));
+        attachMedicalRecordLoader(patientInfo);
+        return patientInfo;
+    }
+
+    /**
+     * Lets a patient resolve its medical records from the {@link MedicalRecordRepository} when they are first viewed.
+     *
+     * @param patientInfo the patient.
+     */
+    private void attachMedicalRecordLoader(Patient patientInfo) {
+        // Medical records are only loaded when the patient's records are first viewed
+        String patientId = patientInfo.getPatientId();
+        patientInfo.setMedicalRecordLoader(() -> {
+            try {
+                return medicalRecordRepository.getMedicalRecordsByPatientId(patientId);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Formats a patient as a row of the patient file.
+     *
+     * @param patient the patient.
+     * @return the row.
+     */
+    private List<String> toRow(Patient patient) {
+        List<String> patientRow = new ArrayList<>();
+        patientRow.add(patient.getHospitalId());
+        patientRow.add(patient.getPatientId());
+        patientRow.add(patient.getPatientName());
+        patientRow.add(patient.getGender());
+        patientRow.add(patient.getDateOfBirth().format(DateUtils.getDateFormatter()));
+        patientRow.add(patient.getBloodType());
+        patientRow.add(patient.getEmail());
+        patientRow.add(patient.getContactNo());
+        return patientRow;
+    }
+
+    /**
+     * Applies an edit of the patient file made outside the system, matching patients by hospital ID.
+     * Changed patients are replaced, new ones appended and missing ones removed; nothing is written back.
+     *
+     * @param rows the rows of the patient file, header first.
+     * @return the applied difference.
+     */
+    public TableDelta applyExternalChanges(List<TableRow> rows) {
+        Map<String, List<String>> current = new LinkedHashMap<>();
+        for (Patient patient : patientList) {
+            current.put(patient.getHospitalId(), toRow(patient));
+        }
+
+        patientInfoHeader = rows.get(0).toList();
+        TableDelta delta = TableDelta.between(current, rows.subList(1, rows.size()), 0);
+
+        Map<String, Patient> updates = new HashMap<>();
+        for (TableRow row : delta.getChangedRows()) {
+            Patient patient = toPatient(row);
+            updates.put(patient.getHospitalId(), patient);
+        }
+        Set<String> removed = new HashSet<>(delta.getRemovedKeys());
+
+        List<Patient> updatedList = new ArrayList<>();
+        for (Patient patient : patientList) {
+            if (!removed.contains(patient.getHospitalId())) {
+                updatedList.add(updates.getOrDefault(patient.getHospitalId(), patient));
+            }
+        }
+        for (TableRow row : delta.getAddedRows()) {
+            updatedList.add(toPatient(row));
+        }
+        patientList = updatedList;
+        return delta;
+    }
+
+    /**
+     * Drops the medical records cached by every patient, so they are resolved again on next access.
+     * Called when the medical records were changed outside the system.
+     */
+    public void invalidateMedicalRecords() {
+        for (Patient patient : patientList) {
+            patient.invalidateMedicalRecords();
         }
+    }
+
+    /**
+     * Retrieves every patient.
+     *
+     * @return the list of patients.
+     */
+    public List<Patient> getAllPatients() {
+        return patientList;
+    }
 
-        ExcelReaderWriter.write(patientFile, patientInfoFilePath);
+    /**
+     * Stages new patients in a unit of work, appended to the patient file. They are added to the
+     * in-memory patient list when the unit of work is committed.
+     *
+     * @param newPatients the patients to add.
+     * @param work        the unit of work to stage the patients in.
+     */
+    public void saveNewPatients(List<Patient> newPatients, UnitOfWork work) {
+        for (Patient patient : newPatients) {
+            work.upsert(patientInfoTable, 0, toRow(patient));
+        }
+        List<Patient> addedPatients = new ArrayList<>(newPatients);
+        work.afterCommit(() -> {
+            for (Patient patient : addedPatients) {
+                attachMedicalRecordLoader(patient);
+            }
+            patientList.addAll(addedPatients);
+        });
     }
 
     /**
@@ -146,8 +284,6 @@ public class PatientRepository {
      * @throws IOException If an error occurs while loading the patient or appointment data.
      */
     public List<Patient> retrievePatientsUnderDoctor(Doctor doctor) throws IOException {
-        patientList = loadPatientList();
-
         List<Patient> patientUnderDoctor = new ArrayList<>();
         List<String> patientIdsUnderDoctor = appointmentRepository.getPatientListOfDoctor(doctor.getDoctorId());
 
@@ -1,14 +1,23 @@
 package repository;
 
-import constants.FilePath;
 import enums.Role;
 import model.Doctor;
 import model.Staff;
-import services.ExcelReaderWriter;
+import storage.StorageEngines;
+import storage.Table;
+import storage.TableDelta;
+import storage.TableRow;
+import storage.UnitOfWork;
+import utils.ValidationEngine;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The {@code StaffRepository} class provides methods to manage staff records, including reading, saving, updating,
@@ -24,13 +33,13 @@ import java.util.List;
  * 
  * @see Staff
  * @see Doctor
- * @see ExcelReaderWriter
+ * @see storage.StorageEngine
  */
 public class StaffRepository {
-    private final String staffInfoFilePath = FilePath.STAFF_INFO_FILE_PATH;
+    private final Table staffInfoTable = Table.STAFF_INFO;
     private List<String> staffFileHeader = new ArrayList<>();
 
-    private final AccountRepository accountRepository = new AccountRepository();
+    private final AccountRepository accountRepository;
 
     // Stores all the Staffs, don't need to keep loading, but save after any changes.
     private List<Staff> staffList = new ArrayList<>();
@@ -41,7 +50,29 @@ public class StaffRepository {
      * @throws IOException if an error occurs while reading the staff data from the file.
      */
     public StaffRepository() throws IOException {
-        this.staffList = loadStaffs();
+        this(new AccountRepository());
+    }
+
+    /**
+     * Constructs a new {@code StaffRepository} object that shares an existing {@link AccountRepository}.
+     *
+     * @param accountRepository the repository used to create and remove staff accounts.
+     * @throws IOException if an error occurs while reading the staff data from the file.
+     */
+    public StaffRepository(AccountRepository accountRepository) throws IOException {
+        this(accountRepository, StorageEngines.get().readRows(Table.STAFF_INFO));
+    }
+
+    /**
+     * Constructs a new {@code StaffRepository} object from rows of the staff file that were already read, header first.
+     *
+     * @param accountRepository the repository used to create and remove staff accounts.
+     * @param staffFile         the rows of the staff file.
+     * @throws IOException if an error occurs while loading the staff roles.
+     */
+    public StaffRepository(AccountRepository accountRepository, List<TableRow> staffFile) throws IOException {
+        this.accountRepository = accountRepository;
+        this.staffList = loadStaffs(staffFile);
     }
 
     /**
@@ -59,39 +90,20 @@ public class StaffRepository {
      * Loads the staff records from the Excel file, creating either a {@link Doctor} or a generic {@link Staff} object 
      * depending on the available data.
      * 
+     * @param staffFile The rows of the Excel file, header first.
      * @return A list of {@link Staff} objects.
-     * @throws IOException If an error occurs while reading the staff data from the file.
+     * @throws IOException If an error occurs while loading the staff roles.
      */
-    private List<Staff> loadStaffs() throws IOException {
+    private List<Staff> loadStaffs(List<TableRow> staffFile) throws IOException {
         List<Staff> staffList = new ArrayList<>();
-        List<List<String>> staffFile = ExcelReaderWriter.read(staffInfoFilePath);
 
         for (int i = 0; i < staffFile.size(); i++) {
             if (i == 0) {
-                staffFileHeader = staffFile.get(i);
+                staffFileHeader = staffFile.get(i).toList();
                 continue;
             }
 
-            String hospitalId = staffFile.get(i).get(0);
-            String gender = staffFile.get(i).get(1);
-            int age = (int) Float.parseFloat(staffFile.get(i).get(2));
-
-            if (staffFile.get(i).size() > 3) {
-                // Create a Doctor object if doctor-specific data is present
-                Doctor doctor = new Doctor();
-                doctor.setHospitalId(hospitalId);
-                doctor.setGender(gender);
-                doctor.setAge(age);
-                doctor.setDoctorId(staffFile.get(i).get(3)); // Assuming field (3) is the specialization
-                staffList.add(doctor); // Add Doctor to the list
-            } else {
-                // Create a generic Staff object
-                Staff staff = new Staff();
-                staff.setHospitalId(hospitalId);
-                staff.setGender(gender);
-                staff.setAge(age);
-                staffList.add(staff); // Add Staff to the list
-            }
+            staffList.add(toStaff(staffFile.get(i)));
         }
 
         staffList = loadStaffRoles(staffList);
@@ -109,18 +121,98 @@ public class StaffRepository {
 
         staffFile.add(staffFileHeader);
         for (Staff staff : staffList) {
-            List<String> staffRow = new ArrayList<>();
-            staffRow.add(staff.getHospitalId());
-            staffRow.add(staff.getGender());
-            staffRow.add(String.valueOf(staff.getAge()));
-            if (staff instanceof Doctor) {
-                Doctor doctor = (Doctor) staff;
-                staffRow.add(doctor.getDoctorId());
-            }
-            staffFile.add(staffRow);
+            staffFile.add(toRow(staff));
+        }
+
+        StorageEngines.get().write(staffInfoTable, staffFile);
+    }
+
+    /**
+     * Creates a staff member from a row of the staff file: a {@link Doctor} if the row has a doctor ID,
+     * otherwise a generic {@link Staff}. The role is not set here.
+     *
+     * @param row the row.
+     * @return the staff member.
+     */
+    private Staff toStaff(TableRow row) {
+        Staff staff;
+        if (row.size() > 3) {
+            // Create a Doctor object if doctor-specific data is present
+            Doctor doctor = new Doctor();
+            doctor.setDoctorId(row.getString(3)); // Assuming field (3) is the specialization
+            staff = doctor;
+        } else {
+            // Create a generic Staff object
+            staff = new Staff();
+        }
+        staff.setHospitalId(row.getString(0));
+        staff.setGender(row.getString(1));
+        staff.setAge(row.getInt(2));
+        return staff;
+    }
+
+    /**
+     * Formats a staff member as a row of the staff file.
+     *
+     * @param staff the staff member.
+     * @return the row.
+     */
+    private List<String> toRow(Staff staff) {
+        List<String> staffRow = new ArrayList<>();
+        staffRow.add(staff.getHospitalId());
+        staffRow.add(staff.getGender());
+        staffRow.add(String.valueOf(staff.getAge()));
+        if (staff instanceof Doctor) {
+            Doctor doctor = (Doctor) staff;
+            staffRow.add(doctor.getDoctorId());
+        }
+        return staffRow;
+    }
+
+    /**
+     * Applies an edit of the staff file made outside the system, matching staff by hospital ID.
+     * Changed staff are replaced, new staff appended with their roles from the accounts table,
+     * and missing staff removed; nothing is written back.
+     *
+     * @param rows the rows of the staff file, header first.
+     * @return the applied difference.
+     * @throws IOException if the roles of new or changed staff cannot be read.
+     */
+    public TableDelta applyExternalChanges(List<TableRow> rows) throws IOException {
+        Map<String, List<String>> current = new LinkedHashMap<>();
+        for (Staff staff : staffList) {
+            current.put(staff.getHospitalId(), toRow(staff));
+        }
+
+        staffFileHeader = rows.get(0).toList();
+        TableDelta delta = TableDelta.between(current, rows.subList(1, rows.size()), 0);
+
+        List<Staff> changedStaff = new ArrayList<>();
+        for (TableRow row : delta.getChangedRows()) {
+            changedStaff.add(toStaff(row));
+        }
+        List<Staff> addedStaff = new ArrayList<>();
+        for (TableRow row : delta.getAddedRows()) {
+            addedStaff.add(toStaff(row));
         }
+        loadStaffRoles(changedStaff);
+        loadStaffRoles(addedStaff);
 
-        ExcelReaderWriter.write(staffFile, staffInfoFilePath);
+        Map<String, Staff> updates = new HashMap<>();
+        for (Staff staff : changedStaff) {
+            updates.put(staff.getHospitalId(), staff);
+        }
+        Set<String> removed = new HashSet<>(delta.getRemovedKeys());
+
+        List<Staff> updatedList = new ArrayList<>();
+        for (Staff staff : staffList) {
+            if (!removed.contains(staff.getHospitalId())) {
+                updatedList.add(updates.getOrDefault(staff.getHospitalId(), staff));
+            }
+        }
+        updatedList.addAll(addedStaff);
+        staffList = updatedList;
+        return delta;
     }
 
     /**
@@ -136,19 +228,56 @@ public class StaffRepository {
         staffDetailsLine.add(staffInfo.getHospitalId());
         staffDetailsLine.add(staffInfo.getGender().toUpperCase());
         staffDetailsLine.add(String.valueOf(staffInfo.getAge()));
-        if (staffInfo.getRole().toUpperCase().equals(Role.DOCTOR.getDisplayValue())) {
+        if (staffInfo.getRole() == Role.DOCTOR) {
             staffDetailsLine.add("D100" + (staffList.size() + 1));
         }
 
-        // Get file details
-        List<List<String>> staffInfoFile = ExcelReaderWriter.read(FilePath.STAFF_INFO_FILE_PATH);
-        staffInfoFile.add(staffDetailsLine);
-
-        ExcelReaderWriter.write(staffInfoFile, FilePath.STAFF_INFO_FILE_PATH);
+        StorageEngines.get().upsert(staffInfoTable, 0, staffDetailsLine);
 
         staffList.add(staffInfo);
     }
 
+    /**
+     * Stages new staff members in a unit of work. They are added to the in-memory staff list
+     * when the unit of work is committed.
+     *
+     * @param newStaff the staff members to save; doctors must already have their doctor IDs.
+     * @param work     the unit of work to stage the staff in.
+     */
+    public void saveNewStaff(List<Staff> newStaff, UnitOfWork work) {
+        for (Staff staffInfo : newStaff) {
+            List<String> staffDetailsLine = toRow(staffInfo);
+            staffDetailsLine.set(1, staffInfo.getGender().toUpperCase());
+            work.upsert(staffInfoTable, 0, staffDetailsLine);
+        }
+        List<Staff> addedStaff = new ArrayList<>(newStaff);
+        work.afterCommit(() -> staffList.addAll(addedStaff));
+    }
+
+    /**
+     * Reserves a block of consecutive doctor IDs after the highest one in use.
+     *
+     * @param count the number of IDs to reserve.
+     * @return the doctor IDs, in order.
+     */
+    public List<String> nextDoctorIds(int count) {
+        int lastDoctorNumber = 1000;
+        for (Staff staff : staffList) {
+            if (staff instanceof Doctor) {
+                String doctorId = ((Doctor) staff).getDoctorId();
+                if (doctorId != null && ValidationEngine.isDoctorId(doctorId)) {
+                    lastDoctorNumber = Math.max(lastDoctorNumber, Integer.parseInt(doctorId.substring(1)));
+                }
+            }
+        }
+
+        List<String> doctorIds = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            doctorIds.add("D" + (lastDoctorNumber + i));
+        }
+        return doctorIds;
+    }
+
     /**
      * Deletes a staff member from the repository based on their hospital ID.
      * 
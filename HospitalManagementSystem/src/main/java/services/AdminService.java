@@ -1,20 +1,35 @@
 package services;
 
-import constants.FilePath;
 import enums.Gender;
 import enums.Role;
 import enums.Status;
 import model.Appointment;
+import model.Doctor;
 import model.MedicalRecord;
 import model.Medication;
 import model.Staff;
 import repository.*;
+import storage.CsvStorageEngine;
+import storage.TableRow;
+import storage.UnitOfWork;
+import utils.ValidationEngine;
 import utils.Validator;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * AdminService handles various administrative operations related to hospital staff,
@@ -30,11 +45,12 @@ import java.util.Scanner;
  */
 public class AdminService {
 
-    private final AccountRepository accountRepository = new AccountRepository();
-    private final StaffRepository staffRepository = new StaffRepository();
-    private final MedicationRepository medicationRepository = new MedicationRepository();
-    private final AppointmentRepository appointmentRepository = new AppointmentRepository();
-    private final MedicalRecordRepository medicalRecordRepository = new MedicalRecordRepository();
+    private final AccountRepository accountRepository = RepositoryContext.get().getAccountRepository();
+    private final StaffRepository staffRepository = RepositoryContext.get().getStaffRepository();
+    private final MedicationRepository medicationRepository = RepositoryContext.get().getMedicationRepository();
+    private final AppointmentRepository appointmentRepository = RepositoryContext.get().getAppointmentRepository();
+    private final MedicalRecordRepository medicalRecordRepository = RepositoryContext.get().getMedicalRecordRepository();
+    private final HospitalApi api = new HospitalApi();
 
     private List<Staff> staffList = staffRepository.getAllStaff();
 
@@ -132,7 +148,7 @@ public class AdminService {
 
         Staff newStaff = new Staff();
         newStaff.setHospitalId(staffID);
-        newStaff.setRole(staffRole.toUpperCase());
+        newStaff.setRole(Role.fromDisplayValue(staffRole));
         newStaff.setGender(staffGender.toUpperCase());
         newStaff.setAge(staffAge);
 
@@ -141,6 +157,217 @@ public class AdminService {
         staffList = staffRepository.getAllStaff();
     }
 
+    /**
+     * Prompts the user for a staff intake file and onboards every valid row in it.
+     *
+     * @param scanner Scanner object to read user input
+     * @throws Exception if an error occurs while saving the new staff members
+     */
+    public void displayOnboardStaffInput(Scanner scanner) throws Exception {
+        System.out.println("Columns: Hospital ID (blank to assign), Role (Doctor/Pharmacist), Gender (Male/Female), Age");
+        System.out.print("Enter path of the staff intake file (.csv or .xlsx): ");
+        String intakeFile = Validator.validateStringInput(scanner);
+
+        OnboardingReport report;
+        try {
+            report = onboardStaff(Paths.get(intakeFile));
+        } catch (IOException e) {
+            System.out.println("Unable to read " + intakeFile + ": " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Onboarded " + report.getOnboarded().size() + " staff");
+        for (Staff staff : report.getOnboarded()) {
+            System.out.println(staff.getHospitalId() + " | " + staff.getRole() + " | " + staff.getGender() + " | " + staff.getAge());
+        }
+        if (!report.getRejected().isEmpty()) {
+            System.out.println("\n--- Rejected Rows ---");
+            for (Map.Entry<Integer, String> rejected : report.getRejected().entrySet()) {
+                System.out.println("Row " + rejected.getKey() + ": " + rejected.getValue());
+            }
+        }
+    }
+
+    /**
+     * Onboards a batch of new staff from an intake file, a CSV or xlsx file with a header row and the
+     * columns Hospital ID, Role, Gender and Age. Rows are validated in parallel; rows with a malformed hospital ID,
+     * or one already in use or repeated in the file, are rejected. Blank hospital IDs and the doctor IDs are
+     * assigned from one block of each sequence, and the accounts and staff tables are stored in a
+     * single commit, however many staff are onboarded.
+     *
+     * @param intakeFile the intake file.
+     * @return the onboarded staff and the rejected rows.
+     * @throws Exception if the intake file cannot be read, or an error occurs while saving the new staff members
+     */
+    public OnboardingReport onboardStaff(Path intakeFile) throws Exception {
+        List<List<String>> rows = readIntakeFile(intakeFile);
+        OnboardingReport report = new OnboardingReport();
+
+        // Each row is checked on its own, so the checks run in parallel; duplicates are found in file order after
+        List<StaffEntry> entries = IntStream.range(1, rows.size()).parallel()
+                .mapToObj(i -> parseStaffRow(i + 1, rows.get(i)))
+                .collect(Collectors.toList());
+
+        Set<String> hospitalIds = accountRepository.getAllHospitalIds();
+        for (Staff staff : staffRepository.getAllStaff()) {
+            hospitalIds.add(staff.getHospitalId());
+        }
+
+        List<Staff> newStaff = new ArrayList<>();
+        int doctorCount = 0;
+        for (StaffEntry entry : entries) {
+            if (entry.staff == null && entry.error == null) {
+                continue; // Blank row
+            }
+            if (entry.error != null) {
+                report.addRejected(entry.rowNumber, entry.error);
+                continue;
+            }
+            String hospitalId = entry.staff.getHospitalId();
+            if (!hospitalId.isEmpty() && !hospitalIds.add(hospitalId)) {
+                report.addRejected(entry.rowNumber, "Hospital ID " + hospitalId + " is already in use");
+                continue;
+            }
+            if (entry.staff instanceof Doctor) {
+                doctorCount++;
+            }
+            newStaff.add(entry.staff);
+        }
+        if (newStaff.isEmpty()) {
+            return report;
+        }
+
+        Iterator<String> doctorIds = staffRepository.nextDoctorIds(doctorCount).iterator();
+        Map<Role, Integer> lastHospitalNumbers = new EnumMap<>(Role.class);
+        for (Staff staff : newStaff) {
+            if (staff.getHospitalId().isEmpty()) {
+                String prefix = staff.getRole().getDisplayValue().toLowerCase();
+                int hospitalNumber = lastHospitalNumbers.computeIfAbsent(staff.getRole(),
+                        role -> lastHospitalNumber(hospitalIds, prefix)) + 1;
+                lastHospitalNumbers.put(staff.getRole(), hospitalNumber);
+                staff.setHospitalId(String.format("%s%02d", prefix, hospitalNumber));
+            }
+            if (staff instanceof Doctor) {
+                ((Doctor) staff).setDoctorId(doctorIds.next());
+            }
+            report.addOnboarded(staff);
+        }
+
+        UnitOfWork onboarding = new UnitOfWork();
+        accountRepository.saveNewAccounts(newStaff, onboarding);
+        staffRepository.saveNewStaff(newStaff, onboarding);
+        onboarding.commit();
+        staffList = staffRepository.getAllStaff();
+        return report;
+    }
+
+    /**
+     * Reads the rows of a staff intake file.
+     *
+     * @param intakeFile the CSV or xlsx file.
+     * @return the rows of the file, header first.
+     * @throws IOException if the file cannot be read or is neither CSV nor xlsx.
+     */
+    private List<List<String>> readIntakeFile(Path intakeFile) throws IOException {
+        String fileName = intakeFile.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".xlsx")) {
+            return ExcelReaderWriter.readExternal(intakeFile.toString());
+        }
+        if (fileName.endsWith("." + CsvStorageEngine.EXTENSION)) {
+            return new CsvStorageEngine().readAll(intakeFile);
+        }
+        throw new IOException("Unsupported file type, expected .csv or .xlsx");
+    }
+
+    /**
+     * Validates one row of a staff intake file. Safe to call from several threads.
+     *
+     * @param rowNumber the row number in the file, the header being row 1.
+     * @param row       the cells of the row.
+     * @return the new staff member, or the reason the row is invalid.
+     */
+    private static StaffEntry parseStaffRow(int rowNumber, List<String> row) {
+        String hospitalId = cell(row, 0);
+        String role = cell(row, 1).toUpperCase();
+        String gender = cell(row, 2).toUpperCase();
+        String age = cell(row, 3);
+
+        if (hospitalId.isEmpty() && role.isEmpty() && gender.isEmpty() && age.isEmpty()) {
+            return new StaffEntry(rowNumber, null, null);
+        }
+        if (!hospitalId.isEmpty() && !ValidationEngine.isValid(ValidationEngine.Field.HOSPITAL_ID, hospitalId)) {
+            return new StaffEntry(rowNumber, null, ValidationEngine.Field.HOSPITAL_ID.getMessage());
+        }
+        if (!role.equals(Role.DOCTOR.getDisplayValue()) && !role.equals(Role.PHARMACIST.getDisplayValue())) {
+            return new StaffEntry(rowNumber, null, "Role must be Doctor or Pharmacist");
+        }
+        if (!gender.equals(Gender.MALE.getDisplayValue()) && !gender.equals(Gender.FEMALE.getDisplayValue())) {
+            return new StaffEntry(rowNumber, null, "Gender must be Male or Female");
+        }
+        int staffAge;
+        try {
+            staffAge = TableRow.toInt(TableRow.parseLong(age));
+        } catch (NumberFormatException e) {
+            return new StaffEntry(rowNumber, null, "Age must be a whole number");
+        }
+        if (staffAge <= 0) {
+            return new StaffEntry(rowNumber, null, "Age must be positive");
+        }
+
+        Staff newStaff = role.equals(Role.DOCTOR.getDisplayValue()) ? new Doctor() : new Staff();
+        newStaff.setHospitalId(hospitalId);
+        newStaff.setRole(Role.fromDisplayValue(role));
+        newStaff.setGender(gender);
+        newStaff.setAge(staffAge);
+        return new StaffEntry(rowNumber, newStaff, null);
+    }
+
+    /**
+     * Returns a trimmed cell of a row, or an empty string if the row is too short.
+     *
+     * @param row    the cells of the row.
+     * @param column the index of the cell.
+     * @return the cell value.
+     */
+    private static String cell(List<String> row, int column) {
+        return column < row.size() && row.get(column) != null ? row.get(column).trim() : "";
+    }
+
+    /**
+     * Finds the highest number used in a hospital ID of the form prefix followed by digits, such as "doctor01".
+     *
+     * @param hospitalIds the hospital IDs in use.
+     * @param prefix      the prefix.
+     * @return the highest number, or 0 if no hospital ID has the prefix.
+     */
+    private static int lastHospitalNumber(Set<String> hospitalIds, String prefix) {
+        Pattern pattern = Pattern.compile(Pattern.quote(prefix) + "(\\d+)");
+        int lastNumber = 0;
+        for (String hospitalId : hospitalIds) {
+            Matcher matcher = pattern.matcher(hospitalId);
+            if (matcher.matches()) {
+                lastNumber = Math.max(lastNumber, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return lastNumber;
+    }
+
+    /**
+     * A validated row of a staff intake file: either a new staff member or the reason the row was rejected.
+     * Both are {@code null} for a blank row.
+     */
+    private static final class StaffEntry {
+        private final int rowNumber;
+        private final Staff staff;
+        private final String error;
+
+        private StaffEntry(int rowNumber, Staff staff, String error) {
+            this.rowNumber = rowNumber;
+            this.staff = staff;
+            this.error = error;
+        }
+    }
+
     // Method to handle input for removing staff
 
     /**
@@ -216,7 +443,7 @@ public class AdminService {
             staffRole = Validator.validateStringInput(scanner);
 
             if (staffRole.toUpperCase().equals(Role.DOCTOR.getDisplayValue()) || staffRole.toUpperCase().equals(Role.PHARMACIST.getDisplayValue())) {
-                staffToEdit.setRole(staffRole.toUpperCase());
+                staffToEdit.setRole(Role.fromDisplayValue(staffRole));
                 break;
             }
         }
@@ -253,7 +480,7 @@ public class AdminService {
         List<Staff> filteredStaffList = new ArrayList<>();
 
         for (Staff staff : staffList) {
-            if (staff.getRole().equals(role.toUpperCase())) {
+            if (staff.getRole().getDisplayValue().equals(role.toUpperCase())) {
                 filteredStaffList.add(staff);
             }
         }
@@ -422,14 +649,11 @@ public class AdminService {
      * @throws IOException If there is an issue retrieving the replenish request or updating the request status.
      */
     public void approveReplenishRequest(Scanner scanner) throws IOException {
-        List<Medication> medicationList = medicationRepository.getMedicationList();
-        List<Medication> replenishRequestList = new ArrayList<>();
+        List<Medication> replenishRequestList = api.listReplenishRequests();
 
-        for (Medication medication : medicationList) {
-            if (medication.getReplenishAmount() > 0) {
-                replenishRequestList.add(medication);
-                System.out.println((replenishRequestList.size()) + " " + medication.getMedicineName() + " | Requested Replenish Amount: " + medication.getReplenishAmount());
-            }
+        for (int i = 0; i < replenishRequestList.size(); i++) {
+            Medication medication = replenishRequestList.get(i);
+            System.out.println((i + 1) + " " + medication.getMedicineName() + " | Requested Replenish Amount: " + medication.getReplenishAmount());
         }
 
         if (replenishRequestList.isEmpty()) {
@@ -438,8 +662,9 @@ public class AdminService {
             System.out.println("Approve Replenish Request for: ");
             int medicationChoice = Validator.validateIntegerInput(scanner);
             if (medicationChoice > 0 && medicationChoice <= replenishRequestList.size()) {
-                List<List<String>> medicalInventoryFile = ExcelReaderWriter.read(FilePath.MEDICAL_INVENTORY_FILE_PATH);
-                medicationRepository.approveReplenishRequest(replenishRequestList.get((medicationChoice-1)));
+                if (!api.approveReplenishRequest(replenishRequestList.get((medicationChoice-1)).getMedicineName())) {
+                    System.out.println("Replenish request has already been approved");
+                }
             }
         }
     }
@@ -449,33 +674,55 @@ public class AdminService {
      * @throws IOException If there is an issue retrieving the appointment or medical record data.
      */
     public void displayAppointmentDetails () throws IOException {
-        List<Appointment> allAppointments = appointmentRepository.getAppointmentList();
+        List<Appointment> bookedAppointments = appointmentRepository.getAppointmentsExcludingStatus(Status.FREE);
 
         // Appointment Details Format (Doctor ID, Status, Appointment Holder(PatientID), Status, Outcome records for completed appointments
         System.out.println("\n--- All Appointments ---");
-        for (Appointment appointment : allAppointments) {
-            if (appointment.getAppointmentStatus().equals(Status.FREE.getDisplayValue())) {
-                continue;
+        for (Map.Entry<Status, Integer> statusCount : api.countAppointmentsByStatus().entrySet()) {
+            if (statusCount.getValue() > 0) {
+                System.out.print(statusCount.getKey().getDisplayValue() + ": " + statusCount.getValue() + "  ");
             }
-            System.out.println("\n---- " + appointment.getAppointmentTime() + "------");
-            System.out.println("Doctor ID: " + appointment.getDoctorId());
-            System.out.println("Status: " + appointment.getAppointmentStatus());
-            if (!appointment.getAppointmentStatus().equals(Status.FREE.getDisplayValue())) {
-                System.out.println("Patient ID: " + appointment.getPatientId());
+        }
+        System.out.println();
+
+        // Sealed months are loaded one partition at a time, oldest first
+        for (YearMonth month : appointmentRepository.getArchivedMonths()) {
+            for (Appointment appointment : appointmentRepository.getArchivedAppointments(month)) {
+                if (appointment.getAppointmentStatus() != Status.FREE) {
+                    displayAppointment(appointment);
+                }
             }
+        }
 
-            if (appointment.getAppointmentStatus().equals(Status.COMPLETED.getDisplayValue())) {
-                System.out.println("\nAppointment Outcome: ");
-                MedicalRecord medicalRecord = medicalRecordRepository.getMedicalRecordByAppointmentId(appointment.getAppointmentId());
-                System.out.println("Appointment was on " + medicalRecord.getPastAppointment().getAppointmentTime());
-                System.out.println("Diagnosis: " + medicalRecord.getDiagnoses());
-                System.out.println("Treatment: " + medicalRecord.getTreatment());
-                System.out.println("Prescription: " + medicalRecord.getPrescriptionAmount() + "x " + medicalRecord.getPrescription());
-                System.out.println("Done By Doctor: " + medicalRecord.getPastAppointment().getDoctorId());
-            }
+        for (Appointment appointment : bookedAppointments) {
+            displayAppointment(appointment);
+        }
+    }
 
-            System.out.println("---------------------------------");
+    /**
+     * Displays the details of one appointment, with its outcome if it is completed.
+     * @param appointment The appointment to display.
+     * @throws IOException If there is an issue retrieving the medical record data.
+     */
+    private void displayAppointment(Appointment appointment) throws IOException {
+        System.out.println("\n---- " + appointment.getAppointmentTime() + "------");
+        System.out.println("Doctor ID: " + appointment.getDoctorId());
+        System.out.println("Status: " + appointment.getAppointmentStatus().getDisplayValue());
+        if (appointment.getAppointmentStatus() != Status.FREE) {
+            System.out.println("Patient ID: " + appointment.getPatientId());
+        }
+
+        if (appointment.getAppointmentStatus() == Status.COMPLETED) {
+            System.out.println("\nAppointment Outcome: ");
+            MedicalRecord medicalRecord = medicalRecordRepository.getMedicalRecordByAppointmentId(appointment.getAppointmentId());
+            System.out.println("Appointment was on " + medicalRecord.getPastAppointment().getAppointmentTime());
+            System.out.println("Diagnosis: " + medicalRecord.getDiagnoses());
+            System.out.println("Treatment: " + medicalRecord.getTreatment());
+            System.out.println("Prescription: " + medicalRecord.getPrescriptionAmount() + "x " + medicalRecord.getPrescription());
+            System.out.println("Done By Doctor: " + medicalRecord.getPastAppointment().getDoctorId());
         }
+
+        System.out.println("---------------------------------");
     }
 
 }
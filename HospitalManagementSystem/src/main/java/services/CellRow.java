@@ -0,0 +1,247 @@
+/**
+ * The CellRow class is a row of a table read through {@link ExcelReaderWriter}. Text cells are kept as
+ * strings, numeric cells as doubles and date cells as {@link LocalDateTime}; each is only formatted as
+ * text when asked to, so loaders read IDs, quantities and dates without parsing text.
+ *
+ * <p>The {@link TableSnapshot} stores rows in this form, cell types included, so rows served from the
+ * snapshot decode the same way as rows read from the workbook.</p>
+ */
+package services;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import storage.TableRow;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+final class CellRow implements TableRow {
+
+    /** Format of date cells, e.g. "18-Nov-2024 2:00:00 PM". Built once; it is immutable and thread-safe. */
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("d-MMM-yyyy h:mm:ss a");
+
+    private static final byte TEXT = 0;
+    private static final byte NUMBER = 1;
+    private static final byte DATE_TIME = 2;
+
+    private byte[] kinds;
+    private Object[] values;     // String or LocalDateTime
+    private double[] numbers;
+    private int size = 0;
+
+    CellRow(int capacity) {
+        kinds = new byte[capacity];
+        values = new Object[capacity];
+        numbers = new double[capacity];
+    }
+
+    /**
+     * Creates a row of text cells, as written by the system.
+     *
+     * @param cells the cell texts.
+     * @return the row.
+     */
+    static CellRow ofText(List<String> cells) {
+        CellRow row = new CellRow(cells.size());
+        for (String cell : cells) {
+            row.addText(cell);
+        }
+        return row;
+    }
+
+    /**
+     * Appends a workbook cell, keeping numbers and dates typed.
+     *
+     * @param cell the cell.
+     */
+    void add(Cell cell) {
+        if (cell.getCellType() == CellType.NUMERIC) {
+            if (DateUtil.isCellDateFormatted(cell)) {
+                addDateTime(cell.getLocalDateTimeCellValue());
+            } else {
+                addNumber(cell.getNumericCellValue());
+            }
+        } else {
+            addText(ExcelReaderWriter.getCellValueAsString(cell));
+        }
+    }
+
+    void addText(String text) {
+        grow();
+        kinds[size] = TEXT;
+        values[size++] = text;
+    }
+
+    void addNumber(double number) {
+        grow();
+        kinds[size] = NUMBER;
+        numbers[size++] = number;
+    }
+
+    void addDateTime(LocalDateTime dateTime) {
+        grow();
+        kinds[size] = DATE_TIME;
+        values[size++] = dateTime;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getString(int column) {
+        checkIndex(column);
+        switch (kinds[column]) {
+            case NUMBER:
+                return formatNumber(numbers[column]);
+            case DATE_TIME:
+                return DATE_TIME_FORMATTER.format((LocalDateTime) values[column]);
+            default:
+                return (String) values[column];
+        }
+    }
+
+    @Override
+    public int getInt(int column) {
+        return TableRow.toInt(getLong(column));
+    }
+
+    @Override
+    public long getLong(int column) {
+        checkIndex(column);
+        if (kinds[column] == NUMBER) {
+            return TableRow.toLong(numbers[column]);
+        }
+        return TableRow.parseLong(getString(column));
+    }
+
+    @Override
+    public LocalDate getDate(int column) {
+        checkIndex(column);
+        if (kinds[column] == DATE_TIME) {
+            return ((LocalDateTime) values[column]).toLocalDate();
+        }
+        return TableRow.parseDate(getString(column));
+    }
+
+    @Override
+    public List<String> toList() {
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getString(i));
+        }
+        return list;
+    }
+
+    /**
+     * Encodes the row for the snapshot: {@code int cellCount}, then per cell {@code byte kind} followed by
+     * the text ({@code int byteLength}, -1 for null, and UTF-8 bytes), the number ({@code double}) or the
+     * date ({@code long epochSecond, int nano}, in UTC).
+     *
+     * @param out the stream to write to.
+     * @throws IOException if the stream cannot be written.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeByte(kinds[i]);
+            switch (kinds[i]) {
+                case NUMBER:
+                    out.writeDouble(numbers[i]);
+                    break;
+                case DATE_TIME:
+                    LocalDateTime dateTime = (LocalDateTime) values[i];
+                    out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+                    out.writeInt(dateTime.getNano());
+                    break;
+                default:
+                    String text = (String) values[i];
+                    if (text == null) {
+                        out.writeInt(-1);
+                    } else {
+                        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+                        out.writeInt(bytes.length);
+                        out.write(bytes);
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Decodes a row written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param buffer the buffer positioned at the row.
+     * @return the row.
+     */
+    static CellRow readFrom(ByteBuffer buffer) {
+        int cellCount = buffer.getInt();
+        CellRow row = new CellRow(cellCount);
+        for (int c = 0; c < cellCount; c++) {
+            byte kind = buffer.get();
+            if (kind == NUMBER) {
+                row.addNumber(buffer.getDouble());
+            } else if (kind == DATE_TIME) {
+                long epochSecond = buffer.getLong();
+                row.addDateTime(LocalDateTime.ofEpochSecond(epochSecond, buffer.getInt(), ZoneOffset.UTC));
+            } else {
+                int length = buffer.getInt();
+                if (length < 0) {
+                    row.addText(null);
+                    continue;
+                }
+                row.addText(new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8));
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Formats a numeric cell value without scientific notation or a fractional part.
+     *
+     * @param value the cell value.
+     * @return the formatted value.
+     */
+    static String formatNumber(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e18) {
+            return Long.toString((long) value);
+        }
+        return String.format("%.0f", value);
+    }
+
+    /**
+     * Formats a date cell value.
+     *
+     * @param value the cell value.
+     * @return the formatted value.
+     */
+    static String formatDateTime(LocalDateTime value) {
+        return DATE_TIME_FORMATTER.format(value);
+    }
+
+    private void grow() {
+        if (size == values.length) {
+            kinds = Arrays.copyOf(kinds, size * 2 + 1);
+            values = Arrays.copyOf(values, size * 2 + 1);
+            numbers = Arrays.copyOf(numbers, size * 2 + 1);
+        }
+    }
+
+    private void checkIndex(int column) {
+        if (column < 0 || column >= size) {
+            throw new IndexOutOfBoundsException("Index: " + column + ", Size: " + size);
+        }
+    }
+}
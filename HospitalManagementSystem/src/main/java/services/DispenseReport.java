@@ -0,0 +1,77 @@
+/**
+ * The DispenseReport class is the outcome of a batch dispense by {@link PharmacistService}: the
+ * prescriptions that were filled, the ones that could not be filled from the current stock, and the
+ * requested record IDs that were not pending prescriptions.
+ */
+package services;
+
+import model.MedicalRecord;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DispenseReport {
+
+    /** Medical records whose prescriptions were dispensed. */
+    private final List<MedicalRecord> dispensed = new ArrayList<>();
+
+    /** Pending medical records left undispensed because their medication is missing or short of stock. */
+    private final List<MedicalRecord> unfilled = new ArrayList<>();
+
+    /** Requested record IDs that do not belong to a pending medical record. */
+    private final List<Integer> notPending = new ArrayList<>();
+
+    /**
+     * Records a dispensed prescription.
+     *
+     * @param medicalRecord the dispensed medical record.
+     */
+    void addDispensed(MedicalRecord medicalRecord) {
+        dispensed.add(medicalRecord);
+    }
+
+    /**
+     * Records a prescription that could not be filled.
+     *
+     * @param medicalRecord the pending medical record.
+     */
+    void addUnfilled(MedicalRecord medicalRecord) {
+        unfilled.add(medicalRecord);
+    }
+
+    /**
+     * Records a requested record ID that is not pending.
+     *
+     * @param recordId the record ID.
+     */
+    void addNotPending(int recordId) {
+        notPending.add(recordId);
+    }
+
+    /**
+     * Retrieves the medical records whose prescriptions were dispensed.
+     *
+     * @return the dispensed medical records, in record ID order.
+     */
+    public List<MedicalRecord> getDispensed() {
+        return dispensed;
+    }
+
+    /**
+     * Retrieves the pending medical records that could not be filled from the current stock.
+     *
+     * @return the unfilled medical records.
+     */
+    public List<MedicalRecord> getUnfilled() {
+        return unfilled;
+    }
+
+    /**
+     * Retrieves the requested record IDs that were not pending prescriptions.
+     *
+     * @return the record IDs.
+     */
+    public List<Integer> getNotPending() {
+        return notPending;
+    }
+}
@@ -2,14 +2,14 @@ package services;
 
 import enums.Status;
 import model.*;
-import repository.*;
+import repository.PatientRepository;
 import utils.DateUtils;
+import utils.HospitalClock;
 import utils.Validator;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.util.*;
 
 /**
@@ -17,7 +17,7 @@ import java.util.*;
  * It facilitates viewing and updating patient information, managing appointment timeslots, and handling prescriptions.
  * <p>
  * The DoctorService class allows the doctor to interact with patient data, view and modify their medical records, manage their daily schedule,
- * and handle appointment requests and updates.
+ * and handle appointment requests and updates. Each change is made through {@link HospitalApi}.
  * </p>
  * 
  * @author LI LIYI
@@ -27,11 +27,8 @@ import java.util.*;
 public class DoctorService {
     private Doctor doctorInfo = new Doctor();
 
-    private final StaffRepository staffRepository = new StaffRepository();
-    private final PatientRepository patientRepository = new PatientRepository();
-    private final MedicalRecordRepository medicalRecordRepository = new MedicalRecordRepository();
-    private final AppointmentRepository appointmentRepository = new AppointmentRepository();
-    private final MedicationRepository medicationRepository = new MedicationRepository();
+    private final PatientRepository patientRepository = RepositoryContext.get().getPatientRepository();
+    private final HospitalApi api = new HospitalApi();
 
     /**
      * Constructor for the DoctorService class, initializing necessary repositories.
@@ -48,7 +45,7 @@ public class DoctorService {
      * @throws IOException If there is an issue retrieving the doctor's information from the repository.
      */
     public void loadDoctorInfo (String hospitalId) throws IOException {
-        doctorInfo = staffRepository.getDoctorByHospitalId(hospitalId);
+        doctorInfo = api.getDoctor(hospitalId);
     }
 
     // Medical Record Management
@@ -112,6 +109,7 @@ public class DoctorService {
         int choice = Validator.validateIntegerInput(scanner);
         if (choice == 1) {
             addMedicalRecord(patient.getPatientId(), scanner);
+            patient.invalidateMedicalRecords();
         } else if (choice != 2) {
            System.out.println("Invalid Choice");
         }
@@ -142,9 +140,10 @@ public class DoctorService {
 
         if (date == null) {
             List<LocalDate> availableDates = new ArrayList<>();
-            availableDates.add(LocalDate.now());
-            availableDates.add(LocalDate.now().plusDays(1));
-            availableDates.add(LocalDate.now().plusDays(2));
+            LocalDate today = HospitalClock.today();
+            availableDates.add(today);
+            availableDates.add(today.plusDays(1));
+            availableDates.add(today.plusDays(2));
 
             for (int i = 0; i < availableDates.size(); i++) {
                 System.out.println((i + 1) + " - " + availableDates.get(i));
@@ -154,21 +153,18 @@ public class DoctorService {
             date = availableDates.get((dateChoice-1));
         }
 
-        List<Appointment> scheduleList = appointmentRepository.getDoctorSchedule(doctorInfo, date);
+        // Sorted in ascending order (earliest to latest)
+        List<Appointment> scheduleList = api.getSchedule(doctorInfo.getDoctorId(), date);
 
         if (scheduleList.isEmpty()) {
             System.out.println("Schedule is free for " + date);
         } else{
-            // Sort times in ascending order (earliest to latest)
-            scheduleList.sort(Comparator.comparing(appointment -> LocalDateTime.parse(appointment.getAppointmentTime(), DateUtils.getLocalDateTimeFormatter())));
-
-            // Print sorted times
             for (Appointment appointment : scheduleList) {
                 System.out.println("\n---------------------------");
                 System.out.println("Appointment Time: " + appointment.getAppointmentTime());
-                System.out.println("Status: " + appointment.getAppointmentStatus());
-                if (appointment.getAppointmentStatus().equals(Status.PENDING.getDisplayValue()) ||
-                        appointment.getAppointmentStatus().equals(Status.CONFIRMED.getDisplayValue())) {
+                System.out.println("Status: " + appointment.getAppointmentStatus().getDisplayValue());
+                if (appointment.getAppointmentStatus() == Status.PENDING ||
+                        appointment.getAppointmentStatus() == Status.CONFIRMED) {
                     System.out.println("Patient ID: " + appointment.getPatientId());
                 }
 
@@ -220,7 +216,7 @@ public class DoctorService {
      */
     private void displayAddTimeSlotMenu(List<Appointment> schedule, LocalDate selectedDate, Scanner scanner) throws IOException {
         System.out.println("\n--- Available Timeslots on " + selectedDate + " ---");
-        List<LocalTime> generatedTimeSlots = generateTimeSlots(schedule);
+        List<LocalDateTime> generatedTimeSlots = api.listOpenableSlots(doctorInfo.getDoctorId(), selectedDate);
 
         if(generatedTimeSlots.isEmpty()) {
             System.out.println("There are no available time slots for " + selectedDate);
@@ -228,51 +224,18 @@ public class DoctorService {
         }
 
         for (int i = 0; i < generatedTimeSlots.size(); i++) {
-            System.out.println((i + 1) + " - " + generatedTimeSlots.get(i));
+            System.out.println((i + 1) + " - " + generatedTimeSlots.get(i).toLocalTime());
         }
 
         int timeSlotChoice = Validator.validateIntegerInput(scanner);
         if (timeSlotChoice < 1 || timeSlotChoice > generatedTimeSlots.size()) return;
 
-        // Creation of Time Slot
-        Appointment newSchedule = new Appointment();
-        newSchedule.setDoctorId(doctorInfo.getDoctorId());
-        newSchedule.setPatientId(Status.FREE.getDisplayValue());
-        newSchedule.setAppointmentTime(DateUtils.joinDateAsString(selectedDate, generatedTimeSlots.get(timeSlotChoice-1)));
-        newSchedule.setAppointmentStatus(Status.FREE.getDisplayValue());
-        appointmentRepository.addTimeSlotToSchedule(newSchedule);
-        System.out.println("Schedule Updated!: ");
-        viewSchedule(scanner, selectedDate);
-    }
-
-    /**
-     * Generates a list of available time slots by removing the already occupied time slots
-     * from the full list of hourly slots between 8 AM and 5 PM.
-     * 
-     * @param schedule The current schedule of the doctor to check against.
-     * @return A list of available time slots.
-     */
-    private List<LocalTime> generateTimeSlots(List<Appointment> schedule) {
-        List<LocalTime> unavailableTimeSlots = new ArrayList<>();
-        List<LocalTime> allTimeSlots = new ArrayList<>();
-
-        for (Appointment appointment : schedule) {
-            unavailableTimeSlots.add(DateUtils.extractTime(appointment.getAppointmentTime()));
-        }
-
-        // Generate all hourly time slots from 8 AM to 5 PM
-        LocalTime startTime = LocalTime.of(8, 0);
-        LocalTime endTime = LocalTime.of(17, 0); // 5 PM
-
-        while (!startTime.isAfter(endTime.minusHours(1))) {
-            allTimeSlots.add(startTime);
-            startTime = startTime.plusHours(1);
+        if (api.addTimeSlot(doctorInfo.getDoctorId(), generatedTimeSlots.get(timeSlotChoice-1)) == null) {
+            System.out.println("Time slot is no longer available");
+        } else {
+            System.out.println("Schedule Updated!: ");
         }
-
-        // Remove unavailable slots from allTimeSlots
-        allTimeSlots.removeAll(unavailableTimeSlots);
-
-        return allTimeSlots;
+        viewSchedule(scanner, selectedDate);
     }
 
     /**
@@ -289,7 +252,7 @@ public class DoctorService {
         List<Appointment> availableTimeSlotsToRemove = new ArrayList<>();
 
         for (Appointment appointment : schedule) {
-            if (appointment.getAppointmentStatus().equals(Status.FREE.getDisplayValue())) {
+            if (appointment.getAppointmentStatus() == Status.FREE) {
                 availableTimeSlotsToRemove.add(appointment);
                 System.out.println(availableTimeSlotsToRemove.size() + " - " + appointment.getAppointmentTime());
             }
@@ -303,8 +266,11 @@ public class DoctorService {
 
         int choice = Validator.validateIntegerInput(scanner);
         if (choice > 0 && choice <= availableTimeSlotsToRemove.size()) {
-            appointmentRepository.removeTimeSlotFromSchedule(availableTimeSlotsToRemove.get(choice-1));
-            System.out.println("Time Slot Removed From Schedule!");
+            if (api.removeTimeSlot(doctorInfo.getDoctorId(), availableTimeSlotsToRemove.get(choice-1).getAppointmentId())) {
+                System.out.println("Time Slot Removed From Schedule!");
+            } else {
+                System.out.println("Time slot has been booked since");
+            }
             viewSchedule(scanner, selectedDate);
         }
     }
@@ -322,7 +288,7 @@ public class DoctorService {
     public void displayApprovalOfAppointment(List<Appointment> schedule, LocalDate selectedDate, Scanner scanner) throws IOException {
         List<Appointment> pendingAppointments = new ArrayList<>();
         for (Appointment appointment : schedule) {
-            if (appointment.getAppointmentStatus().equals(Status.PENDING.getDisplayValue())) {
+            if (appointment.getAppointmentStatus() == Status.PENDING) {
                 pendingAppointments.add(appointment);
                 System.out.println(pendingAppointments.size() + " - " + appointment.getAppointmentTime() + " with " + appointment.getPatientId());
             }
@@ -342,12 +308,13 @@ public class DoctorService {
         System.out.println("2 Decline"); // Decline straight away free up timeslot
         int approvalChoice = Validator.validateIntegerInput(scanner);
 
+        int appointmentId = pendingAppointments.get(choice-1).getAppointmentId();
         if (approvalChoice == 1) {
-            appointmentRepository.approveAppointment(pendingAppointments.get(choice-1));
-            System.out.println("Appointment Approved!");
+            System.out.println(api.approveAppointment(doctorInfo.getDoctorId(), appointmentId)
+                    ? "Appointment Approved!" : "Appointment is no longer pending");
         } else if (approvalChoice == 2) {
-            appointmentRepository.declineAppointment(pendingAppointments.get(choice-1));
-            System.out.println("Appointment Declined!");
+            System.out.println(api.declineAppointment(doctorInfo.getDoctorId(), appointmentId)
+                    ? "Appointment Declined!" : "Appointment is no longer pending");
         } else {
             System.out.println("Invalid choice");
         }
@@ -365,7 +332,7 @@ public class DoctorService {
      * @throws IOException If an error occurs while interacting with the appointment repository.
      */
     public void displayUpcomingAppointments(Scanner scanner) throws IOException {
-        List<Appointment> upcomingAppointments = appointmentRepository.getUpcomingAppointments(doctorInfo.getDoctorId());
+        List<Appointment> upcomingAppointments = api.listTodaysAppointments(doctorInfo.getDoctorId());
         if (upcomingAppointments.isEmpty()) {
             System.out.println("No Upcoming Appointments for Today");
             return;
@@ -382,8 +349,7 @@ public class DoctorService {
             System.out.println("2 - Back");
             int completeChoice = Validator.validateIntegerInput(scanner);
             if (completeChoice == 1) {
-                addMedicalRecord(upcomingAppointments.get((choice-1)), scanner);
-                appointmentRepository.completeAppointment(upcomingAppointments.get((choice-1)));
+                completeAppointment(upcomingAppointments.get((choice-1)), scanner);
             } else {
                 System.out.println("Invalid choice");
             }
@@ -396,47 +362,49 @@ public class DoctorService {
     /**
      * Adds a new medical record for a patient by asking the user for diagnosis, treatment, 
      * prescription, and the amount to prescribe. This method is called when only the patient ID is provided.
-     * It delegates to another method that accepts the appointment and patient ID as parameters.
      * 
      * @param patientId The ID of the patient for whom the medical record is being created.
      * @param scanner The scanner object used to take user input.
      * @throws IOException If an error occurs while interacting with the medical record repository.
      */
     public void addMedicalRecord(String patientId, Scanner scanner) throws IOException {
-        addMedicalRecord(null, scanner, patientId);
+        MedicalRecord outcome = enterMedicalRecord(scanner);
+        api.addMedicalRecord(patientId, outcome.getDiagnoses(), outcome.getTreatment(),
+                outcome.getPrescription(), outcome.getPrescriptionAmount());
     }
 
     /**
-     * Adds a new medical record for a patient by asking the user for diagnosis, treatment, 
-     * prescription, and the amount to prescribe. This method is called when an appointment is provided.
+     * Completes a confirmed appointment by asking the user for diagnosis, treatment, prescription,
+     * and the amount to prescribe, and recording them as the appointment's outcome.
      * 
-     * @param appointment The appointment associated with the patient (if available).
+     * @param appointment The confirmed appointment being completed.
      * @param scanner The scanner object used to take user input.
-     * @throws IOException If an error occurs while interacting with the medical record repository.
+     * @throws IOException If an error occurs while interacting with the medical record or appointment repository.
      */
-    public void addMedicalRecord(Appointment appointment, Scanner scanner) throws IOException {
-        addMedicalRecord(appointment, scanner, appointment.getPatientId());
+    public void completeAppointment(Appointment appointment, Scanner scanner) throws IOException {
+        MedicalRecord outcome = enterMedicalRecord(scanner);
+        if (api.completeAppointment(doctorInfo.getDoctorId(), appointment.getAppointmentId(), outcome.getDiagnoses(),
+                outcome.getTreatment(), outcome.getPrescription(), outcome.getPrescriptionAmount()) == null) {
+            System.out.println("Appointment is no longer confirmed");
+        }
     }
 
     /**
-     * Adds a new medical record for a patient by asking the user for diagnosis, treatment, 
-     * prescription, and the amount to prescribe. This method is the core method for creating 
-     * a medical record and it is called when both the appointment and patient ID are available.
-     * It also handles user input for the prescription and ensures the inputs are valid before proceeding.
+     * Asks the user for the diagnosis, treatment, prescription, and the amount to prescribe of a new
+     * medical record, and ensures the inputs are valid before returning them.
      * 
-     * @param appointment The appointment associated with the patient (optional, may be null).
      * @param scanner The scanner object used to take user input.
-     * @param patientId The ID of the patient for whom the medical record is being created.
-     * @throws IOException If an error occurs while interacting with the medical record repository.
+     * @return A medical record holding the entered diagnosis, treatment, prescription and amount.
+     * @throws IOException If the medication list cannot be retrieved.
      */
-    public void addMedicalRecord(Appointment appointment, Scanner scanner, String patientId) throws IOException {
+    private MedicalRecord enterMedicalRecord(Scanner scanner) throws IOException {
         System.out.println("Enter Diagnosis: ");
         String diagnosis = Validator.validateStringInput(scanner);
 
         System.out.println("Enter Treatment: ");
         String treatment = Validator.validateStringInput(scanner);
 
-        List<Medication> medicationList = medicationRepository.getMedicationList();
+        List<Medication> medicationList = api.listInventory();
         System.out.println("Prescription Choice: ");
         for (int i = 0; i < medicationList.size(); i++) {
             System.out.println((i + 1) + " - " + medicationList.get(i).getMedicineName());
@@ -459,21 +427,12 @@ public class DoctorService {
             prescriptionAmount = Validator.validateIntegerInput(scanner);
         } while (prescriptionAmount <= 0);
 
-        // Create new medical record object
         MedicalRecord newMedicalRecord = new MedicalRecord();
-        newMedicalRecord.setPatientId(patientId);
         newMedicalRecord.setDiagnoses(diagnosis);
         newMedicalRecord.setTreatment(treatment);
         newMedicalRecord.setPrescription(medicationList.get(prescriptionChoice - 1).getMedicineName());
         newMedicalRecord.setPrescriptionAmount(prescriptionAmount);
-        newMedicalRecord.setStatus(Status.PENDING.getDisplayValue());
-
-        if (appointment != null) {
-            newMedicalRecord.setPastAppointment(appointment);
-        }
-
-        // Insert the new medical record into the repository
-        medicalRecordRepository.insertNewMedicalRecord(newMedicalRecord);
+        return newMedicalRecord;
     }
 
 }
@@ -12,20 +12,35 @@
 package services;
 
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Iterator;
+import java.util.zip.ZipFile;
 
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import storage.TableFiles;
+import storage.TableRow;
 
 public class ExcelReaderWriter {
 
+    /** Most rows an Excel sheet can hold, header included. */
+    public static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    /** Rows kept in memory by {@link #writeStreaming} before they are flushed to a temporary file. */
+    private static final int STREAMING_WINDOW = 1000;
+
     /**
      * Writes a 2D list of string data to an Excel file.
+     * The file is replaced atomically and its previous version is kept as a generation, see {@link TableFiles}.
      *
      * @param data     the 2D list containing rows of data to be written.
      * @param filePath the file path where the Excel file will be saved.
@@ -45,21 +60,162 @@ public class ExcelReaderWriter {
             }
         }
 
-        FileOutputStream fos = new FileOutputStream(filePath);
-        workbook.write(fos);
-        fos.close();
-        workbook.close();
+        // Written beside the live file and swapped in whole, so a crash never leaves a truncated workbook
+        Path target = Paths.get(filePath);
+        Path temp = TableFiles.tempFile(target);
+        try (OutputStream fos = Files.newOutputStream(temp)) {
+            workbook.write(fos);
+        } finally {
+            workbook.close();
+        }
+        TableFiles.replace(temp, target);
+
+        List<CellRow> rows = new ArrayList<>(data.size());
+        for (List<String> rowData : data) {
+            rows.add(CellRow.ofText(rowData));
+        }
+        TableSnapshot.put(filePath, TableSnapshot.FileStamp.of(filePath), rows);
+    }
+
+    /**
+     * Writes rows to an Excel file as they are produced, keeping only a small window of rows in memory,
+     * so tables far larger than the heap can be written. The file is replaced atomically like {@link #write}.
+     * The rows are not added to the {@link TableSnapshot}; the replaced file no longer matches its snapshot entry, so it is re-read.
+     *
+     * @param rows     the rows to write, header first; at most {@link #MAX_ROWS} of them.
+     * @param filePath the file path where the Excel file will be saved.
+     * @return the number of rows written.
+     * @throws IOException if an error occurs during file writing.
+     */
+    public static long writeStreaming(Iterable<List<String>> rows, String filePath) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(STREAMING_WINDOW);
+        workbook.setCompressTempFiles(true);
+        Path target = Paths.get(filePath);
+        Path temp = TableFiles.tempFile(target);
+        int rowNum = 0;
+        try {
+            Sheet sheet = workbook.createSheet("Sheet1");
+            for (List<String> rowData : rows) {
+                if (rowNum == MAX_ROWS) {
+                    throw new IOException(filePath + " holds more than the " + MAX_ROWS + " rows of an Excel sheet");
+                }
+                Row row = sheet.createRow(rowNum++);
+                int cellNum = 0;
+                for (String cellData : rowData) {
+                    row.createCell(cellNum++).setCellValue(cellData);
+                }
+            }
+            try (OutputStream fos = Files.newOutputStream(temp)) {
+                workbook.write(fos);
+            }
+        } finally {
+            workbook.dispose(); // Deletes the rows flushed to temporary files
+            workbook.close();
+        }
+        TableFiles.replace(temp, target);
+        return rowNum;
+    }
+
+    /**
+     * Checks whether a file is a complete .xlsx workbook. The zip directory of a workbook is stored at
+     * its end, so a file cut short while being written fails this check without being parsed.
+     *
+     * @param file the file to check.
+     * @return {@code true} if the file is a readable workbook.
+     */
+    public static boolean isCompleteWorkbook(Path file) {
+        try (ZipFile zip = new ZipFile(file.toFile())) {
+            return zip.getEntry("xl/workbook.xml") != null;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     /**
      * Reads data from an Excel file and returns it as a 2D list of strings.
+     * The rows are served from the {@link TableSnapshot} when it holds a copy of the Excel file as it is now.
      *
      * @param filePath the file path of the Excel file to be read.
      * @return a 2D list containing rows of data from the Excel file.
      * @throws IOException if an error occurs during file reading.
      */
     public static List<List<String>> read(String filePath) throws IOException {
-        List<List<String>> data = new ArrayList<>();
+        return toLists(readTable(filePath));
+    }
+
+    /**
+     * Reads data from an Excel file as typed rows, header first. Numeric and date cells are decoded
+     * straight from the workbook, so loaders do not parse formatted text back into numbers.
+     * Rows are served from the {@link TableSnapshot} when it is fresh, as in {@link #read(String)},
+     * with their cell types intact.
+     *
+     * @param filePath the file path of the Excel file to be read.
+     * @return the rows of the Excel file.
+     * @throws IOException if an error occurs during file reading.
+     */
+    public static List<TableRow> readRows(String filePath) throws IOException {
+        return new ArrayList<>(readTable(filePath));
+    }
+
+    /**
+     * Reads an Excel file that is not one of the system's tables, such as an import file.
+     * Every cell stays in its column and row: blank or missing cells are read as empty strings and
+     * missing rows as empty rows. The {@link TableSnapshot} is neither consulted nor updated.
+     *
+     * @param filePath the file path of the Excel file to be read.
+     * @return a 2D list containing rows of data from the Excel file.
+     * @throws IOException if an error occurs during file reading.
+     */
+    public static List<List<String>> readExternal(String filePath) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+
+        try (FileInputStream fis = new FileInputStream(filePath); Workbook workbook = new XSSFWorkbook(fis)) {
+            Sheet sheet = workbook.getSheetAt(0);
+            for (Row row : sheet) {
+                // Rows and cells that were never filled in are absent from the sheet; keep the others in place
+                while (rows.size() < row.getRowNum()) {
+                    rows.add(new ArrayList<>());
+                }
+                List<String> rowData = new ArrayList<>(Collections.nCopies(Math.max(row.getLastCellNum(), 0), ""));
+                for (Cell cell : row) {
+                    if (cell.getCellType() != CellType.BLANK) {
+                        rowData.set(cell.getColumnIndex(), getCellValueAsString(cell));
+                    }
+                }
+                rows.add(rowData);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Reads the rows of a table from the {@link TableSnapshot}, or from its Excel file when the snapshot
+     * has no fresh copy, recording them in the snapshot.
+     *
+     * @param filePath the file path of the Excel file to be read.
+     * @return the rows of the table.
+     * @throws IOException if an error occurs during file reading.
+     */
+    private static List<CellRow> readTable(String filePath) throws IOException {
+        List<CellRow> rows = TableSnapshot.readRows(filePath);
+        if (rows != null) {
+            return rows;
+        }
+        TableSnapshot.FileStamp stamp = TableSnapshot.FileStamp.of(filePath);
+        rows = readCells(filePath);
+        TableSnapshot.put(filePath, stamp, rows);
+        return rows;
+    }
+
+    /**
+     * Reads every row of the first sheet of an Excel file.
+     *
+     * @param filePath the file path of the Excel file to be read.
+     * @return the decoded rows.
+     * @throws IOException if an error occurs during file reading.
+     */
+    private static List<CellRow> readCells(String filePath) throws IOException {
+        List<CellRow> rows = new ArrayList<>();
 
         FileInputStream fis = new FileInputStream(filePath);
         Workbook workbook = new XSSFWorkbook(fis);
@@ -67,17 +223,23 @@ public class ExcelReaderWriter {
 
         for (Row row : sheet) {
             Iterator<Cell> cellIterator = row.cellIterator();
-            List<String> rowData = new ArrayList<>();
+            CellRow rowData = new CellRow(Math.max(row.getLastCellNum(), 0));
             while (cellIterator.hasNext()) {
-                Cell cell = cellIterator.next();
-                rowData.add(getCellValueAsString(cell));
+                rowData.add(cellIterator.next());
             }
-            data.add(rowData);
+            rows.add(rowData);
         }
 
         workbook.close();
         fis.close();
+        return rows;
+    }
 
+    private static List<List<String>> toLists(List<? extends TableRow> rows) {
+        List<List<String>> data = new ArrayList<>(rows.size());
+        for (TableRow row : rows) {
+            data.add(row.toList());
+        }
         return data;
     }
 
@@ -87,7 +249,7 @@ public class ExcelReaderWriter {
      * @param cell the cell to be processed.
      * @return the string representation of the cell's value.
      */
-    private static String getCellValueAsString(Cell cell) {
+    static String getCellValueAsString(Cell cell) {
         if (cell == null || cell.getCellType() == CellType.BLANK) {
             return "Empty";
         }
@@ -96,12 +258,10 @@ public class ExcelReaderWriter {
                 return cell.getStringCellValue();
             case NUMERIC:
                 if (DateUtil.isCellDateFormatted(cell)) {
-                    // Format date and time as "d-MMM-yyyy h:mm:ss a"
-                    SimpleDateFormat dateFormat = new SimpleDateFormat("d-MMM-yyyy h:mm:ss a");
-                    return dateFormat.format(cell.getDateCellValue());
+                    return CellRow.formatDateTime(cell.getLocalDateTimeCellValue());
                 } else {
                     // Avoid scientific notation for large numbers
-                    return String.format("%.0f", cell.getNumericCellValue());
+                    return CellRow.formatNumber(cell.getNumericCellValue());
                 }
             case BOOLEAN:
                 return Boolean.toString(cell.getBooleanCellValue());
@@ -0,0 +1,692 @@
+/**
+ * The HospitalApi class offers the operations of the patient, doctor, pharmacist and administrator menus
+ * as plain method calls, with typed arguments and results and no console input or output. The console
+ * menus are adapters that collect choices from a {@link java.util.Scanner} and call these methods, and
+ * other front ends or load tests can call them directly.
+ *
+ * <p>Patients, doctors, appointments, medical records and medications are identified by their IDs and
+ * names, as stored in the tables. Requests that do not apply, such as booking a slot that is already
+ * taken or approving an appointment of another doctor, return {@code false} or {@code null}; malformed
+ * arguments throw {@link IllegalArgumentException}.</p>
+ *
+ * <p>Every method holds the {@link RepositoryContext} lock while it runs, so the methods can be called
+ * from any number of threads at once.</p>
+ */
+package services;
+
+import enums.Status;
+import model.Appointment;
+import model.Doctor;
+import model.MedicalRecord;
+import model.Medication;
+import model.Patient;
+import model.Staff;
+import repository.AppointmentRepository;
+import repository.MedicalRecordRepository;
+import repository.MedicationRepository;
+import repository.PatientRepository;
+import repository.StaffRepository;
+import storage.UnitOfWork;
+import utils.DateUtils;
+import utils.ValidationEngine;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class HospitalApi {
+
+    /** First hour a doctor can open a time slot. */
+    public static final LocalTime FIRST_SLOT = LocalTime.of(8, 0);
+
+    /** Last hour a doctor can open a time slot. */
+    public static final LocalTime LAST_SLOT = LocalTime.of(16, 0);
+
+    private final StaffRepository staffRepository = RepositoryContext.get().getStaffRepository();
+    private final PatientRepository patientRepository = RepositoryContext.get().getPatientRepository();
+    private final AppointmentRepository appointmentRepository = RepositoryContext.get().getAppointmentRepository();
+    private final MedicalRecordRepository medicalRecordRepository = RepositoryContext.get().getMedicalRecordRepository();
+    private final MedicationRepository medicationRepository = RepositoryContext.get().getMedicationRepository();
+
+    /**
+     * Constructor for HospitalApi.
+     *
+     * @throws IOException if the repositories cannot be loaded.
+     */
+    public HospitalApi() throws IOException {}
+
+    // ----- Patients -----
+
+    /**
+     * Returns a patient's details.
+     *
+     * @param hospitalId the hospital (login) ID of the patient.
+     * @return the patient, or {@code null} if there is no such patient.
+     * @throws IOException if the patient cannot be loaded.
+     */
+    public Patient getPatient(String hospitalId) throws IOException {
+        return locked(() -> patientRepository.loadPatientInfo(hospitalId));
+    }
+
+    /**
+     * Changes a patient's contact number.
+     *
+     * @param hospitalId the hospital (login) ID of the patient.
+     * @param contactNo  the new contact number, 8 digits.
+     * @return {@code false} if there is no such patient.
+     * @throws IOException if the patient cannot be saved.
+     */
+    public boolean updateContactNo(String hospitalId, String contactNo) throws IOException {
+        requireValid(ValidationEngine.Field.CONTACT_NO, contactNo);
+        return locked(() -> {
+            Patient patient = patientRepository.loadPatientInfo(hospitalId);
+            if (patient == null) {
+                return false;
+            }
+            patient.setContactNo(contactNo);
+            patientRepository.updatePatientInfo(patient);
+            return true;
+        });
+    }
+
+    /**
+     * Changes a patient's email address.
+     *
+     * @param hospitalId the hospital (login) ID of the patient.
+     * @param email      the new email address.
+     * @return {@code false} if there is no such patient.
+     * @throws IOException if the patient cannot be saved.
+     */
+    public boolean updateEmail(String hospitalId, String email) throws IOException {
+        requireValid(ValidationEngine.Field.EMAIL, email);
+        return locked(() -> {
+            Patient patient = patientRepository.loadPatientInfo(hospitalId);
+            if (patient == null) {
+                return false;
+            }
+            patient.setEmail(email);
+            patientRepository.updatePatientInfo(patient);
+            return true;
+        });
+    }
+
+    /**
+     * Returns a patient's medical records, oldest first.
+     *
+     * @param patientId the patient ID.
+     * @return the medical records.
+     * @throws IOException if the records cannot be loaded.
+     */
+    public List<MedicalRecord> listMedicalRecords(String patientId) throws IOException {
+        return locked(() -> medicalRecordRepository.getMedicalRecordsByPatientId(patientId));
+    }
+
+    /**
+     * Returns the IDs of the doctors patients can book.
+     *
+     * @return the doctor IDs.
+     * @throws IOException if the staff cannot be loaded.
+     */
+    public List<String> listDoctors() throws IOException {
+        return locked(staffRepository::getAllDoctors);
+    }
+
+    /**
+     * Returns the slots of a doctor that can be booked on a day.
+     *
+     * @param doctorId the doctor ID.
+     * @param date     the day.
+     * @return the start of each bookable slot, in schedule order.
+     * @throws IOException if the appointments cannot be loaded.
+     */
+    public List<LocalDateTime> listAvailableSlots(String doctorId, LocalDate date) throws IOException {
+        return locked(() -> {
+            List<LocalDateTime> slots = new ArrayList<>();
+            for (LocalTime time : appointmentRepository.getAvailableTimeSlots(doctorId, date)) {
+                slots.add(date.atTime(time));
+            }
+            return slots;
+        });
+    }
+
+    /**
+     * Books a free or cancelled slot of a doctor for a patient. The appointment is pending until the doctor approves it.
+     *
+     * @param patientId the patient ID.
+     * @param doctorId  the doctor ID.
+     * @param slot      the start of the slot.
+     * @return {@code false} if the doctor has no bookable slot at that time.
+     * @throws IOException if the appointment cannot be saved.
+     */
+    public boolean bookAppointment(String patientId, String doctorId, LocalDateTime slot) throws IOException {
+        requireValid(ValidationEngine.Field.PATIENT_ID, patientId);
+        return locked(() -> {
+            if (!appointmentRepository.getAvailableTimeSlots(doctorId, slot.toLocalDate()).contains(slot.toLocalTime())) {
+                return false;
+            }
+            appointmentRepository.bookAppointment(patientId, doctorId, slot.toLocalDate(), slot.toLocalTime());
+            return true;
+        });
+    }
+
+    /**
+     * Returns a patient's appointments that have not started yet.
+     *
+     * @param patientId the patient ID.
+     * @return the upcoming appointments.
+     * @throws IOException if the appointments cannot be loaded.
+     */
+    public List<Appointment> listUpcomingAppointments(String patientId) throws IOException {
+        return locked(() -> appointmentRepository.getUpcomingAppointmentsForPatient(patientOf(patientId)));
+    }
+
+    /**
+     * Moves one of a patient's upcoming appointments to another slot, possibly with another doctor.
+     * The old slot is freed only once the new one is booked.
+     *
+     * @param patientId     the patient ID.
+     * @param appointmentId the appointment to move.
+     * @param doctorId      the doctor of the new slot.
+     * @param slot          the start of the new slot.
+     * @return {@code false} if the appointment is not an upcoming appointment of the patient, or the new slot cannot be booked.
+     * @throws IOException if the appointments cannot be saved.
+     */
+    public boolean rescheduleAppointment(String patientId, int appointmentId, String doctorId, LocalDateTime slot) throws IOException {
+        return locked(() -> {
+            Appointment appointment = findUpcomingAppointment(patientId, appointmentId);
+            if (appointment == null || !bookAppointment(patientId, doctorId, slot)) {
+                return false;
+            }
+            appointmentRepository.freeAppointmentSlot(appointment);
+            return true;
+        });
+    }
+
+    /**
+     * Cancels one of a patient's upcoming appointments.
+     *
+     * @param patientId     the patient ID.
+     * @param appointmentId the appointment to cancel.
+     * @return {@code false} if the appointment is not an upcoming appointment of the patient.
+     * @throws IOException if the appointment cannot be saved.
+     */
+    public boolean cancelAppointment(String patientId, int appointmentId) throws IOException {
+        return locked(() -> {
+            Appointment appointment = findUpcomingAppointment(patientId, appointmentId);
+            if (appointment == null) {
+                return false;
+            }
+            appointmentRepository.cancelAppointmentSlot(appointment);
+            return true;
+        });
+    }
+
+    // ----- Doctors -----
+
+    /**
+     * Returns a doctor's details.
+     *
+     * @param hospitalId the hospital (login) ID of the doctor.
+     * @return the doctor, or {@code null} if there is no such doctor.
+     * @throws IOException if the staff cannot be loaded.
+     */
+    public Doctor getDoctor(String hospitalId) throws IOException {
+        return locked(() -> staffRepository.getDoctorByHospitalId(hospitalId));
+    }
+
+    /**
+     * Returns the IDs of the patients a doctor has appointments with.
+     *
+     * @param doctorId the doctor ID.
+     * @return the patient IDs.
+     * @throws IOException if the appointments cannot be loaded.
+     */
+    public List<String> listPatientsOfDoctor(String doctorId) throws IOException {
+        return locked(() -> appointmentRepository.getPatientListOfDoctor(doctorId));
+    }
+
+    /**
+     * Returns a doctor's open, pending and confirmed slots on a day that have not started yet,
+     * and all of those on later days, earliest first.
+     *
+     * @param doctorId the doctor ID.
+     * @param date     the day.
+     * @return the schedule.
+     * @throws IOException if the appointments cannot be loaded.
+     */
+    public List<Appointment> getSchedule(String doctorId, LocalDate date) throws IOException {
+        return locked(() -> {
+            Doctor doctor = new Doctor();
+            doctor.setDoctorId(doctorId);
+            List<Appointment> schedule = appointmentRepository.getDoctorSchedule(doctor, date);
+            schedule.sort(Comparator.comparingLong(appointment -> DateUtils.toEpochMinute(appointment.getAppointmentTime())));
+            return schedule;
+        });
+    }
+
+    /**
+     * Returns the hourly slots a doctor can still open on a day.
+     *
+     * @param doctorId the doctor ID.
+     * @param date     the day.
+     * @return the start of each slot that can be opened, from {@link #FIRST_SLOT} to {@link #LAST_SLOT}.
+     * @throws IOException if the appointments cannot be loaded.
+     */
+    public List<LocalDateTime> listOpenableSlots(String doctorId, LocalDate date) throws IOException {
+        return locked(() -> {
+            // The schedule runs on past the day, so slots are matched on date and time
+            Set<Long> taken = new HashSet<>();
+            for (Appointment appointment : getSchedule(doctorId, date)) {
+                taken.add(DateUtils.toEpochMinute(appointment.getAppointmentTime()));
+            }
+
+            List<LocalDateTime> openable = new ArrayList<>();
+            for (LocalTime time = FIRST_SLOT; !time.isAfter(LAST_SLOT); time = time.plusHours(1)) {
+                if (!taken.contains(DateUtils.toEpochMinute(date.atTime(time)))) {
+                    openable.add(date.atTime(time));
+                }
+            }
+            return openable;
+        });
+    }
+
+    /**
+     * Opens a free slot in a doctor's schedule.
+     *
+     * @param doctorId the doctor ID.
+     * @param slot     the start of the slot, one of {@link #listOpenableSlots}.
+     * @return the new slot, or {@code null} if the slot cannot be opened.
+     * @throws IOException if the appointment cannot be saved.
+     */
+    public Appointment addTimeSlot(String doctorId, LocalDateTime slot) throws IOException {
+        return locked(() -> {
+            if (!listOpenableSlots(doctorId, slot.toLocalDate()).contains(slot)) {
+                return null;
+            }
+            Appointment newSlot = new Appointment();
+            newSlot.setDoctorId(doctorId);
+            newSlot.setPatientId(Status.FREE.getDisplayValue());
+            newSlot.setAppointmentTime(DateUtils.joinDateAsString(slot.toLocalDate(), slot.toLocalTime()));
+            newSlot.setAppointmentStatus(Status.FREE);
+            appointmentRepository.addTimeSlotToSchedule(newSlot);
+            return newSlot;
+        });
+    }
+
+    /**
+     * Removes a free slot from a doctor's schedule.
+     *
+     * @param doctorId      the doctor ID.
+     * @param appointmentId the slot to remove.
+     * @return {@code false} if the slot is not a free slot of the doctor.
+     * @throws IOException if the appointments cannot be saved.
+     */
+    public boolean removeTimeSlot(String doctorId, int appointmentId) throws IOException {
+        return locked(() -> {
+            Appointment slot = findAppointment(doctorId, appointmentId, Status.FREE);
+            if (slot == null) {
+                return false;
+            }
+            appointmentRepository.removeTimeSlotFromSchedule(slot);
+            return true;
+        });
+    }
+
+    /**
+     * Confirms a pending appointment of a doctor.
+     *
+     * @param doctorId      the doctor ID.
+     * @param appointmentId the appointment to confirm.
+     * @return {@code false} if the appointment is not a pending appointment of the doctor.
+     * @throws IOException if the appointment cannot be saved.
+     */
+    public boolean approveAppointment(String doctorId, int appointmentId) throws IOException {
+        return locked(() -> {
+            Appointment appointment = findAppointment(doctorId, appointmentId, Status.PENDING);
+            if (appointment == null) {
+                return false;
+            }
+            appointmentRepository.approveAppointment(appointment);
+            return true;
+        });
+    }
+
+    /**
+     * Declines a pending appointment of a doctor, which frees its slot.
+     *
+     * @param doctorId      the doctor ID.
+     * @param appointmentId the appointment to decline.
+     * @return {@code false} if the appointment is not a pending appointment of the doctor.
+     * @throws IOException if the appointment cannot be saved.
+     */
+    public boolean declineAppointment(String doctorId, int appointmentId) throws IOException {
+        return locked(() -> {
+            Appointment appointment = findAppointment(doctorId, appointmentId, Status.PENDING);
+            if (appointment == null) {
+                return false;
+            }
+            appointmentRepository.declineAppointment(appointment);
+            return true;
+        });
+    }
+
+    /**
+     * Returns a doctor's confirmed appointments today.
+     *
+     * @param doctorId the doctor ID.
+     * @return today's confirmed appointments.
+     * @throws IOException if the appointments cannot be loaded.
+     */
+    public List<Appointment> listTodaysAppointments(String doctorId) throws IOException {
+        return locked(() -> appointmentRepository.getUpcomingAppointments(doctorId));
+    }
+
+    /**
+     * Records the outcome of a confirmed appointment and marks it completed. The prescription is
+     * pending until a pharmacist dispenses it.
+     *
+     * @param doctorId      the doctor ID.
+     * @param appointmentId the confirmed appointment.
+     * @param diagnosis     the diagnosis.
+     * @param treatment     the treatment.
+     * @param prescription  the name of the prescribed medication.
+     * @param amount        the amount to prescribe, at least 1.
+     * @return the new medical record, or {@code null} if the appointment is not a confirmed appointment of the doctor.
+     * @throws IOException if the record or the appointment cannot be saved.
+     */
+    public MedicalRecord completeAppointment(String doctorId, int appointmentId, String diagnosis, String treatment,
+                                             String prescription, int amount) throws IOException {
+        return locked(() -> {
+            Appointment appointment = findAppointment(doctorId, appointmentId, Status.CONFIRMED);
+            if (appointment == null) {
+                return null;
+            }
+            MedicalRecord record = addMedicalRecord(appointment, appointment.getPatientId(), diagnosis, treatment, prescription, amount);
+            appointmentRepository.completeAppointment(appointment);
+            return record;
+        });
+    }
+
+    /**
+     * Adds a medical record for a patient outside an appointment. The prescription is pending until a
+     * pharmacist dispenses it.
+     *
+     * @param patientId    the patient ID.
+     * @param diagnosis    the diagnosis.
+     * @param treatment    the treatment.
+     * @param prescription the name of the prescribed medication.
+     * @param amount       the amount to prescribe, at least 1.
+     * @return the new medical record.
+     * @throws IOException if the record cannot be saved.
+     */
+    public MedicalRecord addMedicalRecord(String patientId, String diagnosis, String treatment, String prescription,
+                                          int amount) throws IOException {
+        return locked(() -> addMedicalRecord(null, patientId, diagnosis, treatment, prescription, amount));
+    }
+
+    // ----- Pharmacists -----
+
+    /**
+     * Returns the medical records whose prescription has not been dispensed.
+     *
+     * @return the pending records.
+     * @throws IOException if the records cannot be loaded.
+     */
+    public List<MedicalRecord> listPendingOutcomes() throws IOException {
+        return locked(medicalRecordRepository::getAllAppointmentOutcomes);
+    }
+
+    /**
+     * Dispenses the prescription of one pending medical record.
+     *
+     * @param recordId the medical record ID.
+     * @return {@code true} if it was dispensed, {@code false} if the record is not pending or there is not enough stock.
+     * @throws IOException if the stock or the record cannot be saved.
+     */
+    public boolean dispense(int recordId) throws IOException {
+        return !dispensePending(Collections.singleton(recordId)).getDispensed().isEmpty();
+    }
+
+    /**
+     * Dispenses a batch of pending prescriptions. Stock is reserved for the records in record ID order
+     * in one pass, so a record is only skipped when the records before it have used up its medication.
+     * The stock levels and the dispensed records are then stored in a single commit.
+     *
+     * @param recordIds the IDs of the medical records to dispense, or {@code null} for every pending record.
+     * @return the dispensed records, the records that could not be filled, and the IDs that were not pending.
+     * @throws IOException if the stock or the records cannot be saved.
+     */
+    public DispenseReport dispensePending(Collection<Integer> recordIds) throws IOException {
+        return locked(() -> {
+            DispenseReport report = new DispenseReport();
+            List<MedicalRecord> candidates = new ArrayList<>();
+            Map<Integer, MedicalRecord> pendingById = new HashMap<>();
+            for (MedicalRecord pending : medicalRecordRepository.getAllAppointmentOutcomes()) {
+                pendingById.put(pending.getId(), pending);
+            }
+
+            if (recordIds == null) {
+                candidates.addAll(pendingById.values());
+            } else {
+                for (int recordId : new LinkedHashSet<>(recordIds)) {
+                    MedicalRecord pending = pendingById.get(recordId);
+                    if (pending == null) {
+                        report.addNotPending(recordId);
+                    } else {
+                        candidates.add(pending);
+                    }
+                }
+            }
+            candidates.sort(Comparator.comparingInt(MedicalRecord::getId));
+
+            Map<String, Integer> availableStock = medicationRepository.getStockLevels();
+            Map<String, Integer> amountsToDispense = new HashMap<>();
+            for (MedicalRecord candidate : candidates) {
+                Integer available = availableStock.get(candidate.getPrescription());
+                int amount = candidate.getPrescriptionAmount();
+                if (available == null || available < amount) {
+                    report.addUnfilled(candidate);
+                    continue;
+                }
+                availableStock.put(candidate.getPrescription(), available - amount);
+                amountsToDispense.merge(candidate.getPrescription(), amount, Integer::sum);
+                report.addDispensed(candidate);
+            }
+
+            if (report.getDispensed().isEmpty()) {
+                return report;
+            }
+
+            UnitOfWork dispense = new UnitOfWork();
+            medicationRepository.dispenseMedications(amountsToDispense, dispense);
+            medicalRecordRepository.dispenseMedications(report.getDispensed(), dispense);
+            dispense.commit();
+            return report;
+        });
+    }
+
+    /**
+     * Returns the medication inventory.
+     *
+     * @return the medications with their stock and alert levels.
+     * @throws IOException if the inventory cannot be loaded.
+     */
+    public List<Medication> listInventory() throws IOException {
+        return locked(() -> new ArrayList<>(medicationRepository.getMedicationList()));
+    }
+
+    /**
+     * Requests more stock of a medication that is at or below its alert level.
+     *
+     * @param medicineName the medication.
+     * @param amount       the amount to request, at least 1.
+     * @return {@code false} if there is no such medication or it is not low on stock.
+     * @throws IOException if the request cannot be saved.
+     */
+    public boolean submitReplenishRequest(String medicineName, int amount) throws IOException {
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Replenish amount must be at least 1");
+        }
+        return locked(() -> {
+            Medication medication = findMedication(medicineName);
+            if (medication == null || !medication.isLowStock()) {
+                return false;
+            }
+            medicationRepository.submitReplenishRequest(medication, amount);
+            return true;
+        });
+    }
+
+    // ----- Administrators -----
+
+    /**
+     * Returns every staff member.
+     *
+     * @return the staff.
+     * @throws IOException if the staff cannot be loaded.
+     */
+    public List<Staff> listStaff() throws IOException {
+        return locked(() -> new ArrayList<>(staffRepository.getAllStaff()));
+    }
+
+    /**
+     * Returns the medications with an outstanding replenish request.
+     *
+     * @return the medications, with the requested amount in their replenish amount.
+     * @throws IOException if the inventory cannot be loaded.
+     */
+    public List<Medication> listReplenishRequests() throws IOException {
+        return locked(() -> {
+            List<Medication> requests = new ArrayList<>();
+            for (Medication medication : medicationRepository.getMedicationList()) {
+                if (medication.getReplenishAmount() > 0) {
+                    requests.add(medication);
+                }
+            }
+            return requests;
+        });
+    }
+
+    /**
+     * Approves the outstanding replenish request of a medication, adding the requested amount to its stock.
+     *
+     * @param medicineName the medication.
+     * @return {@code false} if the medication has no outstanding request.
+     * @throws IOException if the stock cannot be saved.
+     */
+    public boolean approveReplenishRequest(String medicineName) throws IOException {
+        return locked(() -> {
+            Medication medication = findMedication(medicineName);
+            if (medication == null || medication.getReplenishAmount() <= 0) {
+                return false;
+            }
+            medicationRepository.approveReplenishRequest(medication);
+            return true;
+        });
+    }
+
+    /**
+     * Counts the appointments of each status, sealed months included.
+     *
+     * @return the number of appointments of each status.
+     * @throws IOException if the appointments cannot be loaded.
+     */
+    public Map<Status, Integer> countAppointmentsByStatus() throws IOException {
+        return locked(appointmentRepository::getStatusCounts);
+    }
+
+    // ----- Helpers, called with the lock held -----
+
+    private MedicalRecord addMedicalRecord(Appointment appointment, String patientId, String diagnosis, String treatment,
+                                           String prescription, int amount) throws IOException {
+        requireValid(ValidationEngine.Field.TEXT, diagnosis);
+        requireValid(ValidationEngine.Field.TEXT, treatment);
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Prescription amount must be at least 1");
+        }
+        if (findMedication(prescription) == null) {
+            throw new IllegalArgumentException("Unknown medication: " + prescription);
+        }
+
+        MedicalRecord record = new MedicalRecord();
+        record.setPatientId(patientId);
+        record.setDiagnoses(diagnosis);
+        record.setTreatment(treatment);
+        record.setPrescription(prescription);
+        record.setPrescriptionAmount(amount);
+        record.setStatus(Status.PENDING);
+        if (appointment != null) {
+            record.setPastAppointment(appointment);
+        }
+        medicalRecordRepository.insertNewMedicalRecord(record);
+        return record;
+    }
+
+    private Appointment findAppointment(String doctorId, int appointmentId, Status status) throws IOException {
+        Appointment appointment = appointmentRepository.getAppointmentById(appointmentId);
+        if (appointment == null || !appointment.getDoctorId().equals(doctorId) || appointment.getAppointmentStatus() != status) {
+            return null;
+        }
+        return appointment;
+    }
+
+    private Appointment findUpcomingAppointment(String patientId, int appointmentId) {
+        for (Appointment appointment : appointmentRepository.getUpcomingAppointmentsForPatient(patientOf(patientId))) {
+            if (appointment.getAppointmentId() == appointmentId) {
+                return appointment;
+            }
+        }
+        return null;
+    }
+
+    private Medication findMedication(String medicineName) {
+        for (Medication medication : medicationRepository.getMedicationList()) {
+            if (medication.getMedicineName().equals(medicineName)) {
+                return medication;
+            }
+        }
+        return null;
+    }
+
+    private static Patient patientOf(String patientId) {
+        Patient patient = new Patient();
+        patient.setPatientId(patientId);
+        return patient;
+    }
+
+    private static void requireValid(ValidationEngine.Field field, String value) {
+        if (!ValidationEngine.isValid(field, value)) {
+            throw new IllegalArgumentException(field.getMessage() + ": " + value);
+        }
+    }
+
+    /**
+     * Runs a call while holding the repositories, see {@link RepositoryContext#lock()}.
+     */
+    private static <T> T locked(Call<T> call) throws IOException {
+        RepositoryContext.lock();
+        try {
+            return call.run();
+        } finally {
+            RepositoryContext.unlock();
+        }
+    }
+
+    /**
+     * A call into the repositories.
+     */
+    private interface Call<T> {
+        T run() throws IOException;
+    }
+}
@@ -0,0 +1,58 @@
+/**
+ * The OnboardingReport class is the outcome of a bulk staff onboarding by {@link AdminService}:
+ * the staff members that were created and the rows of the intake file that were rejected, with the reason.
+ */
+package services;
+
+import model.Staff;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class OnboardingReport {
+
+    /** Staff members created from the intake file. */
+    private final List<Staff> onboarded = new ArrayList<>();
+
+    /** Reasons for rejected rows, keyed by row number in the intake file (the header is row 1). */
+    private final Map<Integer, String> rejected = new TreeMap<>();
+
+    /**
+     * Records a staff member that was created.
+     *
+     * @param staff the new staff member.
+     */
+    void addOnboarded(Staff staff) {
+        onboarded.add(staff);
+    }
+
+    /**
+     * Records a rejected row.
+     *
+     * @param rowNumber the row number in the intake file.
+     * @param reason    why the row was rejected.
+     */
+    void addRejected(int rowNumber, String reason) {
+        rejected.put(rowNumber, reason);
+    }
+
+    /**
+     * Retrieves the staff members that were created.
+     *
+     * @return the new staff members, in file order.
+     */
+    public List<Staff> getOnboarded() {
+        return onboarded;
+    }
+
+    /**
+     * Retrieves the rejected rows.
+     *
+     * @return the reason for each rejected row, keyed by row number.
+     */
+    public Map<Integer, String> getRejected() {
+        return rejected;
+    }
+}
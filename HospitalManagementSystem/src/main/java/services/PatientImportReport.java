@@ -0,0 +1,81 @@
+/**
+ * The PatientImportReport class is the outcome of a bulk patient import by {@link PatientImportService}:
+ * the patients that were added, the rows of the import file that were rejected with the reason, and
+ * the file the rejected rows were written to.
+ */
+package services;
+
+import model.Patient;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class PatientImportReport {
+
+    /** Patients added from the import file. */
+    private final List<Patient> imported = new ArrayList<>();
+
+    /** Reasons for rejected rows, keyed by row number in the import file (the header is row 1). */
+    private final Map<Integer, String> rejected = new TreeMap<>();
+
+    /** File the rejected rows were written to, or null if no row was rejected. */
+    private Path rejectFile;
+
+    /**
+     * Records a patient that was added.
+     *
+     * @param patient the new patient.
+     */
+    void addImported(Patient patient) {
+        imported.add(patient);
+    }
+
+    /**
+     * Records a rejected row.
+     *
+     * @param rowNumber the row number in the import file.
+     * @param reason    why the row was rejected.
+     */
+    void addRejected(int rowNumber, String reason) {
+        rejected.put(rowNumber, reason);
+    }
+
+    /**
+     * Sets the file the rejected rows were written to.
+     *
+     * @param rejectFile the reject report file.
+     */
+    void setRejectFile(Path rejectFile) {
+        this.rejectFile = rejectFile;
+    }
+
+    /**
+     * Retrieves the patients that were added.
+     *
+     * @return the new patients, in file order.
+     */
+    public List<Patient> getImported() {
+        return imported;
+    }
+
+    /**
+     * Retrieves the rejected rows.
+     *
+     * @return the reason for each rejected row, keyed by row number.
+     */
+    public Map<Integer, String> getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Retrieves the file the rejected rows were written to.
+     *
+     * @return the reject report file, or {@code null} if no row was rejected.
+     */
+    public Path getRejectFile() {
+        return rejectFile;
+    }
+}
@@ -0,0 +1,261 @@
+/**
+ * The PatientImportService class imports a batch of new patients from a CSV or xlsx file laid out like
+ * the patient file: Hospital ID, Patient ID, Patient Name, Gender, Date of Birth, Blood Type, Email
+ * and Contact No., with a header row.
+ *
+ * <p>Rows are parsed and validated in parallel with the {@link ValidationEngine}, as each row is checked on its own. Rows whose patient ID
+ * or hospital ID is already in use, or repeated earlier in the file, are then rejected in file order.
+ * The clean rows are appended to the patient file, with an account using the default password for each
+ * new patient, in a single commit. Rejected rows are written to a report file next to the import file,
+ * with their row number and reason, so they can be corrected and imported again.</p>
+ */
+package services;
+
+import enums.Role;
+import model.Patient;
+import repository.AccountRepository;
+import repository.PatientRepository;
+import storage.CsvStorageEngine;
+import storage.UnitOfWork;
+import utils.DateUtils;
+import utils.HospitalClock;
+import utils.ValidationEngine;
+import utils.ValidationResult;
+import utils.Validator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class PatientImportService {
+
+    /** Number of columns of the patient file. */
+    private static final int COLUMN_COUNT = 8;
+
+    /** Field of each column of the patient file. */
+    private static final ValidationEngine.Field[] COLUMNS = {
+        ValidationEngine.Field.HOSPITAL_ID, ValidationEngine.Field.PATIENT_ID, ValidationEngine.Field.TEXT,
+        ValidationEngine.Field.GENDER, ValidationEngine.Field.DATE, ValidationEngine.Field.BLOOD_TYPE,
+        ValidationEngine.Field.EMAIL, ValidationEngine.Field.CONTACT_NO
+    };
+
+    /** Formatter of the Date of Birth column, shared by the validating threads. */
+    private static final DateTimeFormatter DATE_FORMATTER = DateUtils.getDateFormatter();
+
+    /** Suffix added to the import file name to name its reject report. */
+    private static final String REJECT_FILE_SUFFIX = ".rejects." + CsvStorageEngine.EXTENSION;
+
+    /** Repository for patient data. */
+    private final PatientRepository patientRepository = RepositoryContext.get().getPatientRepository();
+
+    /** Repository for account data. */
+    private final AccountRepository accountRepository = RepositoryContext.get().getAccountRepository();
+
+    /**
+     * Constructor for PatientImportService.
+     *
+     * @throws IOException if an error occurs during initialization.
+     */
+    public PatientImportService() throws IOException {}
+
+    /**
+     * Prompts the user for a patient import file and imports every valid row in it.
+     *
+     * @param scanner the Scanner object for user input.
+     * @throws Exception if an error occurs while saving the new patients.
+     */
+    public void displayImportPatientsInput(Scanner scanner) throws Exception {
+        System.out.println("Columns: Hospital ID, Patient ID, Patient Name, Gender, Date of Birth (e.g. 14-May-1980), Blood Type, Email, Contact No.");
+        System.out.print("Enter path of the patient file (.csv or .xlsx): ");
+        String importFile = Validator.validateStringInput(scanner);
+
+        PatientImportReport report;
+        try {
+            report = importPatients(Paths.get(importFile));
+        } catch (IOException e) {
+            System.out.println("Unable to read " + importFile + ": " + e.getMessage());
+            return;
+        }
+
+        System.out.println("Imported " + report.getImported().size() + " patient(s)");
+        if (!report.getRejected().isEmpty()) {
+            System.out.println(report.getRejected().size() + " row(s) rejected, see " + report.getRejectFile());
+        }
+    }
+
+    /**
+     * Imports the patients of a CSV or xlsx file.
+     *
+     * @param importFile the file to import.
+     * @return the imported patients and the rejected rows.
+     * @throws Exception if the file cannot be read, or an error occurs while saving the new patients or the reject report.
+     */
+    public PatientImportReport importPatients(Path importFile) throws Exception {
+        List<List<String>> rows = readImportFile(importFile);
+        PatientImportReport report = new PatientImportReport();
+        if (rows.isEmpty()) {
+            return report;
+        }
+
+        List<PatientEntry> entries = IntStream.range(1, rows.size()).parallel()
+                .mapToObj(i -> parsePatientRow(i + 1, rows.get(i)))
+                .collect(Collectors.toList());
+
+        Set<String> hospitalIds = accountRepository.getAllHospitalIds();
+        Set<String> patientIds = new HashSet<>();
+        for (Patient patient : patientRepository.getAllPatients()) {
+            hospitalIds.add(patient.getHospitalId());
+            patientIds.add(patient.getPatientId());
+        }
+
+        List<Patient> newPatients = new ArrayList<>();
+        List<List<String>> rejectRows = new ArrayList<>();
+        for (PatientEntry entry : entries) {
+            String error = entry.error;
+            if (entry.patient == null && error == null) {
+                continue; // Blank row
+            }
+            if (error == null && patientIds.contains(entry.patient.getPatientId())) {
+                error = "Patient ID " + entry.patient.getPatientId() + " is already in use";
+            } else if (error == null && hospitalIds.contains(entry.patient.getHospitalId())) {
+                error = "Hospital ID " + entry.patient.getHospitalId() + " is already in use";
+            }
+
+            if (error != null) {
+                report.addRejected(entry.rowNumber, error);
+                List<String> rejectRow = new ArrayList<>();
+                rejectRow.add(String.valueOf(entry.rowNumber));
+                rejectRow.add(error);
+                rejectRow.addAll(rows.get(entry.rowNumber - 1));
+                rejectRows.add(rejectRow);
+                continue;
+            }
+            patientIds.add(entry.patient.getPatientId());
+            hospitalIds.add(entry.patient.getHospitalId());
+            newPatients.add(entry.patient);
+            report.addImported(entry.patient);
+        }
+
+        if (!newPatients.isEmpty()) {
+            UnitOfWork patientImport = new UnitOfWork();
+            patientRepository.saveNewPatients(newPatients, patientImport);
+            accountRepository.saveNewAccounts(newPatients, patientImport);
+            patientImport.commit();
+        }
+        if (!rejectRows.isEmpty()) {
+            report.setRejectFile(writeRejectFile(importFile, rows.get(0), rejectRows));
+        }
+        return report;
+    }
+
+    /**
+     * Reads the rows of an import file.
+     *
+     * @param importFile the CSV or xlsx file.
+     * @return the rows of the file, header first.
+     * @throws IOException if the file cannot be read or is neither CSV nor xlsx.
+     */
+    private List<List<String>> readImportFile(Path importFile) throws IOException {
+        String fileName = importFile.getFileName().toString().toLowerCase();
+        if (fileName.endsWith(".xlsx")) {
+            return ExcelReaderWriter.readExternal(importFile.toString());
+        }
+        if (fileName.endsWith("." + CsvStorageEngine.EXTENSION)) {
+            return new CsvStorageEngine().readAll(importFile);
+        }
+        throw new IOException("Unsupported file type, expected .csv or .xlsx");
+    }
+
+    /**
+     * Writes the rejected rows to a CSV file next to the import file.
+     *
+     * @param importFile the import file.
+     * @param header     the header row of the import file.
+     * @param rejectRows the rejected rows, each prefixed with its row number and reason.
+     * @return the reject report file.
+     * @throws IOException if the file cannot be written.
+     */
+    private Path writeRejectFile(Path importFile, List<String> header, List<List<String>> rejectRows) throws IOException {
+        Path rejectFile = importFile.resolveSibling(importFile.getFileName() + REJECT_FILE_SUFFIX);
+        List<List<String>> rejectReport = new ArrayList<>();
+        List<String> rejectHeader = new ArrayList<>();
+        rejectHeader.add("Row");
+        rejectHeader.add("Reason");
+        rejectHeader.addAll(header);
+        rejectReport.add(rejectHeader);
+        rejectReport.addAll(rejectRows);
+
+        new CsvStorageEngine().write(rejectFile, rejectReport);
+        return rejectFile;
+    }
+
+    /**
+     * Validates one row of an import file. Safe to call from several threads.
+     *
+     * @param rowNumber the row number in the file, the header being row 1.
+     * @param row       the cells of the row.
+     * @return the new patient, or the reason the row is invalid.
+     */
+    private static PatientEntry parsePatientRow(int rowNumber, List<String> row) {
+        String[] cells = new String[COLUMN_COUNT];
+        boolean blank = true;
+        for (int i = 0; i < COLUMN_COUNT; i++) {
+            cells[i] = i < row.size() && row.get(i) != null ? row.get(i).trim() : "";
+            blank &= cells[i].isEmpty();
+        }
+        if (blank) {
+            return new PatientEntry(rowNumber, null, null);
+        }
+
+        List<ValidationResult> errors = ValidationEngine.validateRow(COLUMNS, Arrays.asList(cells));
+        if (!errors.isEmpty()) {
+            StringBuilder error = new StringBuilder();
+            for (ValidationResult result : errors) {
+                error.append(error.length() == 0 ? "" : "; ").append(result.getMessage());
+            }
+            return new PatientEntry(rowNumber, null, error.toString());
+        }
+        LocalDate dateOfBirth = LocalDate.parse(cells[4], DATE_FORMATTER);
+        if (dateOfBirth.isAfter(HospitalClock.today())) {
+            return new PatientEntry(rowNumber, null, "Date of Birth is in the future");
+        }
+
+        Patient patient = new Patient();
+        patient.setHospitalId(cells[0]);
+        patient.setPatientId(cells[1]);
+        patient.setPatientName(cells[2]);
+        patient.setGender(cells[3].toUpperCase());
+        patient.setDateOfBirth(dateOfBirth);
+        patient.setBloodType(cells[5].toUpperCase());
+        patient.setEmail(cells[6]);
+        patient.setContactNo(cells[7]);
+        patient.setRole(Role.PATIENT);
+        return new PatientEntry(rowNumber, patient, null);
+    }
+
+    /**
+     * A validated row of an import file: either a new patient or the reason the row was rejected.
+     * Both are {@code null} for a blank row.
+     */
+    private static final class PatientEntry {
+        private final int rowNumber;
+        private final Patient patient;
+        private final String error;
+
+        private PatientEntry(int rowNumber, Patient patient, String error) {
+            this.rowNumber = rowNumber;
+            this.patient = patient;
+            this.error = error;
+        }
+    }
+}
@@ -10,15 +10,13 @@ package services;
 
 import constants.FilePath;
 import model.*;
-import repository.AppointmentRepository;
-import repository.PatientRepository;
-import repository.StaffRepository;
 import utils.DateUtils;
+import utils.HospitalClock;
 import utils.Validator;
 
 import java.io.IOException;
 import java.time.LocalDate;
-import java.time.LocalTime;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
@@ -26,9 +24,7 @@ import java.util.Scanner;
 public class PatientService {
     private Patient patientInfo = new Patient();
 
-    private final PatientRepository patientRepository = new PatientRepository();
-    private final AppointmentRepository appointmentRepository = new AppointmentRepository();
-    private final StaffRepository staffRepository = new StaffRepository();
+    private final HospitalApi api = new HospitalApi();
 
     /**
      * Default constructor for initializing patient services.
@@ -70,7 +66,7 @@ public class PatientService {
      * @throws IOException if patient data cannot be retrieved.
      */
     public void loadPatientInfo(String hospitalId) throws IOException {
-        patientInfo = patientRepository.loadPatientInfo(hospitalId);
+        patientInfo = api.getPatient(hospitalId);
     }
 
     /**
@@ -112,8 +108,7 @@ public class PatientService {
      * @throws IOException if the contact number cannot be updated.
      */
     public void updateContactNo(String contactNo) throws IOException {
-        patientInfo.setContactNo(contactNo);
-        patientRepository.updatePatientInfo(patientInfo);
+        api.updateContactNo(patientInfo.getHospitalId(), contactNo);
     }
 
     /**
@@ -123,8 +118,7 @@ public class PatientService {
      * @throws IOException if the email address cannot be updated.
      */
     public void updateEmail(String email) throws IOException {
-        patientInfo.setEmail(email);
-        patientRepository.updatePatientInfo(patientInfo);
+        api.updateEmail(patientInfo.getHospitalId(), email);
     }
 
     /**
@@ -134,7 +128,7 @@ public class PatientService {
      * @throws IOException if upcoming appointments cannot be retrieved.
      */
     public void displayUpcomingAppointments(Scanner scanner) throws IOException {
-        List<Appointment> upcomingAppointments = appointmentRepository.getUpcomingAppointmentsForPatient(patientInfo);
+        List<Appointment> upcomingAppointments = api.listUpcomingAppointments(patientInfo.getPatientId());
 
         if (upcomingAppointments.isEmpty()) {
             System.out.println("No Upcoming Appointments!");
@@ -145,7 +139,7 @@ public class PatientService {
         for (Appointment upcomingAppointment : upcomingAppointments) {
             System.out.println(" Appointment with " + upcomingAppointment.getDoctorId()
                     + " at " + upcomingAppointment.getAppointmentTime()
-                    + " | Status: " + upcomingAppointment.getAppointmentStatus());
+                    + " | Status: " + upcomingAppointment.getAppointmentStatus().getDisplayValue());
         }
 
         System.out.println("\n------------------------------");
@@ -167,16 +161,28 @@ public class PatientService {
      * @throws IOException if the list of doctors cannot be retrieved.
      */
     public boolean displayDoctorsChoiceMenu(Scanner scanner) throws IOException {
+        return displayDoctorsChoiceMenu(scanner, null);
+    }
+
+    /**
+     * Displays a list of doctors and books the chosen slot, either as a new appointment or in place of one being rescheduled.
+     *
+     * @param scanner     a {@code Scanner} for user input.
+     * @param rescheduled the appointment being rescheduled, or {@code null} to book a new one.
+     * @return {@code true} if a time slot is successfully booked; {@code false} otherwise.
+     * @throws IOException if the list of doctors cannot be retrieved.
+     */
+    private boolean displayDoctorsChoiceMenu(Scanner scanner, Appointment rescheduled) throws IOException {
         System.out.println("\n---Doctor Choice Menu---");
 
-        List<String> doctorList = staffRepository.getAllDoctors();
+        List<String> doctorList = api.listDoctors();
 
         for (int i = 0; i < doctorList.size(); i++) {
             System.out.println((i + 1) + " - " + doctorList.get(i));
         }
 
         int doctorChoice = Validator.validateIntegerInput(scanner);
-        return checkAppointmentSlots(scanner, doctorList.get(doctorChoice - 1));
+        return checkAppointmentSlots(scanner, doctorList.get(doctorChoice - 1), rescheduled);
     }
 
     /**
@@ -188,17 +194,32 @@ public class PatientService {
      * @throws IOException if appointment slots cannot be retrieved.
      */
     public boolean checkAppointmentSlots(Scanner scanner, String doctorChoice) throws IOException {
+        return checkAppointmentSlots(scanner, doctorChoice, null);
+    }
+
+    /**
+     * Checks available appointment slots for a selected doctor and books the chosen slot, either as a new
+     * appointment or in place of one being rescheduled.
+     *
+     * @param scanner      a {@code Scanner} for user input.
+     * @param doctorChoice the ID of the selected doctor.
+     * @param rescheduled  the appointment being rescheduled, or {@code null} to book a new one.
+     * @return {@code true} if a slot is successfully booked; {@code false} otherwise.
+     * @throws IOException if appointment slots cannot be retrieved.
+     */
+    private boolean checkAppointmentSlots(Scanner scanner, String doctorChoice, Appointment rescheduled) throws IOException {
         System.out.println("\n-- Available Appointment Slots---");
         List<LocalDate> availableDates = new ArrayList<>();
-        availableDates.add(LocalDate.now().plusDays(1));
-        availableDates.add(LocalDate.now().plusDays(2));
+        LocalDate today = HospitalClock.today();
+        availableDates.add(today.plusDays(1));
+        availableDates.add(today.plusDays(2));
 
         for (int i = 0; i < availableDates.size(); i++) {
             System.out.println((i + 1) + " - " + availableDates.get(i));
         }
         int dateChoice = Validator.validateIntegerInput(scanner);
 
-        List<LocalTime> timeSlotsAvailable = appointmentRepository.getAvailableTimeSlots(doctorChoice, availableDates.get(dateChoice - 1));
+        List<LocalDateTime> timeSlotsAvailable = api.listAvailableSlots(doctorChoice, availableDates.get(dateChoice - 1));
 
         if (timeSlotsAvailable.isEmpty()) {
             System.out.println("No Time Slots Available for " + doctorChoice);
@@ -207,14 +228,20 @@ public class PatientService {
 
         System.out.println("\n--- Time Slots Available for " + availableDates.get(dateChoice - 1) + "---");
         for (int i = 0; i < timeSlotsAvailable.size(); i++) {
-            System.out.println((i + 1) + " - " + timeSlotsAvailable.get(i));
+            System.out.println((i + 1) + " - " + timeSlotsAvailable.get(i).toLocalTime());
         }
 
         System.out.println("\n--- Book Slot for " + availableDates.get(dateChoice - 1) + "---");
         int selectedTime = Validator.validateIntegerInput(scanner);
 
-        appointmentRepository.bookAppointment(patientInfo.getPatientId(), doctorChoice, availableDates.get(dateChoice - 1), timeSlotsAvailable.get(selectedTime - 1));
-        return true;
+        boolean booked = rescheduled == null
+                ? api.bookAppointment(patientInfo.getPatientId(), doctorChoice, timeSlotsAvailable.get(selectedTime - 1))
+                : api.rescheduleAppointment(patientInfo.getPatientId(), rescheduled.getAppointmentId(), doctorChoice,
+                        timeSlotsAvailable.get(selectedTime - 1));
+        if (!booked) {
+            System.out.println("Slot is no longer available");
+        }
+        return booked;
     }
 
     /**
@@ -225,22 +252,18 @@ public class PatientService {
  * @throws IOException if the appointment list or doctors' schedules cannot be retrieved.
  */
 public void rescheduleAppointment(Scanner scanner) throws IOException {
-    List<Appointment> appointmentList = appointmentRepository.getUpcomingAppointmentsForPatient(patientInfo);
+    List<Appointment> appointmentList = api.listUpcomingAppointments(patientInfo.getPatientId());
 
     System.out.println("\n--- Upcoming Appointments ---");
     for (int i = 0; i < appointmentList.size(); i++) {
         System.out.println((i + 1) + " Appointment with " + appointmentList.get(i).getDoctorId()
                 + " at " + appointmentList.get(i).getAppointmentTime()
-                + " | Status: " + appointmentList.get(i).getAppointmentStatus());
+                + " | Status: " + appointmentList.get(i).getAppointmentStatus().getDisplayValue());
     }
     System.out.print("Reschedule: ");
     int appointmentToReschedule = Validator.validateIntegerInput(scanner);
 
-    boolean reschedule = displayDoctorsChoiceMenu(scanner);
-
-    if (reschedule) {
-        appointmentRepository.freeAppointmentSlot((appointmentList.get(appointmentToReschedule - 1)));
-    }
+    displayDoctorsChoiceMenu(scanner, appointmentList.get(appointmentToReschedule - 1));
 }
 
 /**
@@ -250,18 +273,18 @@ public void rescheduleAppointment(Scanner scanner) throws IOException {
  * @throws IOException if the appointment list cannot be retrieved.
  */
 public void cancelAppointment(Scanner scanner) throws IOException {
-    List<Appointment> appointmentList = appointmentRepository.getUpcomingAppointmentsForPatient(patientInfo);
+    List<Appointment> appointmentList = api.listUpcomingAppointments(patientInfo.getPatientId());
 
     System.out.println("\n--- Upcoming Appointments ---");
     for (int i = 0; i < appointmentList.size(); i++) {
         System.out.println((i + 1) + " Appointment with " + appointmentList.get(i).getDoctorId()
                 + " at " + appointmentList.get(i).getAppointmentTime()
-                + " | Status: " + appointmentList.get(i).getAppointmentStatus());
+                + " | Status: " + appointmentList.get(i).getAppointmentStatus().getDisplayValue());
     }
     System.out.print("Cancel: ");
     int appointmentToCancel = Validator.validateIntegerInput(scanner);
 
-    appointmentRepository.cancelAppointmentSlot((appointmentList.get(appointmentToCancel - 1)));
+    api.cancelAppointment(patientInfo.getPatientId(), appointmentList.get(appointmentToCancel - 1).getAppointmentId());
 }
 
 /**
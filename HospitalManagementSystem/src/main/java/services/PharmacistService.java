@@ -3,13 +3,13 @@
  * including managing medication inventory, handling replenishment requests, and
  * dispensing medications based on appointment outcomes.
  * 
- * <p>This service interacts with multiple repositories such as {@link PatientRepository},
- * {@link AppointmentRepository}, {@link MedicalRecordRepository}, and {@link MedicationRepository}
- * to perform its operations.</p>
+ * <p>This service is the console front end of the pharmacist operations in {@link HospitalApi}:
+ * it shows the menus, reads the pharmacist's choices and reports the results.</p>
  * 
  * <p>Key functionalities:</p>
  * <ul>
  *   <li>Displaying appointment outcomes and dispensing medications.</li>
+ *   <li>Dispensing all pending prescriptions that are in stock in one batch.</li>
  *   <li>Viewing the current medical inventory.</li>
  *   <li>Submitting replenishment requests for low-stock medications.</li>
  * </ul>
@@ -22,28 +22,17 @@ package services;
 
 import model.MedicalRecord;
 import model.Medication;
-import repository.AppointmentRepository;
-import repository.MedicalRecordRepository;
-import repository.MedicationRepository;
-import repository.PatientRepository;
 import utils.Validator;
 
 import java.io.IOException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
 
 public class PharmacistService {
 
-    /** Repository for patient data. */
-    private final PatientRepository patientRepository = new PatientRepository();
-
-    /** Repository for appointment data. */
-    private final AppointmentRepository appointmentRepository = new AppointmentRepository();
-
-    /** Repository for medical records. */
-    private final MedicalRecordRepository medicalRecordRepository = new MedicalRecordRepository();
-
-    /** Repository for medication inventory. */
-    private final MedicationRepository medicationRepository = new MedicationRepository();
+    /** Operations shared with other front ends. */
+    private final HospitalApi api = new HospitalApi();
 
     /**
      * Constructor for PharmacistService.
@@ -59,7 +48,7 @@ public class PharmacistService {
      * @throws IOException if an error occurs during data retrieval or updating.
      */
     public void displayAllAppointmentOutcomes(Scanner scanner) throws IOException {
-        List<MedicalRecord> appointmentOutcomes = medicalRecordRepository.getAllAppointmentOutcomes();
+        List<MedicalRecord> appointmentOutcomes = api.listPendingOutcomes();
 
         if (appointmentOutcomes.isEmpty()) {
             System.out.println("Nothing to dispense!");
@@ -78,12 +67,7 @@ public class PharmacistService {
 
         int dispenseChoice = Validator.validateIntegerInput(scanner);
         if (dispenseChoice > 0 && dispenseChoice <= appointmentOutcomes.size()) {
-            boolean dispensed = medicationRepository.dispenseMedication(
-                appointmentOutcomes.get(dispenseChoice - 1).getPrescription(),
-                appointmentOutcomes.get(dispenseChoice - 1).getPrescriptionAmount()
-            );
-            if (dispensed) {
-                medicalRecordRepository.dispenseMedication(appointmentOutcomes.get(dispenseChoice - 1));
+            if (api.dispense(appointmentOutcomes.get(dispenseChoice - 1).getId())) {
                 System.out.println("Dispensed");
             } else {
                 System.out.println("Not enough medication to dispense");
@@ -95,6 +79,29 @@ public class PharmacistService {
         }
     }
 
+    /**
+     * Dispenses every pending prescription that the current stock can fill, and reports the ones it could not.
+     *
+     * @param scanner the Scanner object for user input.
+     * @throws IOException if an error occurs during updating.
+     */
+    public void dispenseAllPending(Scanner scanner) throws IOException {
+        if (api.listPendingOutcomes().isEmpty()) {
+            System.out.println("Nothing to dispense!");
+            return;
+        }
+
+        DispenseReport report = api.dispensePending(null);
+        System.out.println("Dispensed " + report.getDispensed().size() + " prescription(s)");
+        if (!report.getUnfilled().isEmpty()) {
+            System.out.println("\n--- Not Enough Medication ---");
+            for (MedicalRecord unfilled : report.getUnfilled()) {
+                System.out.println(unfilled.getPatientId() + " - " + unfilled.getPrescriptionAmount() + "x "
+                        + unfilled.getPrescription());
+            }
+        }
+    }
+
     /**
      * Displays the current medication inventory with details like stock levels and alert thresholds.
      *
@@ -102,7 +109,7 @@ public class PharmacistService {
      * @throws IOException if an error occurs during data retrieval.
      */
     public void displayMedicalInventory(Scanner scanner) throws IOException {
-        List<Medication> medicineList = medicationRepository.getMedicationList();
+        List<Medication> medicineList = api.listInventory();
 
         System.out.println("\n--- Medication List ---");
         System.out.println("Medication Name | Stock Level | Alert Level");
@@ -118,7 +125,7 @@ public class PharmacistService {
      * @throws IOException if an error occurs during data retrieval or updating.
      */
     public void submitReplenishRequest(Scanner scanner) throws IOException {
-        List<Medication> medicationList = medicationRepository.getMedicationList();
+        List<Medication> medicationList = api.listInventory();
         List<Medication> restockList = new ArrayList<>();
 
         System.out.println("\n--- Medication List ---");
@@ -146,8 +153,13 @@ public class PharmacistService {
         if (replenishRequest > 0 && replenishRequest <= restockList.size()) {
             System.out.println("Replenish Amount for " + restockList.get(replenishRequest - 1).getMedicineName() + ": ");
             int replenishAmount = Validator.validateIntegerInput(scanner);
-            medicationRepository.submitReplenishRequest(restockList.get(replenishRequest - 1), replenishAmount);
-            System.out.println("Replenish Request Submitted!");
+            if (replenishAmount <= 0) {
+                System.out.println("Invalid Input!");
+            } else if (api.submitReplenishRequest(restockList.get(replenishRequest - 1).getMedicineName(), replenishAmount)) {
+                System.out.println("Replenish Request Submitted!");
+            } else {
+                System.out.println("Stock has been replenished since");
+            }
         } else {
             System.out.println("Invalid Input!");
         }
@@ -0,0 +1,253 @@
+/**
+ * The RepositoryContext class holds one instance of every repository so that the services of a
+ * session share the same loaded data instead of each loading its own copies of the tables.
+ * Cross-table links are wired when the context is built: medical records resolve their past
+ * appointments through the shared {@link AppointmentRepository}, and patients load their records
+ * through the shared {@link MedicalRecordRepository}.
+ *
+ * <p>The context is built by {@link StartupLoader} and dropped with {@link #invalidate()} when a
+ * session ends, so the next session joins the repositories again from the cached tables. Tables edited
+ * by hand during a session are applied to the context's repositories as they are saved.</p>
+ *
+ * <p>Every session thread, whether a terminal of the session server or the process console, holds the
+ * context's lock (see {@link #lock()}) while it runs service code and releases it while it waits for
+ * its terminal. The repositories therefore only ever see one session at a time, and a session's
+ * read-modify-write between two prompts is never interleaved with another's or with an applied edit.</p>
+ */
+package services;
+
+import repository.AccountRepository;
+import repository.AppointmentRepository;
+import repository.MedicalRecordRepository;
+import repository.MedicationRepository;
+import repository.PatientRepository;
+import repository.StaffRepository;
+
+import storage.StorageEngines;
+import storage.Table;
+import storage.TableChangeMonitor;
+import storage.TableDelta;
+import storage.TableRow;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+public final class RepositoryContext {
+
+    /** The context of the current session, or null before the first use and after {@link #invalidate()}. */
+    private static RepositoryContext current;
+
+    /**
+     * Held by whichever thread is using the repositories. A {@link ReentrantLock} rather than a monitor,
+     * so virtual threads waiting for it do not pin their carrier thread. Fair, so no terminal starves.
+     */
+    private static final ReentrantLock lock = new ReentrantLock(true);
+
+    private final AccountRepository accountRepository;
+    private final StaffRepository staffRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final MedicalRecordRepository medicalRecordRepository;
+    private final PatientRepository patientRepository;
+    private final MedicationRepository medicationRepository;
+
+    /**
+     * Creates a context from already loaded repositories.
+     *
+     * @param accountRepository       the account repository.
+     * @param staffRepository         the staff repository, sharing the account repository.
+     * @param appointmentRepository   the appointment repository.
+     * @param medicalRecordRepository the medical record repository, linked to the appointment repository.
+     * @param patientRepository       the patient repository, linked to the medical record and appointment repositories.
+     * @param medicationRepository    the medication repository.
+     */
+    RepositoryContext(AccountRepository accountRepository, StaffRepository staffRepository,
+                      AppointmentRepository appointmentRepository, MedicalRecordRepository medicalRecordRepository,
+                      PatientRepository patientRepository, MedicationRepository medicationRepository) {
+        this.accountRepository = accountRepository;
+        this.staffRepository = staffRepository;
+        this.appointmentRepository = appointmentRepository;
+        this.medicalRecordRepository = medicalRecordRepository;
+        this.patientRepository = patientRepository;
+        this.medicationRepository = medicationRepository;
+    }
+
+    /**
+     * Returns the shared context, joining the repositories from the cached tables if no context exists yet.
+     *
+     * @return the current repository context.
+     * @throws IOException if a repository cannot be loaded.
+     */
+    public static synchronized RepositoryContext get() throws IOException {
+        if (current == null) {
+            current = StartupLoader.join();
+        }
+        return current;
+    }
+
+    /**
+     * Installs a freshly built context.
+     *
+     * @param context the context to share.
+     */
+    static synchronized void install(RepositoryContext context) {
+        current = context;
+    }
+
+    /**
+     * Drops the shared context and closes the files it holds open. Called when a session ends so that the
+     * next session starts from the stored tables.
+     *
+     * @throws IOException if the medical record archive cannot be closed.
+     */
+    public static synchronized void invalidate() throws IOException {
+        if (current == null) {
+            return;
+        }
+        MedicalRecordRepository medicalRecordRepository = current.medicalRecordRepository;
+        current = null;
+        medicalRecordRepository.close();
+    }
+
+    /**
+     * Waits until no other session is using the repositories, then takes them over.
+     * Every call must be matched by a call to {@link #unlock()} on the same thread.
+     */
+    public static void lock() {
+        lock.lock();
+    }
+
+    /**
+     * Lets other sessions use the repositories, for example while this session waits for input.
+     * Does nothing if the calling thread does not hold the repositories.
+     */
+    public static void unlock() {
+        if (lock.isHeldByCurrentThread()) {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts applying edits that are made to the table files while the system is running, such as a
+     * stock correction typed into Medicine_List.xlsx. See {@link TableChangeMonitor}.
+     *
+     * @return the running monitor.
+     * @throws IOException if the table files cannot be watched.
+     */
+    public static TableChangeMonitor watchForExternalChanges() throws IOException {
+        return TableChangeMonitor.start(StorageEngines.get(), RepositoryContext::applyExternalChanges);
+    }
+
+    /**
+     * Applies a table that was edited outside the system to the repositories of the current context.
+     * Without a context there is nothing to update; the next session joins from the edited table.
+     * Waits for the session using the repositories to reach a prompt.
+     *
+     * @param table the edited table.
+     * @param rows  the rows of the table, header first.
+     * @throws IOException if the change cannot be applied.
+     */
+    private static void applyExternalChanges(Table table, List<TableRow> rows) throws IOException {
+        lock();
+        try {
+            RepositoryContext context;
+            synchronized (RepositoryContext.class) {
+                context = current;
+            }
+            if (context != null) {
+                context.applyChanges(table, rows);
+            }
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Applies a table that was edited outside the system to the repositories of this context.
+     *
+     * @param table the edited table.
+     * @param rows  the rows of the table, header first.
+     * @throws IOException if the change cannot be applied.
+     */
+    private void applyChanges(Table table, List<TableRow> rows) throws IOException {
+        TableDelta delta;
+        switch (table) {
+            case STAFF_INFO:
+                delta = staffRepository.applyExternalChanges(rows);
+                break;
+            case PATIENT_INFO:
+                delta = patientRepository.applyExternalChanges(rows);
+                break;
+            case MEDICAL_RECORDS:
+                delta = medicalRecordRepository.applyExternalChanges(rows);
+                patientRepository.invalidateMedicalRecords();
+                break;
+            case APPOINTMENTS:
+                delta = appointmentRepository.applyExternalChanges(rows);
+                break;
+            case MEDICAL_INVENTORY:
+                delta = medicationRepository.applyExternalChanges(rows);
+                break;
+            default:
+                return; // Accounts are not cached, every login reads the table
+        }
+
+        if (!delta.isEmpty()) {
+            System.out.println("\n[" + table.getFileName() + " was edited outside the system: " + delta + "]");
+        }
+    }
+
+    /**
+     * Returns the shared account repository.
+     *
+     * @return the account repository.
+     */
+    public AccountRepository getAccountRepository() {
+        return accountRepository;
+    }
+
+    /**
+     * Returns the shared staff repository.
+     *
+     * @return the staff repository.
+     */
+    public StaffRepository getStaffRepository() {
+        return staffRepository;
+    }
+
+    /**
+     * Returns the shared appointment repository.
+     *
+     * @return the appointment repository.
+     */
+    public AppointmentRepository getAppointmentRepository() {
+        return appointmentRepository;
+    }
+
+    /**
+     * Returns the shared medical record repository.
+     *
+     * @return the medical record repository.
+     */
+    public MedicalRecordRepository getMedicalRecordRepository() {
+        return medicalRecordRepository;
+    }
+
+    /**
+     * Returns the shared patient repository.
+     *
+     * @return the patient repository.
+     */
+    public PatientRepository getPatientRepository() {
+        return patientRepository;
+    }
+
+    /**
+     * Returns the shared medication repository.
+     *
+     * @return the medication repository.
+     */
+    public MedicationRepository getMedicationRepository() {
+        return medicationRepository;
+    }
+}
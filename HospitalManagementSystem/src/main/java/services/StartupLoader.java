@@ -0,0 +1,218 @@
+/**
+ * The StartupLoader class loads all tables of the Hospital Management System when the application starts.
+ *
+ * <p>Loading happens in three phases:</p>
+ * <ol>
+ *     <li>Parse: the six tables are independent, so they are read concurrently on a bounded
+ *     executor through the configured {@link storage.StorageEngine}, as typed rows. Each table is read once;
+ *     the accounts table is not held by its repository, so reading it only warms the {@link TableSnapshot}
+ *     for the first login.</li>
+ *     <li>Join: the repositories are built once from the parsed rows, in dependency order, and
+ *     cross-table links such as {@code MedicalRecord.pastAppointment} are resolved against the shared
+ *     {@link repository.AppointmentRepository}.</li>
+ *     <li>Seal: finished appointments of past months are moved into their partitions through
+ *     {@link AppointmentRepository#sealPastMonths()}. This is the only step that may rewrite a table, and it
+ *     runs once per start rather than whenever a repository is built. The result is installed as the
+ *     {@link RepositoryContext}.</li>
+ * </ol>
+ *
+ * <p>The time taken by every table and by the join and seal phases is printed, so the critical path of startup is visible.</p>
+ */
+package services;
+
+import repository.AccountRepository;
+import repository.AppointmentRepository;
+import repository.MedicalRecordRepository;
+import repository.MedicationRepository;
+import repository.PatientRepository;
+import repository.StaffRepository;
+import storage.StorageEngines;
+import storage.Table;
+import storage.TableRow;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public final class StartupLoader {
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private StartupLoader() { }
+
+    /**
+     * Restores damaged tables, parses every table concurrently, joins the repositories, seals past appointments
+     * and installs the repositories as the shared context.
+     *
+     * @throws IOException if a table cannot be read or a repository cannot be loaded.
+     */
+    public static void load() throws IOException {
+        long start = System.nanoTime();
+        int threadCount = Math.min(Table.values().length, Math.max(2, Runtime.getRuntime().availableProcessors()));
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, runnable -> {
+            Thread thread = new Thread(runnable, "table-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        recover();
+
+        List<Future<ParsedTable>> parses = new ArrayList<>();
+        try {
+            for (Table table : Table.values()) {
+                parses.add(executor.submit(() -> parse(table)));
+            }
+
+            System.out.println("\n--- Startup (" + StorageEngines.get().getName() + ") ---");
+            Map<Table, List<TableRow>> tables = new EnumMap<>(Table.class);
+            ParsedTable slowest = null;
+            for (Future<ParsedTable> future : parses) {
+                ParsedTable parsed = await(future);
+                tables.put(parsed.table, parsed.rows);
+                System.out.printf("%-20s %7d rows %6d ms%n", parsed.table.getFileName(),
+                        Math.max(0, parsed.rows.size() - 1), parsed.millis); // Excluding the header
+                if (slowest == null || parsed.millis > slowest.millis) {
+                    slowest = parsed;
+                }
+            }
+            long parseMillis = elapsedMillis(start);
+
+            long joinStart = System.nanoTime();
+            RepositoryContext context = join(tables);
+            System.out.printf("%-20s %17d ms%n", "Join", elapsedMillis(joinStart));
+
+            long sealStart = System.nanoTime();
+            int sealedCount = context.getAppointmentRepository().sealPastMonths();
+            System.out.printf("%-20s %7d rows %6d ms%n", "Seal", sealedCount, elapsedMillis(sealStart));
+            RepositoryContext.install(context);
+            System.out.printf("Parsed in %d ms on %d threads (critical path: %s), ready in %d ms%n",
+                    parseMillis, threadCount, slowest.table.getFileName(), elapsedMillis(start));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Restores every table that an unclean shutdown left missing or damaged from its last good generation.
+     *
+     * @throws IOException if a generation cannot be restored.
+     */
+    private static void recover() throws IOException {
+        for (Table table : Table.values()) {
+            int generation = StorageEngines.get().recover(table);
+            if (generation > 0) {
+                System.out.println("Recovered " + table.getFileName() + " from its last good copy (generation " + generation + ")");
+            }
+        }
+    }
+
+    /**
+     * Builds every repository once, reading each table through the storage engine, and wires the cross-table links.
+     *
+     * @return the joined repositories.
+     * @throws IOException if a table cannot be read or a repository cannot be loaded.
+     */
+    static RepositoryContext join() throws IOException {
+        return join(Collections.emptyMap());
+    }
+
+    /**
+     * Builds every repository once from parsed tables and wires the cross-table links.
+     * A table that was not parsed is read through the storage engine.
+     *
+     * @param tables the rows of the parsed tables, header first.
+     * @return the joined repositories.
+     * @throws IOException if a table cannot be read or a repository cannot be loaded.
+     */
+    static RepositoryContext join(Map<Table, List<TableRow>> tables) throws IOException {
+        AccountRepository accountRepository = new AccountRepository();
+        StaffRepository staffRepository = new StaffRepository(accountRepository, rows(tables, Table.STAFF_INFO));
+        AppointmentRepository appointmentRepository = new AppointmentRepository(rows(tables, Table.APPOINTMENTS));
+        MedicalRecordRepository medicalRecordRepository = new MedicalRecordRepository(appointmentRepository,
+                rows(tables, Table.MEDICAL_RECORDS));
+        PatientRepository patientRepository = new PatientRepository(medicalRecordRepository, appointmentRepository,
+                rows(tables, Table.PATIENT_INFO));
+        MedicationRepository medicationRepository = new MedicationRepository(rows(tables, Table.MEDICAL_INVENTORY));
+
+        return new RepositoryContext(accountRepository, staffRepository, appointmentRepository,
+                medicalRecordRepository, patientRepository, medicationRepository);
+    }
+
+    /**
+     * Returns the parsed rows of a table, or reads them through the storage engine if it was not parsed.
+     *
+     * @param tables the parsed tables.
+     * @param table  the table.
+     * @return the rows of the table, header first.
+     * @throws IOException if the table cannot be read.
+     */
+    private static List<TableRow> rows(Map<Table, List<TableRow>> tables, Table table) throws IOException {
+        List<TableRow> rows = tables.get(table);
+        return rows != null ? rows : StorageEngines.get().readRows(table);
+    }
+
+    /**
+     * Parses one table through the storage engine and measures how long it took.
+     *
+     * @param table the table to parse.
+     * @return the rows and timing of the table.
+     * @throws IOException if the table cannot be read.
+     */
+    private static ParsedTable parse(Table table) throws IOException {
+        long start = System.nanoTime();
+        List<TableRow> rows = StorageEngines.get().readRows(table);
+        return new ParsedTable(table, rows, elapsedMillis(start));
+    }
+
+    /**
+     * Waits for a table to be parsed, unwrapping the exception of a failed parse.
+     *
+     * @param future the pending parse.
+     * @return the parsed table.
+     * @throws IOException if the table could not be read.
+     */
+    private static ParsedTable await(Future<ParsedTable> future) throws IOException {
+        try {
+            return future.get(5, TimeUnit.MINUTES);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to load table", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading tables", e);
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out while loading tables", e);
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * The rows of one table and how long it took to parse.
+     */
+    private static final class ParsedTable {
+        private final Table table;
+        private final List<TableRow> rows;
+        private final long millis;
+
+        private ParsedTable(Table table, List<TableRow> rows, long millis) {
+            this.table = table;
+            this.rows = rows;
+            this.millis = millis;
+        }
+    }
+}
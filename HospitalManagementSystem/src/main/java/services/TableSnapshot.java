@@ -0,0 +1,315 @@
+/**
+ * The TableSnapshot class keeps a compact binary copy of every table read or written
+ * through {@link ExcelReaderWriter}, so that repositories can be loaded without parsing
+ * the Excel workbooks again.
+ *
+ * <p>The snapshot file is loaded with a single memory-mapped read and each table is decoded
+ * in bulk when it is requested. A table is only served from the snapshot while its Excel file
+ * has the same modification time and size as when the snapshot entry was taken; any other file,
+ * including an older one restored from a backup, makes the caller fall back to the Excel file,
+ * which remains the interchange format.</p>
+ *
+ * <p>File layout (all integers big-endian):</p>
+ * <pre>
+ * int magic, int version, int tableCount
+ * per table: UTF filePath, long sourceLastModified, long sourceSize, int length, byte[length] rows
+ * rows: int rowCount, per row: int cellCount, per cell: byte kind, then
+ *       text:   int byteLength (-1 for null), UTF-8 bytes
+ *       number: double
+ *       date:   long epochSecond, int nano (UTC)
+ * </pre>
+ *
+ * <p>Cells keep the type they had in the workbook, so numbers and dates served from the snapshot
+ * are read without parsing text, exactly as when the workbook itself is read.</p>
+ */
+package services;
+
+import constants.FilePath;
+import storage.TableFiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class TableSnapshot {
+
+    /** Identifies a snapshot file ("HMSS"). */
+    private static final int MAGIC = 0x484D5353;
+
+    /** Format version; snapshots with any other version are ignored. */
+    private static final int VERSION = 3;
+
+    /** Encoded tables keyed by the Excel file path they mirror. */
+    private static final Map<String, Entry> entries = new LinkedHashMap<>();
+
+    private static boolean loaded = false;
+    private static boolean dirty = false;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private TableSnapshot() { }
+
+    /**
+     * Returns the rows of a table if the snapshot holds a copy of its Excel file as it is now.
+     *
+     * @param filePath the path of the Excel file.
+     * @return the decoded rows, or {@code null} if the snapshot has no fresh copy.
+     */
+    public static synchronized List<List<String>> read(String filePath) {
+        List<CellRow> rows = readRows(filePath);
+        if (rows == null) {
+            return null;
+        }
+        List<List<String>> data = new ArrayList<>(rows.size());
+        for (CellRow row : rows) {
+            data.add(row.toList());
+        }
+        return data;
+    }
+
+    /**
+     * Returns the typed rows of a table if the snapshot holds a copy of its Excel file as it is now.
+     * The rows are shared with the snapshot and must not be changed; the list is the caller's own.
+     *
+     * @param filePath the path of the Excel file.
+     * @return the rows, or {@code null} if the snapshot has no fresh copy.
+     */
+    static synchronized List<CellRow> readRows(String filePath) {
+        load();
+        Entry entry = entries.get(filePath);
+        if (entry == null || !entry.stamp.equals(FileStamp.of(filePath))) {
+            return null;
+        }
+        if (entry.cells == null) {
+            // Decoded once and kept until the next checkpoint re-encodes it
+            entry.cells = decode(entry.rows);
+        }
+        return new ArrayList<>(entry.cells);
+    }
+
+    /**
+     * Records the current contents of a table after it has been read from or written to its Excel file.
+     * Only references to the rows are kept here; the table is encoded at the next {@link #checkpoint()}.
+     *
+     * @param filePath the path of the Excel file.
+     * @param stamp    the stamp of the Excel file taken before it was read, or after it was written, so an
+     *                 edit saved while the file was being parsed does not count as seen.
+     * @param rows     the rows of the table, which must not be changed afterwards.
+     */
+    static synchronized void put(String filePath, FileStamp stamp, List<CellRow> rows) {
+        load();
+        entries.put(filePath, new Entry(stamp, new ArrayList<>(rows)));
+        dirty = true;
+    }
+
+    /**
+     * Encodes the tables recorded since the last checkpoint and writes the snapshot file, if any table changed.
+     * The file is forced to disk before it replaces the previous snapshot, so a crash leaves one or the other.
+     * Called on clean shutdown and whenever a user session ends.
+     *
+     * @throws IOException if the snapshot file cannot be written.
+     */
+    public static synchronized void checkpoint() throws IOException {
+        if (!dirty) {
+            return;
+        }
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(buffer);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> table : entries.entrySet()) {
+            Entry entry = table.getValue();
+            if (entry.rows == null) {
+                entry.rows = encode(entry.cells);
+                entry.cells = null;
+            }
+            out.writeUTF(table.getKey());
+            out.writeLong(entry.stamp.lastModified);
+            out.writeLong(entry.stamp.size);
+            out.writeInt(entry.rows.length);
+            out.write(entry.rows);
+        }
+        out.flush();
+
+        Path target = Paths.get(FilePath.SNAPSHOT_FILE_PATH);
+        Path temp = TableFiles.tempFile(target);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        dirty = false;
+    }
+
+    /**
+     * Loads the snapshot file on first use. A missing, foreign or corrupt snapshot is ignored
+     * so that every table falls back to its Excel file.
+     */
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+
+        Path snapshotPath = Paths.get(FilePath.SNAPSHOT_FILE_PATH);
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return;
+            }
+
+            int tableCount = buffer.getInt();
+            for (int i = 0; i < tableCount; i++) {
+                String filePath = readUTF(buffer);
+                FileStamp stamp = new FileStamp(buffer.getLong(), buffer.getLong());
+                byte[] rows = new byte[buffer.getInt()];
+                buffer.get(rows);
+                entries.put(filePath, new Entry(stamp, rows));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring unreadable snapshot: " + e.getMessage());
+            entries.clear();
+        }
+    }
+
+    /**
+     * Encodes table rows into the snapshot row format.
+     *
+     * @param rows the rows to encode.
+     * @return the encoded bytes.
+     */
+    private static byte[] encode(List<CellRow> rows) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(rows.size());
+            for (CellRow row : rows) {
+                row.writeTo(out);
+            }
+            out.flush();
+            return buffer.toByteArray();
+        } catch (IOException e) {
+            // Writing to a byte array cannot fail.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decodes rows encoded by {@link #encode(List)}.
+     *
+     * @param rows the encoded bytes.
+     * @return the decoded rows.
+     */
+    private static List<CellRow> decode(byte[] rows) {
+        ByteBuffer buffer = ByteBuffer.wrap(rows);
+        int rowCount = buffer.getInt();
+        List<CellRow> data = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            data.add(CellRow.readFrom(buffer));
+        }
+        return data;
+    }
+
+    /**
+     * Reads a string written by {@link DataOutputStream#writeUTF(String)}.
+     * Modified UTF-8 only differs from UTF-8 for characters that do not occur in file paths.
+     *
+     * @param buffer the buffer positioned at the string.
+     * @return the decoded string.
+     */
+    private static String readUTF(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The modification time and size of an Excel file, which identify the version of the file a
+     * snapshot entry was taken from.
+     */
+    public static final class FileStamp {
+        private final long lastModified;
+        private final long size;
+
+        private FileStamp(long lastModified, long size) {
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        /**
+         * Stamps an Excel file as it is now.
+         *
+         * @param filePath the path of the Excel file.
+         * @return the stamp; a missing file is stamped with zeros.
+         */
+        public static FileStamp of(String filePath) {
+            File file = new File(filePath);
+            return new FileStamp(file.lastModified(), file.length());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp stamp = (FileStamp) other;
+            return lastModified == stamp.lastModified && size == stamp.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(lastModified) * 31 + Long.hashCode(size);
+        }
+    }
+
+    /**
+     * One table and the stamp of the Excel file it was taken from. A table loaded from the snapshot
+     * file is held encoded until it is first read; a table recorded since the last checkpoint is held
+     * as rows until then.
+     */
+    private static final class Entry {
+        private final FileStamp stamp;
+        private byte[] rows;
+        private List<CellRow> cells;
+
+        private Entry(FileStamp stamp, byte[] rows) {
+            this.stamp = stamp;
+            this.rows = rows;
+        }
+
+        private Entry(FileStamp stamp, List<CellRow> cells) {
+            this.stamp = stamp;
+            this.cells = cells;
+        }
+    }
+}
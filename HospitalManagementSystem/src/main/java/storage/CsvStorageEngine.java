@@ -0,0 +1,342 @@
+/**
+ * The CsvStorageEngine class stores every table as a UTF-8 CSV file next to where its workbook would be,
+ * and reads and writes other CSV files in the same format, such as the patient import and staff intake
+ * files, whose rows reach the tables through the repositories.
+ * Fields are separated by commas and quoted with double quotes when they contain a comma, a quote or
+ * a line break (RFC 4180). A null cell is written as an empty field. A leading UTF-8 byte order mark is skipped.
+ *
+ * <p>Reading is built for bulk imports: the file is read through a {@link FileChannel} into a large
+ * buffer and parsed byte by byte in a single pass. Since every separator is ASCII, no characters are
+ * decoded while parsing. Each row keeps its unquoted field bytes in one array and a field is only turned
+ * into a String when it is first accessed.</p>
+ *
+ * <p>Tables are replaced atomically with their previous generations kept, see {@link TableFiles}.
+ * Files at other paths, such as import reject reports, are written in place.</p>
+ */
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class CsvStorageEngine implements StorageEngine {
+
+    /** File extension of the tables. */
+    public static final String EXTENSION = "csv";
+
+    /** Size of the read and write buffers. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final byte COMMA = ',';
+    private static final byte QUOTE = '"';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    @Override
+    public String getName() {
+        return "csv";
+    }
+
+    @Override
+    public Path getFile(Table table) {
+        return Paths.get(table.getFilePath(EXTENSION));
+    }
+
+    @Override
+    public int recover(Table table) throws IOException {
+        // Every table has a header row, so an empty file is a table that was never completely written
+        return TableFiles.recover(getFile(table), file -> file.toFile().length() > 0);
+    }
+
+    @Override
+    public void read(Table table, Consumer<List<String>> handler) throws IOException {
+        read(getFile(table), handler);
+    }
+
+    @Override
+    public void write(Table table, Iterable<List<String>> rows) throws IOException {
+        Path file = getFile(table);
+        Path temp = TableFiles.tempFile(file);
+        write(temp, rows);
+        TableFiles.replace(temp, file);
+        TableChangeMonitor.recordWrite(file);
+    }
+
+    /**
+     * Reads a whole CSV file into memory.
+     *
+     * @param csvFile the file to read.
+     * @return the rows of the file, header first.
+     * @throws IOException if the file cannot be read.
+     */
+    public List<List<String>> readAll(Path csvFile) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        read(csvFile, rows::add);
+        return rows;
+    }
+
+    /**
+     * Streams every row of a CSV file. The rows handed out are independent of each other and of the
+     * read buffer, so they can be kept; their cells can be replaced with {@link List#set} but not added or removed.
+     *
+     * @param csvFile the file to read.
+     * @param handler receives each row in order.
+     * @throws IOException if the file cannot be read.
+     */
+    public void read(Path csvFile, Consumer<List<String>> handler) throws IOException {
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(BUFFER_SIZE, Math.max(channel.size(), 16)));
+            byte[] input = buffer.array();
+            RowBuilder row = new RowBuilder();
+
+            boolean quoted = false;
+            boolean quoteSeen = false; // Last byte inside a quoted field was a quote: closing, or first half of ""
+            boolean skipLf = false;    // Last byte was a CR ending a row
+            boolean firstChunk = true;
+
+            while (channel.read(buffer) >= 0 || buffer.position() > 0) {
+                int limit = buffer.position();
+                int i = 0;
+                if (firstChunk) {
+                    firstChunk = false;
+                    if (limit >= 3 && input[0] == (byte) 0xEF && input[1] == (byte) 0xBB && input[2] == (byte) 0xBF) {
+                        i = 3; // UTF-8 byte order mark
+                    }
+                }
+
+                for (; i < limit; i++) {
+                    byte b = input[i];
+                    if (skipLf) {
+                        skipLf = false;
+                        if (b == LF) {
+                            continue;
+                        }
+                    }
+
+                    if (quoted) {
+                        if (quoteSeen) {
+                            quoteSeen = false;
+                            if (b == QUOTE) {
+                                row.append(QUOTE); // Escaped quote
+                                continue;
+                            }
+                            quoted = false; // The previous quote closed the field, handle b below
+                        } else if (b == QUOTE) {
+                            quoteSeen = true;
+                            continue;
+                        } else {
+                            row.append(b);
+                            continue;
+                        }
+                    }
+
+                    if (b == COMMA) {
+                        row.endField();
+                    } else if (b == LF || b == CR) {
+                        skipLf = b == CR;
+                        if (!row.hasContent()) {
+                            continue; // Blank line
+                        }
+                        row.endField();
+                        handler.accept(row.build());
+                    } else if (b == QUOTE && row.fieldIsEmpty()) {
+                        quoted = true;
+                        row.startQuotedField();
+                    } else {
+                        row.append(b);
+                    }
+                }
+                buffer.clear();
+            }
+
+            if (row.hasContent()) {
+                row.endField();
+                handler.accept(row.build());
+            }
+        }
+    }
+
+    /**
+     * Writes rows to a CSV file, replacing it.
+     *
+     * @param csvFile the file to write.
+     * @param rows    the rows to write, header first.
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(Path csvFile, Iterable<List<String>> rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(csvFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            for (List<String> row : rows) {
+                if (row.size() == 1 && (row.get(0) == null || row.get(0).isEmpty())) {
+                    buffer = put(channel, buffer, QUOTE); // Quoted so the row is not read back as a blank line
+                    buffer = put(channel, buffer, QUOTE);
+                }
+                for (int i = 0; i < row.size(); i++) {
+                    if (i > 0) {
+                        buffer = put(channel, buffer, COMMA);
+                    }
+                    buffer = writeField(channel, buffer, row.get(i));
+                }
+                buffer = put(channel, buffer, CR);
+                buffer = put(channel, buffer, LF);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Writes one field, quoting it if it contains a separator. ASCII values are copied without encoding.
+     *
+     * @param channel the output channel.
+     * @param buffer  the output buffer.
+     * @param value   the cell value, may be null.
+     * @return the output buffer.
+     * @throws IOException if the buffer cannot be flushed.
+     */
+    private static ByteBuffer writeField(FileChannel channel, ByteBuffer buffer, String value) throws IOException {
+        if (value == null) {
+            return buffer;
+        }
+
+        boolean ascii = true;
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                ascii = false;
+            } else if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                needsQuotes = true;
+            }
+        }
+
+        byte[] bytes = ascii ? null : value.getBytes(StandardCharsets.UTF_8);
+        int length = ascii ? value.length() : bytes.length;
+        if (needsQuotes) {
+            buffer = put(channel, buffer, QUOTE);
+        }
+        for (int i = 0; i < length; i++) {
+            byte b = ascii ? (byte) value.charAt(i) : bytes[i];
+            if (b == QUOTE) {
+                buffer = put(channel, buffer, QUOTE); // Escape by doubling
+            }
+            buffer = put(channel, buffer, b);
+        }
+        if (needsQuotes) {
+            buffer = put(channel, buffer, QUOTE);
+        }
+        return buffer;
+    }
+
+    private static ByteBuffer put(FileChannel channel, ByteBuffer buffer, byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush(channel, buffer);
+        }
+        return buffer.put(b);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Collects the unquoted bytes and field boundaries of the row being parsed.
+     */
+    private static final class RowBuilder {
+        private byte[] bytes = new byte[256];
+        private int length = 0;
+        private int[] fieldEnds = new int[16];
+        private int fieldCount = 0;
+        private boolean quotedField = false; // A quoted field was opened, so even "" is content
+
+        void startQuotedField() {
+            quotedField = true;
+        }
+
+        void append(byte b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = b;
+        }
+
+        void endField() {
+            if (fieldCount == fieldEnds.length) {
+                fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+            }
+            fieldEnds[fieldCount++] = length;
+        }
+
+        boolean fieldIsEmpty() {
+            return length == (fieldCount == 0 ? 0 : fieldEnds[fieldCount - 1]);
+        }
+
+        boolean hasContent() {
+            return length > 0 || fieldCount > 0 || quotedField;
+        }
+
+        CsvRow build() {
+            CsvRow row = new CsvRow(Arrays.copyOf(bytes, length), Arrays.copyOf(fieldEnds, fieldCount));
+            length = 0;
+            fieldCount = 0;
+            quotedField = false;
+            return row;
+        }
+    }
+
+    /**
+     * A parsed row that decodes each field on first access.
+     */
+    private static final class CsvRow extends AbstractList<String> {
+        private final byte[] bytes;
+        private final int[] fieldEnds;
+        private final String[] values;
+        private boolean[] assigned; // Fields replaced through set(), allocated on first use
+
+        private CsvRow(byte[] bytes, int[] fieldEnds) {
+            this.bytes = bytes;
+            this.fieldEnds = fieldEnds;
+            this.values = new String[fieldEnds.length];
+        }
+
+        @Override
+        public String get(int index) {
+            String value = values[index];
+            if (value == null && (assigned == null || !assigned[index])) {
+                int start = index == 0 ? 0 : fieldEnds[index - 1];
+                value = new String(bytes, start, fieldEnds[index] - start, StandardCharsets.UTF_8);
+                values[index] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public String set(int index, String value) {
+            String previous = get(index);
+            if (assigned == null) {
+                assigned = new boolean[values.length];
+            }
+            assigned[index] = true;
+            values[index] = value;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return fieldEnds.length;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * The ExcelStorageEngine class stores every table as an .xlsx workbook through {@link ExcelReaderWriter}.
+ * This is the default engine and keeps the behaviour the system has always had, including the
+ * {@link services.TableSnapshot} cache used for fast startup. A damaged workbook is detected at
+ * startup and restored from its last good generation (see {@link TableFiles}).
+ */
+package storage;
+
+import services.ExcelReaderWriter;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class ExcelStorageEngine implements StorageEngine {
+
+    /** File extension of the tables. */
+    public static final String EXTENSION = "xlsx";
+
+    @Override
+    public String getName() {
+        return "xlsx";
+    }
+
+    @Override
+    public Path getFile(Table table) {
+        return Paths.get(table.getFilePath(EXTENSION));
+    }
+
+    @Override
+    public int recover(Table table) throws IOException {
+        return TableFiles.recover(getFile(table), ExcelReaderWriter::isCompleteWorkbook);
+    }
+
+    @Override
+    public void read(Table table, Consumer<List<String>> handler) throws IOException {
+        for (List<String> row : readAll(table)) {
+            handler.accept(row);
+        }
+    }
+
+    @Override
+    public List<List<String>> readAll(Table table) throws IOException {
+        return ExcelReaderWriter.read(table.getFilePath(EXTENSION));
+    }
+
+    @Override
+    public List<TableRow> readRows(Table table) throws IOException {
+        return ExcelReaderWriter.readRows(table.getFilePath(EXTENSION));
+    }
+
+    @Override
+    public void write(Table table, Iterable<List<String>> rows) throws IOException {
+        List<List<String>> data = new ArrayList<>();
+        for (List<String> row : rows) {
+            data.add(row);
+        }
+        ExcelReaderWriter.write(data, table.getFilePath(EXTENSION));
+        TableChangeMonitor.recordWrite(getFile(table));
+    }
+}
@@ -0,0 +1,94 @@
+/**
+ * The InMemoryStorageEngine class keeps every table on the heap and never touches the disk.
+ * It is meant for tests and benchmarks, where it removes file I/O from the measurement, and can be
+ * seeded from another engine.
+ *
+ * <p>Rows are copied on the way in and out, so callers can modify what they read without
+ * affecting the stored table, as with the file based engines.</p>
+ */
+package storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class InMemoryStorageEngine implements StorageEngine {
+
+    private final Map<Table, List<List<String>>> tables = new EnumMap<>(Table.class);
+
+    /**
+     * Creates an engine whose tables are all empty.
+     */
+    public InMemoryStorageEngine() { }
+
+    /**
+     * Creates an engine holding a copy of every table of another engine.
+     *
+     * @param source the engine to copy from.
+     * @throws IOException if a table of the source engine cannot be read.
+     */
+    public InMemoryStorageEngine(StorageEngine source) throws IOException {
+        for (Table table : Table.values()) {
+            tables.put(table, source.readAll(table));
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "memory";
+    }
+
+    @Override
+    public synchronized void read(Table table, Consumer<List<String>> handler) throws IOException {
+        for (List<String> row : rowsOf(table)) {
+            handler.accept(new ArrayList<>(row));
+        }
+    }
+
+    @Override
+    public synchronized void write(Table table, Iterable<List<String>> rows) throws IOException {
+        List<List<String>> copy = new ArrayList<>();
+        for (List<String> row : rows) {
+            copy.add(new ArrayList<>(row));
+        }
+        tables.put(table, copy);
+    }
+
+    @Override
+    public synchronized void upsert(Table table, int keyColumn, List<String> row) throws IOException {
+        List<List<String>> rows = rowsOf(table);
+        String key = row.get(keyColumn);
+        for (int i = 1; i < rows.size(); i++) {
+            if (rows.get(i).size() > keyColumn && rows.get(i).get(keyColumn).equals(key)) {
+                rows.set(i, new ArrayList<>(row));
+                return;
+            }
+        }
+        rows.add(new ArrayList<>(row));
+    }
+
+    @Override
+    public synchronized boolean delete(Table table, int keyColumn, String key) throws IOException {
+        List<List<String>> rows = rowsOf(table);
+        for (int i = 1; i < rows.size(); i++) {
+            if (rows.get(i).size() > keyColumn && rows.get(i).get(keyColumn).equals(key)) {
+                rows.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the stored rows of a table, creating an empty table on first use.
+     *
+     * @param table the table.
+     * @return the live list of rows.
+     */
+    private List<List<String>> rowsOf(Table table) {
+        return tables.computeIfAbsent(table, t -> new ArrayList<>());
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * The Journal class is the write-ahead log of {@link JournaledStorageEngine}. Each committed
+ * {@link UnitOfWork} is appended as one entry and forced to disk; that single append is the commit.
+ * The tables are updated from the journal later, at a checkpoint, after which the journal is emptied.
+ *
+ * <p>Entry layout (integers big-endian): {@code int length, int crc32, byte[length] payload}, where the
+ * payload is {@code int changeCount} followed by each change as {@code byte type, UTF table,
+ * int keyColumn, string key, [int cellCount, string cells...]}; a string is {@code int byteLength}
+ * (-1 for null) and UTF-8 bytes. An entry cut short or damaged by a crash fails its checksum and is
+ * discarded together with anything after it, as it was never committed.</p>
+ */
+package storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+final class Journal {
+
+    private final Path file;
+
+    Journal(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads every committed entry. A damaged tail left by a crash is cut off the file, so new entries
+     * are appended right after the last committed one.
+     *
+     * @return the changes of each committed entry, oldest first.
+     * @throws IOException if the journal cannot be read or truncated.
+     */
+    List<List<RowChange>> readEntries() throws IOException {
+        List<List<RowChange>> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        int committedEnd = 0;
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            entries.add(decode(ByteBuffer.wrap(payload)));
+            committedEnd = buffer.position();
+        }
+
+        if (committedEnd < buffer.capacity()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(committedEnd);
+                channel.force(true);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Appends one entry and forces it to disk. Once this returns, the changes survive a crash.
+     *
+     * @param changes the changes of one unit of work.
+     * @throws IOException if the entry cannot be written.
+     */
+    void append(List<RowChange> changes) throws IOException {
+        byte[] payload = encode(changes);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        ByteBuffer entry = ByteBuffer.allocate(8 + payload.length);
+        entry.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        entry.flip();
+
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (entry.hasRemaining()) {
+                channel.write(entry);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Empties the journal once every entry has been written to the tables.
+     *
+     * @throws IOException if the journal cannot be truncated.
+     */
+    void clear() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(0);
+            channel.force(true);
+        }
+    }
+
+    private static byte[] encode(List<RowChange> changes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(changes.size());
+        for (RowChange change : changes) {
+            out.writeByte(change.getType().ordinal());
+            out.writeUTF(change.getTable().name());
+            out.writeInt(change.getKeyColumn());
+            writeString(out, change.getKey());
+            if (change.getType() == RowChange.Type.UPSERT) {
+                out.writeInt(change.getRow().size());
+                for (String cell : change.getRow()) {
+                    writeString(out, cell);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<RowChange> decode(ByteBuffer in) {
+        int changeCount = in.getInt();
+        List<RowChange> changes = new ArrayList<>(changeCount);
+        for (int i = 0; i < changeCount; i++) {
+            RowChange.Type type = RowChange.Type.values()[in.get()];
+            byte[] tableName = new byte[in.getShort() & 0xFFFF];
+            in.get(tableName);
+            Table table = Table.valueOf(new String(tableName, StandardCharsets.UTF_8));
+            int keyColumn = in.getInt();
+            String key = readString(in);
+
+            if (type == RowChange.Type.UPSERT) {
+                int cellCount = in.getInt();
+                List<String> row = new ArrayList<>(cellCount);
+                for (int c = 0; c < cellCount; c++) {
+                    row.add(readString(in));
+                }
+                changes.add(RowChange.upsert(table, keyColumn, row));
+            } else {
+                changes.add(RowChange.delete(table, keyColumn, key));
+            }
+        }
+        return changes;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * The JournaledStorageEngine class adds a write-ahead {@link Journal} in front of a file based engine,
+ * so that a {@link UnitOfWork} spanning several tables commits atomically with a single small append
+ * instead of one full table rewrite per table.
+ *
+ * <p>Committed changes are kept pending in memory and laid over every read of their tables, so
+ * readers always see them. They are written into the table files at a checkpoint: when a session
+ * ends, when the system shuts down, when many changes have piled up, or before a full write replaces
+ * a table that still has pending changes. After a crash the journal is read back on first use and its
+ * committed entries are pending again; replaying them is safe because every change is keyed.</p>
+ */
+package storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public class JournaledStorageEngine implements StorageEngine {
+
+    /** Number of committed units of work after which the journal is checkpointed. */
+    private static final int CHECKPOINT_ENTRIES = 64;
+
+    private final StorageEngine delegate;
+    private final Journal journal;
+
+    /** Committed changes not yet written into the tables, in commit order per table. */
+    private final Map<Table, List<RowChange>> pending = new EnumMap<>(Table.class);
+    private int pendingEntries = 0;
+    private boolean opened = false;
+
+    /**
+     * Creates a journaled view of an engine.
+     *
+     * @param delegate    the engine that stores the tables.
+     * @param journalFile the journal file, created on the first commit.
+     */
+    public JournaledStorageEngine(StorageEngine delegate, Path journalFile) {
+        this.delegate = delegate;
+        this.journal = new Journal(journalFile);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Path getFile(Table table) {
+        return delegate.getFile(table);
+    }
+
+    @Override
+    public int recover(Table table) throws IOException {
+        return delegate.recover(table);
+    }
+
+    @Override
+    public synchronized void read(Table table, Consumer<List<String>> handler) throws IOException {
+        open();
+        if (!pending.containsKey(table)) {
+            delegate.read(table, handler);
+            return;
+        }
+        for (List<String> row : readAll(table)) {
+            handler.accept(row);
+        }
+    }
+
+    @Override
+    public synchronized List<List<String>> readAll(Table table) throws IOException {
+        open();
+        List<List<String>> rows = delegate.readAll(table);
+        List<RowChange> changes = pending.get(table);
+        if (changes != null) {
+            rows = new ArrayList<>(rows);
+            for (RowChange change : changes) {
+                change.applyTo(rows);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized List<TableRow> readRows(Table table) throws IOException {
+        open();
+        if (!pending.containsKey(table)) {
+            return delegate.readRows(table);
+        }
+        List<TableRow> rows = new ArrayList<>();
+        for (List<String> row : readAll(table)) {
+            rows.add(TableRow.of(row));
+        }
+        return rows;
+    }
+
+    @Override
+    public synchronized void write(Table table, Iterable<List<String>> rows) throws IOException {
+        open();
+        if (pending.containsKey(table)) {
+            // The pending changes are older than these rows, so they must not be replayed over them later
+            checkpoint();
+        }
+        delegate.write(table, rows);
+    }
+
+    @Override
+    public synchronized void commit(List<RowChange> changes) throws IOException {
+        open();
+        journal.append(changes);
+        for (RowChange change : changes) {
+            pending.computeIfAbsent(change.getTable(), t -> new ArrayList<>()).add(change);
+        }
+        if (++pendingEntries >= CHECKPOINT_ENTRIES) {
+            checkpoint();
+        }
+    }
+
+    @Override
+    public synchronized void checkpoint() throws IOException {
+        open();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<Table, List<RowChange>> table : pending.entrySet()) {
+            List<List<String>> rows = new ArrayList<>(delegate.readAll(table.getKey()));
+            for (RowChange change : table.getValue()) {
+                change.applyTo(rows);
+            }
+            delegate.write(table.getKey(), rows);
+        }
+        journal.clear();
+        pending.clear();
+        pendingEntries = 0;
+    }
+
+    /**
+     * Loads the entries left in the journal by a previous run on first use.
+     *
+     * @throws IOException if the journal cannot be read.
+     */
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        for (List<RowChange> entry : journal.readEntries()) {
+            for (RowChange change : entry) {
+                pending.computeIfAbsent(change.getTable(), t -> new ArrayList<>()).add(change);
+            }
+            pendingEntries++;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * The RowChange class is one row-level change to a table: a row replaced or added by key, or a row
+ * deleted by key. A {@link UnitOfWork} collects the changes of one business operation across tables
+ * and commits them together.
+ */
+package storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public final class RowChange {
+
+    /**
+     * The kind of change.
+     */
+    public enum Type {
+        /** Replace the row with the same key, or append it if no row has the key. */
+        UPSERT,
+        /** Delete the first row with the key. */
+        DELETE
+    }
+
+    private final Type type;
+    private final Table table;
+    private final int keyColumn;
+    private final String key;
+    private final List<String> row;
+
+    private RowChange(Type type, Table table, int keyColumn, String key, List<String> row) {
+        this.type = type;
+        this.table = table;
+        this.keyColumn = keyColumn;
+        this.key = key;
+        this.row = row;
+    }
+
+    /**
+     * Creates a change that replaces the row with the same key as the given row, or appends it.
+     *
+     * @param table     the table to change.
+     * @param keyColumn the index of the key column.
+     * @param row       the new row.
+     * @return the change.
+     */
+    public static RowChange upsert(Table table, int keyColumn, List<String> row) {
+        return new RowChange(Type.UPSERT, table, keyColumn, row.get(keyColumn),
+                Collections.unmodifiableList(new ArrayList<>(row)));
+    }
+
+    /**
+     * Creates a change that deletes the row with a key.
+     *
+     * @param table     the table to change.
+     * @param keyColumn the index of the key column.
+     * @param key       the key of the row to delete.
+     * @return the change.
+     */
+    public static RowChange delete(Table table, int keyColumn, String key) {
+        return new RowChange(Type.DELETE, table, keyColumn, key, null);
+    }
+
+    /**
+     * Returns the kind of change.
+     *
+     * @return the change type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the changed table.
+     *
+     * @return the table.
+     */
+    public Table getTable() {
+        return table;
+    }
+
+    /**
+     * Returns the index of the key column.
+     *
+     * @return the key column.
+     */
+    public int getKeyColumn() {
+        return keyColumn;
+    }
+
+    /**
+     * Returns the key of the changed row.
+     *
+     * @return the key.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the new row of an upsert.
+     *
+     * @return the row, or {@code null} for a delete.
+     */
+    public List<String> getRow() {
+        return row;
+    }
+
+    /**
+     * Applies the change to the rows of its table. The header row is never matched.
+     *
+     * @param rows the rows of the table, header first; modified in place.
+     */
+    public void applyTo(List<List<String>> rows) {
+        for (int i = 1; i < rows.size(); i++) {
+            List<String> existing = rows.get(i);
+            if (existing.size() > keyColumn && existing.get(keyColumn).equals(key)) {
+                if (type == Type.UPSERT) {
+                    rows.set(i, new ArrayList<>(row));
+                } else {
+                    rows.remove(i);
+                }
+                return;
+            }
+        }
+        if (type == Type.UPSERT) {
+            rows.add(new ArrayList<>(row));
+        }
+    }
+}
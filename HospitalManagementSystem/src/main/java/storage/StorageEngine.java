@@ -0,0 +1,171 @@
+/**
+ * The StorageEngine interface is the storage backend behind the repositories.
+ * A table is a sequence of rows of string cells; the first row is the header, exactly as in
+ * the Excel files the system was built on. Repositories only talk to this interface, so the
+ * backend can be swapped (see {@link StorageEngines}) without touching repositories or services.
+ *
+ * <p>Implementations must be safe to use from several threads.</p>
+ */
+package storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface StorageEngine {
+
+    /**
+     * Returns a short name of the engine, used in configuration and log output.
+     *
+     * @return the engine name.
+     */
+    String getName();
+
+    /**
+     * Returns the file a table is stored in, so that external edits can be watched for.
+     *
+     * @param table the table.
+     * @return the table's file, or {@code null} if the engine does not keep tables in files.
+     */
+    default Path getFile(Table table) {
+        return null;
+    }
+
+    /**
+     * Checks a table after an unclean shutdown and restores its last good generation if the table is
+     * missing or damaged. Called once at startup, before any table is read.
+     *
+     * @param table the table to check.
+     * @return the generation that was restored (1 being the most recent), or 0 if nothing was restored.
+     * @throws IOException if a generation cannot be restored.
+     */
+    default int recover(Table table) throws IOException {
+        return 0;
+    }
+
+    /**
+     * Streams every row of a table, header first.
+     *
+     * @param table   the table to read.
+     * @param handler receives each row in order.
+     * @throws IOException if the table cannot be read.
+     */
+    void read(Table table, Consumer<List<String>> handler) throws IOException;
+
+    /**
+     * Replaces the contents of a table with the given rows, header first.
+     *
+     * @param table the table to write.
+     * @param rows  the rows to store, in order.
+     * @throws IOException if the table cannot be written.
+     */
+    void write(Table table, Iterable<List<String>> rows) throws IOException;
+
+    /**
+     * Reads a whole table into memory. The returned rows may be modified by the caller.
+     *
+     * @param table the table to read.
+     * @return the rows of the table, header first.
+     * @throws IOException if the table cannot be read.
+     */
+    default List<List<String>> readAll(Table table) throws IOException {
+        List<List<String>> rows = new ArrayList<>();
+        read(table, rows::add);
+        return rows;
+    }
+
+    /**
+     * Reads a whole table as typed rows, header first, so loaders can read numbers and dates
+     * without parsing them from text themselves.
+     *
+     * @param table the table to read.
+     * @return the rows of the table, header first.
+     * @throws IOException if the table cannot be read.
+     */
+    default List<TableRow> readRows(Table table) throws IOException {
+        List<TableRow> rows = new ArrayList<>();
+        read(table, row -> rows.add(TableRow.of(row)));
+        return rows;
+    }
+
+    /**
+     * Replaces the row whose key column equals the key of the given row, or appends the row if no row matches.
+     * The header row is never matched.
+     *
+     * @param table     the table to update.
+     * @param keyColumn the index of the key column.
+     * @param row       the new row.
+     * @throws IOException if the table cannot be read or written.
+     */
+    default void upsert(Table table, int keyColumn, List<String> row) throws IOException {
+        List<List<String>> rows = readAll(table);
+        String key = row.get(keyColumn);
+        for (int i = 1; i < rows.size(); i++) {
+            if (rows.get(i).size() > keyColumn && rows.get(i).get(keyColumn).equals(key)) {
+                rows.set(i, row);
+                write(table, rows);
+                return;
+            }
+        }
+        rows.add(row);
+        write(table, rows);
+    }
+
+    /**
+     * Deletes the first row whose key column equals the given key. The header row is never deleted.
+     *
+     * @param table     the table to update.
+     * @param keyColumn the index of the key column.
+     * @param key       the key of the row to delete.
+     * @return {@code true} if a row was deleted.
+     * @throws IOException if the table cannot be read or written.
+     */
+    default boolean delete(Table table, int keyColumn, String key) throws IOException {
+        List<List<String>> rows = readAll(table);
+        for (int i = 1; i < rows.size(); i++) {
+            if (rows.get(i).size() > keyColumn && rows.get(i).get(keyColumn).equals(key)) {
+                rows.remove(i);
+                write(table, rows);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Applies the row changes of one {@link UnitOfWork} as a unit. Each table that is touched is read
+     * and written once, however many of its rows change.
+     *
+     * <p>This default writes the tables one after the other, so a crash between two tables can
+     * leave only some of them changed; {@link JournaledStorageEngine} makes the commit atomic.</p>
+     *
+     * @param changes the changes, in order.
+     * @throws IOException if a table cannot be read or written.
+     */
+    default void commit(List<RowChange> changes) throws IOException {
+        Map<Table, List<List<String>>> tables = new LinkedHashMap<>();
+        for (RowChange change : changes) {
+            List<List<String>> rows = tables.get(change.getTable());
+            if (rows == null) {
+                rows = readAll(change.getTable());
+                tables.put(change.getTable(), rows);
+            }
+            change.applyTo(rows);
+        }
+        for (Map.Entry<Table, List<List<String>>> table : tables.entrySet()) {
+            write(table.getKey(), table.getValue());
+        }
+    }
+
+    /**
+     * Writes any changes the engine has deferred into the tables themselves.
+     * Engines that write every change straight away have nothing to do.
+     *
+     * @throws IOException if a table cannot be written.
+     */
+    default void checkpoint() throws IOException { }
+}
@@ -0,0 +1,77 @@
+/**
+ * The StorageEngines class selects the {@link StorageEngine} used by all repositories.
+ *
+ * <p>The engine is chosen once from the system property {@code hms.storage}:</p>
+ * <ul>
+ *   <li>{@code xlsx} (default) - {@link ExcelStorageEngine}</li>
+ *   <li>{@code csv} - {@link CsvStorageEngine}</li>
+ *   <li>{@code memory} - {@link InMemoryStorageEngine}, starting empty</li>
+ * </ul>
+ * <p>The file based engines are wrapped in a {@link JournaledStorageEngine}, so units of work commit
+ * atomically through the journal, which is kept beside the tables. Tests and benchmarks can install an engine directly with
+ * {@link #set(StorageEngine)}.</p>
+ */
+package storage;
+
+import constants.FilePath;
+
+import java.nio.file.Paths;
+
+public final class StorageEngines {
+
+    /** System property naming the storage engine. */
+    public static final String ENGINE_PROPERTY = "hms.storage";
+
+    private static StorageEngine engine;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private StorageEngines() { }
+
+    /**
+     * Returns the configured storage engine, creating it on first use.
+     *
+     * @return the storage engine.
+     * @throws IllegalArgumentException if {@code hms.storage} names an unknown engine.
+     */
+    public static synchronized StorageEngine get() {
+        if (engine == null) {
+            StorageEngine configured = create(System.getProperty(ENGINE_PROPERTY, "xlsx"));
+            engine = configured.getFile(Table.ACCOUNTS) == null
+                    ? configured
+                    : new JournaledStorageEngine(configured, Paths.get(Table.resolveDataFile(FilePath.JOURNAL_FILE_PATH)));
+        }
+        return engine;
+    }
+
+    /**
+     * Installs a storage engine, replacing the configured one.
+     *
+     * @param storageEngine the engine to use from now on.
+     */
+    public static synchronized void set(StorageEngine storageEngine) {
+        engine = storageEngine;
+    }
+
+    /**
+     * Creates an engine by name.
+     *
+     * @param name the engine name: "xlsx", "csv" or "memory".
+     * @return a new engine.
+     * @throws IllegalArgumentException if the name is unknown.
+     */
+    public static StorageEngine create(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "xlsx":
+            case "excel":
+                return new ExcelStorageEngine();
+            case "csv":
+                return new CsvStorageEngine();
+            case "memory":
+                return new InMemoryStorageEngine();
+            default:
+                throw new IllegalArgumentException("Unknown storage engine: " + name);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * The StringTableRow class is the {@link TableRow} view of a row of cell texts, used for every
+ * engine that stores cells as text.
+ */
+package storage;
+
+import utils.DateUtils;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+final class StringTableRow implements TableRow {
+
+    /** Format of date cells, built once instead of per cell. */
+    static final DateTimeFormatter DATE_FORMATTER = DateUtils.getDateFormatter();
+
+    private final List<String> cells;
+
+    StringTableRow(List<String> cells) {
+        this.cells = cells;
+    }
+
+    @Override
+    public int size() {
+        return cells.size();
+    }
+
+    @Override
+    public String getString(int column) {
+        return cells.get(column);
+    }
+
+    @Override
+    public int getInt(int column) {
+        return TableRow.toInt(TableRow.parseLong(cells.get(column)));
+    }
+
+    @Override
+    public long getLong(int column) {
+        return TableRow.parseLong(cells.get(column));
+    }
+
+    @Override
+    public LocalDate getDate(int column) {
+        return TableRow.parseDate(cells.get(column));
+    }
+
+    @Override
+    public List<String> toList() {
+        return cells;
+    }
+}
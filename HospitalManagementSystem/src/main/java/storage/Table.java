@@ -0,0 +1,93 @@
+/**
+ * The Table enum lists the tables of the Hospital Management System and where each one is stored.
+ *
+ * <p>By default a table lives at its {@link FilePath} constant, with the extension swapped for the
+ * format of the storage engine. When the system property {@code hms.data.dir} is set, every table
+ * is stored in that directory instead, under its file name, together with the files kept beside the
+ * tables (see {@link #resolveDataFile(String)}).</p>
+ */
+package storage;
+
+import constants.FilePath;
+
+import java.nio.file.Paths;
+
+public enum Table {
+
+    /** Login accounts: hospital ID, encrypted password, role. */
+    ACCOUNTS("Accounts", FilePath.ACCOUNT_FILE_PATH),
+
+    /** Staff details: hospital ID, gender, age, doctor ID. */
+    STAFF_INFO("Staff_Info", FilePath.STAFF_INFO_FILE_PATH),
+
+    /** Patient details. */
+    PATIENT_INFO("Patient_Info", FilePath.PATIENT_INFO_FILE_PATH),
+
+    /** Medical records of all patients. */
+    MEDICAL_RECORDS("Medical_Records", FilePath.MEDICAL_RECORDS_FILE_PATH),
+
+    /** Appointment slots and bookings. */
+    APPOINTMENTS("Appointments", FilePath.APPOINTMENTS_FILE_PATH),
+
+    /** Medication inventory. */
+    MEDICAL_INVENTORY("Medicine_List", FilePath.MEDICAL_INVENTORY_FILE_PATH);
+
+    /** System property naming a directory that holds all tables. */
+    public static final String DATA_DIR_PROPERTY = "hms.data.dir";
+
+    // File name without extension.
+    private final String fileName;
+
+    // Default location of the Excel file.
+    private final String excelFilePath;
+
+    /**
+     * Constructs a Table enum.
+     *
+     * @param fileName      the file name of the table without extension.
+     * @param excelFilePath the default path of the table's Excel file.
+     */
+    Table(String fileName, String excelFilePath) {
+        this.fileName = fileName;
+        this.excelFilePath = excelFilePath;
+    }
+
+    /**
+     * Returns the file name of the table without extension.
+     *
+     * @return the file name.
+     */
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * Returns the path of the table stored in a given format.
+     *
+     * @param extension the file extension of the format, without the dot (e.g. "xlsx" or "csv").
+     * @return the path of the table's file.
+     */
+    public String getFilePath(String extension) {
+        String dataDir = System.getProperty(DATA_DIR_PROPERTY);
+        if (dataDir != null && !dataDir.isEmpty()) {
+            return Paths.get(dataDir, fileName + "." + extension).toString();
+        }
+        return excelFilePath.substring(0, excelFilePath.lastIndexOf('.') + 1) + extension;
+    }
+
+    /**
+     * Returns the path of a file kept beside the tables, such as the journal.
+     *
+     * @param defaultPath the path of the file when {@code hms.data.dir} is not set.
+     * @return the file under its name in {@code hms.data.dir} when that is set, otherwise the default path.
+     */
+    public static String resolveDataFile(String defaultPath) {
+        String dataDir = System.getProperty(DATA_DIR_PROPERTY);
+        if (dataDir != null && !dataDir.isEmpty()) {
+            // The default paths are Windows paths, but may be given either way
+            int nameStart = Math.max(defaultPath.lastIndexOf('\\'), defaultPath.lastIndexOf('/')) + 1;
+            return Paths.get(dataDir, defaultPath.substring(nameStart)).toString();
+        }
+        return defaultPath;
+    }
+}
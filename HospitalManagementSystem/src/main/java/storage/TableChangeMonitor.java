@@ -0,0 +1,211 @@
+/**
+ * The TableChangeMonitor class watches the table files of a {@link StorageEngine} for edits made
+ * outside the system, for example when operations staff update Medicine_List.xlsx by hand while
+ * the system is running.
+ *
+ * <p>Only the table whose file changed is read again, and it is handed to a {@link Listener} that
+ * applies the difference to the loaded repositories. Files written by the engines themselves are
+ * recorded through {@link #recordWrite(Path)} and skipped, so the system's own saves are not read
+ * back. Editors often save in several steps, so events are collected until the directory has been
+ * quiet for a moment before any table is read.</p>
+ */
+package storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+public final class TableChangeMonitor implements Closeable {
+
+    /** Time without further events after which a burst of file events is considered finished. */
+    private static final long SETTLE_MILLIS = 300;
+
+    /** Last-modified time of each table file right after the system itself wrote it. */
+    private static final Map<Path, Long> ownWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Receives the rows of a table that was changed outside the system.
+     */
+    public interface Listener {
+
+        /**
+         * Applies the current contents of a changed table.
+         *
+         * @param table the table whose file changed.
+         * @param rows  the rows of the table, header first.
+         * @throws IOException if the change cannot be applied.
+         */
+        void tableChanged(Table table, List<TableRow> rows) throws IOException;
+    }
+
+    private final StorageEngine engine;
+    private final Listener listener;
+    private final WatchService watchService;
+
+    /** Watched tables by directory and file name. */
+    private final Map<Path, Map<Path, Table>> tablesByDirectory = new HashMap<>();
+    private final Map<Table, Path> files = new EnumMap<>(Table.class);
+
+    /** Last-modified time of each table file when it was last loaded or applied. */
+    private final Map<Table, Long> seen = new EnumMap<>(Table.class);
+
+    private TableChangeMonitor(StorageEngine engine, Listener listener) throws IOException {
+        this.engine = engine;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        for (Table table : Table.values()) {
+            Path file = engine.getFile(table);
+            if (file == null) {
+                continue;
+            }
+            file = file.toAbsolutePath().normalize();
+            files.put(table, file);
+            seen.put(table, lastModified(file));
+            tablesByDirectory.computeIfAbsent(file.getParent(), dir -> new HashMap<>()).put(file.getFileName(), table);
+        }
+
+        for (Path dir : tablesByDirectory.keySet()) {
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        }
+    }
+
+    /**
+     * Starts watching the table files of an engine on a daemon thread.
+     * Engines that do not keep tables in files have nothing to watch, and the monitor stays idle.
+     *
+     * @param engine   the engine whose files to watch.
+     * @param listener receives every table changed outside the system.
+     * @return the running monitor.
+     * @throws IOException if the table directories cannot be watched.
+     */
+    public static TableChangeMonitor start(StorageEngine engine, Listener listener) throws IOException {
+        TableChangeMonitor monitor = new TableChangeMonitor(engine, listener);
+        if (!monitor.files.isEmpty()) {
+            Thread thread = new Thread(monitor::run, "table-change-monitor");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return monitor;
+    }
+
+    /**
+     * Records that the system has just written a table file, so the resulting file event is not
+     * mistaken for an external edit.
+     *
+     * @param file the file that was written.
+     */
+    static void recordWrite(Path file) {
+        Path normalized = file.toAbsolutePath().normalize();
+        ownWrites.put(normalized, lastModified(normalized));
+    }
+
+    /**
+     * Stops watching.
+     *
+     * @throws IOException if the watch service cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Waits for file events and reloads the changed tables until the monitor is closed.
+     */
+    private void run() {
+        try {
+            while (true) {
+                Set<Table> changed = new LinkedHashSet<>();
+                collect(watchService.take(), changed);
+
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    collect(next, changed);
+                }
+
+                for (Table table : changed) {
+                    reload(table);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Monitor closed
+        }
+    }
+
+    /**
+     * Adds the tables named by the pending events of a watch key.
+     *
+     * @param key     the signalled key.
+     * @param changed receives the tables whose files had events.
+     */
+    private void collect(WatchKey key, Set<Table> changed) {
+        Map<Path, Table> tables = tablesByDirectory.get((Path) key.watchable());
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changed.addAll(tables.values()); // Events were lost, check every table in the directory
+                continue;
+            }
+            Table table = tables.get((Path) event.context());
+            if (table != null) {
+                changed.add(table);
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Reads a table again if its file was modified by someone else, and hands it to the listener.
+     * A file that cannot be read yet (for example because it is still being saved) is left for its next event.
+     *
+     * @param table the table whose file had an event.
+     */
+    private void reload(Table table) {
+        Path file = files.get(table);
+        long modified = lastModified(file);
+        if (modified == 0 || modified == seen.get(table)) {
+            return;
+        }
+        Long ownWrite = ownWrites.get(file);
+        if (ownWrite != null && ownWrite == modified) {
+            seen.put(table, modified);
+            return;
+        }
+
+        try {
+            listener.tableChanged(table, engine.readRows(table));
+            seen.put(table, modified);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Could not reload " + table.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the last-modified time of a file.
+     *
+     * @param file the file.
+     * @return the time in milliseconds, or 0 if the file does not exist.
+     */
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
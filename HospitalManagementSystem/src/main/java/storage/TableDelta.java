@@ -0,0 +1,95 @@
+/**
+ * The TableDelta class is the difference between the rows a repository holds in memory and the
+ * rows of its table on disk, matched by primary key. Repositories use it to apply an external edit
+ * of a table to their in-memory state without reloading everything.
+ */
+package storage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public final class TableDelta {
+
+    private final List<TableRow> addedRows = new ArrayList<>();
+    private final List<TableRow> changedRows = new ArrayList<>();
+    private final List<String> removedKeys = new ArrayList<>();
+
+    private TableDelta() { }
+
+    /**
+     * Compares the stored rows of a table with the rows held in memory.
+     *
+     * @param current   the in-memory rows keyed by primary key, each formatted as it would be saved.
+     * @param rows      the data rows of the table, without the header.
+     * @param keyColumn the index of the primary key column.
+     * @return the rows added, changed and removed on disk relative to memory.
+     */
+    public static TableDelta between(Map<String, List<String>> current, List<TableRow> rows, int keyColumn) {
+        TableDelta delta = new TableDelta();
+        Set<String> storedKeys = new HashSet<>();
+
+        for (TableRow row : rows) {
+            String key = row.getString(keyColumn);
+            if (!storedKeys.add(key)) {
+                continue; // Only the first row of a duplicated key can be matched to memory
+            }
+            List<String> inMemory = current.get(key);
+            if (inMemory == null) {
+                delta.addedRows.add(row);
+            } else if (!inMemory.equals(row.toList())) {
+                delta.changedRows.add(row);
+            }
+        }
+
+        for (String key : current.keySet()) {
+            if (!storedKeys.contains(key)) {
+                delta.removedKeys.add(key);
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the rows whose key is not held in memory.
+     *
+     * @return the added rows.
+     */
+    public List<TableRow> getAddedRows() {
+        return addedRows;
+    }
+
+    /**
+     * Returns the rows whose key is held in memory with different values.
+     *
+     * @return the changed rows.
+     */
+    public List<TableRow> getChangedRows() {
+        return changedRows;
+    }
+
+    /**
+     * Returns the keys held in memory that are no longer stored.
+     *
+     * @return the removed keys.
+     */
+    public List<String> getRemovedKeys() {
+        return removedKeys;
+    }
+
+    /**
+     * Checks whether the stored rows match memory.
+     *
+     * @return {@code true} if nothing was added, changed or removed.
+     */
+    public boolean isEmpty() {
+        return addedRows.isEmpty() && changedRows.isEmpty() && removedKeys.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return addedRows.size() + " added, " + changedRows.size() + " changed, " + removedKeys.size() + " removed";
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * The TableFiles class replaces table files atomically and keeps their previous generations,
+ * so that a crash while saving can never leave a truncated table behind.
+ *
+ * <p>A table is written to a sibling temporary file, forced to disk, and then moved over the live
+ * file in one atomic rename. Before the rename, the live file is kept as generation 1
+ * ({@code Medicine_List.xlsx.1}), and older generations shift up to the number set by the system
+ * property {@code hms.generations} (default 3, 0 keeps none). At startup {@link #recover} puts back
+ * the newest intact generation of a table whose file is missing or damaged.</p>
+ */
+package storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Predicate;
+
+public final class TableFiles {
+
+    /** System property with the number of previous generations to keep per table. */
+    public static final String GENERATIONS_PROPERTY = "hms.generations";
+
+    private static final int DEFAULT_GENERATIONS = 3;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private TableFiles() { }
+
+    /**
+     * Returns the number of previous generations kept per table.
+     *
+     * @return the configured number of generations, at least 0.
+     */
+    public static int getGenerations() {
+        return Math.max(0, Integer.getInteger(GENERATIONS_PROPERTY, DEFAULT_GENERATIONS));
+    }
+
+    /**
+     * Returns the temporary file a new version of a table is written to before it replaces the table.
+     *
+     * @param target the table file.
+     * @return the sibling temporary file.
+     */
+    public static Path tempFile(Path target) {
+        return target.resolveSibling(target.getFileName() + ".tmp");
+    }
+
+    /**
+     * Returns a previous generation of a table file.
+     *
+     * @param target     the table file.
+     * @param generation the generation, 1 being the most recent.
+     * @return the generation file.
+     */
+    public static Path generationFile(Path target, int generation) {
+        return target.resolveSibling(target.getFileName() + "." + generation);
+    }
+
+    /**
+     * Makes a fully written temporary file the new version of a table. The temporary file is forced
+     * to disk, the current version is kept as generation 1, and the temporary file is renamed over
+     * the table in one step, so readers and a restart after a crash see either the old or the new table.
+     *
+     * @param temp   the temporary file holding the new version, see {@link #tempFile(Path)}.
+     * @param target the table file.
+     * @throws IOException if the file cannot be synced or moved.
+     */
+    public static void replace(Path temp, Path target) throws IOException {
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+
+        if (Files.exists(target)) {
+            keepGeneration(target);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target);
+    }
+
+    /**
+     * Checks a table file at startup and restores it from its newest intact generation if it is
+     * missing or damaged. A temporary file left by an interrupted write is discarded.
+     *
+     * @param target   the table file.
+     * @param isIntact checks whether a file holds a complete table.
+     * @return the generation that was restored, or 0 if the table was intact or no generation could be used.
+     * @throws IOException if a generation cannot be copied.
+     */
+    public static int recover(Path target, Predicate<Path> isIntact) throws IOException {
+        Files.deleteIfExists(tempFile(target));
+        if (Files.exists(target) && isIntact.test(target)) {
+            return 0;
+        }
+
+        for (int generation = 1; generation <= getGenerations(); generation++) {
+            Path candidate = generationFile(target, generation);
+            if (Files.exists(candidate) && isIntact.test(candidate)) {
+                // Copied rather than moved, so the generation stays available if the copy is interrupted
+                Path temp = tempFile(target);
+                Files.copy(candidate, temp, StandardCopyOption.REPLACE_EXISTING);
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                    channel.force(true);
+                }
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                syncDirectory(target);
+                return generation;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Shifts the generations of a table up by one, dropping the oldest, and keeps the current file as generation 1.
+     *
+     * @param target the table file.
+     * @throws IOException if a generation cannot be moved or created.
+     */
+    private static void keepGeneration(Path target) throws IOException {
+        int generations = getGenerations();
+        if (generations == 0) {
+            return;
+        }
+
+        Files.deleteIfExists(generationFile(target, generations));
+        for (int generation = generations - 1; generation >= 1; generation--) {
+            Path older = generationFile(target, generation);
+            if (Files.exists(older)) {
+                Files.move(older, generationFile(target, generation + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        Path newest = generationFile(target, 1);
+        try {
+            Files.createLink(newest, target); // The rename replaces the name only, so the link keeps the old contents
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(target, newest, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Forces the directory entry of a renamed file to disk where the platform allows it.
+     *
+     * @param file the renamed file.
+     */
+    private static void syncDirectory(Path file) {
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform (e.g. Windows); the rename is still atomic there
+        }
+    }
+}
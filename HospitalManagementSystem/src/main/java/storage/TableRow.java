@@ -0,0 +1,133 @@
+/**
+ * The TableRow interface gives typed access to the cells of one table row, so loaders can read
+ * IDs, quantities and dates without formatting them to strings and parsing them back.
+ *
+ * <p>Engines that know the type of a cell (such as Excel numeric cells) decode it directly;
+ * string based engines are wrapped with {@link #of(List)} and parse the text once per access.
+ * Whole numbers stored with a fractional part (e.g. "5.0") are accepted by the integer getters.</p>
+ */
+package storage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TableRow {
+
+    /**
+     * Returns the number of cells in the row.
+     *
+     * @return the cell count.
+     */
+    int size();
+
+    /**
+     * Returns a cell as text, formatted as it would be shown in the table.
+     *
+     * @param column the column index.
+     * @return the cell text.
+     */
+    String getString(int column);
+
+    /**
+     * Returns a cell as an int.
+     *
+     * @param column the column index.
+     * @return the cell value.
+     * @throws NumberFormatException if the cell is not a whole number that fits in an int.
+     */
+    int getInt(int column);
+
+    /**
+     * Returns a cell as a long.
+     *
+     * @param column the column index.
+     * @return the cell value.
+     * @throws NumberFormatException if the cell is not a whole number.
+     */
+    long getLong(int column);
+
+    /**
+     * Returns a cell as a date. Text cells must be in the {@link utils.DateUtils#getDateFormatter()} format.
+     *
+     * @param column the column index.
+     * @return the cell value.
+     * @throws java.time.format.DateTimeParseException if the cell is not a date.
+     */
+    LocalDate getDate(int column);
+
+    /**
+     * Returns the row as a list of cell texts, as {@link StorageEngine#readAll(Table)} would.
+     *
+     * @return the row cells.
+     */
+    List<String> toList();
+
+    /**
+     * Wraps a row of cell texts.
+     *
+     * @param cells the cells of the row.
+     * @return a typed view of the row.
+     */
+    static TableRow of(List<String> cells) {
+        return new StringTableRow(cells);
+    }
+
+    /**
+     * Parses the text of a whole number cell. Integers are parsed directly; text with a
+     * fractional part or exponent is accepted only if its value is whole.
+     *
+     * @param text the cell text.
+     * @return the value.
+     * @throws NumberFormatException if the text is not a whole number.
+     */
+    static long parseLong(String text) {
+        String trimmed = text.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '.' || c == 'e' || c == 'E') {
+                return toLong(Double.parseDouble(trimmed));
+            }
+        }
+        return Long.parseLong(trimmed);
+    }
+
+    /**
+     * Narrows a whole number to an int.
+     *
+     * @param value the value.
+     * @return the value as an int.
+     * @throws NumberFormatException if the value does not fit in an int.
+     */
+    static int toInt(long value) {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Out of int range: " + value);
+        }
+        return (int) value;
+    }
+
+    /**
+     * Converts a numeric cell value to a long.
+     *
+     * @param value the value.
+     * @return the value as a long.
+     * @throws NumberFormatException if the value is not whole or does not fit in a long.
+     */
+    static long toLong(double value) {
+        long whole = (long) value;
+        if (whole != value || whole == Long.MAX_VALUE || whole == Long.MIN_VALUE) {
+            throw new NumberFormatException("Not a whole number: " + value);
+        }
+        return whole;
+    }
+
+    /**
+     * Parses the text of a date cell in the {@link utils.DateUtils#getDateFormatter()} format.
+     *
+     * @param text the cell text.
+     * @return the date.
+     * @throws java.time.format.DateTimeParseException if the text is not a date.
+     */
+    static LocalDate parseDate(String text) {
+        return LocalDate.parse(text, StringTableRow.DATE_FORMATTER);
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * The UnitOfWork class groups the changes of one business operation across repositories, such as
+ * dispensing a prescription (stock taken from the inventory and the medical record marked dispensed),
+ * so that they are stored together or not at all.
+ *
+ * <p>Repositories stage the rows they would save with {@link #upsert} or {@link #delete}, and register
+ * the matching in-memory updates with {@link #afterCommit}. {@link #commit()} hands all rows to the
+ * storage engine in one call (a single journal entry with the default engines) and only then applies
+ * the in-memory updates, so a failed commit leaves both memory and storage unchanged.</p>
+ *
+ * <pre>
+ * UnitOfWork work = new UnitOfWork();
+ * if (medicationRepository.dispenseMedication(name, amount, work)) {
+ *     medicalRecordRepository.dispenseMedication(record, work);
+ *     work.commit();
+ * }
+ * </pre>
+ */
+package storage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class UnitOfWork {
+
+    /**
+     * An in-memory update that runs once the unit of work is committed.
+     */
+    public interface Action {
+
+        /**
+         * Applies the update.
+         *
+         * @throws IOException if a store outside the tables (such as an archive) cannot be updated.
+         */
+        void run() throws IOException;
+    }
+
+    private final List<RowChange> changes = new ArrayList<>();
+    private final List<Action> actions = new ArrayList<>();
+    private boolean committed = false;
+
+    /**
+     * Stages a row that replaces the row with the same key, or is appended if the key is new.
+     *
+     * @param table     the table to change.
+     * @param keyColumn the index of the key column.
+     * @param row       the new row.
+     */
+    public void upsert(Table table, int keyColumn, List<String> row) {
+        checkOpen();
+        changes.add(RowChange.upsert(table, keyColumn, row));
+    }
+
+    /**
+     * Stages the deletion of the row with a key.
+     *
+     * @param table     the table to change.
+     * @param keyColumn the index of the key column.
+     * @param key       the key of the row to delete.
+     */
+    public void delete(Table table, int keyColumn, String key) {
+        checkOpen();
+        changes.add(RowChange.delete(table, keyColumn, key));
+    }
+
+    /**
+     * Registers an update to run after the staged rows are stored.
+     *
+     * @param action the update.
+     */
+    public void afterCommit(Action action) {
+        checkOpen();
+        actions.add(action);
+    }
+
+    /**
+     * Checks whether anything was staged.
+     *
+     * @return {@code true} if no rows are staged.
+     */
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    /**
+     * Stores every staged row as one unit, then runs the registered in-memory updates in order.
+     *
+     * @throws IOException if the rows cannot be stored (nothing is changed), or an update fails after they were stored.
+     * @throws IllegalStateException if the unit of work was already committed.
+     */
+    public void commit() throws IOException {
+        checkOpen();
+        committed = true;
+        if (!changes.isEmpty()) {
+            StorageEngines.get().commit(changes);
+        }
+        for (Action action : actions) {
+            action.run();
+        }
+    }
+
+    private void checkOpen() {
+        if (committed) {
+            throw new IllegalStateException("Unit of work already committed");
+        }
+    }
+}
@@ -1,6 +1,12 @@
 /**
  * The DateUtils class provides utility methods for handling and formatting date and time operations.
  * This class is designed to work with LocalDateTime, LocalDate, and LocalTime using specified patterns.
+ *
+ * <p>The formatters are built once and shared, as {@link DateTimeFormatter} is immutable and thread safe.
+ * Parsed appointment times are memoized in a bounded concurrent cache keyed by the timestamp string,
+ * since repository scans parse the same few time slots over and over. Appointment times in the fixed
+ * "dd-MMM-yyyy h:mm:ss a" format are read and written by the {@link TimestampCodec}, and scan-heavy code
+ * should compare them as epoch minutes with {@link #toEpochMinute(String)} rather than as date objects.</p>
  * @author Lee Jia Qian Valerie
  * @version 1.0
  * @since 2024-11-20
@@ -11,7 +17,8 @@ import java.time.LocalDateTime;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class DateUtils {
 
@@ -20,20 +27,77 @@ public class DateUtils {
     private static final String dateFormat = "dd-MMM-yyyy";
     private static final String timeFormat = "h:mm:ss a";
 
+    // Shared formatters for the formats above.
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern(dateTimeFormat);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern(dateFormat);
+
+    /** Maximum number of parsed timestamps kept; the cache is emptied when it fills up. */
+    private static final int PARSE_CACHE_SIZE = 1 << 16;
+
+    /** Parsed timestamps keyed by their text. Only successful parses are cached. */
+    private static final ConcurrentMap<String, LocalDateTime> PARSE_CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private DateUtils() { }
+
     /**
-     * Parses a datetime string into a LocalDateTime object.
+     * Parses a datetime string into a LocalDateTime object in a single pass. Repeated strings are served
+     * from the parse cache, so callers needing both the date and the time should call this once and split
+     * the result rather than calling {@link #extractDate} and {@link #extractTime}.
      *
      * @param dateTimeString the datetime string to parse, in the format "dd-MMM-yyyy h:mm:ss a".
      * @return the LocalDateTime object, or null if parsing fails.
      */
     public static LocalDateTime extractDateTime(String dateTimeString) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateTimeFormat);
-        try {
-            return LocalDateTime.parse(dateTimeString, formatter);
-        } catch (DateTimeParseException e) {
-            System.out.println("Error parsing datetime: " + e.getMessage());
+        LocalDateTime dateTime = PARSE_CACHE.get(dateTimeString);
+        if (dateTime != null) {
+            return dateTime;
+        }
+        long epochMinute = TimestampCodec.parse(dateTimeString);
+        if (epochMinute == TimestampCodec.MALFORMED) {
+            System.out.println("Error parsing datetime: Text '" + dateTimeString + "' could not be parsed");
             return null;
         }
+        dateTime = TimestampCodec.toLocalDateTime(epochMinute);
+
+        if (PARSE_CACHE.size() >= PARSE_CACHE_SIZE) {
+            PARSE_CACHE.clear();
+        }
+        PARSE_CACHE.put(dateTimeString, dateTime);
+        return dateTime;
+    }
+
+    /**
+     * Parses a datetime string into minutes since the epoch (UTC) without creating any objects.
+     * Seconds are dropped, as appointment slots always start on the minute.
+     *
+     * @param dateTimeString the datetime string to parse, in the format "dd-MMM-yyyy h:mm:ss a".
+     * @return minutes since the epoch, or {@link TimestampCodec#MALFORMED} if parsing fails.
+     */
+    public static long toEpochMinute(String dateTimeString) {
+        return TimestampCodec.parse(dateTimeString);
+    }
+
+    /**
+     * Converts a date and time into minutes since the epoch (UTC), dropping seconds.
+     *
+     * @param dateTime the date and time.
+     * @return minutes since the epoch.
+     */
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return TimestampCodec.toEpochMinute(dateTime);
+    }
+
+    /**
+     * Formats minutes since the epoch (UTC) into a string in the format "dd-MMM-yyyy h:mm:ss a".
+     *
+     * @param epochMinute minutes since the epoch.
+     * @return the formatted date-time string.
+     */
+    public static String formatEpochMinute(long epochMinute) {
+        return TimestampCodec.format(epochMinute);
     }
 
     /**
@@ -43,13 +107,8 @@ public class DateUtils {
      * @return the LocalTime object, or null if parsing fails.
      */
     public static LocalTime extractTime(String dateTimeString) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateTimeFormat);
-        try {
-            return LocalDateTime.parse(dateTimeString, formatter).toLocalTime();
-        } catch (DateTimeParseException e) {
-            System.out.println("Error parsing time: " + e.getMessage());
-            return null;
-        }
+        LocalDateTime dateTime = extractDateTime(dateTimeString);
+        return dateTime == null ? null : dateTime.toLocalTime();
     }
 
     /**
@@ -59,13 +118,8 @@ public class DateUtils {
      * @return the LocalDate object, or null if parsing fails.
      */
     public static LocalDate extractDate(String dateTimeString) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateTimeFormat);
-        try {
-            return LocalDateTime.parse(dateTimeString, formatter).toLocalDate();
-        } catch (DateTimeParseException e) {
-            System.out.println("Error parsing date: " + e.getMessage());
-            return null;
-        }
+        LocalDateTime dateTime = extractDateTime(dateTimeString);
+        return dateTime == null ? null : dateTime.toLocalDate();
     }
 
     /**
@@ -75,8 +129,7 @@ public class DateUtils {
      * @return the formatted date string.
      */
     public static String formatDate(LocalDate date) {
-        DateTimeFormatter outputFormatter = DateTimeFormatter.ofPattern(dateFormat);
-        return date.format(outputFormatter);
+        return date.format(DATE_FORMATTER);
     }
 
     /**
@@ -87,26 +140,25 @@ public class DateUtils {
      * @return the combined and formatted date-time string.
      */
     public static String joinDateAsString(LocalDate date, LocalTime time) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(dateTimeFormat);
-        return date.atTime(time).format(formatter);
+        return TimestampCodec.format(date.toEpochDay() * TimestampCodec.MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute());
     }
 
     /**
      * Provides the formatter used for LocalDateTime in the format "dd-MMM-yyyy h:mm:ss a".
      *
-     * @return the DateTimeFormatter object for LocalDateTime.
+     * @return the shared DateTimeFormatter object for LocalDateTime.
      */
     public static DateTimeFormatter getLocalDateTimeFormatter() {
-        return DateTimeFormatter.ofPattern(dateTimeFormat);
+        return DATE_TIME_FORMATTER;
     }
 
     /**
      * Provides the formatter used for LocalDate in the format "dd-MMM-yyyy".
      *
-     * @return the DateTimeFormatter object for LocalDate.
+     * @return the shared DateTimeFormatter object for LocalDate.
      */
     public static DateTimeFormatter getDateFormatter() {
-        return DateTimeFormatter.ofPattern(dateFormat);
+        return DATE_FORMATTER;
     }
 
     /**
@@ -116,12 +168,6 @@ public class DateUtils {
      * @return true if the datetime is in the future, false otherwise.
      */
     public static boolean isUpcoming(String dateTime) {
-        LocalDate date = extractDate(dateTime);
-        LocalTime time = extractTime(dateTime);
-
-        assert date != null;
-        assert time != null;
-
-        return (date.equals(LocalDate.now()) && time.isAfter(LocalTime.now())) || date.isAfter(LocalDate.now());
+        return TimestampCodec.parse(dateTime) > HospitalClock.currentEpochMinute();
     }
 }
@@ -0,0 +1,127 @@
+/**
+ * The HospitalClock class is the system's single source of the current date and time.
+ *
+ * <p>Queries take one snapshot, usually {@link #currentEpochMinute()}, and compare every row against it,
+ * so a scan reads the clock once and all its rows see the same instant. The current minute is kept
+ * by a background tick on a daemon thread, so reading it is a single volatile read rather than a
+ * system clock read and a time zone conversion. The clock can be replaced, for example by
+ * {@link Clock#fixed} to replay a day's schedule at a known time.</p>
+ */
+package utils;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public final class HospitalClock {
+
+    /** How often the cached current minute is refreshed, so it is at most this late. */
+    private static final long TICK_MILLIS = 1000;
+
+    /** The clock every reading is taken from. */
+    private static volatile Clock clock = Clock.systemDefaultZone();
+
+    /** Minutes since the epoch (UTC) of the local date and time at the last tick. */
+    private static volatile long cachedEpochMinute = readEpochMinute();
+
+    /** Refreshes the cached minute; started on first use. */
+    private static volatile ScheduledExecutorService ticker;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private HospitalClock() { }
+
+    /**
+     * Replaces the clock, for example with a fixed clock. The cached minute is refreshed at once.
+     *
+     * @param newClock the clock to read from.
+     */
+    public static synchronized void setClock(Clock newClock) {
+        clock = newClock;
+        tick();
+    }
+
+    /**
+     * Goes back to the system clock in the default time zone.
+     */
+    public static void useSystemClock() {
+        setClock(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Returns the clock every reading is taken from.
+     *
+     * @return the clock.
+     */
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns the current minute without reading the clock. It trails the clock by at most one tick.
+     *
+     * @return minutes since the epoch (UTC) of the local date and time, in the form used by {@link TimestampCodec}.
+     */
+    public static long currentEpochMinute() {
+        if (ticker == null) {
+            startTicker();
+        }
+        return cachedEpochMinute;
+    }
+
+    /**
+     * Reads the current date and time from the clock.
+     *
+     * @return the current date and time.
+     */
+    public static LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    /**
+     * Reads the current date from the clock.
+     *
+     * @return today's date.
+     */
+    public static LocalDate today() {
+        return LocalDate.now(clock);
+    }
+
+    /**
+     * Reads the current month from the clock.
+     *
+     * @return the current month.
+     */
+    public static YearMonth currentMonth() {
+        return YearMonth.now(clock);
+    }
+
+    /**
+     * Refreshes the cached minute. Synchronized with {@link #setClock} so a tick cannot overwrite the
+     * minute of a newly set clock with one read from the old clock.
+     */
+    private static synchronized void tick() {
+        cachedEpochMinute = readEpochMinute();
+    }
+
+    private static long readEpochMinute() {
+        return TimestampCodec.toEpochMinute(LocalDateTime.now(clock));
+    }
+
+    private static synchronized void startTicker() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hospital-clock");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(HospitalClock::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * The IdentifierPool class interns doctor and patient identifiers so that every row
+ * referring to the same ID shares a single String instance.
+ * This keeps large appointment and medical record tables small on the heap and lets
+ * equality checks on IDs succeed on the reference comparison inside {@link String#equals}.
+ */
+package utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public final class IdentifierPool {
+
+    // Canonical instance for every identifier seen so far.
+    private static final ConcurrentMap<String, String> POOL = new ConcurrentHashMap<>();
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private IdentifierPool() { }
+
+    /**
+     * Returns the canonical instance of the given identifier.
+     *
+     * @param id the identifier to intern, may be null.
+     * @return the pooled instance equal to {@code id}, or null if {@code id} is null.
+     */
+    public static String intern(String id) {
+        if (id == null) {
+            return null;
+        }
+        String existing = POOL.putIfAbsent(id, id);
+        return existing == null ? id : existing;
+    }
+
+    /**
+     * Returns the number of distinct identifiers currently pooled.
+     *
+     * @return the pool size.
+     */
+    public static int size() {
+        return POOL.size();
+    }
+}
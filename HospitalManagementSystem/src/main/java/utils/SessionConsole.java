@@ -0,0 +1,259 @@
+/**
+ * The SessionConsole class gives every terminal session its own input and output while the menus keep
+ * reading from a {@link Scanner} and printing to {@link System#out}.
+ *
+ * <p>A session thread attaches its terminal's scanner and print stream with {@link #attach}. Once
+ * {@link #install()} has replaced {@code System.out} with a routing stream, everything a thread prints
+ * goes to the terminal attached to that thread, or to the server console for threads without a terminal,
+ * such as the table change monitor. Without a server, the process console is the only terminal; the
+ * console session attaches its scanner to the main thread, and {@link #scanner()} falls back to one
+ * scanner over {@code System.in} for threads that have none.</p>
+ */
+package utils;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.Scanner;
+
+public final class SessionConsole {
+
+    /** The one scanner over the process console, shared by every thread without a terminal. */
+    private static final Scanner CONSOLE_SCANNER = new Scanner(System.in);
+
+    /** Scanner of the terminal attached to each session thread. */
+    private static final ThreadLocal<Scanner> sessionScanner = new ThreadLocal<>();
+
+    /** Output of the terminal attached to each session thread. */
+    private static final ThreadLocal<PrintStream> sessionOut = new ThreadLocal<>();
+
+    /** The process console output, saved by {@link #install()}. */
+    private static volatile PrintStream console = System.out;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private SessionConsole() { }
+
+    /**
+     * Routes {@code System.out} to the terminal of the printing thread. Calling it again has no effect.
+     */
+    public static synchronized void install() {
+        if (System.out instanceof RoutingPrintStream) {
+            return;
+        }
+        console = System.out;
+        System.setOut(new RoutingPrintStream(console));
+    }
+
+    /**
+     * Attaches a terminal to the calling thread.
+     *
+     * @param scanner the scanner over the terminal's input.
+     * @param out     the terminal's output.
+     */
+    public static void attach(Scanner scanner, PrintStream out) {
+        sessionScanner.set(scanner);
+        sessionOut.set(out);
+    }
+
+    /**
+     * Detaches the terminal of the calling thread.
+     */
+    public static void detach() {
+        sessionScanner.remove();
+        sessionOut.remove();
+    }
+
+    /**
+     * Returns the scanner of the calling thread's terminal.
+     *
+     * @return the attached scanner, or the process console scanner if none is attached.
+     */
+    public static Scanner scanner() {
+        Scanner scanner = sessionScanner.get();
+        return scanner != null ? scanner : CONSOLE_SCANNER;
+    }
+
+    /**
+     * Returns the output of the calling thread's terminal.
+     *
+     * @return the attached output, or the process console if none is attached.
+     */
+    public static PrintStream out() {
+        PrintStream out = sessionOut.get();
+        return out != null ? out : console;
+    }
+
+    /**
+     * A print stream that forwards every call to the output of the calling thread's terminal, so the
+     * sessions never share a lock or a buffer.
+     */
+    private static final class RoutingPrintStream extends PrintStream {
+
+        RoutingPrintStream(PrintStream console) {
+            super(console, true);
+        }
+
+        @Override
+        public void write(int b) {
+            out().write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+            out().write(buf, off, len);
+        }
+
+        @Override
+        public void flush() {
+            out().flush();
+        }
+
+        @Override
+        public void close() {
+            out().close();
+        }
+
+        @Override
+        public boolean checkError() {
+            return out().checkError();
+        }
+
+        @Override
+        public void print(boolean b) {
+            out().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            out().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            out().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            out().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            out().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            out().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            out().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            out().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            out().print(obj);
+        }
+
+        @Override
+        public void println() {
+            out().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            out().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            out().println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            out().printf(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            out().printf(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            out().format(format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            out().format(l, format, args);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            out().append(csq);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            out().append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            out().append(c);
+            return this;
+        }
+    }
+}
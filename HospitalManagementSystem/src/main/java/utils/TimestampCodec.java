@@ -0,0 +1,243 @@
+/**
+ * The TimestampCodec class converts appointment times in the fixed "dd-MMM-yyyy h:mm:ss a" format of the
+ * data files, such as "18-Nov-2024 2:00:00 PM", to and from minutes since the epoch (UTC, as stored by
+ * {@code AppointmentColumnStore}).
+ *
+ * <p>Well-formed text is parsed by a hand-written character scan and the calendar arithmetic is done on
+ * primitives, so parsing allocates nothing and formatting allocates only the resulting string. The
+ * {@link DateUtils} formatter is used only for text the scan does not accept. Seconds are dropped, as
+ * appointment slots always start on the minute. Month names and AM/PM are English, as written by the system.</p>
+ */
+package utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+public final class TimestampCodec {
+
+    /** Returned for text that is not a valid appointment time. */
+    public static final long MALFORMED = Long.MIN_VALUE;
+
+    /** Minutes in a day. */
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** Month abbreviations of the format, in month order. */
+    private static final char[][] MONTHS = {
+        "Jan".toCharArray(), "Feb".toCharArray(), "Mar".toCharArray(), "Apr".toCharArray(),
+        "May".toCharArray(), "Jun".toCharArray(), "Jul".toCharArray(), "Aug".toCharArray(),
+        "Sep".toCharArray(), "Oct".toCharArray(), "Nov".toCharArray(), "Dec".toCharArray()
+    };
+
+    /** Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar. */
+    private static final long DAYS_0000_TO_1970 = 719468;
+
+    /** Days in a 400 year cycle. */
+    private static final long DAYS_PER_CYCLE = 146097;
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private TimestampCodec() { }
+
+    /**
+     * Parses an appointment time into minutes since the epoch.
+     *
+     * @param text the appointment time, in the format "dd-MMM-yyyy h:mm:ss a".
+     * @return minutes since the epoch in UTC, or {@link #MALFORMED} if the text is not a valid appointment time.
+     */
+    public static long parse(CharSequence text) {
+        if (text == null) {
+            return MALFORMED;
+        }
+        long epochMinute = scan(text);
+        return epochMinute != MALFORMED ? epochMinute : parseWithFormatter(text);
+    }
+
+    /**
+     * Formats minutes since the epoch as an appointment time.
+     *
+     * @param epochMinute minutes since the epoch in UTC.
+     * @return the appointment time, in the format "dd-MMM-yyyy h:mm:ss a".
+     */
+    public static String format(long epochMinute) {
+        long epochDay = Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+        int minuteOfDay = (int) (epochMinute - epochDay * MINUTES_PER_DAY); // floorMod(long, int) needs Java 9
+
+        // Civil date from the day count, see civil_from_days in H. Hinnant's chrono algorithms
+        long z = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(z, DAYS_PER_CYCLE);
+        int dayOfEra = (int) (z - era * DAYS_PER_CYCLE);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC).format(DateUtils.getLocalDateTimeFormatter());
+        }
+
+        int hourOfDay = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        int hour = hourOfDay % 12 == 0 ? 12 : hourOfDay % 12;
+
+        char[] chars = new char[hour < 10 ? 22 : 23];
+        int i = 0;
+        chars[i++] = (char) ('0' + day / 10);
+        chars[i++] = (char) ('0' + day % 10);
+        chars[i++] = '-';
+        char[] monthName = MONTHS[month - 1];
+        chars[i++] = monthName[0];
+        chars[i++] = monthName[1];
+        chars[i++] = monthName[2];
+        chars[i++] = '-';
+        chars[i++] = (char) ('0' + year / 1000);
+        chars[i++] = (char) ('0' + year / 100 % 10);
+        chars[i++] = (char) ('0' + year / 10 % 10);
+        chars[i++] = (char) ('0' + year % 10);
+        chars[i++] = ' ';
+        if (hour >= 10) {
+            chars[i++] = '1';
+        }
+        chars[i++] = (char) ('0' + hour % 10);
+        chars[i++] = ':';
+        chars[i++] = (char) ('0' + minute / 10);
+        chars[i++] = (char) ('0' + minute % 10);
+        chars[i++] = ':';
+        chars[i++] = '0';
+        chars[i++] = '0';
+        chars[i++] = ' ';
+        chars[i++] = hourOfDay < 12 ? 'A' : 'P';
+        chars[i] = 'M';
+        return new String(chars);
+    }
+
+    /**
+     * Converts a date and time into minutes since the epoch, dropping seconds.
+     *
+     * @param dateTime the date and time.
+     * @return minutes since the epoch in UTC.
+     */
+    public static long toEpochMinute(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay() * MINUTES_PER_DAY + dateTime.getHour() * 60 + dateTime.getMinute();
+    }
+
+    /**
+     * Converts minutes since the epoch into a date and time.
+     *
+     * @param epochMinute minutes since the epoch in UTC.
+     * @return the date and time.
+     */
+    public static LocalDateTime toLocalDateTime(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Parses well-formed text by a character scan.
+     *
+     * @return minutes since the epoch, or {@link #MALFORMED} if the scan does not accept the text.
+     */
+    private static long scan(CharSequence text) {
+        int length = text.length();
+        if (length != 22 && length != 23) {
+            return MALFORMED;
+        }
+        int hourEnd = length - 9; // Index of the ':' after the hour
+        if (text.charAt(2) != '-' || text.charAt(6) != '-' || text.charAt(11) != ' ' || text.charAt(hourEnd) != ':'
+                || text.charAt(hourEnd + 3) != ':' || text.charAt(hourEnd + 6) != ' ' || text.charAt(length - 1) != 'M') {
+            return MALFORMED;
+        }
+
+        int day = twoDigits(text, 0);
+        int month = month(text, 3);
+        int century = twoDigits(text, 7);
+        int yearOfCentury = twoDigits(text, 9);
+        int hour = length == 22 ? digit(text.charAt(12)) : twoDigits(text, 12);
+        int minute = twoDigits(text, hourEnd + 1);
+        int second = twoDigits(text, hourEnd + 4);
+        char meridiem = text.charAt(length - 2);
+        if (month < 1 || century < 0 || yearOfCentury < 0 || hour < 1 || hour > 12 || minute < 0 || minute > 59
+                || second < 0 || second > 59 || (meridiem != 'A' && meridiem != 'P')) {
+            return MALFORMED;
+        }
+        int year = century * 100 + yearOfCentury;
+        if (day < 1 || day > lengthOfMonth(year, month)) {
+            return MALFORMED;
+        }
+
+        int hourOfDay = hour % 12 + (meridiem == 'P' ? 12 : 0);
+        return epochDay(year, month, day) * MINUTES_PER_DAY + hourOfDay * 60 + minute;
+    }
+
+    /**
+     * Parses text the scan did not accept with the shared formatter.
+     *
+     * @return minutes since the epoch, or {@link #MALFORMED} if the formatter does not accept the text either.
+     */
+    private static long parseWithFormatter(CharSequence text) {
+        try {
+            return toEpochMinute(LocalDateTime.parse(text, DateUtils.getLocalDateTimeFormatter()));
+        } catch (DateTimeParseException e) {
+            return MALFORMED;
+        }
+    }
+
+    /**
+     * Counts the days from 1970-01-01 to a date, see days_from_civil in H. Hinnant's chrono algorithms.
+     */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_CYCLE + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Reads a three letter month abbreviation of the text.
+     *
+     * @return the month number, or -1 if it is not a month.
+     */
+    private static int month(CharSequence text, int start) {
+        char first = text.charAt(start);
+        char second = text.charAt(start + 1);
+        char third = text.charAt(start + 2);
+        for (int m = 0; m < MONTHS.length; m++) {
+            if (first == MONTHS[m][0] && second == MONTHS[m][1] && third == MONTHS[m][2]) {
+                return m + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads two digits of the text.
+     *
+     * @return the number, or -1 if either character is not a digit.
+     */
+    private static int twoDigits(CharSequence text, int start) {
+        int tens = digit(text.charAt(start));
+        int ones = digit(text.charAt(start + 1));
+        return tens < 0 || ones < 0 ? -1 : tens * 10 + ones;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+}
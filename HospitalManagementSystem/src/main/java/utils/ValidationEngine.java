@@ -0,0 +1,327 @@
+/**
+ * The ValidationEngine class checks the values of the system's fields (contact numbers, emails, IDs,
+ * dates and so on) without any console input or output, so imports, services and other non-console
+ * entry points can validate data and report problems in their own way.
+ *
+ * <p>Fixed-format fields are checked by hand-written character scans, and the email check reuses a
+ * precompiled pattern with one matcher per thread, so a valid value allocates nothing. All methods are
+ * safe to call from several threads, for example from a parallel stream over millions of imported rows.</p>
+ *
+ * <pre>
+ * ValidationResult result = ValidationEngine.validate(ValidationEngine.Field.CONTACT_NO, contactNo);
+ * if (!result.isValid()) {
+ *     rejected.put(rowNumber, result.getMessage());
+ * }
+ * </pre>
+ */
+package utils;
+
+import enums.Gender;
+import enums.Role;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public final class ValidationEngine {
+
+    /**
+     * The fields the engine can check.
+     */
+    public enum Field {
+        /** Hospital (login) ID: 1 to 32 letters, digits, '_', '.' or '-'. */
+        HOSPITAL_ID("Hospital ID must be 1 to 32 letters, digits, '_', '.' or '-'"),
+        /** Patient ID: "P" followed by digits, such as "P1001". */
+        PATIENT_ID("Patient ID must be P followed by digits"),
+        /** Doctor ID: "D" followed by digits, such as "D1001". */
+        DOCTOR_ID("Doctor ID must be D followed by digits"),
+        /** Contact number: exactly 8 digits. */
+        CONTACT_NO("Contact No. must be 8 digits"),
+        /** Email address in a basic user@domain.tld form. */
+        EMAIL("Invalid email"),
+        /** Date in the dd-MMM-yyyy form of the data files, such as "14-May-1980". */
+        DATE("Date must look like 14-May-1980"),
+        /** Gender: Male or Female, in any case. */
+        GENDER("Gender must be Male or Female"),
+        /** Blood type: A, B, AB or O followed by + or -, in any case. */
+        BLOOD_TYPE("Unknown blood type"),
+        /** Role: Patient, Doctor, Pharmacist or Administrator, in any case. */
+        ROLE("Unknown role"),
+        /** Any text that is not blank. */
+        TEXT("Required value is blank");
+
+        private final String message;
+
+        Field(String message) {
+            this.message = message;
+        }
+
+        /**
+         * Returns the message reported when a value of this field is invalid.
+         *
+         * @return the message.
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /** Maximum length of a hospital ID. */
+    private static final int MAX_HOSPITAL_ID_LENGTH = 32;
+
+    /** Maximum number of digits of a patient or doctor ID, so the number fits in an int. */
+    private static final int MAX_ID_DIGITS = 9;
+
+    /** Month abbreviations of the date format, in month order. */
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    /** Cached copy of the roles, so checking a role does not clone the array on every call. */
+    private static final Role[] ROLES = Role.values();
+
+    /** Pattern of a basic email address. */
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$");
+
+    /** One reusable email matcher per thread, as a {@link Matcher} is not thread safe. */
+    private static final ThreadLocal<Matcher> EMAIL_MATCHER = ThreadLocal.withInitial(() -> EMAIL_PATTERN.matcher(""));
+
+    /**
+     * Private constructor to prevent instantiation of this utility class.
+     */
+    private ValidationEngine() { }
+
+    /**
+     * Checks a value of a field.
+     *
+     * @param field the field.
+     * @param value the value; {@code null} is invalid for every field.
+     * @return the shared valid result, or an invalid result with the field's message.
+     */
+    public static ValidationResult validate(Field field, String value) {
+        return isValid(field, value) ? ValidationResult.valid() : ValidationResult.invalid(field, value, field.getMessage());
+    }
+
+    /**
+     * Checks a value of a field without creating a result.
+     *
+     * @param field the field.
+     * @param value the value; {@code null} is invalid for every field.
+     * @return {@code true} if the value is valid.
+     */
+    public static boolean isValid(Field field, String value) {
+        if (value == null) {
+            return false;
+        }
+        switch (field) {
+            case HOSPITAL_ID:
+                return isHospitalId(value);
+            case PATIENT_ID:
+                return isPrefixedId(value, 'P');
+            case DOCTOR_ID:
+                return isPrefixedId(value, 'D');
+            case CONTACT_NO:
+                return isContactNo(value);
+            case EMAIL:
+                return isEmail(value);
+            case DATE:
+                return isDate(value);
+            case GENDER:
+                return value.equalsIgnoreCase(Gender.MALE.getDisplayValue()) || value.equalsIgnoreCase(Gender.FEMALE.getDisplayValue());
+            case BLOOD_TYPE:
+                return isBloodType(value);
+            case ROLE:
+                return isRole(value);
+            case TEXT:
+                return !value.trim().isEmpty();
+            default:
+                throw new IllegalArgumentException("Unknown field: " + field);
+        }
+    }
+
+    /**
+     * Checks the cells of a row against the fields of its columns.
+     *
+     * @param columns the field of each column; a {@code null} field leaves its column unchecked.
+     * @param row     the cells of the row; missing cells are invalid.
+     * @return the invalid results in column order, or an empty list if the row is valid.
+     */
+    public static List<ValidationResult> validateRow(Field[] columns, List<String> row) {
+        List<ValidationResult> errors = Collections.emptyList();
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == null) {
+                continue;
+            }
+            String value = i < row.size() ? row.get(i) : null;
+            if (!isValid(columns[i], value)) {
+                if (errors.isEmpty()) {
+                    errors = new ArrayList<>();
+                }
+                errors.add(ValidationResult.invalid(columns[i], value, columns[i].getMessage()));
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * Checks that a value is exactly 8 digits.
+     *
+     * @param value the value.
+     * @return {@code true} if it is a contact number.
+     */
+    public static boolean isContactNo(CharSequence value) {
+        if (value.length() != 8) {
+            return false;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a value is a basic email address.
+     *
+     * @param value the value.
+     * @return {@code true} if it is an email address.
+     */
+    public static boolean isEmail(CharSequence value) {
+        return EMAIL_MATCHER.get().reset(value).matches();
+    }
+
+    /**
+     * Checks that a value is a hospital ID.
+     *
+     * @param value the value.
+     * @return {@code true} if it is 1 to 32 letters, digits, '_', '.' or '-'.
+     */
+    public static boolean isHospitalId(CharSequence value) {
+        int length = value.length();
+        if (length == 0 || length > MAX_HOSPITAL_ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!isDigit(c) && !(c >= 'A' && c <= 'Z') && !(c >= 'a' && c <= 'z') && c != '_' && c != '.' && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a value is a patient ID.
+     *
+     * @param value the value.
+     * @return {@code true} if it is "P" followed by digits.
+     */
+    public static boolean isPatientId(CharSequence value) {
+        return isPrefixedId(value, 'P');
+    }
+
+    /**
+     * Checks that a value is a doctor ID.
+     *
+     * @param value the value.
+     * @return {@code true} if it is "D" followed by digits.
+     */
+    public static boolean isDoctorId(CharSequence value) {
+        return isPrefixedId(value, 'D');
+    }
+
+    /**
+     * Checks that a value is a real date in the dd-MMM-yyyy form of the data files, with English
+     * month abbreviations as written by the system.
+     *
+     * @param value the value.
+     * @return {@code true} if it is a date.
+     */
+    public static boolean isDate(CharSequence value) {
+        if (value.length() != 11 || value.charAt(2) != '-' || value.charAt(6) != '-') {
+            return false;
+        }
+        int day = twoDigits(value, 0);
+        int century = twoDigits(value, 7);
+        int yearOfCentury = twoDigits(value, 9);
+        int month = month(value, 3);
+        if (day < 1 || century < 0 || yearOfCentury < 0 || month < 1) {
+            return false;
+        }
+        return day <= YearMonth.of(century * 100 + yearOfCentury, month).lengthOfMonth();
+    }
+
+    private static boolean isPrefixedId(CharSequence value, char prefix) {
+        int length = value.length();
+        if (length < 2 || length > MAX_ID_DIGITS + 1 || value.charAt(0) != prefix) {
+            return false;
+        }
+        for (int i = 1; i < length; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isBloodType(String value) {
+        int length = value.length();
+        if (length < 2 || length > 3) {
+            return false;
+        }
+        char sign = value.charAt(length - 1);
+        if (sign != '+' && sign != '-') {
+            return false;
+        }
+        char first = Character.toUpperCase(value.charAt(0));
+        if (length == 2) {
+            return first == 'A' || first == 'B' || first == 'O';
+        }
+        return first == 'A' && Character.toUpperCase(value.charAt(1)) == 'B';
+    }
+
+    private static boolean isRole(String value) {
+        for (Role role : ROLES) {
+            if (role.getDisplayValue().equalsIgnoreCase(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Reads two digits of a value.
+     *
+     * @return the number, or -1 if either character is not a digit.
+     */
+    private static int twoDigits(CharSequence value, int start) {
+        char tens = value.charAt(start);
+        char ones = value.charAt(start + 1);
+        if (!isDigit(tens) || !isDigit(ones)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    /**
+     * Reads a three letter month abbreviation of a value.
+     *
+     * @return the month number, or -1 if it is not a month.
+     */
+    private static int month(CharSequence value, int start) {
+        for (int m = 0; m < MONTHS.length; m++) {
+            String month = MONTHS[m];
+            if (value.charAt(start) == month.charAt(0) && value.charAt(start + 1) == month.charAt(1)
+                    && value.charAt(start + 2) == month.charAt(2)) {
+                return m + 1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * The ValidationResult class is the outcome of checking one value with the {@link ValidationEngine}:
+ * either valid, or invalid with the field, the rejected value and a message that can be shown to a user.
+ *
+ * <p>Valid results are a single shared instance, so validating clean data allocates nothing.</p>
+ */
+package utils;
+
+public final class ValidationResult {
+
+    /** The result of every valid value. */
+    private static final ValidationResult VALID = new ValidationResult(null, null, null);
+
+    private final ValidationEngine.Field field;
+    private final String value;
+    private final String message;
+
+    private ValidationResult(ValidationEngine.Field field, String value, String message) {
+        this.field = field;
+        this.value = value;
+        this.message = message;
+    }
+
+    /**
+     * Returns the result of a valid value.
+     *
+     * @return the shared valid result.
+     */
+    public static ValidationResult valid() {
+        return VALID;
+    }
+
+    /**
+     * Creates the result of an invalid value.
+     *
+     * @param field   the field that was checked.
+     * @param value   the rejected value.
+     * @param message why the value was rejected.
+     * @return the result.
+     */
+    public static ValidationResult invalid(ValidationEngine.Field field, String value, String message) {
+        return new ValidationResult(field, value, message);
+    }
+
+    /**
+     * Checks whether the value was valid.
+     *
+     * @return {@code true} if the value was valid.
+     */
+    public boolean isValid() {
+        return this == VALID;
+    }
+
+    /**
+     * Returns the field that was checked.
+     *
+     * @return the field, or {@code null} for a valid result.
+     */
+    public ValidationEngine.Field getField() {
+        return field;
+    }
+
+    /**
+     * Returns the rejected value.
+     *
+     * @return the value, or {@code null} for a valid result.
+     */
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * Returns why the value was rejected.
+     *
+     * @return the message, or {@code null} for a valid result.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return isValid() ? "valid" : field + " '" + value + "': " + message;
+    }
+}
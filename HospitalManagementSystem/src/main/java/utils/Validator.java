@@ -14,6 +14,7 @@ public class Validator {
     /**
      * Validates integer input from the user.
      * The method ensures that the input is an integer and prompts the user until a valid input is provided.
+     * The rest of the line is consumed, so a following line read starts on the next line.
      *
      * @param scanner the Scanner object to read user input.
      * @return the validated integer input.
@@ -23,6 +24,9 @@ public class Validator {
         while (true) {
             if (scanner.hasNextInt()) {
                 input = scanner.nextInt();
+                if (scanner.hasNextLine()) {
+                    scanner.nextLine(); // Drop the line break, so the next string input is not read as empty
+                }
                 break;  // Input is valid, exit the loop
             } else {
                 System.out.println("Invalid input. Try again.");
@@ -40,7 +44,6 @@ public class Validator {
      * @return the validated non-empty string input.
      */
     public static String validateStringInput(Scanner scanner) {
-        scanner = new Scanner(System.in); // Ensures new scanner instance is used for string input.
         while (true) {
             String input = scanner.nextLine().trim();
             if (!input.isEmpty()) {
@@ -59,15 +62,22 @@ public class Validator {
      * @return true if the contact number is valid, false otherwise.
      */
     public static boolean validateContactNo(String contactNo) {
-        // Define the regex pattern: only digits, exactly 8 characters long
-        String regex = "^\\d{8}$";
-
-        // Check if the contact number matches the pattern
-        if (!contactNo.matches(regex)) {
+        boolean valid = isValidContactNo(contactNo);
+        if (!valid) {
             System.out.println("Invalid Phone Number! (8 Digits)");
         }
+        return valid;
+    }
 
-        return contactNo.matches(regex);
+    /**
+     * Checks an 8-digit contact number without printing anything, for non-interactive callers.
+     * Safe to call from several threads.
+     *
+     * @param contactNo the contact number as a string.
+     * @return true if the contact number is valid, false otherwise.
+     */
+    public static boolean isValidContactNo(String contactNo) {
+        return ValidationEngine.isContactNo(contactNo);
     }
 
     /**
@@ -78,14 +88,21 @@ public class Validator {
      * @return true if the email is valid, false otherwise.
      */
     public static boolean validateEmail(String email) {
-        // Regex pattern for a basic email format
-        String regex = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$";
-
-        // Check if the email matches the pattern
-        if (!email.matches(regex)) {
+        boolean valid = isValidEmail(email);
+        if (!valid) {
             System.out.println("Invalid Email");
         }
+        return valid;
+    }
 
-        return email.matches(regex);
+    /**
+     * Checks an email address without printing anything, for non-interactive callers.
+     * Safe to call from several threads.
+     *
+     * @param email the email address as a string.
+     * @return true if the email is valid, false otherwise.
+     */
+    public static boolean isValidEmail(String email) {
+        return ValidationEngine.isEmail(email);
     }
 }
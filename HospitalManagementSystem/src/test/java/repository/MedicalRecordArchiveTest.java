@@ -0,0 +1,117 @@
+/**
+ * Tests for {@link MedicalRecordArchive}, with segments small enough that records span many mappings.
+ */
+package repository;
+
+import model.MedicalRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MedicalRecordArchiveTest {
+
+    /** About two records per segment. */
+    private static final long SEGMENT_SIZE = 100;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsRecordsAcrossSegmentsBeforeAndAfterReopening() throws IOException {
+        String file = directory.resolve("Medical_Records_Archive.bin").toString();
+        try (MedicalRecordArchive archive = open(file)) {
+            archive.appendAll(records(1, 10));
+            archive.append(record(11));
+            archive.appendAll(records(12, 20));
+            archive.appendAll(records(5, 6)); // Already archived
+
+            assertEquals(20, archive.size());
+            assertRecords(archive);
+        }
+
+        try (MedicalRecordArchive archive = open(file)) {
+            assertEquals(20, archive.size());
+            assertEquals(20, archive.getMaxRecordId());
+            assertRecords(archive);
+
+            archive.append(record(21));
+            assertEquals("Diagnosis 21", archive.findById(21).getDiagnoses());
+            assertEquals("Diagnosis 20", archive.findById(20).getDiagnoses());
+        }
+    }
+
+    @Test
+    void cutsOffATornRecord() throws IOException {
+        Path path = directory.resolve("Medical_Records_Archive.bin");
+        try (MedicalRecordArchive archive = open(path.toString())) {
+            archive.appendAll(records(1, 3));
+        }
+        long committedLength = Files.size(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(8).putInt(500).putInt(4), committedLength); // Half a record
+        }
+
+        try (MedicalRecordArchive archive = open(path.toString())) {
+            assertEquals(committedLength, Files.size(path));
+            assertEquals(3, archive.size());
+            archive.append(record(4));
+            assertEquals("Prescription 4", archive.findById(4).getPrescription());
+        }
+        try (MedicalRecordArchive archive = open(path.toString())) {
+            assertEquals(4, archive.size());
+            assertFalse(archive.contains(5));
+            assertNull(archive.findById(5));
+        }
+    }
+
+    private static MedicalRecordArchive open(String file) throws IOException {
+        return new MedicalRecordArchive(file, appointmentId -> null, SEGMENT_SIZE);
+    }
+
+    private static void assertRecords(MedicalRecordArchive archive) {
+        for (int id = 1; id <= 20; id++) {
+            MedicalRecord record = archive.findById(id);
+            assertEquals(id, record.getId());
+            assertEquals("Diagnosis " + id, record.getDiagnoses());
+            assertEquals("Prescription " + id, record.getPrescription());
+            assertEquals(id % 5, record.getPrescriptionAmount());
+        }
+        List<Integer> ids = new ArrayList<>();
+        for (MedicalRecord record : archive.findByPatientId("P1003")) {
+            ids.add(record.getId());
+        }
+        assertEquals(Arrays.asList(3, 7, 11, 15, 19), ids);
+    }
+
+    private static List<MedicalRecord> records(int firstId, int lastId) {
+        List<MedicalRecord> records = new ArrayList<>();
+        for (int id = firstId; id <= lastId; id++) {
+            records.add(record(id));
+        }
+        return records;
+    }
+
+    private static MedicalRecord record(int id) {
+        MedicalRecord record = new MedicalRecord();
+        record.setId(id);
+        record.setPatientId("P100" + (id % 4));
+        record.setDiagnoses("Diagnosis " + id);
+        record.setTreatment(id % 2 == 0 ? null : "Rest");
+        record.setPrescription("Prescription " + id);
+        record.setPrescriptionAmount(id % 5);
+        return record;
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Tests for {@link HospitalApi#dispensePending}: stock is reserved in record ID order and everything
+ * dispensed is stored in one commit.
+ */
+package services;
+
+import constants.FilePath;
+import model.MedicalRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import storage.InMemoryStorageEngine;
+import storage.StorageEngines;
+import storage.Table;
+import storage.UnitOfWork;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DispensePendingTest {
+
+    private InMemoryStorageEngine tables;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        removeSealedData();
+        tables = new InMemoryStorageEngine();
+        tables.write(Table.ACCOUNTS, rows(Arrays.asList("Hospital ID", "Password (Masked)", "Role")));
+        tables.write(Table.STAFF_INFO, rows(Arrays.asList("Hospital ID", "Gender", "Age", "Doctor ID")));
+        tables.write(Table.PATIENT_INFO, rows(Arrays.asList("Hospital ID", "Patient ID", "Patient Name", "Gender",
+                "Date of Birth", "Blood Type", "Email", "Contact No.")));
+        tables.write(Table.APPOINTMENTS, rows(Arrays.asList("Appointment ID", "Doctor ID", "Patient ID", "Appointment Time", "Status")));
+        tables.write(Table.MEDICAL_INVENTORY, rows(
+                Arrays.asList("Medicine Name", "Current Stock", "Low Stock Level Alert", "Replenish Amount"),
+                Arrays.asList("Paracetamol", "10", "2", "0"),
+                Arrays.asList("Ibuprofen", "5", "2", "0")));
+        tables.write(Table.MEDICAL_RECORDS, rows(
+                Arrays.asList("Patient ID", "Diagnosis", "Treatment", "Prescription", "Prescription Amount", "Status", "ID"),
+                record(1, "Paracetamol", 6, "PENDING"),
+                record(2, "Ibuprofen", 5, "PENDING"),
+                record(3, "Paracetamol", 6, "PENDING"),
+                record(4, "Paracetamol", 4, "PENDING"),
+                record(5, "Paracetamol", 1, "DISPENSED")));
+        StorageEngines.set(tables);
+        RepositoryContext.invalidate();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        RepositoryContext.invalidate();
+        StorageEngines.set(null);
+        removeSealedData();
+    }
+
+    @Test
+    void reservesStockInRecordIdOrder() throws IOException {
+        DispenseReport report = new HospitalApi().dispensePending(Arrays.asList(4, 3, 2, 1, 5, 99));
+
+        assertEquals(Arrays.asList(1, 2, 4), ids(report.getDispensed()));
+        assertEquals(Collections.singletonList(3), ids(report.getUnfilled()));
+        assertEquals(Arrays.asList(5, 99), report.getNotPending());
+
+        assertEquals("0", stock().get("Paracetamol"));
+        assertEquals("0", stock().get("Ibuprofen"));
+        Map<String, String> statuses = recordStatuses();
+        assertEquals("DISPENSED", statuses.get("1"));
+        assertEquals("DISPENSED", statuses.get("2"));
+        assertEquals("PENDING", statuses.get("3"));
+        assertEquals("DISPENSED", statuses.get("4"));
+        assertEquals(Collections.singletonList(3), ids(new HospitalApi().listPendingOutcomes()));
+    }
+
+    @Test
+    void dispensesEveryPendingRecordThatFitsWhenNoneAreNamed() throws IOException {
+        DispenseReport report = new HospitalApi().dispensePending(null);
+
+        assertEquals(Arrays.asList(1, 2, 4), ids(report.getDispensed()));
+        assertEquals(Collections.singletonList(3), ids(report.getUnfilled()));
+        assertTrue(report.getNotPending().isEmpty());
+    }
+
+    @Test
+    void changesNothingWhenNoRecordCanBeFilled() throws IOException {
+        HospitalApi api = new HospitalApi();
+        assertTrue(api.dispense(1));
+
+        assertFalse(api.dispense(1)); // No longer pending
+        DispenseReport report = api.dispensePending(Collections.singletonList(3));
+        assertTrue(report.getDispensed().isEmpty());
+        assertEquals(Collections.singletonList(3), ids(report.getUnfilled()));
+
+        assertEquals("4", stock().get("Paracetamol"));
+        assertEquals("PENDING", recordStatuses().get("3"));
+    }
+
+    @Test
+    void doesNotDispenseAMedicationMissingFromTheInventory() throws IOException {
+        UnitOfWork work = new UnitOfWork();
+        assertFalse(RepositoryContext.get().getMedicationRepository().dispenseMedication("Aspirin", 1, work));
+        assertTrue(RepositoryContext.get().getMedicationRepository().dispenseMedication("Ibuprofen", 1, work));
+    }
+
+    private Map<String, String> stock() throws IOException {
+        return column(Table.MEDICAL_INVENTORY, 0, 1);
+    }
+
+    private Map<String, String> recordStatuses() throws IOException {
+        return column(Table.MEDICAL_RECORDS, 6, 5);
+    }
+
+    /** Reads one column of a table by key, through the engine the repositories committed to. */
+    private Map<String, String> column(Table table, int keyColumn, int valueColumn) throws IOException {
+        Map<String, String> values = new HashMap<>();
+        List<List<String>> rows = tables.readAll(table);
+        for (List<String> row : rows.subList(1, rows.size())) {
+            values.put(row.get(keyColumn), row.get(valueColumn));
+        }
+        return values;
+    }
+
+    private static List<Integer> ids(List<MedicalRecord> records) {
+        List<Integer> ids = new ArrayList<>();
+        for (MedicalRecord record : records) {
+            ids.add(record.getId());
+        }
+        return ids;
+    }
+
+    private static List<String> record(int id, String prescription, int amount, String status) {
+        return Arrays.asList("P1001", "Flu", "Rest", prescription, String.valueOf(amount), status, String.valueOf(id));
+    }
+
+    @SafeVarargs
+    private static List<List<String>> rows(List<String>... rows) {
+        return Arrays.asList(rows);
+    }
+
+    /** Removes the archive and partitions the repositories create beside the tables. */
+    private static void removeSealedData() throws IOException {
+        Files.deleteIfExists(Paths.get(Table.resolveDataFile(FilePath.MEDICAL_RECORD_ARCHIVE_FILE_PATH)));
+        Path partitions = Paths.get(Table.resolveDataFile(FilePath.APPOINTMENT_PARTITIONS_DIR_PATH));
+        if (Files.exists(partitions)) {
+            try (Stream<Path> files = Files.walk(partitions)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
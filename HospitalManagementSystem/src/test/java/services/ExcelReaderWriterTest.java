@@ -0,0 +1,59 @@
+/**
+ * Tests for {@link ExcelReaderWriter#readExternal}: cells of intake files stay in their columns.
+ */
+package services;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ExcelReaderWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsCellsInTheirColumnsAndReadsBlankCellsAsEmpty() throws IOException {
+        Path file = directory.resolve("intake.xlsx");
+        try (Workbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row header = sheet.createRow(0);
+            header.createCell(0).setCellValue("Hospital ID");
+            header.createCell(1).setCellValue("Role");
+            header.createCell(2).setCellValue("Gender");
+            header.createCell(3).setCellValue("Age");
+            Row missingId = sheet.createRow(1); // Hospital ID never filled in
+            missingId.createCell(1).setCellValue("Doctor");
+            missingId.createCell(2).setCellValue("Male");
+            missingId.createCell(3).setCellValue(41);
+            Row blankGender = sheet.createRow(3); // Row 3 never filled in, gender cleared
+            blankGender.createCell(0).setCellValue("D201");
+            blankGender.createCell(1).setCellValue("Pharmacist");
+            blankGender.createCell(2).setBlank();
+            blankGender.createCell(3).setCellValue(35);
+            try (OutputStream out = Files.newOutputStream(file)) {
+                workbook.write(out);
+            }
+        }
+
+        List<List<String>> rows = ExcelReaderWriter.readExternal(file.toString());
+
+        assertEquals(4, rows.size());
+        assertEquals(Arrays.asList("", "Doctor", "Male", "41"), rows.get(1));
+        assertEquals(Collections.emptyList(), rows.get(2));
+        assertEquals(Arrays.asList("D201", "Pharmacist", "", "35"), rows.get(3));
+    }
+}
@@ -0,0 +1,144 @@
+/**
+ * Tests for {@link Journal} and the replay of its entries by {@link JournaledStorageEngine}.
+ */
+package storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JournalTest {
+
+    private static final List<String> HEADER = Arrays.asList("Medicine Name", "Initial Stock", "Low Stock Level Alert");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsBackEveryCommittedEntry() throws IOException {
+        Path file = directory.resolve("Journal.log");
+        Journal journal = new Journal(file);
+        journal.append(Arrays.asList(
+                RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Paracetamol", "99", "20")),
+                RowChange.upsert(Table.MEDICAL_RECORDS, 6, Arrays.asList("P1001", "Flu", null, "Paracetamol", "2", "Pending", "7"))));
+        journal.append(Collections.singletonList(RowChange.delete(Table.APPOINTMENTS, 0, "12")));
+
+        List<List<RowChange>> entries = new Journal(file).readEntries();
+
+        assertEquals(2, entries.size());
+        assertEquals(2, entries.get(0).size());
+        RowChange stock = entries.get(0).get(0);
+        assertEquals(RowChange.Type.UPSERT, stock.getType());
+        assertEquals(Table.MEDICAL_INVENTORY, stock.getTable());
+        assertEquals("Paracetamol", stock.getKey());
+        assertEquals(Arrays.asList("Paracetamol", "99", "20"), stock.getRow());
+        RowChange record = entries.get(0).get(1);
+        assertEquals(6, record.getKeyColumn());
+        assertEquals("7", record.getKey());
+        assertNull(record.getRow().get(2));
+        RowChange delete = entries.get(1).get(0);
+        assertEquals(RowChange.Type.DELETE, delete.getType());
+        assertEquals("12", delete.getKey());
+        assertNull(delete.getRow());
+    }
+
+    @Test
+    void cutsOffATornTail() throws IOException {
+        Path file = directory.resolve("Journal.log");
+        Journal journal = new Journal(file);
+        journal.append(Collections.singletonList(RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Paracetamol", "99", "20"))));
+        long committedLength = Files.size(file);
+        journal.append(Collections.singletonList(RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Ibuprofen", "50", "10"))));
+        truncate(file, Files.size(file) - 3); // Crash halfway through writing the second entry
+
+        assertEquals(1, new Journal(file).readEntries().size());
+        assertEquals(committedLength, Files.size(file));
+
+        journal.append(Collections.singletonList(RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Amoxicillin", "75", "15"))));
+        List<List<RowChange>> entries = new Journal(file).readEntries();
+        assertEquals(2, entries.size());
+        assertEquals("Amoxicillin", entries.get(1).get(0).getKey());
+    }
+
+    @Test
+    void discardsAnEntryThatFailsItsChecksumAndEverythingAfterIt() throws IOException {
+        Path file = directory.resolve("Journal.log");
+        Journal journal = new Journal(file);
+        journal.append(Collections.singletonList(RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Paracetamol", "99", "20"))));
+        long committedLength = Files.size(file);
+        journal.append(Collections.singletonList(RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Ibuprofen", "50", "10"))));
+        journal.append(Collections.singletonList(RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Amoxicillin", "75", "15"))));
+        corrupt(file, committedLength + 12); // A byte of the second entry's payload
+
+        List<List<RowChange>> entries = new Journal(file).readEntries();
+
+        assertEquals(1, entries.size());
+        assertEquals("Paracetamol", entries.get(0).get(0).getKey());
+        assertEquals(committedLength, Files.size(file));
+    }
+
+    @Test
+    void readsNothingWithoutAFile() throws IOException {
+        assertEquals(0, new Journal(directory.resolve("Journal.log")).readEntries().size());
+    }
+
+    @Test
+    void replaysCommittedEntriesAfterACrashAndEmptiesTheJournalAtACheckpoint() throws IOException {
+        Path file = directory.resolve("Journal.log");
+        InMemoryStorageEngine tables = new InMemoryStorageEngine();
+        tables.write(Table.MEDICAL_INVENTORY, inventory(Arrays.asList("Paracetamol", "100", "20"), Arrays.asList("Ibuprofen", "50", "10")));
+
+        JournaledStorageEngine engine = new JournaledStorageEngine(tables, file);
+        engine.commit(Arrays.asList(
+                RowChange.upsert(Table.MEDICAL_INVENTORY, 0, Arrays.asList("Paracetamol", "98", "20")),
+                RowChange.delete(Table.MEDICAL_INVENTORY, 0, "Ibuprofen")));
+        // The tables are untouched until a checkpoint; the engine is dropped as if the process died here
+        assertEquals(3, tables.readAll(Table.MEDICAL_INVENTORY).size());
+
+        JournaledStorageEngine restarted = new JournaledStorageEngine(tables, file);
+        List<List<String>> expected = inventory(Arrays.asList("Paracetamol", "98", "20"));
+        assertEquals(expected, restarted.readAll(Table.MEDICAL_INVENTORY));
+
+        restarted.checkpoint();
+        assertEquals(expected, tables.readAll(Table.MEDICAL_INVENTORY));
+        assertEquals(0, Files.size(file));
+        assertEquals(expected, new JournaledStorageEngine(tables, file).readAll(Table.MEDICAL_INVENTORY));
+    }
+
+    @SafeVarargs
+    private static List<List<String>> inventory(List<String>... rows) {
+        List<List<String>> table = new ArrayList<>();
+        table.add(HEADER);
+        table.addAll(Arrays.asList(rows));
+        return table;
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer oneByte = ByteBuffer.allocate(1);
+            channel.read(oneByte, position);
+            oneByte.put(0, (byte) (oneByte.get(0) ^ 0x5A));
+            oneByte.rewind();
+            channel.write(oneByte, position);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Tests for {@link TableFiles}: keeping generations on replace and restoring them at startup.
+ */
+package storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class TableFilesTest {
+
+    /** A file is intact if it holds a complete table, which these tests mark with a trailing "END". */
+    private static final Predicate<Path> IS_INTACT = file -> {
+        try {
+            return read(file).endsWith("END");
+        } catch (IOException e) {
+            return false;
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsTheReplacedVersionsAsGenerations() throws IOException {
+        Path target = directory.resolve("Medicine_List.csv");
+        for (int version = 1; version <= 5; version++) {
+            replace(target, "v" + version + " END");
+        }
+
+        assertEquals("v5 END", read(target));
+        assertEquals("v4 END", read(TableFiles.generationFile(target, 1)));
+        assertEquals("v3 END", read(TableFiles.generationFile(target, 2)));
+        assertEquals("v2 END", read(TableFiles.generationFile(target, 3)));
+        assertFalse(Files.exists(TableFiles.generationFile(target, 4)));
+        assertFalse(Files.exists(TableFiles.tempFile(target)));
+    }
+
+    @Test
+    void keepsNoGenerationsWhenConfiguredWithNone() throws IOException {
+        System.setProperty(TableFiles.GENERATIONS_PROPERTY, "0");
+        try {
+            Path target = directory.resolve("Medicine_List.csv");
+            replace(target, "v1 END");
+            replace(target, "v2 END");
+
+            assertEquals("v2 END", read(target));
+            assertFalse(Files.exists(TableFiles.generationFile(target, 1)));
+        } finally {
+            System.clearProperty(TableFiles.GENERATIONS_PROPERTY);
+        }
+    }
+
+    @Test
+    void leavesAnIntactTableAloneAndDiscardsAnInterruptedWrite() throws IOException {
+        Path target = directory.resolve("Medicine_List.csv");
+        replace(target, "v1 END");
+        replace(target, "v2 END");
+        write(TableFiles.tempFile(target), "v3 cut sh");
+
+        assertEquals(0, TableFiles.recover(target, IS_INTACT));
+        assertEquals("v2 END", read(target));
+        assertFalse(Files.exists(TableFiles.tempFile(target)));
+    }
+
+    @Test
+    void restoresTheNewestIntactGenerationOfADamagedTable() throws IOException {
+        Path target = directory.resolve("Medicine_List.csv");
+        replace(target, "v1 END");
+        replace(target, "v2 END");
+        replace(target, "v3 END");
+        write(target, "v3 dam");
+        write(TableFiles.generationFile(target, 1), "v2 dam");
+
+        assertEquals(2, TableFiles.recover(target, IS_INTACT));
+        assertEquals("v1 END", read(target));
+        assertEquals("v1 END", read(TableFiles.generationFile(target, 2)));
+        assertFalse(Files.exists(TableFiles.tempFile(target)));
+    }
+
+    @Test
+    void restoresAMissingTable() throws IOException {
+        Path target = directory.resolve("Medicine_List.csv");
+        replace(target, "v1 END");
+        replace(target, "v2 END");
+        Files.delete(target);
+
+        assertEquals(1, TableFiles.recover(target, IS_INTACT));
+        assertEquals("v1 END", read(target));
+    }
+
+    @Test
+    void leavesADamagedTableWithoutAnIntactGeneration() throws IOException {
+        Path target = directory.resolve("Medicine_List.csv");
+        replace(target, "v1 END");
+        replace(target, "v2 END");
+        write(target, "v2 dam");
+        write(TableFiles.generationFile(target, 1), "v1 dam");
+
+        assertEquals(0, TableFiles.recover(target, IS_INTACT));
+        assertEquals("v2 dam", read(target));
+    }
+
+    private static void replace(Path target, String contents) throws IOException {
+        Path temp = TableFiles.tempFile(target);
+        write(temp, contents);
+        TableFiles.replace(temp, target);
+    }
+
+    private static void write(Path file, String contents) throws IOException {
+        Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String read(Path file) throws IOException {
+        return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    }
+}
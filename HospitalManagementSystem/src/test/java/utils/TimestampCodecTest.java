@@ -0,0 +1,87 @@
+/**
+ * Tests for {@link TimestampCodec}, checked against {@link DateTimeFormatter} in the format of the data files.
+ */
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimestampCodecTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd-MMM-yyyy h:mm:ss a", Locale.ENGLISH);
+
+    @Test
+    void roundTripsEveryDayFrom1899To2101() {
+        LocalTime[] times = {LocalTime.MIDNIGHT, LocalTime.of(0, 30), LocalTime.of(9, 5), LocalTime.NOON,
+                LocalTime.of(12, 59), LocalTime.of(13, 0), LocalTime.of(23, 59)};
+        for (LocalDate date = LocalDate.of(1899, 1, 1); date.isBefore(LocalDate.of(2102, 1, 1)); date = date.plusDays(1)) {
+            for (LocalTime time : times) {
+                LocalDateTime dateTime = LocalDateTime.of(date, time);
+                String text = dateTime.format(FORMATTER);
+                long epochMinute = TimestampCodec.toEpochMinute(dateTime);
+
+                assertEquals(epochMinute, TimestampCodec.parse(text), text);
+                assertEquals(text, TimestampCodec.format(epochMinute));
+                assertEquals(dateTime, TimestampCodec.toLocalDateTime(epochMinute));
+            }
+        }
+    }
+
+    @Test
+    void readsTwelveAsMidnightBeforeNoonAndNoonAfter() {
+        assertEquals(LocalDateTime.of(2024, 11, 18, 0, 0), parse("18-Nov-2024 12:00:00 AM"));
+        assertEquals(LocalDateTime.of(2024, 11, 18, 0, 45), parse("18-Nov-2024 12:45:00 AM"));
+        assertEquals(LocalDateTime.of(2024, 11, 18, 12, 0), parse("18-Nov-2024 12:00:00 PM"));
+        assertEquals(LocalDateTime.of(2024, 11, 18, 12, 45), parse("18-Nov-2024 12:45:00 PM"));
+
+        assertEquals("18-Nov-2024 12:00:00 AM", format(LocalDateTime.of(2024, 11, 18, 0, 0)));
+        assertEquals("18-Nov-2024 12:00:00 PM", format(LocalDateTime.of(2024, 11, 18, 12, 0)));
+        assertEquals("18-Nov-2024 11:59:00 PM", format(LocalDateTime.of(2024, 11, 18, 23, 59)));
+    }
+
+    @Test
+    void readsFebruary29OfLeapYears() {
+        assertEquals(LocalDateTime.of(2024, 2, 29, 9, 30), parse("29-Feb-2024 9:30:00 AM"));
+        assertEquals(LocalDateTime.of(2000, 2, 29, 9, 30), parse("29-Feb-2000 9:30:00 AM"));
+        assertEquals("29-Feb-2000 9:30:00 AM", format(LocalDateTime.of(2000, 2, 29, 9, 30)));
+        assertEquals("01-Mar-2100 9:30:00 AM", format(LocalDateTime.of(2100, 2, 28, 9, 30).plusDays(1)));
+    }
+
+    @Test
+    void resolvesDaysPastTheEndOfTheMonthLikeTheFormatter() {
+        // The scan rejects them and the shared formatter clamps them to the last day, as before the codec
+        assertEquals(LocalDateTime.of(2023, 2, 28, 9, 30), parse("29-Feb-2023 9:30:00 AM"));
+        assertEquals(LocalDateTime.of(2100, 2, 28, 9, 30), parse("29-Feb-2100 9:30:00 AM"));
+        assertEquals(LocalDateTime.of(2024, 11, 30, 14, 0), parse("31-Nov-2024 2:00:00 PM"));
+    }
+
+    @Test
+    void dropsSeconds() {
+        assertEquals(LocalDateTime.of(2024, 11, 18, 14, 0), parse("18-Nov-2024 2:00:59 PM"));
+    }
+
+    @Test
+    void rejectsTextThatIsNotAnAppointmentTime() {
+        assertEquals(TimestampCodec.MALFORMED, TimestampCodec.parse(null));
+        assertEquals(TimestampCodec.MALFORMED, TimestampCodec.parse(""));
+        assertEquals(TimestampCodec.MALFORMED, TimestampCodec.parse("18-Nov-2024"));
+        assertEquals(TimestampCodec.MALFORMED, TimestampCodec.parse("18-Nov-2024 13:00:00 PM"));
+        assertEquals(TimestampCodec.MALFORMED, TimestampCodec.parse("32-Nov-2024 2:00:00 PM"));
+        assertEquals(TimestampCodec.MALFORMED, TimestampCodec.parse("18-Xyz-2024 2:00:00 PM"));
+    }
+
+    private static LocalDateTime parse(String text) {
+        return TimestampCodec.toLocalDateTime(TimestampCodec.parse(text));
+    }
+
+    private static String format(LocalDateTime dateTime) {
+        return TimestampCodec.format(TimestampCodec.toEpochMinute(dateTime));
+    }
+}